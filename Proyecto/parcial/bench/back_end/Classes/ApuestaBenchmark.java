@@ -0,0 +1,63 @@
+package back_end.Classes;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.DatosSinteticos;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la creación de una apuesta de punta a punta: descuento del saldo,
+ * actualización del usuario y escritura en apuestas.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ApuestaBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int filas;
+
+    private DatosSinteticos datos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        datos = DatosSinteticos.generar(filas, 42);
+        datos.escribir();
+    }
+
+    @Setup(Level.Iteration)
+    public void restaurarApuestas() throws IOException {
+        datos.escribirApuestas();
+    }
+
+    @Benchmark
+    public boolean crearApuesta() throws PersistenciaException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Usuario estudiante = elegir(datos.getUsuarios(), aleatorio);
+        List<Usuario> otros = List.of(elegir(datos.getUsuarios(), aleatorio));
+        Lugar lugar = elegir(datos.getLugares(), aleatorio);
+        Juego juego = elegir(datos.getJuegos(), aleatorio);
+        return new Apuesta(estudiante, lugar, juego, 10, otros).crearApuesta(estudiante, lugar, juego, 10, otros);
+    }
+
+    private static <T> T elegir(List<T> lista, ThreadLocalRandom aleatorio) {
+        return lista.get(aleatorio.nextInt(lista.size()));
+    }
+}
@@ -0,0 +1,55 @@
+package back_end.Classes;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.DatosSinteticos;
+import back_end.seguridad.ServicioContrasenas;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el inicio de sesión completo (búsqueda por correo más verificación
+ * de la contraseña), con y sin la cache de verificaciones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UsuarioBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int filas;
+
+    @Setup
+    public void preparar() throws IOException {
+        DatosSinteticos.generar(filas, 42).escribir();
+    }
+
+    @Benchmark
+    public Usuario iniciarSesion() throws PersistenciaException {
+        return Usuario.iniciarSesion(correoAleatorio(), DatosSinteticos.CONTRASEÑA);
+    }
+
+    @Benchmark
+    public Usuario iniciarSesionSinCache() throws PersistenciaException {
+        ServicioContrasenas.limpiarCache();
+        return Usuario.iniciarSesion(correoAleatorio(), DatosSinteticos.CONTRASEÑA);
+    }
+
+    private String correoAleatorio() {
+        return DatosSinteticos.correo(ThreadLocalRandom.current().nextInt(filas));
+    }
+}
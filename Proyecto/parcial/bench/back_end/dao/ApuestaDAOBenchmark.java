@@ -0,0 +1,77 @@
+package back_end.dao;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide las operaciones de ApuestaDAO según el tamaño de apuestas.json.
+ *
+ * guardarApuesta agrega filas al archivo; apuestas.json se regenera antes
+ * de cada iteración para que el tamaño no crezca sin control.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ApuestaDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int filas;
+
+    private DatosSinteticos datos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        datos = DatosSinteticos.generar(filas, 42);
+        datos.escribir();
+    }
+
+    @Setup(Level.Iteration)
+    public void restaurarApuestas() throws IOException {
+        datos.escribirApuestas();
+    }
+
+    @Benchmark
+    public boolean guardarApuesta() throws PersistenciaException {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Usuario estudiante = elegir(datos.getUsuarios(), aleatorio);
+        Lugar lugar = elegir(datos.getLugares(), aleatorio);
+        Juego juego = elegir(datos.getJuegos(), aleatorio);
+        return ApuestaDAO.guardarApuesta(new Apuesta(estudiante, lugar, juego, 50));
+    }
+
+    @Benchmark
+    public List<Apuesta> buscarPorUsuario() throws PersistenciaException {
+        return ApuestaDAO.buscarPorUsuario(elegir(datos.getUsuarios(), ThreadLocalRandom.current()).getId());
+    }
+
+    @Benchmark
+    public List<Apuesta> obtenerApuestasActivas() throws PersistenciaException {
+        return ApuestaDAO.obtenerApuestasActivas();
+    }
+
+    private static <T> T elegir(List<T> lista, ThreadLocalRandom aleatorio) {
+        return lista.get(aleatorio.nextInt(lista.size()));
+    }
+}
@@ -0,0 +1,205 @@
+package back_end.dao;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.seguridad.ServicioContrasenas;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Generador de datos sintéticos para los benchmarks.
+ *
+ * Escribe directamente los archivos JSON que leen los DAO (en la carpeta de
+ * datos de ConfiguracionAlmacenamiento, la misma que usan ellos; "ant
+ * bench" la fija en ${bench.work.dir}) con el mismo formato, porque
+ * insertar fila por fila con los DAO reescribe el archivo completo en cada
+ * inserción y tardaría horas con 100k filas. Con la misma semilla genera
+ * siempre los mismos datos.
+ *
+ * Todos los usuarios comparten la contraseña CONTRASEÑA (y el mismo hash,
+ * calculado una sola vez).
+ */
+public final class DatosSinteticos {
+
+    public static final String CONTRASEÑA = "Apunab2024";
+
+    private static final String[] NOMBRES = {"Ana", "Luis", "María", "Carlos", "Laura", "Andrés", "Sofía", "Juan"};
+    private static final String[] APELLIDOS = {"Gómez", "Rodríguez", "Pérez", "Martínez", "Díaz", "Rojas", "Castro"};
+    private static final String[] CARRERAS = {"Ingeniería de Sistemas", "Medicina", "Derecho", "Psicología", "Música"};
+
+    private static final Gson GSON = new GsonBuilder()
+            .setPrettyPrinting()
+            .registerTypeAdapter(LocalDateTime.class, (JsonSerializer<LocalDateTime>) (fecha, tipo, contexto)
+                    -> new JsonPrimitive(fecha.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)))
+            .create();
+
+    private final List<Usuario> usuarios;
+    private final List<Lugar> lugares;
+    private final List<Juego> juegos;
+    private final List<Apuesta> apuestas;
+
+    // Fila de apuestas.json: el estudiante, lugar, juego y otros apostadores van por id
+    private static final class FilaApuesta {
+
+        private final String id;
+        private final String estudiante;
+        private final String lugar;
+        private final String juego;
+        private final double cantidadAPUNAB;
+        private final LocalDateTime fecha;
+        private final List<String> otrosApostadores = new ArrayList<>();
+        private final boolean ganada;
+        private final boolean finalizada;
+        private final double gananciaPotencial;
+        private final double gananciaReal;
+
+        private FilaApuesta(Apuesta apuesta) {
+            id = apuesta.getId();
+            estudiante = apuesta.getEstudiante().getId();
+            lugar = apuesta.getLugar().getId();
+            juego = apuesta.getJuego().getId();
+            cantidadAPUNAB = apuesta.getCantidadAPUNAB();
+            fecha = apuesta.getFecha();
+            for (Usuario otro : apuesta.getOtrosApostadores()) {
+                otrosApostadores.add(otro.getId());
+            }
+            ganada = apuesta.isGanada();
+            finalizada = apuesta.isFinalizada();
+            gananciaPotencial = apuesta.getGananciaPotencial();
+            gananciaReal = apuesta.getGananciaReal();
+        }
+    }
+
+    private DatosSinteticos(List<Usuario> usuarios, List<Lugar> lugares, List<Juego> juegos, List<Apuesta> apuestas) {
+        this.usuarios = usuarios;
+        this.lugares = lugares;
+        this.juegos = juegos;
+        this.apuestas = apuestas;
+    }
+
+    /**
+     * Genera filas usuarios, filas juegos, filas apuestas y filas/100
+     * lugares (mínimo 10). Un tercio de las apuestas queda finalizada.
+     */
+    public static DatosSinteticos generar(int filas, long semilla) {
+        Random aleatorio = new Random(semilla);
+        String hash = ServicioContrasenas.cifrar(CONTRASEÑA);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+        List<Usuario> usuarios = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            usuarios.add(new Usuario(id(aleatorio), String.format("U%08d", i),
+                    elegir(aleatorio, NOMBRES), elegir(aleatorio, APELLIDOS), correo(i), hash,
+                    elegir(aleatorio, CARRERAS), 1 + aleatorio.nextInt(10), 1_000_000.0));
+        }
+
+        List<Lugar> lugares = new ArrayList<>();
+        for (int i = 0; i < Math.max(10, filas / 100); i++) {
+            lugares.add(new Lugar(id(aleatorio), "Lugar " + i, "Calle " + (i + 1) + " # " + aleatorio.nextInt(100),
+                    "Lugar de apuestas sintético", aleatorio.nextInt(51) / 10.0));
+        }
+
+        List<Juego> juegos = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            juegos.add(new Juego(id(aleatorio), "Juego " + i, "Juego sintético", 1.0 + aleatorio.nextInt(40) / 10.0,
+                    aleatorio.nextInt(5) != 0, base.plusMinutes(aleatorio.nextInt(500_000))));
+        }
+
+        List<Apuesta> apuestas = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            Juego juego = juegos.get(aleatorio.nextInt(juegos.size()));
+            double cantidad = 10 + aleatorio.nextInt(491);
+            boolean finalizada = aleatorio.nextInt(3) == 0;
+            boolean ganada = finalizada && aleatorio.nextBoolean();
+            double potencial = cantidad * juego.getFactorMultiplicador();
+            apuestas.add(new Apuesta(id(aleatorio), usuarios.get(aleatorio.nextInt(filas)),
+                    lugares.get(aleatorio.nextInt(lugares.size())), juego, cantidad,
+                    base.plusMinutes(aleatorio.nextInt(500_000)), Collections.emptyList(),
+                    ganada, finalizada, potencial, ganada ? potencial : 0.0));
+        }
+        return new DatosSinteticos(usuarios, lugares, juegos, apuestas);
+    }
+
+    /**
+     * Correo del usuario número i, para buscarlo sin guardar la lista
+     */
+    public static String correo(int i) {
+        return "usuario" + i + "@unab.edu.co";
+    }
+
+    /**
+     * Escribe los cuatro archivos JSON en la carpeta de datos
+     */
+    public void escribir() throws IOException {
+        escribirUsuarios();
+        escribir("lugares.json", lugares);
+        escribir("juegos.json", juegos);
+        escribirApuestas();
+    }
+
+    /**
+     * Reescribe solo usuarios.json, para deshacer lo que agregó una iteración
+     */
+    public void escribirUsuarios() throws IOException {
+        escribir("usuarios.json", usuarios);
+    }
+
+    /**
+     * Reescribe solo apuestas.json, para deshacer lo que agregó una iteración
+     */
+    public void escribirApuestas() throws IOException {
+        List<FilaApuesta> filas = new ArrayList<>(apuestas.size());
+        for (Apuesta apuesta : apuestas) {
+            filas.add(new FilaApuesta(apuesta));
+        }
+        escribir("apuestas.json", filas);
+    }
+
+    public List<Usuario> getUsuarios() {
+        return usuarios;
+    }
+
+    public List<Lugar> getLugares() {
+        return lugares;
+    }
+
+    public List<Juego> getJuegos() {
+        return juegos;
+    }
+
+    public List<Apuesta> getApuestas() {
+        return apuestas;
+    }
+
+    private static void escribir(String archivo, List<?> filas) throws IOException {
+        Path ruta = ConfiguracionAlmacenamiento.getInstance().ruta(archivo);
+        try (Writer writer = Files.newBufferedWriter(ruta, StandardCharsets.UTF_8)) {
+            GSON.toJson(filas, writer);
+        }
+    }
+
+    private static String id(Random aleatorio) {
+        return new UUID(aleatorio.nextLong(), aleatorio.nextLong()).toString();
+    }
+
+    private static String elegir(Random aleatorio, String[] opciones) {
+        return opciones[aleatorio.nextInt(opciones.length)];
+    }
+}
@@ -0,0 +1,48 @@
+package back_end.dao;
+
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide la búsqueda de usuarios por correo según el tamaño de usuarios.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class UsuarioDAOBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int filas;
+
+    @Setup
+    public void preparar() throws IOException {
+        DatosSinteticos.generar(filas, 42).escribir();
+    }
+
+    @Benchmark
+    public Usuario buscarPorCorreo() throws PersistenciaException {
+        return UsuarioDAO.buscarPorCorreo(DatosSinteticos.correo(ThreadLocalRandom.current().nextInt(filas)));
+    }
+
+    @Benchmark
+    public Usuario buscarPorCorreoInexistente() throws PersistenciaException {
+        return UsuarioDAO.buscarPorCorreo("nadie@unab.edu.co");
+    }
+}
@@ -0,0 +1,73 @@
+package back_end.seguridad;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Mide el costo de cifrar y verificar contraseñas con cada cifrador y el
+ * efecto de la cache de verificaciones de ServicioContrasenas.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServicioContrasenasBenchmark {
+
+    private static final String CONTRASEÑA = "Apunab2024";
+
+    @Param({"10000", "120000"})
+    public int iteraciones;
+
+    private CifradorPBKDF2 pbkdf2;
+    private CifradorSHA256Legado legado;
+    private String hashPBKDF2;
+    private String hashLegado;
+
+    @Setup
+    public void preparar() {
+        pbkdf2 = new CifradorPBKDF2(iteraciones);
+        legado = new CifradorSHA256Legado();
+        hashPBKDF2 = pbkdf2.cifrar(CONTRASEÑA);
+        hashLegado = legado.cifrar(CONTRASEÑA);
+
+        ServicioContrasenas.setCifradorPrincipal(pbkdf2);
+        ServicioContrasenas.verificar(CONTRASEÑA, hashPBKDF2); // Deja la verificación en cache
+    }
+
+    @Benchmark
+    public String cifrarPBKDF2() {
+        return pbkdf2.cifrar(CONTRASEÑA);
+    }
+
+    @Benchmark
+    public boolean verificarPBKDF2() {
+        return pbkdf2.verificar(CONTRASEÑA, hashPBKDF2);
+    }
+
+    @Benchmark
+    public boolean verificarConCache() {
+        return ServicioContrasenas.verificar(CONTRASEÑA, hashPBKDF2);
+    }
+
+    @Benchmark
+    public String cifrarLegado() {
+        return legado.cifrar(CONTRASEÑA);
+    }
+
+    @Benchmark
+    public boolean verificarLegado() {
+        return legado.verificar(CONTRASEÑA, hashLegado);
+    }
+}
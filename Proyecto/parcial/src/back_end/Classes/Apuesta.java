@@ -4,6 +4,9 @@ import back_end.Classes.Lugar;
 import back_end.Classes.Usuario;
 import back_end.dao.ApuestaDAO;
 import back_end.Excepciones.PersistenciaException;
+import back_end.eventos.BusEventos;
+import back_end.eventos.TipoEvento;
+import back_end.metricas.EventoApuesta;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -65,86 +68,113 @@ public class Apuesta {
     }
 
     public boolean crearApuesta(Usuario estudiante, Lugar lugar, Juego juego, double cantidadAPUNAB, List<Usuario> otrosApostadores) throws PersistenciaException {
-        if (estudiante == null || lugar == null || juego == null || cantidadAPUNAB <= 0) {
-            return false;
-        }
+        return publicar(TipoEvento.APUESTA_CREADA, EventoApuesta.registrar("crear", this, () -> {
+            if (estudiante == null || lugar == null || juego == null || cantidadAPUNAB <= 0) {
+                return false;
+            }
 
-        if (estudiante.getSaldoAPUNAB() < cantidadAPUNAB) {
-            return false;
-        }
+            if (!juego.aceptaApuestas()) {
+                System.err.println("El juego " + juego.getNombre() + " no acepta apuestas en este momento");
+                return false;
+            }
 
-        this.estudiante = estudiante;
-        this.lugar = lugar;
-        this.juego = juego;
-        this.cantidadAPUNAB = cantidadAPUNAB;
-        this.fecha = LocalDateTime.now();
+            if (estudiante.getSaldoAPUNAB() < cantidadAPUNAB) {
+                return false;
+            }
 
-        if (otrosApostadores != null) {
-            this.otrosApostadores.clear();
-            this.otrosApostadores.addAll(otrosApostadores);
-        }
+            this.estudiante = estudiante;
+            this.lugar = lugar;
+            this.juego = juego;
+            this.cantidadAPUNAB = cantidadAPUNAB;
+            this.fecha = LocalDateTime.now();
 
-        this.gananciaPotencial = calcularGananciaPotencial();
+            if (otrosApostadores != null) {
+                this.otrosApostadores.clear();
+                this.otrosApostadores.addAll(otrosApostadores);
+            }
+
+            this.gananciaPotencial = calcularGananciaPotencial();
 
-        estudiante.actualizarSaldo(-cantidadAPUNAB); // Ahora puede lanzar PersistenciaException
+            if (!estudiante.actualizarSaldo(-cantidadAPUNAB)) { // Ahora puede lanzar PersistenciaException
+                return false;
+            }
 
-        estudiante.agregarApuesta(this);
+            estudiante.agregarApuesta(this);
 
-        // Integración con persistencia JSON
-        try {
-            boolean guardado = ApuestaDAO.guardarApuesta(this);
-            if (!guardado) {
-                // Si no se pudo guardar, revertir cambios
+            // Integración con persistencia JSON
+            try {
+                boolean guardado = ApuestaDAO.guardarApuesta(this);
+                if (!guardado) {
+                    // Si no se pudo guardar, revertir cambios
+                    estudiante.actualizarSaldo(cantidadAPUNAB);
+                    return false;
+                }
+                return true;
+            } catch (PersistenciaException e) {
+                System.err.println("Error al crear apuesta en archivo JSON: " + e.getMessage());
+                // Revertir cambios si hay error
                 estudiante.actualizarSaldo(cantidadAPUNAB);
                 return false;
             }
-            return true;
-        } catch (PersistenciaException e) {
-            System.err.println("Error al crear apuesta en archivo JSON: " + e.getMessage());
-            // Revertir cambios si hay error
-            estudiante.actualizarSaldo(cantidadAPUNAB);
-            return false;
-        }
+        }));
     }
 
     public boolean actualizarApuesta(double cantidadAPUNAB, List<Usuario> otrosApostadores) throws PersistenciaException {
-        if (finalizada) {
-            return false;
-        }
+        return publicar(TipoEvento.APUESTA_ACTUALIZADA, EventoApuesta.registrar("actualizar", this, () -> {
+            if (finalizada) {
+                return false;
+            }
+
+            // Después del cierre del juego la apuesta ya no se puede cambiar
+            if (juego != null && juego.getFechaFin() != null && !LocalDateTime.now().isBefore(juego.getFechaFin())) {
+                return false;
+            }
 
-        boolean actualizado = false;
-        double cantidadAnterior = this.cantidadAPUNAB;
+            boolean actualizado = false;
+            double cantidadAnterior = this.cantidadAPUNAB;
 
-        if (cantidadAPUNAB > this.cantidadAPUNAB) {
-            double diferencia = cantidadAPUNAB - this.cantidadAPUNAB;
+            if (cantidadAPUNAB > this.cantidadAPUNAB) {
+                double diferencia = cantidadAPUNAB - this.cantidadAPUNAB;
 
-            if (estudiante.getSaldoAPUNAB() >= diferencia) {
-                estudiante.actualizarSaldo(-diferencia); // Puede lanzar PersistenciaException
+                if (estudiante.getSaldoAPUNAB() >= diferencia
+                        && estudiante.actualizarSaldo(-diferencia)) { // Puede lanzar PersistenciaException
+                    this.cantidadAPUNAB = cantidadAPUNAB;
+                    this.gananciaPotencial = calcularGananciaPotencial();
+                    actualizado = true;
+                }
+            } else if (cantidadAPUNAB < this.cantidadAPUNAB && cantidadAPUNAB > 0) {
+                // Permitir reducir la apuesta
+                double diferencia = this.cantidadAPUNAB - cantidadAPUNAB;
+                estudiante.actualizarSaldo(diferencia); // Puede lanzar PersistenciaException
                 this.cantidadAPUNAB = cantidadAPUNAB;
                 this.gananciaPotencial = calcularGananciaPotencial();
                 actualizado = true;
             }
-        } else if (cantidadAPUNAB < this.cantidadAPUNAB && cantidadAPUNAB > 0) {
-            // Permitir reducir la apuesta
-            double diferencia = this.cantidadAPUNAB - cantidadAPUNAB;
-            estudiante.actualizarSaldo(diferencia); // Puede lanzar PersistenciaException
-            this.cantidadAPUNAB = cantidadAPUNAB;
-            this.gananciaPotencial = calcularGananciaPotencial();
-            actualizado = true;
-        }
 
-        if (otrosApostadores != null) {
-            this.otrosApostadores.clear();
-            this.otrosApostadores.addAll(otrosApostadores);
-            actualizado = true;
-        }
+            if (otrosApostadores != null) {
+                this.otrosApostadores.clear();
+                this.otrosApostadores.addAll(otrosApostadores);
+                actualizado = true;
+            }
 
-        // Integración con persistencia JSON
-        if (actualizado) {
-            try {
-                boolean actualizadoJSON = ApuestaDAO.actualizarApuesta(this);
-                if (!actualizadoJSON) {
-                    // Si no se pudo actualizar en JSON, revertir cambios
+            // Integración con persistencia JSON
+            if (actualizado) {
+                try {
+                    boolean actualizadoJSON = ApuestaDAO.actualizarApuesta(this);
+                    if (!actualizadoJSON) {
+                        // Si no se pudo actualizar en JSON, revertir cambios
+                        if (cantidadAPUNAB != cantidadAnterior) {
+                            double diferencia = cantidadAnterior - this.cantidadAPUNAB;
+                            estudiante.actualizarSaldo(diferencia);
+                            this.cantidadAPUNAB = cantidadAnterior;
+                            this.gananciaPotencial = calcularGananciaPotencial();
+                        }
+                        return false;
+                    }
+                    return true;
+                } catch (PersistenciaException e) {
+                    System.err.println("Error al actualizar apuesta en archivo JSON: " + e.getMessage());
+                    // Revertir cambios si hay error
                     if (cantidadAPUNAB != cantidadAnterior) {
                         double diferencia = cantidadAnterior - this.cantidadAPUNAB;
                         estudiante.actualizarSaldo(diferencia);
@@ -153,45 +183,42 @@ public class Apuesta {
                     }
                     return false;
                 }
-                return true;
-            } catch (PersistenciaException e) {
-                System.err.println("Error al actualizar apuesta en archivo JSON: " + e.getMessage());
-                // Revertir cambios si hay error
-                if (cantidadAPUNAB != cantidadAnterior) {
-                    double diferencia = cantidadAnterior - this.cantidadAPUNAB;
-                    estudiante.actualizarSaldo(diferencia);
-                    this.cantidadAPUNAB = cantidadAnterior;
-                    this.gananciaPotencial = calcularGananciaPotencial();
-                }
-                return false;
             }
-        }
 
-        return actualizado;
+            return actualizado;
+        }));
     }
 
     public boolean eliminarApuesta() throws PersistenciaException {
-        if (finalizada) {
-            return false;
-        }
+        return publicar(TipoEvento.APUESTA_ELIMINADA, EventoApuesta.registrar("eliminar", this, () -> {
+            if (finalizada) {
+                return false;
+            }
 
-        estudiante.actualizarSaldo(cantidadAPUNAB); // Puede lanzar PersistenciaException
+            // Después del cierre del juego la apuesta espera su liquidación y
+            // ya no se reembolsa
+            if (juego != null && juego.getFechaFin() != null && !LocalDateTime.now().isBefore(juego.getFechaFin())) {
+                return false;
+            }
 
-        // Integración con persistencia JSON
-        try {
-            boolean eliminado = ApuestaDAO.eliminarApuesta(this.id);
-            if (!eliminado) {
-                // Si no se pudo eliminar del JSON, revertir cambios
+            estudiante.actualizarSaldo(cantidadAPUNAB); // Puede lanzar PersistenciaException
+
+            // Integración con persistencia JSON
+            try {
+                boolean eliminado = ApuestaDAO.eliminarApuesta(this.id);
+                if (!eliminado) {
+                    // Si no se pudo eliminar del JSON, revertir cambios
+                    estudiante.actualizarSaldo(-cantidadAPUNAB);
+                    return false;
+                }
+                return true;
+            } catch (PersistenciaException e) {
+                System.err.println("Error al eliminar apuesta del archivo JSON: " + e.getMessage());
+                // Revertir cambios si hay error
                 estudiante.actualizarSaldo(-cantidadAPUNAB);
                 return false;
             }
-            return true;
-        } catch (PersistenciaException e) {
-            System.err.println("Error al eliminar apuesta del archivo JSON: " + e.getMessage());
-            // Revertir cambios si hay error
-            estudiante.actualizarSaldo(-cantidadAPUNAB);
-            return false;
-        }
+        }));
     }
 
     public Apuesta consultarApuesta() {
@@ -216,25 +243,38 @@ public class Apuesta {
     }
 
     public boolean finalizarApuesta(boolean ganada) throws PersistenciaException {
-        if (finalizada) {
-            return false;
-        }
+        return publicar(TipoEvento.APUESTA_FINALIZADA, EventoApuesta.registrar("finalizar", this, () -> {
+            if (finalizada) {
+                return false;
+            }
 
-        this.ganada = ganada;
-        this.finalizada = true;
+            this.ganada = ganada;
+            this.finalizada = true;
 
-        if (ganada) {
-            this.gananciaReal = this.gananciaPotencial;
-            estudiante.actualizarSaldo(gananciaReal); // Puede lanzar PersistenciaException
-        } else {
-            this.gananciaReal = 0;
-        }
+            if (ganada) {
+                this.gananciaReal = this.gananciaPotencial;
+                estudiante.actualizarSaldo(gananciaReal); // Puede lanzar PersistenciaException
+            } else {
+                this.gananciaReal = 0;
+            }
 
-        // Integración con persistencia JSON
-        try {
-            boolean finalizada = ApuestaDAO.actualizarApuesta(this);
-            if (!finalizada) {
-                // Si no se pudo finalizar en JSON, revertir cambios
+            // Integración con persistencia JSON
+            try {
+                boolean finalizada = ApuestaDAO.actualizarApuesta(this);
+                if (!finalizada) {
+                    // Si no se pudo finalizar en JSON, revertir cambios
+                    this.ganada = false;
+                    this.finalizada = false;
+                    if (ganada) {
+                        estudiante.actualizarSaldo(-this.gananciaReal);
+                    }
+                    this.gananciaReal = 0;
+                    return false;
+                }
+                return true;
+            } catch (PersistenciaException e) {
+                System.err.println("Error al finalizar apuesta en archivo JSON: " + e.getMessage());
+                // Revertir cambios si hay error
                 this.ganada = false;
                 this.finalizada = false;
                 if (ganada) {
@@ -243,18 +283,7 @@ public class Apuesta {
                 this.gananciaReal = 0;
                 return false;
             }
-            return true;
-        } catch (PersistenciaException e) {
-            System.err.println("Error al finalizar apuesta en archivo JSON: " + e.getMessage());
-            // Revertir cambios si hay error
-            this.ganada = false;
-            this.finalizada = false;
-            if (ganada) {
-                estudiante.actualizarSaldo(-this.gananciaReal);
-            }
-            this.gananciaReal = 0;
-            return false;
-        }
+        }));
     }
 
     public boolean agregarApostador(Usuario apostador) {
@@ -263,7 +292,12 @@ public class Apuesta {
 
             // Actualizar en archivo JSON
             try {
-                return ApuestaDAO.actualizarApuesta(this);
+                if (!ApuestaDAO.actualizarApuesta(this)) {
+                    // No existe o ya se finalizó: revertir cambio
+                    otrosApostadores.remove(apostador);
+                    return false;
+                }
+                return true;
             } catch (PersistenciaException e) {
                 System.err.println("Error al agregar apostador en archivo JSON: " + e.getMessage());
                 // Revertir cambio si hay error
@@ -280,7 +314,12 @@ public class Apuesta {
 
             // Actualizar en archivo JSON
             try {
-                return ApuestaDAO.actualizarApuesta(this);
+                if (!ApuestaDAO.actualizarApuesta(this)) {
+                    // No existe o ya se finalizó: revertir cambio
+                    otrosApostadores.add(apostador);
+                    return false;
+                }
+                return true;
             } catch (PersistenciaException e) {
                 System.err.println("Error al eliminar apostador en archivo JSON: " + e.getMessage());
                 // Revertir cambio si hay error
@@ -291,6 +330,16 @@ public class Apuesta {
         return false;
     }
 
+    /**
+     * Publica el evento en el bus si la operación tuvo éxito
+     */
+    private boolean publicar(TipoEvento tipo, boolean exito) {
+        if (exito) {
+            BusEventos.getInstance().publicarApuesta(tipo, this);
+        }
+        return exito;
+    }
+
     // Métodos estáticos para operaciones de persistencia
     public static Apuesta buscarApuestaPorId(String id) throws PersistenciaException {
         return ApuestaDAO.buscarPorId(id);
@@ -1,6 +1,8 @@
 package back_end.Classes;
 
 import back_end.dao.JuegoDAO;
+import back_end.eventos.BusEventos;
+import back_end.eventos.TipoEvento;
 import back_end.Excepciones.PersistenciaException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -16,6 +18,9 @@ public class Juego {
     private double factorMultiplicador;
     private boolean activo;
     private LocalDateTime fechaCreacion;
+    // Horario programado (opcional): cuándo abre y cierra el juego para apuestas
+    private LocalDateTime fechaInicio;
+    private LocalDateTime fechaFin;
     
     // Constructor para crear un nuevo juego
     public Juego(String nombre, String descripcion, double factorMultiplicador) {
@@ -73,7 +78,7 @@ public class Juego {
 
         try {
             // Guardar el juego en el archivo JSON
-            return JuegoDAO.guardarJuego(this);
+            return JuegoDAO.guardarJuego(this) && publicar(TipoEvento.JUEGO_CREADO);
         } catch (PersistenciaException e) {
             System.err.println("Error al crear el juego: " + e.getMessage());
             return false;
@@ -124,7 +129,7 @@ public class Juego {
                     this.factorMultiplicador = factorAnterior;
                     return false;
                 }
-                return true;
+                return publicar(TipoEvento.JUEGO_ACTUALIZADO);
             } catch (PersistenciaException e) {
                 System.err.println("Error al actualizar el juego: " + e.getMessage());
                 // Revertir cambios si hay error
@@ -153,7 +158,7 @@ public class Juego {
                 return false;
             }
             
-            return true;
+            return publicar(TipoEvento.JUEGO_ACTUALIZADO);
         } catch (PersistenciaException e) {
             System.err.println("Error al eliminar el juego: " + e.getMessage());
             this.activo = true; // Revertir cambio
@@ -161,6 +166,51 @@ public class Juego {
         }
     }
     
+    /**
+     * Programa el horario del juego y lo guarda en el archivo JSON
+     *
+     * @param fin puede ser null si el juego no tiene hora de cierre
+     */
+    public boolean programar(LocalDateTime inicio, LocalDateTime fin) {
+        if (inicio == null || (fin != null && fin.isBefore(inicio))) {
+            System.err.println("El horario del juego no es válido");
+            return false;
+        }
+        LocalDateTime inicioAnterior = this.fechaInicio;
+        LocalDateTime finAnterior = this.fechaFin;
+        this.fechaInicio = inicio;
+        this.fechaFin = fin;
+        try {
+            if (JuegoDAO.actualizarJuego(this)) {
+                return publicar(TipoEvento.JUEGO_ACTUALIZADO);
+            }
+        } catch (PersistenciaException e) {
+            System.err.println("Error al programar el juego: " + e.getMessage());
+        }
+        this.fechaInicio = inicioAnterior;
+        this.fechaFin = finAnterior;
+        return false;
+    }
+    
+    /**
+     * Indica si el juego recibe apuestas ahora: está activo y, si tiene
+     * horario, ya abrió y todavía no cerró
+     */
+    public boolean aceptaApuestas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return activo
+                && (fechaInicio == null || !ahora.isBefore(fechaInicio))
+                && (fechaFin == null || ahora.isBefore(fechaFin));
+    }
+    
+    /**
+     * Publica el alta o el cambio de cuota, estado u horario en el bus
+     */
+    private boolean publicar(TipoEvento tipo) {
+        BusEventos.getInstance().publicarJuego(tipo, this);
+        return true;
+    }
+    
     /**
      * Elimina físicamente el juego del archivo JSON
      */
@@ -190,7 +240,7 @@ public class Juego {
                 return false;
             }
             
-            return true;
+            return publicar(TipoEvento.JUEGO_ACTUALIZADO);
         } catch (PersistenciaException e) {
             System.err.println("Error al reactivar el juego: " + e.getMessage());
             this.activo = false;
@@ -427,6 +477,22 @@ public class Juego {
         this.fechaCreacion = fechaCreacion;
     }
     
+    public LocalDateTime getFechaInicio() {
+        return fechaInicio;
+    }
+    
+    public void setFechaInicio(LocalDateTime fechaInicio) {
+        this.fechaInicio = fechaInicio;
+    }
+    
+    public LocalDateTime getFechaFin() {
+        return fechaFin;
+    }
+    
+    public void setFechaFin(LocalDateTime fechaFin) {
+        this.fechaFin = fechaFin;
+    }
+    
     // ========== MÉTODOS OBJECT ==========
     
     @Override
@@ -2,12 +2,24 @@ package back_end.Classes;
 
 import back_end.Classes.Calificacion;
 import back_end.Classes.Usuario;
+import back_end.dao.CalificacionDAO;
+import back_end.dao.JuegoDAO;
 import back_end.dao.LugarDAO;
+import back_end.eventos.BusEventos;
+import back_end.eventos.TipoEvento;
 import back_end.Excepciones.PersistenciaException;
+import back_end.dao.UsuarioDAO;
+import back_end.membresias.MembresiaLugares;
+import back_end.util.RelacionPerezosa;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 public class Lugar {
 
@@ -16,9 +28,9 @@ public class Lugar {
     private String direccion;
     private String descripcion;
     private double calificacionPromedio;
-    private List<Juego> juegosDisponibles;
-    private List<Usuario> usuariosRegistrados;
-    private List<Calificacion> calificaciones;
+    // Se guardan solo los ids; los objetos se cargan al recorrerlas
+    private RelacionPerezosa<Juego> juegosDisponibles;
+    private RelacionPerezosa<Calificacion> calificaciones;
 
     // Constructor para crear un nuevo lugar
     public Lugar(String nombre, String direccion, String descripcion) {
@@ -27,9 +39,8 @@ public class Lugar {
         this.direccion = direccion;
         this.descripcion = descripcion;
         this.calificacionPromedio = 0.0;
-        this.juegosDisponibles = new ArrayList<>();
-        this.usuariosRegistrados = new ArrayList<>();
-        this.calificaciones = new ArrayList<>();
+        this.juegosDisponibles = new RelacionPerezosa<>();
+        this.calificaciones = new RelacionPerezosa<>();
     }
 
     // Constructor para cargar lugar existente desde JSON
@@ -39,16 +50,14 @@ public class Lugar {
         this.direccion = direccion;
         this.descripcion = descripcion;
         this.calificacionPromedio = calificacionPromedio;
-        this.juegosDisponibles = new ArrayList<>();
-        this.usuariosRegistrados = new ArrayList<>();
-        this.calificaciones = new ArrayList<>();
+        this.juegosDisponibles = new RelacionPerezosa<>();
+        this.calificaciones = new RelacionPerezosa<>();
     }
 
     // Constructor sin parámetros para GSON
     public Lugar() {
-        this.juegosDisponibles = new ArrayList<>();
-        this.usuariosRegistrados = new ArrayList<>();
-        this.calificaciones = new ArrayList<>();
+        this.juegosDisponibles = new RelacionPerezosa<>();
+        this.calificaciones = new RelacionPerezosa<>();
     }
 
     /**
@@ -73,7 +82,7 @@ public class Lugar {
 
         try {
             // Guardar el lugar en el archivo JSON
-            return LugarDAO.guardarLugar(this);
+            return publicar(TipoEvento.LUGAR_CREADO, LugarDAO.guardarLugar(this));
         } catch (PersistenciaException e) {
             System.err.println("Error al crear el lugar: " + e.getMessage());
             return false;
@@ -104,7 +113,7 @@ public class Lugar {
         if (actualizado) {
             try {
                 // Actualizar los datos en el archivo JSON
-                return LugarDAO.actualizarLugar(this);
+                return publicar(TipoEvento.LUGAR_ACTUALIZADO, LugarDAO.actualizarLugar(this));
             } catch (PersistenciaException e) {
                 System.err.println("Error al actualizar el lugar: " + e.getMessage());
                 return false;
@@ -119,24 +128,32 @@ public class Lugar {
      */
     public boolean eliminarLugar() {
 
-        // Limpiar las listas en memoria
-        for (Usuario usuario : usuariosRegistrados) {
-            usuario.darseDeBajaEnLugar(this);
-        }
-
-        juegosDisponibles.clear();
-        usuariosRegistrados.clear();
-        calificaciones.clear();
-
         try {
-            // Eliminar el lugar del archivo JSON
-            return LugarDAO.eliminarLugar(this.id);
+            // Eliminar el lugar del archivo JSON, sus calificaciones y dar de baja a sus inscritos
+            if (!LugarDAO.eliminarLugar(this.id)) {
+                return false;
+            }
+            CalificacionDAO.eliminarPorIds(calificaciones.getIds());
+            MembresiaLugares.getInstance().quitarLugar(this.id);
+            juegosDisponibles.limpiar();
+            calificaciones.limpiar();
+            return publicar(TipoEvento.LUGAR_ELIMINADO, true);
         } catch (PersistenciaException e) {
             System.err.println("Error al eliminar el lugar: " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Publica el evento en el bus si la operación tuvo éxito
+     */
+    private boolean publicar(TipoEvento tipo, boolean exito) {
+        if (exito) {
+            BusEventos.getInstance().publicarLugar(tipo, this);
+        }
+        return exito;
+    }
+
     /**
      * Consulta y actualiza los datos del lugar desde el archivo JSON
      */
@@ -210,7 +227,7 @@ public class Lugar {
      */
     public boolean guardarCambios() {
         try {
-            return LugarDAO.actualizarLugar(this);
+            return publicar(TipoEvento.LUGAR_ACTUALIZADO, LugarDAO.actualizarLugar(this));
         } catch (PersistenciaException e) {
             System.err.println("Error al guardar cambios: " + e.getMessage());
             return false;
@@ -219,8 +236,7 @@ public class Lugar {
 
     // Métodos para manejar juegos
     public boolean agregarJuego(Juego juego) {
-        if (juego != null && !juegosDisponibles.contains(juego)) {
-            juegosDisponibles.add(juego);
+        if (juego != null && juegosDisponibles.agregar(juego.getId(), juego)) {
             guardarCambios(); // Persistir cambios
             return true;
         }
@@ -228,56 +244,110 @@ public class Lugar {
     }
 
     public boolean eliminarJuego(Juego juego) {
-        if (juego != null && juegosDisponibles.contains(juego)) {
-            juegosDisponibles.remove(juego);
+        if (juego != null && juegosDisponibles.quitar(juego.getId())) {
             guardarCambios(); // Persistir cambios
             return true;
         }
         return false;
     }
 
-    // Métodos para manejar usuarios
+    public boolean tieneJuego(String juegoId) {
+        return juegosDisponibles.contiene(juegoId);
+    }
+
+    public int contarJuegos() {
+        return juegosDisponibles.tamaño();
+    }
+
+    public List<String> getIdsJuegos() {
+        return juegosDisponibles.getIds();
+    }
+
+    // Métodos para manejar usuarios (las inscripciones se guardan en el archivo de membresías)
     public boolean registrarUsuario(Usuario usuario) {
-        if (usuario != null && !usuariosRegistrados.contains(usuario)) {
-            usuariosRegistrados.add(usuario);
-            guardarCambios(); // Persistir cambios
-            return true;
+        if (usuario == null) {
+            return false;
+        }
+        try {
+            return MembresiaLugares.getInstance().inscribir(usuario.getId(), this.id);
+        } catch (PersistenciaException e) {
+            System.err.println("Error al inscribir el usuario: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 
     public boolean quitarUsuario(Usuario usuario) {
-        if (usuario != null && usuariosRegistrados.contains(usuario)) {
-            usuariosRegistrados.remove(usuario);
-            guardarCambios(); // Persistir cambios
-            return true;
+        if (usuario == null) {
+            return false;
+        }
+        try {
+            return MembresiaLugares.getInstance().darDeBaja(usuario.getId(), this.id);
+        } catch (PersistenciaException e) {
+            System.err.println("Error al dar de baja el usuario: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 
-    // Métodos para manejar calificaciones
-    public boolean agregarCalificacion(Calificacion calificacion) {
-        if (calificacion != null) {
-            calificaciones.add(calificacion);
-            actualizarCalificacionPromedio();
-            guardarCambios(); // Persistir cambios
-            return true;
+    public boolean tieneRegistrado(Usuario usuario) {
+        try {
+            return usuario != null && MembresiaLugares.getInstance().estaInscrito(usuario.getId(), this.id);
+        } catch (PersistenciaException e) {
+            System.err.println("Error al consultar la inscripción: " + e.getMessage());
+            return false;
         }
-        return false;
     }
 
-    private void actualizarCalificacionPromedio() {
-        if (calificaciones.isEmpty()) {
-            this.calificacionPromedio = 0.0;
-            return;
+    public int contarUsuariosRegistrados() {
+        try {
+            return MembresiaLugares.getInstance().contarInscritos(this.id);
+        } catch (PersistenciaException e) {
+            System.err.println("Error al contar los inscritos: " + e.getMessage());
+            return 0;
         }
+    }
 
-        double sumaCalificaciones = 0.0;
-        for (Calificacion c : calificaciones) {
-            sumaCalificaciones += c.getPuntuacion();
+    // Métodos para manejar calificaciones
+    public boolean agregarCalificacion(Calificacion calificacion) {
+        if (calificacion == null || calificaciones.contiene(calificacion.getId())) {
+            return false;
+        }
+        try {
+            if (!CalificacionDAO.guardarCalificacion(calificacion)) {
+                return false;
+            }
+        } catch (PersistenciaException e) {
+            System.err.println("Error al guardar la calificación: " + e.getMessage());
+            return false;
         }
+        // El promedio se actualiza con la cantidad anterior, sin cargar las calificaciones
+        int anteriores = calificaciones.tamaño();
+        calificaciones.agregar(calificacion.getId(), calificacion);
+        this.calificacionPromedio = (calificacionPromedio * anteriores + calificacion.getPuntuacion()) / (anteriores + 1);
+        guardarCambios(); // Persistir cambios
+        return true;
+    }
+
+    public int contarCalificaciones() {
+        return calificaciones.tamaño();
+    }
 
-        this.calificacionPromedio = sumaCalificaciones / calificaciones.size();
+    /**
+     * Carga de una vez los juegos de todos los lugares de una lista (una
+     * sola lectura del archivo de juegos)
+     */
+    public static void precargarJuegos(Collection<Lugar> lugares) throws PersistenciaException {
+        RelacionPerezosa.precargar(lugares, lugar -> lugar.juegosDisponibles, JuegoDAO::buscarPorIds);
+    }
+
+    /**
+     * Carga de una vez las calificaciones de todos los lugares de una lista,
+     * con sus usuarios
+     */
+    public static void precargarCalificaciones(Collection<Lugar> lugares) throws PersistenciaException {
+        Map<String, Lugar> porId = lugares.stream()
+                .collect(Collectors.toMap(Lugar::getId, Function.identity(), (a, b) -> a));
+        RelacionPerezosa.precargar(lugares, lugar -> lugar.calificaciones,
+                ids -> CalificacionDAO.buscarPorIds(ids, porId));
     }
 
     // Getters y setters
@@ -286,15 +356,34 @@ public class Lugar {
     }
 
     public List<Juego> obtenerJuegosDisponibles() {
-        return new ArrayList<>(juegosDisponibles);
+        try {
+            return juegosDisponibles.obtener(JuegoDAO::buscarPorIds);
+        } catch (PersistenciaException e) {
+            System.err.println("Error al cargar los juegos del lugar: " + e.getMessage());
+            return new ArrayList<>();
+        }
     }
 
     public List<Usuario> obtenerUsuariosRegistrados() {
-        return new ArrayList<>(usuariosRegistrados);
+        try {
+            Set<String> ids = MembresiaLugares.getInstance().inscritosEn(this.id);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(UsuarioDAO.buscarPorIds(ids).values());
+        } catch (PersistenciaException e) {
+            System.err.println("Error al obtener los usuarios registrados: " + e.getMessage());
+            return new ArrayList<>();
+        }
     }
 
     public List<Calificacion> obtenerCalificaciones() {
-        return new ArrayList<>(calificaciones);
+        try {
+            return calificaciones.obtener(ids -> CalificacionDAO.buscarPorIds(ids, Map.of(this.id, this)));
+        } catch (PersistenciaException e) {
+            System.err.println("Error al cargar las calificaciones del lugar: " + e.getMessage());
+            return new ArrayList<>();
+        }
     }
 
     public String getId() {
@@ -338,27 +427,19 @@ public class Lugar {
     }
 
     public List<Juego> getJuegosDisponibles() {
-        return juegosDisponibles;
+        return obtenerJuegosDisponibles();
     }
 
     public void setJuegosDisponibles(List<Juego> juegosDisponibles) {
-        this.juegosDisponibles = juegosDisponibles;
-    }
-
-    public List<Usuario> getUsuariosRegistrados() {
-        return usuariosRegistrados;
-    }
-
-    public void setUsuariosRegistrados(List<Usuario> usuariosRegistrados) {
-        this.usuariosRegistrados = usuariosRegistrados;
+        this.juegosDisponibles.reemplazar(juegosDisponibles, Juego::getId);
     }
 
     public List<Calificacion> getCalificaciones() {
-        return calificaciones;
+        return obtenerCalificaciones();
     }
 
     public void setCalificaciones(List<Calificacion> calificaciones) {
-        this.calificaciones = calificaciones;
+        this.calificaciones.reemplazar(calificaciones, Calificacion::getId);
     }
 
     @Override
@@ -386,8 +467,7 @@ public class Lugar {
                 + ", direccion='" + direccion + '\''
                 + ", descripcion='" + descripcion + '\''
                 + ", calificacionPromedio=" + calificacionPromedio
-                + ", juegos disponibles=" + juegosDisponibles.size()
-                + ", usuarios registrados=" + usuariosRegistrados.size()
+                + ", juegos disponibles=" + juegosDisponibles.tamaño()
                 + '}';
     }
 }
@@ -1,38 +1,62 @@
 package back_end.Classes;
 
+import back_end.sesion.RegistroSesiones;
+import back_end.sesion.Sesion;
+
+/**
+ * Sesión del cliente de escritorio.
+ *
+ * Solo guarda el token de la sesión de esta ventana; la sesión vive en el
+ * RegistroSesiones compartido, que controla su vencimiento. Así la interfaz
+ * Swing y un backend sin interfaz usan el mismo registro.
+ */
 public class SessionManager {
 
-private static SessionManager instance;
-    private Usuario usuarioActual;
+    private static final SessionManager instance = new SessionManager();
+    private volatile String token;
     
     private SessionManager() {
         // Constructor privado para patrón Singleton
     }
     
     public static SessionManager getInstance() {
-        if (instance == null) {
-            instance = new SessionManager();
-        }
         return instance;
     }
     
+    /**
+     * Usa una sesión ya abierta en el registro (por ejemplo, tras
+     * RegistroSesiones.iniciarSesion)
+     */
+    public void setSesion(Sesion sesion) {
+        String anterior = this.token;
+        this.token = sesion != null ? sesion.getToken() : null;
+        if (anterior != null && !anterior.equals(this.token)) {
+            RegistroSesiones.getInstance().cerrar(anterior);
+        }
+    }
+    
     public void setUsuarioActual(Usuario usuario) {
-        this.usuarioActual = usuario;
+        setSesion(usuario != null ? RegistroSesiones.getInstance().crearSesion(usuario, "local") : null);
     }
     
     public Usuario getUsuarioActual() {
-        return usuarioActual;
+        return RegistroSesiones.getInstance().obtenerUsuario(token);
+    }
+    
+    public String getToken() {
+        return token;
     }
     
     public boolean hayUsuarioLogueado() {
-        return usuarioActual != null;
+        return getUsuarioActual() != null;
     }
     
     public void cerrarSesion() {
-        usuarioActual = null;
+        setSesion(null);
     }
     
     public String getNombreUsuario() {
+        Usuario usuarioActual = getUsuarioActual();
         return usuarioActual != null ? 
             usuarioActual.getNombre() + " " + usuarioActual.getApellido() : 
             "Usuario no encontrado";
@@ -1,11 +1,20 @@
 package back_end.Classes;
 
 import back_end.Excepciones.PersistenciaException;
+import back_end.dao.ApuestaDAO;
+import back_end.dao.LugarDAO;
+import back_end.dao.MapaIdentidad;
 import back_end.dao.UsuarioDAO;
+import back_end.eventos.BusEventos;
+import back_end.membresias.MembresiaLugares;
+import back_end.metricas.EventoLogin;
+import back_end.seguridad.ServicioContrasenas;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class Usuario {
 
@@ -18,8 +27,8 @@ public class Usuario {
     private String carrera;
     private int semestre;
     private double saldoAPUNAB;
-    private List<Apuesta> historialApuestas;
-    private List<Lugar> lugaresRegistrados;
+    // Se carga de ApuestaDAO la primera vez que se pide; null mientras tanto
+    private transient List<Apuesta> historialApuestas;
 
     public Usuario(String uid, String nombre, String apellido, String correo, String contraseña, String carrera, int semestre) {
         this.id = UUID.randomUUID().toString();
@@ -32,7 +41,6 @@ public class Usuario {
         this.semestre = semestre;
         this.saldoAPUNAB = 0.0;
         this.historialApuestas = new ArrayList<>();
-        this.lugaresRegistrados = new ArrayList<>();
     }
 
     public Usuario(String id, String uid, String nombre, String apellido, String correo, String contraseña, String carrera, int semestre, double saldoAPUNAB) {
@@ -45,8 +53,6 @@ public class Usuario {
         this.carrera = carrera;
         this.semestre = semestre;
         this.saldoAPUNAB = saldoAPUNAB;
-        this.historialApuestas = new ArrayList<>();
-        this.lugaresRegistrados = new ArrayList<>();
     }
 
     public boolean registrarse(String nombre, String apellido, String correo, String contraseña, String carrera, int semestre)
@@ -141,41 +147,37 @@ public class Usuario {
     }
 
     private String cifrarContraseña(String contraseña) {
-        // En una implementación real, usaríamos una librería de cifrado segura
-        try {
-            java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
-            byte[] hash = md.digest(contraseña.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-
-            // Convertir el hash a hexadecimal
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hash) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
-        } catch (java.security.NoSuchAlgorithmException e) {
-            // En caso de error, devolvemos una versión menos segura (solo para este ejemplo)
-            System.err.println("Error al cifrar la contraseña: " + e.getMessage());
-            return contraseña + "salt_example";
-        }
+        // PBKDF2 con sal; el costo se ajusta con -Dunabet.pbkdf2.iteraciones
+        return ServicioContrasenas.cifrar(contraseña);
     }
 
     public static Usuario iniciarSesion(String correo, String contraseña) throws PersistenciaException {
-        // Buscar el usuario por correo
-        Usuario usuario = UsuarioDAO.buscarPorCorreo(correo);
+        return EventoLogin.registrar(() -> {
+            // Buscar el usuario por correo
+            Usuario usuario = UsuarioDAO.buscarPorCorreo(correo);
 
-        if (usuario == null) {
-            return null; // Usuario no encontrado
-        }
-
-        // Cifrar la contraseña ingresada para compararla con la almacenada
-        String contraseñaCifrada = usuario.cifrarContraseña(contraseña);
+            if (usuario == null) {
+                return null; // Usuario no encontrado
+            }
 
-        // Verificar si las contraseñas coinciden
-        if (usuario.getContraseña().equals(contraseñaCifrada)) {
-            return usuario;
-        }
+            // Verificar la contraseña ingresada contra el hash almacenado
+            if (ServicioContrasenas.verificar(contraseña, usuario.getContraseña())) {
+                // Migrar hashes antiguos (SHA-256 sin sal o de menor costo) de forma transparente
+                if (ServicioContrasenas.necesitaRehash(usuario.getContraseña())) {
+                    String nuevoHash = usuario.cifrarContraseña(contraseña);
+                    try {
+                        if (UsuarioDAO.actualizarContraseña(usuario.getId(), nuevoHash)) {
+                            usuario.contraseña = nuevoHash;
+                        }
+                    } catch (PersistenciaException e) {
+                        System.err.println("Error al actualizar el hash de la contraseña: " + e.getMessage());
+                    }
+                }
+                return usuario;
+            }
 
-        return null; // Contraseña incorrecta
+            return null; // Contraseña incorrecta
+        });
     }
 
     public static Usuario buscarPorId(String id) throws PersistenciaException {
@@ -217,9 +219,7 @@ public class Usuario {
     public boolean cambiarContraseña(String contraseñaActual, String nuevaContraseña)
             throws PersistenciaException {
         // Verificar la contraseña actual
-        String contraseñaActualCifrada = cifrarContraseña(contraseñaActual);
-
-        if (!this.contraseña.equals(contraseñaActualCifrada)) {
+        if (!ServicioContrasenas.verificar(contraseñaActual, this.contraseña)) {
             return false; // La contraseña actual es incorrecta
         }
 
@@ -238,7 +238,18 @@ public class Usuario {
         return UsuarioDAO.actualizarContraseña(this.id, nuevaContraseñaCifrada);
     }
 
-    public List<Apuesta> obtenerHistorialApuestas() {
+    public synchronized List<Apuesta> obtenerHistorialApuestas() {
+        if (historialApuestas == null) {
+            try {
+                // Las apuestas cargadas apuntan a este mismo objeto como estudiante
+                MapaIdentidad mapa = new MapaIdentidad();
+                mapa.registrar(Usuario.class, this.id, this);
+                historialApuestas = new ArrayList<>(ApuestaDAO.buscarPorUsuario(this.id, mapa));
+            } catch (PersistenciaException e) {
+                System.err.println("Error al cargar el historial de apuestas: " + e.getMessage());
+                return new ArrayList<>();
+            }
+        }
         return new ArrayList<>(historialApuestas);
     }
 
@@ -249,70 +260,56 @@ public class Usuario {
     }
 
     public boolean registrarseEnLugar(Lugar lugar) {
-        if (lugar != null && !lugaresRegistrados.contains(lugar)) {
-            lugaresRegistrados.add(lugar);
-            lugar.registrarUsuario(this);
-            // Aquí se podría llamar un método que guarde en el archivo JSON
-            try {
-                UsuarioDAO.actualizarUsuario(this);
-            } catch (PersistenciaException e) {
-                System.err.println("Error al actualizar usuario en archivo: " + e.getMessage());
-                return false;
-            }
-            return true;
-        }
-        return false;
+        return lugar != null && lugar.registrarUsuario(this);
     }
 
     public boolean darseDeBajaEnLugar(Lugar lugar) {
-        if (lugar != null && lugaresRegistrados.contains(lugar)) {
-            lugaresRegistrados.remove(lugar);
-            lugar.quitarUsuario(this);
-            // Aquí se podría llamar un método que guarde los cambios en el archivo JSON
-            try {
-                UsuarioDAO.actualizarUsuario(this);
-            } catch (PersistenciaException e) {
-                System.err.println("Error al actualizar usuario en archivo: " + e.getMessage());
-                return false;
-            }
-            return true;
-        }
-        return false;
+        return lugar != null && lugar.quitarUsuario(this);
     }
 
-    public void agregarApuesta(Apuesta apuesta) {
-        if (apuesta != null) {
-            this.historialApuestas.add(apuesta);
-            // Aquí se podría llamar un método que guarde en el archivo JSON
-            try {
-                UsuarioDAO.actualizarUsuario(this);
-            } catch (PersistenciaException e) {
-                System.err.println("Error al actualizar usuario en archivo: " + e.getMessage());
-            }
+    public synchronized void agregarApuesta(Apuesta apuesta) {
+        // El historial no se guarda con el usuario: sale de ApuestaDAO. Si
+        // todavía no se cargó, la apuesta aparecerá al cargarlo
+        if (apuesta != null && historialApuestas != null && !historialApuestas.contains(apuesta)) {
+            this.historialApuestas.add(0, apuesta);
         }
     }
 
     public boolean actualizarSaldo(double cantidad) throws PersistenciaException {
-        double nuevoSaldo = this.saldoAPUNAB + cantidad;
-
-        if (nuevoSaldo >= 0) {
-            // Actualizar en memoria
-            this.saldoAPUNAB = nuevoSaldo;
-
-            // Actualizar en el archivo JSON
-            return UsuarioDAO.actualizarUsuario(this);
+        // El cambio se suma al saldo guardado, no al de memoria, para no
+        // pisar una acreditación hecha por otro hilo
+        Usuario guardado = UsuarioDAO.ajustarSaldo(this.id, cantidad);
+        if (guardado == null) {
+            return false; // No existe o no se puede tener saldo negativo
         }
 
-        return false; // No se puede tener saldo negativo
+        this.saldoAPUNAB = guardado.getSaldoAPUNAB();
+        BusEventos.getInstance().publicarSaldo(this, cantidad);
+        return true;
     }
 
     public List<Lugar> obtenerLugaresRegistrados() {
-        return new ArrayList<>(lugaresRegistrados);
+        try {
+            Set<String> ids = MembresiaLugares.getInstance().lugaresDe(this.id);
+            if (ids.isEmpty()) {
+                return new ArrayList<>();
+            }
+            return LugarDAO.obtenerTodosLosLugares().stream()
+                    .filter(lugar -> ids.contains(lugar.getId()))
+                    .collect(Collectors.toList());
+        } catch (PersistenciaException e) {
+            System.err.println("Error al obtener los lugares registrados: " + e.getMessage());
+            return new ArrayList<>();
+        }
     }
 
     public boolean eliminar() throws PersistenciaException {
         // Eliminar el usuario del archivo JSON
-        return UsuarioDAO.eliminarUsuario(this.id);
+        if (!UsuarioDAO.eliminarUsuario(this.id)) {
+            return false;
+        }
+        MembresiaLugares.getInstance().quitarUsuario(this.id);
+        return true;
     }
 
     public String getId() {
@@ -0,0 +1,16 @@
+package back_end.Excepciones;
+
+public class LimiteIntentosException extends Exception {
+
+    private final long segundosEspera;
+
+    public LimiteIntentosException(String message, long segundosEspera) {
+        super(message);
+        this.segundosEspera = segundosEspera;
+    }
+
+    public long getSegundosEspera() {
+        return segundosEspera;
+    }
+
+}
@@ -0,0 +1,361 @@
+package back_end.calendario;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.ApuestaDAO;
+import back_end.dao.JuegoDAO;
+import back_end.eventos.BusEventos;
+import back_end.eventos.Evento;
+import back_end.eventos.Suscripcion;
+import back_end.metricas.RegistroMetricas;
+import back_end.util.ArbolIntervalos;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Motor del calendario de eventos.
+ *
+ * Los juegos activos (su horario, o el día en que se crearon si no tienen
+ * uno) y las apuestas de cada usuario se guardan en árboles de intervalos,
+ * así consultar un mes, una semana, un día o lo que está en curso cuesta
+ * O(log n + k) y nunca recorre todo el catálogo. Los árboles se llenan la
+ * primera vez que se consultan y después se mantienen al día con el bus de
+ * eventos; si la suscripción pierde eventos se vuelven a cargar.
+ */
+public class CalendarioEventos {
+
+    private static final CalendarioEventos instance = new CalendarioEventos();
+
+    private static final int MESES_EN_CACHE = 64;
+
+    /**
+     * Dónde quedó indexado un evento, para poder quitarlo del árbol
+     */
+    private record Indexado(String usuarioId, long inicio) {
+    }
+
+    private record MesCacheado(long version, MesCalendario mes) {
+    }
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private final ArbolIntervalos<EventoCalendario> juegos = new ArbolIntervalos<>();
+    private final Map<String, ArbolIntervalos<EventoCalendario>> apuestasPorUsuario = new HashMap<>();
+    private final Map<String, Indexado> indexados = new HashMap<>();
+    private final Map<String, String> nombresJuegos = new HashMap<>();
+    private boolean cargado;
+    private Suscripcion suscripcion;
+
+    // Se invalida subiendo la versión en cada cambio; protegido por su propio monitor
+    private long version;
+    private final Map<String, MesCacheado> meses = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MesCacheado> mayor) {
+            return size() > MESES_EN_CACHE;
+        }
+    };
+
+    private CalendarioEventos() {
+        RegistroMetricas.getInstance().medidor("unabet_calendario_eventos", "Eventos indexados en el calendario",
+                this::contarEventos);
+    }
+
+    public static CalendarioEventos getInstance() {
+        return instance;
+    }
+
+    /**
+     * Eventos de los juegos y, si usuarioId no es null, las apuestas del
+     * usuario que se cruzan con [desde, hasta), ordenados por inicio
+     */
+    public List<EventoCalendario> eventosEntre(String usuarioId, LocalDateTime desde, LocalDateTime hasta)
+            throws PersistenciaException {
+        asegurarCargado();
+        long inicio = aMillis(desde);
+        long fin = aMillis(hasta);
+        List<EventoCalendario> resultado;
+        cerrojo.readLock().lock();
+        try {
+            resultado = juegos.buscar(inicio, fin);
+            ArbolIntervalos<EventoCalendario> apuestas = usuarioId != null ? apuestasPorUsuario.get(usuarioId) : null;
+            if (apuestas != null) {
+                resultado.addAll(apuestas.buscar(inicio, fin));
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        resultado.sort(Comparator.comparing(EventoCalendario::inicio));
+        return resultado;
+    }
+
+    public List<EventoCalendario> eventosDelDia(String usuarioId, LocalDate dia) throws PersistenciaException {
+        return eventosEntre(usuarioId, dia.atStartOfDay(), dia.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Eventos de la semana (de lunes a domingo) que contiene el día dado
+     */
+    public List<EventoCalendario> eventosDeLaSemana(String usuarioId, LocalDate dia) throws PersistenciaException {
+        LocalDate lunes = dia.minusDays(dia.getDayOfWeek().getValue() - DayOfWeek.MONDAY.getValue());
+        return eventosEntre(usuarioId, lunes.atStartOfDay(), lunes.plusWeeks(1).atStartOfDay());
+    }
+
+    public List<EventoCalendario> eventosDelMes(String usuarioId, YearMonth mes) throws PersistenciaException {
+        return eventosEntre(usuarioId, mes.atDay(1).atStartOfDay(), mes.plusMonths(1).atDay(1).atStartOfDay());
+    }
+
+    /**
+     * Juegos abiertos y apuestas del usuario en este momento
+     */
+    public List<EventoCalendario> eventosEnCurso(String usuarioId) throws PersistenciaException {
+        asegurarCargado();
+        long ahora = System.currentTimeMillis();
+        List<EventoCalendario> resultado;
+        cerrojo.readLock().lock();
+        try {
+            resultado = juegos.enCurso(ahora);
+            ArbolIntervalos<EventoCalendario> apuestas = usuarioId != null ? apuestasPorUsuario.get(usuarioId) : null;
+            if (apuestas != null) {
+                resultado.addAll(apuestas.enCurso(ahora));
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        return resultado;
+    }
+
+    /**
+     * Eventos del mes agrupados por día. Los meses ya calculados se guardan
+     * hasta el siguiente cambio en el calendario.
+     */
+    public MesCalendario resumenMes(String usuarioId, YearMonth mes) throws PersistenciaException {
+        String clave = usuarioId + "|" + mes;
+        long versionActual;
+        synchronized (meses) {
+            MesCacheado cacheado = meses.get(clave);
+            if (cacheado != null && cacheado.version() == version) {
+                return cacheado.mes();
+            }
+            versionActual = version;
+        }
+        List<List<EventoCalendario>> porDia = new ArrayList<>(mes.lengthOfMonth());
+        for (int dia = 0; dia < mes.lengthOfMonth(); dia++) {
+            porDia.add(new ArrayList<>());
+        }
+        LocalDate primero = mes.atDay(1);
+        for (EventoCalendario evento : eventosDelMes(usuarioId, mes)) {
+            // Un evento de varios días se reparte entre los días del mes que cubre
+            LocalDate desde = evento.inicio().toLocalDate();
+            LocalDate hasta = evento.fin().toLocalDate();
+            int primerDia = desde.isBefore(primero) ? 1 : desde.getDayOfMonth();
+            int ultimoDia = YearMonth.from(hasta).isAfter(mes) ? mes.lengthOfMonth() : hasta.getDayOfMonth();
+            for (int dia = primerDia; dia <= ultimoDia; dia++) {
+                porDia.get(dia - 1).add(evento);
+            }
+        }
+        MesCalendario resumen = new MesCalendario(mes, porDia.stream().map(List::copyOf).toList());
+        synchronized (meses) {
+            if (versionActual == version) {
+                meses.put(clave, new MesCacheado(versionActual, resumen));
+            }
+        }
+        return resumen;
+    }
+
+    /**
+     * Descarta los índices; se vuelven a cargar en la siguiente consulta
+     */
+    public void recargar() {
+        cerrojo.writeLock().lock();
+        try {
+            cargado = false;
+            juegos.limpiar();
+            apuestasPorUsuario.clear();
+            indexados.clear();
+            nombresJuegos.clear();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        invalidar();
+    }
+
+    private void asegurarCargado() throws PersistenciaException {
+        cerrojo.readLock().lock();
+        try {
+            if (cargado) {
+                return;
+            }
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+        cerrojo.writeLock().lock();
+        try {
+            if (cargado) {
+                return;
+            }
+            // Suscribirse antes de leer los archivos para no perder los cambios intermedios
+            escuchar();
+            for (Juego juego : JuegoDAO.obtenerTodosLosJuegos()) {
+                indexarJuego(juego.getId(), juego.getNombre(), juego.isActivo(), juego.getFechaCreacion(),
+                        juego.getFechaInicio(), juego.getFechaFin());
+            }
+            for (Apuesta apuesta : ApuestaDAO.obtenerTodasLasApuestas()) {
+                if (apuesta.getEstudiante() != null) {
+                    indexarApuesta(apuesta.getId(), apuesta.getEstudiante().getId(),
+                            apuesta.getJuego() != null ? apuesta.getJuego().getId() : null, apuesta.getFecha());
+                }
+            }
+            cargado = true;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        invalidar();
+    }
+
+    private synchronized void escuchar() {
+        if (suscripcion != null) {
+            return;
+        }
+        suscripcion = BusEventos.getInstance().suscribir(evento -> switch (evento.tipo()) {
+            case JUEGO_CREADO, JUEGO_ACTUALIZADO, APUESTA_CREADA, APUESTA_ACTUALIZADA, APUESTA_ELIMINADA -> true;
+            default -> false;
+        }, 1024);
+        Thread.ofVirtual().name("calendario-eventos").start(this::escucharEventos);
+    }
+
+    private void escucharEventos() {
+        try {
+            while (!suscripcion.estaCerrada()) {
+                Evento evento = suscripcion.siguiente(1, TimeUnit.MINUTES);
+                if (suscripcion.tomarDescartados() > 0) {
+                    // Se perdieron cambios: lo más seguro es volver a leer los archivos
+                    recargar();
+                    continue;
+                }
+                if (evento != null) {
+                    aplicar(evento);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void aplicar(Evento evento) {
+        Map<String, Object> datos = evento.datos();
+        cerrojo.writeLock().lock();
+        try {
+            if (!cargado) {
+                // Se aplicará al cargar desde los archivos
+                return;
+            }
+            switch (evento.tipo()) {
+                case JUEGO_CREADO, JUEGO_ACTUALIZADO ->
+                    indexarJuego((String) datos.get("juegoId"), (String) datos.get("nombre"),
+                            Boolean.TRUE.equals(datos.get("activo")), fecha(datos.get("fechaCreacion")),
+                            fecha(datos.get("fechaInicio")), fecha(datos.get("fechaFin")));
+                case APUESTA_CREADA, APUESTA_ACTUALIZADA ->
+                    indexarApuesta((String) datos.get("apuestaId"), evento.usuarioId(), (String) datos.get("juegoId"),
+                            fecha(datos.get("fecha")));
+                case APUESTA_ELIMINADA ->
+                    quitar((String) datos.get("apuestaId"));
+                default -> {
+                }
+            }
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+        invalidar();
+    }
+
+    /**
+     * Se llama con el cerrojo de escritura tomado
+     */
+    private void indexarJuego(String id, String nombre, boolean activo, LocalDateTime creacion,
+            LocalDateTime inicio, LocalDateTime fin) {
+        nombresJuegos.put(id, nombre);
+        quitar(id);
+        LocalDateTime desde = inicio != null ? inicio : creacion;
+        if (!activo || desde == null) {
+            return;
+        }
+        LocalDateTime hasta = fin != null && !fin.isBefore(desde) ? fin : desde;
+        String titulo = inicio != null ? nombre : "Nuevo juego: " + nombre;
+        long millis = aMillis(desde);
+        juegos.insertar(millis, aMillis(hasta), id, new EventoCalendario(EventoCalendario.JUEGO, titulo, desde, hasta, id));
+        indexados.put(id, new Indexado(null, millis));
+    }
+
+    /**
+     * Se llama con el cerrojo de escritura tomado
+     */
+    private void indexarApuesta(String id, String usuarioId, String juegoId, LocalDateTime fecha) {
+        if (id == null || usuarioId == null || fecha == null) {
+            return;
+        }
+        quitar(id);
+        String nombre = nombresJuegos.get(juegoId);
+        String titulo = nombre != null ? "Apuesta en " + nombre : "Apuesta";
+        long millis = aMillis(fecha);
+        apuestasPorUsuario.computeIfAbsent(usuarioId, clave -> new ArbolIntervalos<>())
+                .insertar(millis, millis, id, new EventoCalendario(EventoCalendario.APUESTA, titulo, fecha, fecha, id));
+        indexados.put(id, new Indexado(usuarioId, millis));
+    }
+
+    /**
+     * Se llama con el cerrojo de escritura tomado
+     */
+    private void quitar(String id) {
+        Indexado indexado = indexados.remove(id);
+        if (indexado == null) {
+            return;
+        }
+        if (indexado.usuarioId() == null) {
+            juegos.eliminar(indexado.inicio(), id);
+            return;
+        }
+        ArbolIntervalos<EventoCalendario> apuestas = apuestasPorUsuario.get(indexado.usuarioId());
+        if (apuestas != null) {
+            apuestas.eliminar(indexado.inicio(), id);
+            if (apuestas.tamaño() == 0) {
+                apuestasPorUsuario.remove(indexado.usuarioId());
+            }
+        }
+    }
+
+    private void invalidar() {
+        synchronized (meses) {
+            version++;
+            meses.clear();
+        }
+    }
+
+    private int contarEventos() {
+        cerrojo.readLock().lock();
+        try {
+            return indexados.size();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private static LocalDateTime fecha(Object valor) {
+        return valor instanceof String texto ? LocalDateTime.parse(texto) : null;
+    }
+
+    private static long aMillis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+}
@@ -0,0 +1,16 @@
+package back_end.calendario;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento que se muestra en el calendario: el horario de un juego o una
+ * apuesta del usuario. Las apuestas son puntuales (inicio == fin).
+ *
+ * @param tipo "JUEGO" o "APUESTA"
+ * @param referenciaId id del juego o de la apuesta
+ */
+public record EventoCalendario(String tipo, String titulo, LocalDateTime inicio, LocalDateTime fin, String referenciaId) {
+
+    public static final String JUEGO = "JUEGO";
+    public static final String APUESTA = "APUESTA";
+}
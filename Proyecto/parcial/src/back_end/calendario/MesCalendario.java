@@ -0,0 +1,21 @@
+package back_end.calendario;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Eventos de un mes agrupados por día, listos para pintar el calendario.
+ * Un juego que dura varios días aparece en cada uno de ellos.
+ *
+ * @param porDia porDia.get(0) son los eventos del día 1
+ */
+public record MesCalendario(YearMonth mes, List<List<EventoCalendario>> porDia) {
+
+    public List<EventoCalendario> delDia(int dia) {
+        return porDia.get(dia - 1);
+    }
+
+    public boolean tieneEventos(int dia) {
+        return !porDia.get(dia - 1).isEmpty();
+    }
+}
@@ -0,0 +1,177 @@
+package back_end.chat;
+
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.eventos.BusEventos;
+import back_end.eventos.Evento;
+import back_end.eventos.PoliticaDesborde;
+import back_end.eventos.Suscripcion;
+import back_end.eventos.TipoEvento;
+import back_end.metricas.MetricasDAO;
+import com.google.gson.Gson;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Almacén de mensajes del chat y su entrega entre sesiones.
+ *
+ * Cada conversación vive en su carpeta dentro de "chat/" como segmentos de
+ * solo agregado (ver Conversacion) y se abre la primera vez que se usa. Los
+ * mensajes nuevos se entregan por el bus de eventos (MENSAJE_CHAT): la
+ * pantalla del chat y los flujos de la API se suscriben y cada suscripción
+ * tiene su propia cola acotada. Las conversaciones directas se publican una
+ * vez por participante para que nadie más las reciba.
+ *
+ * Conversaciones: "general" (todos los usuarios) y
+ * "directo_idA_idB" (ver conversacionDirecta). Parámetros:
+ * unabet.chat.recientes (mensajes en memoria por conversación, 200) y
+ * unabet.chat.mensajesPorSegmento (1000).
+ */
+public class AlmacenChat {
+
+    public static final String GENERAL = "general";
+    public static final int LARGO_MAXIMO = 1000;
+
+    private static final String DIRECTORIO_CHAT = ConfiguracionAlmacenamiento.getInstance().archivo("chat");
+    private static final String PREFIJO_DIRECTO = "directo_";
+    private static final Pattern ID_VALIDO = Pattern.compile("[A-Za-z0-9_-]{1,200}");
+
+    private static final AlmacenChat instance = new AlmacenChat(Paths.get(DIRECTORIO_CHAT),
+            Integer.getInteger("unabet.chat.recientes", 200), Integer.getInteger("unabet.chat.mensajesPorSegmento", 1000));
+
+    private static final Gson gson = new Gson();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("chat", DIRECTORIO_CHAT);
+
+    private final Path directorio;
+    private final int capacidadRecientes;
+    private final int mensajesPorSegmento;
+    private final Map<String, Conversacion> conversaciones = new ConcurrentHashMap<>();
+
+    public AlmacenChat(Path directorio, int capacidadRecientes, int mensajesPorSegmento) {
+        if (capacidadRecientes <= 0 || mensajesPorSegmento <= 0) {
+            throw new IllegalArgumentException("La capacidad del anillo y el tamaño de los segmentos deben ser positivos");
+        }
+        this.directorio = directorio;
+        this.capacidadRecientes = capacidadRecientes;
+        this.mensajesPorSegmento = mensajesPorSegmento;
+    }
+
+    public static AlmacenChat getInstance() {
+        return instance;
+    }
+
+    /**
+     * Id de la conversación directa entre dos usuarios; es el mismo sin
+     * importar el orden
+     */
+    public static String conversacionDirecta(String usuarioA, String usuarioB) {
+        return usuarioA.compareTo(usuarioB) <= 0
+                ? PREFIJO_DIRECTO + usuarioA + "_" + usuarioB
+                : PREFIJO_DIRECTO + usuarioB + "_" + usuarioA;
+    }
+
+    /**
+     * Indica si el usuario puede leer y escribir en la conversación
+     */
+    public static boolean puedeAcceder(String conversacionId, String usuarioId) {
+        if (GENERAL.equals(conversacionId)) {
+            return true;
+        }
+        String[] participantes = participantes(conversacionId);
+        return participantes != null && usuarioId != null
+                && (usuarioId.equals(participantes[0]) || usuarioId.equals(participantes[1]));
+    }
+
+    /**
+     * Guarda el mensaje y lo entrega a las sesiones suscritas
+     */
+    public Mensaje enviar(String conversacionId, Usuario autor, String texto) throws PersistenciaException {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("El mensaje no puede estar vacío");
+        }
+        if (texto.length() > LARGO_MAXIMO) {
+            throw new IllegalArgumentException("El mensaje no puede superar " + LARGO_MAXIMO + " caracteres");
+        }
+        Conversacion conversacion = conversacion(conversacionId);
+        String nombre = (autor.getNombre() + " " + (autor.getApellido() != null ? autor.getApellido() : "")).trim();
+        Mensaje mensaje = METRICAS.medir("enviar",
+                () -> conversacion.agregar(conversacionId, autor.getId(), nombre, texto.strip()));
+
+        BusEventos bus = BusEventos.getInstance();
+        String[] participantes = participantes(conversacionId);
+        if (participantes == null) {
+            bus.publicarMensaje(mensaje, null);
+        } else {
+            bus.publicarMensaje(mensaje, participantes[0]);
+            if (!participantes[0].equals(participantes[1])) {
+                bus.publicarMensaje(mensaje, participantes[1]);
+            }
+        }
+        return mensaje;
+    }
+
+    /**
+     * Los mensajes más recientes; si caben en el anillo no se lee el disco
+     */
+    public PaginaMensajes ultimos(String conversacionId, int limite) throws PersistenciaException {
+        return anteriores(conversacionId, 0, limite);
+    }
+
+    /**
+     * Ventana de hasta "limite" mensajes anteriores al cursor
+     *
+     * @param antesDe cursor devuelto por la página anterior, o 0 para los
+     * más recientes
+     */
+    public PaginaMensajes anteriores(String conversacionId, long antesDe, int limite) throws PersistenciaException {
+        Conversacion conversacion = conversacion(conversacionId);
+        return METRICAS.medir("anteriores", () -> conversacion.anteriores(antesDe, Math.max(1, limite)));
+    }
+
+    /**
+     * Suscribe una sesión a los mensajes nuevos de la conversación que
+     * puede ver el usuario
+     */
+    public Suscripcion suscribir(String conversacionId, String usuarioId, int capacidad) {
+        return BusEventos.getInstance().suscribir(evento -> evento.tipo() == TipoEvento.MENSAJE_CHAT
+                && conversacionId.equals(evento.datos().get("conversacionId"))
+                && evento.esVisiblePara(usuarioId), capacidad, PoliticaDesborde.DESCARTAR_ANTIGUOS, 0, TimeUnit.SECONDS, -1);
+    }
+
+    /**
+     * Reconstruye el mensaje que viaja en un evento MENSAJE_CHAT
+     */
+    public static Mensaje deEvento(Evento evento) {
+        Map<String, Object> datos = evento.datos();
+        return new Mensaje(((Number) datos.get("mensajeId")).longValue(), (String) datos.get("conversacionId"),
+                (String) datos.get("autorId"), (String) datos.get("autorNombre"), (String) datos.get("texto"),
+                ((Number) datos.get("fechaMillis")).longValue());
+    }
+
+    private Conversacion conversacion(String conversacionId) throws PersistenciaException {
+        if (conversacionId == null || !ID_VALIDO.matcher(conversacionId).matches()) {
+            throw new IllegalArgumentException("Conversación inválida: " + conversacionId);
+        }
+        Conversacion conversacion = conversaciones.computeIfAbsent(conversacionId,
+                id -> new Conversacion(directorio.resolve(id), capacidadRecientes, mensajesPorSegmento, gson, METRICAS));
+        conversacion.abrir();
+        return conversacion;
+    }
+
+    /**
+     * Los dos usuarios de una conversación directa, o null si no lo es
+     */
+    private static String[] participantes(String conversacionId) {
+        if (conversacionId == null || !conversacionId.startsWith(PREFIJO_DIRECTO)) {
+            return null;
+        }
+        // Los ids de usuario son UUID, sin "_"
+        String[] partes = conversacionId.substring(PREFIJO_DIRECTO.length()).split("_");
+        return partes.length == 2 ? partes : null;
+    }
+}
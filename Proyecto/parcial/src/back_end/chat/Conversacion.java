@@ -0,0 +1,223 @@
+package back_end.chat;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Una conversación: segmentos de solo agregado en disco y un anillo con los
+ * mensajes más recientes en memoria.
+ *
+ * Cada segmento es un archivo "primerId.jsonl" con hasta
+ * mensajesPorSegmento mensajes, una línea JSON por mensaje. Como los ids son
+ * consecutivos, una ventana de mensajes se ubica con una búsqueda en el
+ * índice de segmentos y solo se leen los segmentos que la cubren; la ventana
+ * más reciente sale del anillo sin tocar el disco.
+ */
+final class Conversacion {
+
+    private static final String EXTENSION = ".jsonl";
+
+    private final Path directorio;
+    private final int mensajesPorSegmento;
+    private final Gson gson;
+    private final MetricasDAO metricas;
+
+    private final Mensaje[] recientes;
+    private int siguiente;
+    private int enAnillo;
+    // primerId -> archivo del segmento
+    private final TreeMap<Long, Path> segmentos = new TreeMap<>();
+    private long ultimoId;
+    private int enUltimoSegmento;
+    private boolean abierta;
+
+    Conversacion(Path directorio, int capacidadRecientes, int mensajesPorSegmento, Gson gson, MetricasDAO metricas) {
+        this.directorio = directorio;
+        this.recientes = new Mensaje[capacidadRecientes];
+        this.mensajesPorSegmento = mensajesPorSegmento;
+        this.gson = gson;
+        this.metricas = metricas;
+    }
+
+    /**
+     * Lee el índice de segmentos y llena el anillo con el último; solo la
+     * primera vez
+     */
+    synchronized void abrir() throws PersistenciaException {
+        if (abierta) {
+            return;
+        }
+        if (Files.isDirectory(directorio)) {
+            try (DirectoryStream<Path> archivos = Files.newDirectoryStream(directorio, "*" + EXTENSION)) {
+                for (Path archivo : archivos) {
+                    String nombre = archivo.getFileName().toString();
+                    try {
+                        segmentos.put(Long.parseLong(nombre.substring(0, nombre.length() - EXTENSION.length())), archivo);
+                    } catch (NumberFormatException e) {
+                        System.err.println("Segmento de chat con nombre inválido: " + archivo);
+                    }
+                }
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al listar " + directorio + ": " + e.getMessage());
+            }
+        }
+        if (!segmentos.isEmpty()) {
+            Path ultimo = segmentos.lastEntry().getValue();
+            terminarLinea(ultimo);
+            List<Mensaje> mensajes = leerSegmento(ultimo);
+            for (Mensaje mensaje : mensajes) {
+                if (enAnillo > 0 && mensaje.id() != ultimoId + 1) {
+                    // Falta una línea: el anillo solo guarda ids consecutivos
+                    enAnillo = 0;
+                    siguiente = 0;
+                }
+                alAnillo(mensaje);
+                ultimoId = mensaje.id();
+            }
+            enUltimoSegmento = mensajes.size();
+            if (ultimoId == 0) {
+                ultimoId = segmentos.lastKey() - 1;
+            }
+        }
+        abierta = true;
+    }
+
+    /**
+     * Asigna el siguiente id, agrega el mensaje al segmento actual (o abre
+     * uno nuevo) y lo deja en el anillo
+     */
+    synchronized Mensaje agregar(String conversacionId, String autorId, String autorNombre, String texto)
+            throws PersistenciaException {
+        Mensaje mensaje = new Mensaje(ultimoId + 1, conversacionId, autorId, autorNombre, texto, System.currentTimeMillis());
+        if (segmentos.isEmpty() || enUltimoSegmento >= mensajesPorSegmento) {
+            segmentos.put(mensaje.id(), directorio.resolve(mensaje.id() + EXTENSION));
+            enUltimoSegmento = 0;
+        }
+        byte[] datos = (gson.toJson(mensaje) + "\n").getBytes(StandardCharsets.UTF_8);
+        EventoArchivoDAO evento = metricas.iniciarArchivo();
+        try {
+            Files.createDirectories(directorio);
+            ConfiguracionAlmacenamiento.getInstance().getFsync().agregar(segmentos.lastEntry().getValue(), datos);
+        } catch (IOException e) {
+            if (enUltimoSegmento == 0) {
+                segmentos.remove(mensaje.id());
+            }
+            throw new PersistenciaException("Error al guardar el mensaje: " + e.getMessage());
+        }
+        metricas.escritura(evento, datos.length, 1);
+        ultimoId = mensaje.id();
+        enUltimoSegmento++;
+        alAnillo(mensaje);
+        return mensaje;
+    }
+
+    /**
+     * Hasta "limite" mensajes con id menor que antesDe (0 para los más
+     * recientes). Los segmentos se leen fuera del cerrojo: son de solo
+     * agregado y leerlos no frena a quien envía.
+     */
+    PaginaMensajes anteriores(long antesDe, int limite) throws PersistenciaException {
+        long desde;
+        long hastaEnDisco;
+        List<Path> aLeer = List.of();
+        List<Mensaje> delAnillo = new ArrayList<>();
+        synchronized (this) {
+            long hasta = antesDe > 0 ? Math.min(antesDe - 1, ultimoId) : ultimoId;
+            if (hasta < 1) {
+                return new PaginaMensajes(List.of(), 0);
+            }
+            desde = Math.max(1, hasta - limite + 1);
+            long primeroEnAnillo = ultimoId - enAnillo + 1;
+            hastaEnDisco = Math.min(hasta, primeroEnAnillo - 1);
+            if (desde <= hastaEnDisco) {
+                // La parte más vieja de la ventana está solo en disco
+                Long primero = segmentos.floorKey(desde);
+                aLeer = new ArrayList<>(segmentos.subMap(primero != null ? primero : desde, true, hastaEnDisco, true).values());
+            }
+            for (long id = Math.max(desde, primeroEnAnillo); id <= hasta; id++) {
+                delAnillo.add(recientes[posicion(id)]);
+            }
+        }
+        List<Mensaje> mensajes = new ArrayList<>(limite);
+        for (Path segmento : aLeer) {
+            for (Mensaje mensaje : leerSegmento(segmento)) {
+                if (mensaje.id() >= desde && mensaje.id() <= hastaEnDisco) {
+                    mensajes.add(mensaje);
+                }
+            }
+        }
+        mensajes.addAll(delAnillo);
+        return new PaginaMensajes(mensajes, desde > 1 ? desde : 0);
+    }
+
+    synchronized long getUltimoId() {
+        return ultimoId;
+    }
+
+    private List<Mensaje> leerSegmento(Path segmento) throws PersistenciaException {
+        EventoArchivoDAO evento = metricas.iniciarArchivo();
+        List<Mensaje> mensajes = new ArrayList<>();
+        long bytes = 0;
+        try (BufferedReader reader = Files.newBufferedReader(segmento, StandardCharsets.UTF_8)) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                bytes += linea.length() + 1;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                try {
+                    mensajes.add(gson.fromJson(linea, Mensaje.class));
+                } catch (JsonParseException e) {
+                    // Una línea cortada por un cierre abrupto no invalida el resto del segmento
+                    System.err.println("Mensaje inválido en " + segmento + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al leer " + segmento + ": " + e.getMessage());
+        }
+        metricas.lectura(evento, bytes, mensajes.size());
+        return mensajes;
+    }
+
+    /**
+     * Si el proceso se cortó a mitad de una línea, la cierra para que el
+     * siguiente mensaje empiece en una línea nueva
+     */
+    private static void terminarLinea(Path segmento) throws PersistenciaException {
+        try (RandomAccessFile archivo = new RandomAccessFile(segmento.toFile(), "rw")) {
+            long largo = archivo.length();
+            if (largo > 0) {
+                archivo.seek(largo - 1);
+                if (archivo.read() != '\n') {
+                    archivo.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al abrir " + segmento + ": " + e.getMessage());
+        }
+    }
+
+    private void alAnillo(Mensaje mensaje) {
+        recientes[siguiente] = mensaje;
+        siguiente = (siguiente + 1) % recientes.length;
+        enAnillo = Math.min(enAnillo + 1, recientes.length);
+    }
+
+    private int posicion(long id) {
+        return (int) Math.floorMod(siguiente - 1 - (ultimoId - id), (long) recientes.length);
+    }
+}
@@ -0,0 +1,11 @@
+package back_end.chat;
+
+/**
+ * Mensaje de una conversación.
+ *
+ * @param id número consecutivo dentro de la conversación, desde 1
+ * @param autorNombre se guarda con el mensaje para pintarlo sin buscar al
+ * usuario
+ */
+public record Mensaje(long id, String conversacionId, String autorId, String autorNombre, String texto, long fechaMillis) {
+}
@@ -0,0 +1,12 @@
+package back_end.chat;
+
+import java.util.List;
+
+/**
+ * Ventana de una conversación, del mensaje más viejo al más nuevo.
+ *
+ * @param anterior cursor para pedir los mensajes anteriores a esta
+ * ventana, o 0 si empieza en el primero
+ */
+public record PaginaMensajes(List<Mensaje> mensajes, long anterior) {
+}
@@ -0,0 +1,13 @@
+package back_end.configuracion;
+
+/**
+ * Dónde guardan sus datos los DAO
+ */
+public enum BackendAlmacenamiento {
+    /** Un archivo JSON por tipo de dato, reescrito de forma atómica */
+    JSON,
+    /** Registro de solo agregado por tipo de dato */
+    JOURNAL,
+    /** Base de datos a través de ConexionDB */
+    JDBC
+}
@@ -0,0 +1,404 @@
+package back_end.configuracion;
+
+import back_end.metricas.RegistroMetricas;
+import back_end.util.PoliticaCache;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Configuración del almacenamiento: carpeta de los archivos de datos,
+ * backend, cuándo se fuerza a disco y tamaños de cachés y grupos de hilos.
+ *
+ * Cada clave "unabet.*" se busca, de mayor a menor prioridad, en:
+ * 1. las propiedades del sistema (-Dunabet.datos.directorio=...);
+ * 2. las variables de entorno, con la clave en mayúsculas y "_" en lugar
+ * de "." (UNABET_DATOS_DIRECTORIO);
+ * 3. el archivo de propiedades indicado en unabet.config (o UNABET_CONFIG),
+ * o unabet.properties en la carpeta de trabajo si existe;
+ * 4. el valor por defecto.
+ *
+ * Claves:
+ * unabet.datos.directorio (carpeta de trabajo) carpeta de los archivos de
+ * datos; si es relativa, respecto a la carpeta de trabajo.
+ * unabet.datos.backend (json) json, journal o jdbc; por ahora los DAO
+ * solo guardan en json.
+ * unabet.datos.fsync (nunca) nunca, archivo o completo (ver PoliticaFsync).
+ * unabet.jdbc.url, unabet.jdbc.usuario y unabet.jdbc.contrasena para
+ * ConexionDB.
+ * unabet.cache.NOMBRE.politica, .capacidad, .vigenciaSegundos y
+ * .fueraDeHeapKB para los cachés de entidades (ver CacheEntidades).
+ * unabet.ui.consultasConcurrentes (4) consultas de las pantallas que se
+ * ejecutan a la vez.
+ *
+ * El arranque llama a validar() antes de tocar los datos; el resultado y
+ * los valores en uso se ven en la ventana de diagnóstico.
+ */
+public final class ConfiguracionAlmacenamiento {
+
+    /**
+     * De dónde salió un valor
+     */
+    public enum Origen {
+        SISTEMA,
+        ENTORNO,
+        ARCHIVO,
+        DEFECTO
+    }
+
+    /**
+     * Valor en uso de una clave
+     */
+    public record Valor(String clave, String valor, Origen origen) {
+    }
+
+    public static final String DIRECTORIO = "unabet.datos.directorio";
+    public static final String BACKEND = "unabet.datos.backend";
+    public static final String FSYNC = "unabet.datos.fsync";
+    public static final String JDBC_URL = "unabet.jdbc.url";
+    public static final String JDBC_USUARIO = "unabet.jdbc.usuario";
+    public static final String JDBC_CONTRASENA = "unabet.jdbc.contrasena";
+
+    private static final String CLAVE_ARCHIVO = "unabet.config";
+    private static final String ARCHIVO_POR_DEFECTO = "unabet.properties";
+    private static final String PREFIJO_CACHE = "unabet.cache.";
+
+    // Valores por defecto de las claves principales, en el orden en que se muestran
+    private static final Map<String, String> POR_DEFECTO = new LinkedHashMap<>();
+
+    static {
+        POR_DEFECTO.put(DIRECTORIO, "");
+        POR_DEFECTO.put(BACKEND, "json");
+        POR_DEFECTO.put(FSYNC, "nunca");
+        POR_DEFECTO.put(JDBC_URL, "jdbc:mysql://localhost:3306/apunab_db");
+        POR_DEFECTO.put(JDBC_USUARIO, "apunab_user");
+        POR_DEFECTO.put(JDBC_CONTRASENA, "apunab_password");
+    }
+
+    // Mínimo de las claves numéricas; las de los cachés se reconocen por el sufijo
+    private static final Map<String, Long> MINIMOS = Map.of(
+            "unabet.ui.consultasConcurrentes", 1L,
+            "unabet.vigilancia.esperaMs", 0L);
+    private static final Map<String, Long> MINIMOS_CACHE = Map.of(
+            "capacidad", 1L,
+            "vigenciaSegundos", 0L,
+            "fueraDeHeapKB", 0L);
+
+    private static final ConfiguracionAlmacenamiento instance = crear();
+
+    private final Properties sistema;
+    private final Map<String, String> entorno;
+    private final Properties archivo = new Properties();
+    private final List<String> problemasCarga = new ArrayList<>();
+    private final String rutaArchivo;
+    private final Path directorio;
+    private final BackendAlmacenamiento backend;
+    private final PoliticaFsync fsync;
+    private volatile List<String> problemas = List.of();
+
+    public ConfiguracionAlmacenamiento(Properties sistema, Map<String, String> entorno) {
+        this.sistema = sistema;
+        this.entorno = entorno;
+        this.rutaArchivo = cargarArchivo();
+        this.directorio = resolverDirectorio();
+        this.backend = opcion(BACKEND, BackendAlmacenamiento.class, BackendAlmacenamiento.JSON);
+        this.fsync = opcion(FSYNC, PoliticaFsync.class, PoliticaFsync.NUNCA);
+    }
+
+    public static ConfiguracionAlmacenamiento getInstance() {
+        return instance;
+    }
+
+    private static ConfiguracionAlmacenamiento crear() {
+        ConfiguracionAlmacenamiento configuracion = new ConfiguracionAlmacenamiento(System.getProperties(), System.getenv());
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        metricas.medidor("unabet_almacenamiento_info", "Configuración de almacenamiento en uso", () -> 1,
+                "directorio", configuracion.directorio.toString(),
+                "backend", configuracion.backend.name().toLowerCase(Locale.ROOT),
+                "fsync", configuracion.fsync.name().toLowerCase(Locale.ROOT));
+        metricas.medidor("unabet_almacenamiento_libre_bytes", "Espacio libre en la carpeta de datos",
+                () -> configuracion.directorio.toFile().getUsableSpace());
+        metricas.medidor("unabet_almacenamiento_problemas", "Problemas encontrados al validar la configuración",
+                () -> configuracion.problemas.size());
+        return configuracion;
+    }
+
+    /**
+     * Nombre de la variable de entorno que reemplaza a la clave
+     */
+    public static String nombreEntorno(String clave) {
+        return clave.toUpperCase(Locale.ROOT).replace('.', '_');
+    }
+
+    /**
+     * Valor en uso de la clave y su origen, o null si no tiene ninguno
+     */
+    public Valor buscar(String clave) {
+        String valor = sistema.getProperty(clave);
+        if (valor != null) {
+            return new Valor(clave, valor.trim(), Origen.SISTEMA);
+        }
+        valor = entorno.get(nombreEntorno(clave));
+        if (valor != null) {
+            return new Valor(clave, valor.trim(), Origen.ENTORNO);
+        }
+        valor = archivo.getProperty(clave);
+        if (valor != null) {
+            return new Valor(clave, valor.trim(), Origen.ARCHIVO);
+        }
+        valor = POR_DEFECTO.get(clave);
+        return valor != null ? new Valor(clave, valor, Origen.DEFECTO) : null;
+    }
+
+    public String texto(String clave, String defecto) {
+        Valor valor = buscar(clave);
+        return valor != null ? valor.valor() : defecto;
+    }
+
+    public int entero(String clave, int defecto) {
+        String valor = texto(clave, null);
+        if (valor == null || valor.isEmpty()) {
+            return defecto;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            return invalido(clave, valor, defecto);
+        }
+    }
+
+    public long largo(String clave, long defecto) {
+        String valor = texto(clave, null);
+        if (valor == null || valor.isEmpty()) {
+            return defecto;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            return invalido(clave, valor, defecto);
+        }
+    }
+
+    /**
+     * Constante del enum con ese nombre, sin importar mayúsculas
+     */
+    public <E extends Enum<E>> E opcion(String clave, Class<E> tipo, E defecto) {
+        String valor = texto(clave, null);
+        if (valor == null || valor.isEmpty()) {
+            return defecto;
+        }
+        try {
+            return Enum.valueOf(tipo, valor.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return invalido(clave, valor, defecto);
+        }
+    }
+
+    public Path getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Ruta de un archivo o carpeta de datos dentro de la carpeta de datos
+     */
+    public Path ruta(String nombre) {
+        return directorio.resolve(nombre);
+    }
+
+    /**
+     * Como ruta(), en el formato que usan los DAO
+     */
+    public String archivo(String nombre) {
+        return ruta(nombre).toString();
+    }
+
+    public BackendAlmacenamiento getBackend() {
+        return backend;
+    }
+
+    public PoliticaFsync getFsync() {
+        return fsync;
+    }
+
+    public String getJdbcUrl() {
+        return texto(JDBC_URL, null);
+    }
+
+    public String getJdbcUsuario() {
+        return texto(JDBC_USUARIO, null);
+    }
+
+    public String getJdbcContrasena() {
+        return texto(JDBC_CONTRASENA, null);
+    }
+
+    /**
+     * Archivo de propiedades leído, o null si no se usó ninguno
+     */
+    public String getArchivoConfiguracion() {
+        return rutaArchivo;
+    }
+
+    /**
+     * Revisa los valores y crea la carpeta de datos si no existe
+     *
+     * @return los problemas encontrados; vacía si la configuración sirve
+     */
+    public synchronized List<String> validar() {
+        List<String> encontrados = new ArrayList<>(problemasCarga);
+        if (validarOpcion(encontrados, BACKEND, BackendAlmacenamiento.class)
+                && backend != BackendAlmacenamiento.JSON) {
+            encontrados.add("Los DAO todavía no tienen backend " + texto(BACKEND, "") + "; use " + BACKEND + "=json");
+        }
+        validarOpcion(encontrados, FSYNC, PoliticaFsync.class);
+        if (!texto(JDBC_URL, "").startsWith("jdbc:")) {
+            encontrados.add(JDBC_URL + " debe empezar con \"jdbc:\"");
+        }
+        for (String clave : claves()) {
+            if (clave.startsWith(PREFIJO_CACHE) && clave.endsWith(".politica")) {
+                validarOpcion(encontrados, clave, PoliticaCache.class);
+            }
+            validarNumero(encontrados, clave);
+        }
+        try {
+            Files.createDirectories(directorio);
+            if (!Files.isWritable(directorio)) {
+                encontrados.add("No se puede escribir en la carpeta de datos " + directorio);
+            }
+        } catch (IOException e) {
+            encontrados.add("No se pudo crear la carpeta de datos " + directorio + ": " + e);
+        }
+        problemas = List.copyOf(encontrados);
+        return problemas;
+    }
+
+    /**
+     * Problemas de la última validación
+     */
+    public List<String> getProblemas() {
+        return problemas;
+    }
+
+    /**
+     * Valores en uso de las claves principales y de todas las "unabet.*"
+     * definidas en el archivo o en el sistema; las contraseñas se ocultan
+     */
+    public List<Valor> resumen() {
+        List<Valor> valores = new ArrayList<>();
+        for (String clave : claves()) {
+            Valor valor = buscar(clave);
+            if (valor == null) {
+                continue;
+            }
+            if (clave.equals(DIRECTORIO)) {
+                valor = new Valor(clave, directorio.toString(), valor.origen());
+            } else if (clave.toLowerCase(Locale.ROOT).contains("contrasena")) {
+                valor = new Valor(clave, "****", valor.origen());
+            }
+            valores.add(valor);
+        }
+        return valores;
+    }
+
+    @Override
+    public String toString() {
+        return "directorio=" + directorio + ", backend=" + backend.name().toLowerCase(Locale.ROOT)
+                + ", fsync=" + fsync.name().toLowerCase(Locale.ROOT)
+                + ", archivo=" + (rutaArchivo != null ? rutaArchivo : "(ninguno)");
+    }
+
+    private Set<String> claves() {
+        Set<String> claves = new LinkedHashSet<>(POR_DEFECTO.keySet());
+        claves.addAll(new TreeSet<>(MINIMOS.keySet()));
+        Set<String> definidas = new TreeSet<>();
+        Stream.concat(archivo.stringPropertyNames().stream(), sistema.stringPropertyNames().stream())
+                .filter(clave -> clave.startsWith("unabet."))
+                .forEach(definidas::add);
+        claves.addAll(definidas);
+        return claves;
+    }
+
+    private String cargarArchivo() {
+        String indicado = sistema.getProperty(CLAVE_ARCHIVO, entorno.get(nombreEntorno(CLAVE_ARCHIVO)));
+        try {
+            Path ruta = Path.of(indicado != null ? indicado : ARCHIVO_POR_DEFECTO).toAbsolutePath();
+            if (!Files.exists(ruta)) {
+                if (indicado != null) {
+                    problemasCarga.add("No existe el archivo de configuración " + ruta);
+                }
+                return null;
+            }
+            try (Reader reader = Files.newBufferedReader(ruta, StandardCharsets.UTF_8)) {
+                archivo.load(reader);
+            }
+            return ruta.toString();
+        } catch (IOException | IllegalArgumentException e) {
+            archivo.clear();
+            problemasCarga.add("No se pudo leer el archivo de configuración " + indicado + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private Path resolverDirectorio() {
+        String valor = texto(DIRECTORIO, "");
+        try {
+            return Path.of(valor).toAbsolutePath().normalize();
+        } catch (InvalidPathException e) {
+            problemasCarga.add(DIRECTORIO + " = \"" + valor + "\" no es una ruta válida");
+            return Path.of("").toAbsolutePath();
+        }
+    }
+
+    /**
+     * @return true si el valor es una de las constantes del enum
+     */
+    private boolean validarOpcion(List<String> encontrados, String clave, Class<? extends Enum<?>> tipo) {
+        String valor = texto(clave, "");
+        for (Enum<?> opcion : tipo.getEnumConstants()) {
+            if (opcion.name().equalsIgnoreCase(valor)) {
+                return true;
+            }
+        }
+        encontrados.add(clave + " = \"" + valor + "\" no es válido; opciones: " + Stream.of(tipo.getEnumConstants())
+                .map(opcion -> opcion.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(", ")));
+        return false;
+    }
+
+    private void validarNumero(List<String> encontrados, String clave) {
+        Long minimo = MINIMOS.get(clave);
+        if (minimo == null && clave.startsWith(PREFIJO_CACHE)) {
+            minimo = MINIMOS_CACHE.get(clave.substring(clave.lastIndexOf('.') + 1));
+        }
+        String valor = texto(clave, null);
+        if (minimo == null || valor == null) {
+            return;
+        }
+        try {
+            if (Long.parseLong(valor) < minimo) {
+                encontrados.add(clave + " debe ser al menos " + minimo);
+            }
+        } catch (NumberFormatException e) {
+            encontrados.add(clave + " = \"" + valor + "\" no es un número entero");
+        }
+    }
+
+    private static <T> T invalido(String clave, String valor, T defecto) {
+        System.err.println("Valor inválido para " + clave + ": \"" + valor + "\"; se usa " + defecto);
+        return defecto;
+    }
+}
@@ -0,0 +1,62 @@
+package back_end.configuracion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cuándo se obliga al sistema operativo a pasar a disco lo escrito.
+ *
+ * Forzar cuesta de unos microsegundos (tmpfs, SSD con caché protegida) a
+ * decenas de milisegundos por escritura (disco de red); sin forzar, un
+ * corte de luz puede perder las últimas escrituras aunque la aplicación
+ * las haya dado por hechas.
+ */
+public enum PoliticaFsync {
+    /** No fuerza nada: el sistema operativo decide cuándo escribir */
+    NUNCA,
+    /** Fuerza el contenido de cada archivo antes de darlo por escrito */
+    ARCHIVO,
+    /** Además fuerza la carpeta después de renombrar, para que el reemplazo también sea durable */
+    COMPLETO;
+
+    /**
+     * Fuerza el contenido escrito en el canal, si la política lo pide
+     */
+    public void forzar(FileChannel canal) throws IOException {
+        if (this != NUNCA) {
+            canal.force(true);
+        }
+    }
+
+    /**
+     * Agrega los bytes al final del archivo (lo crea si no existe) y los
+     * fuerza si la política lo pide; para los registros de solo agregado
+     */
+    public void agregar(Path archivo, byte[] datos) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(datos);
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            forzar(canal);
+        }
+    }
+
+    /**
+     * Fuerza la carpeta (nombres de sus archivos), si la política lo pide
+     */
+    public void forzarCarpeta(Path carpeta) {
+        if (this != COMPLETO || carpeta == null) {
+            return;
+        }
+        try (FileChannel canal = FileChannel.open(carpeta, StandardOpenOption.READ)) {
+            canal.force(true);
+        } catch (IOException e) {
+            // Algunos sistemas (Windows) no permiten abrir carpetas; el renombre ya es atómico
+        }
+    }
+}
@@ -5,245 +5,504 @@ import back_end.Classes.Usuario;
 import back_end.Classes.Lugar;
 import back_end.Classes.Juego;
 import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import java.io.*;
-import java.lang.reflect.Type;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
+/**
+ * Guarda las apuestas con referencias por id a su estudiante, lugar, juego
+ * y otros apostadores, sin copiar esos objetos. Al leer, las referencias se
+ * resuelven con un MapaIdentidad: cada entidad se carga una sola vez por
+ * lectura y las apuestas que la comparten apuntan al mismo objeto.
+ *
+ * Los archivos del formato anterior, con los objetos completos dentro de
+ * cada apuesta, se leen tomando el "id" de cada objeto y se reescriben con
+ * referencias en la siguiente escritura.
+ */
 public class ApuestaDAO {
 
-    private static final String ARCHIVO_APUESTAS = "apuestas.json";
+    private static final String ARCHIVO_APUESTAS = ConfiguracionAlmacenamiento.getInstance().archivo("apuestas.json");
+    private static final String[] REFERENCIAS = {"estudiante", "lugar", "juego"};
     private static final Gson gson = new GsonBuilder()
             .setPrettyPrinting()
-            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .create();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("apuestas", ARCHIVO_APUESTAS);
+
+    // Clase interna para representar la apuesta en JSON, con referencias por id
+    private static class ApuestaJSON {
+        private String id;
+        private String estudiante;
+        private String lugar;
+        private String juego;
+        private double cantidadAPUNAB;
+        private String fecha;
+        private List<String> otrosApostadores;
+        private boolean ganada;
+        private boolean finalizada;
+        private double gananciaPotencial;
+        private double gananciaReal;
+        // Liquidación que finalizó la apuesta y todavía no confirmó sus acreditaciones
+        private String liquidacion;
+
+        // Constructor vacío para Gson
+        public ApuestaJSON() {}
+
+        public ApuestaJSON(Apuesta apuesta) {
+            this.id = apuesta.getId();
+            this.estudiante = apuesta.getEstudiante() != null ? apuesta.getEstudiante().getId() : null;
+            this.lugar = apuesta.getLugar() != null ? apuesta.getLugar().getId() : null;
+            this.juego = apuesta.getJuego() != null ? apuesta.getJuego().getId() : null;
+            this.cantidadAPUNAB = apuesta.getCantidadAPUNAB();
+            this.fecha = apuesta.getFecha() != null ? apuesta.getFecha().toString() : null;
+            this.otrosApostadores = new ArrayList<>();
+            if (apuesta.getOtrosApostadores() != null) {
+                for (Usuario apostador : apuesta.getOtrosApostadores()) {
+                    if (apostador != null) {
+                        this.otrosApostadores.add(apostador.getId());
+                    }
+                }
+            }
+            this.ganada = apuesta.isGanada();
+            this.finalizada = apuesta.isFinalizada();
+            this.gananciaPotencial = apuesta.getGananciaPotencial();
+            this.gananciaReal = apuesta.getGananciaReal();
+        }
+
+        private List<String> apostadores() {
+            return otrosApostadores != null ? otrosApostadores : List.of();
+        }
+    }
 
     /**
      * Inicializa el archivo JSON si no existe
      */
-    public static boolean inicializarArchivoApuestas() throws PersistenciaException {
-        File archivo = new File(ARCHIVO_APUESTAS);
-        
-        if (!archivo.exists()) {
-            try {
-                archivo.createNewFile();
-                List<Apuesta> apuestasVacias = new ArrayList<>();
-                guardarApuestasEnArchivo(apuestasVacias);
-                System.out.println("Archivo " + ARCHIVO_APUESTAS + " creado exitosamente.");
-                return true;
-            } catch (IOException e) {
-                System.err.println("Error al crear el archivo " + ARCHIVO_APUESTAS + ": " + e.getMessage());
-                return false;
+    public static synchronized boolean inicializarArchivoApuestas() throws PersistenciaException {
+        return METRICAS.medir("inicializarArchivoApuestas", () -> {
+            File archivo = new File(ARCHIVO_APUESTAS);
+            
+            if (!archivo.exists()) {
+                try {
+                    archivo.createNewFile();
+                    guardarApuestasEnArchivo(new ArrayList<>());
+                    System.out.println("Archivo " + ARCHIVO_APUESTAS + " creado exitosamente.");
+                    return true;
+                } catch (IOException e) {
+                    System.err.println("Error al crear el archivo " + ARCHIVO_APUESTAS + ": " + e.getMessage());
+                    return false;
+                }
             }
-        }
-        return true;
+            return true;
+        });
     }
 
     /**
      * CREATE - Guarda una nueva apuesta en el archivo JSON
      */
-    public static boolean guardarApuesta(Apuesta apuesta) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
+    public static synchronized boolean guardarApuesta(Apuesta apuesta) throws PersistenciaException {
+        return METRICAS.medir("guardarApuesta", () -> {
+            try {
+                List<ApuestaJSON> apuestas = cargarApuestasDesdeArchivo();
+                
+                // Verificar que no exista ya una apuesta con el mismo ID
+                boolean existe = apuestas.stream().anyMatch(a -> a.id.equals(apuesta.getId()));
+                if (existe) {
+                    throw new PersistenciaException("Ya existe una apuesta con el ID: " + apuesta.getId());
+                }
+                
+                apuestas.add(new ApuestaJSON(apuesta));
+                guardarApuestasEnArchivo(apuestas);
+                return true;
             
-            // Verificar que no exista ya una apuesta con el mismo ID
-            boolean existe = apuestas.stream().anyMatch(a -> a.getId().equals(apuesta.getId()));
-            if (existe) {
-                throw new PersistenciaException("Ya existe una apuesta con el ID: " + apuesta.getId());
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al guardar la apuesta: " + e.getMessage(), e);
             }
-            
-            apuestas.add(apuesta);
-            guardarApuestasEnArchivo(apuestas);
-            return true;
-            
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al guardar la apuesta: " + e.getMessage(), e);
-        }
+        });
     }
 
     /**
      * READ - Busca una apuesta por su ID
      */
     public static Apuesta buscarPorId(String id) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            return apuestas.stream()
-                    .filter(a -> a.getId().equals(id))
-                    .findFirst()
-                    .orElse(null);
-                    
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al buscar apuesta por ID: " + e.getMessage(), e);
-        }
+        return METRICAS.medir("buscarPorId", () -> {
+            try {
+                List<Apuesta> apuestas = buscar(a -> a.id.equals(id), new MapaIdentidad());
+                return apuestas.isEmpty() ? null : apuestas.get(0);
+                
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al buscar apuesta por ID: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * READ - Obtiene todas las apuestas de un usuario específico
      */
     public static List<Apuesta> buscarPorUsuario(String usuarioId) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            return apuestas.stream()
-                    .filter(a -> a.getEstudiante() != null && a.getEstudiante().getId().equals(usuarioId))
-                    .sorted((a1, a2) -> a2.getFecha().compareTo(a1.getFecha()))
-                    .collect(Collectors.toList());
-                    
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al buscar apuestas por usuario: " + e.getMessage(), e);
-        }
+        return buscarPorUsuario(usuarioId, new MapaIdentidad());
+    }
+
+    /**
+     * READ - Obtiene todas las apuestas de un usuario, reutilizando las
+     * entidades ya registradas en el mapa (por ejemplo, el propio usuario)
+     */
+    public static List<Apuesta> buscarPorUsuario(String usuarioId, MapaIdentidad mapa) throws PersistenciaException {
+        return METRICAS.medir("buscarPorUsuario", () -> {
+            try {
+                return masRecientesPrimero(buscar(a -> usuarioId.equals(a.estudiante), mapa));
+                
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al buscar apuestas por usuario: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * READ - Obtiene todas las apuestas
      */
     public static List<Apuesta> obtenerTodasLasApuestas() throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            return apuestas.stream()
-                    .sorted((a1, a2) -> a2.getFecha().compareTo(a1.getFecha()))
-                    .collect(Collectors.toList());
-                    
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al obtener todas las apuestas: " + e.getMessage(), e);
-        }
+        return METRICAS.medir("obtenerTodasLasApuestas", () -> {
+            try {
+                return masRecientesPrimero(buscar(a -> true, new MapaIdentidad()));
+                
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al obtener todas las apuestas: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * READ - Obtiene apuestas activas (no finalizadas)
      */
     public static List<Apuesta> obtenerApuestasActivas() throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            return apuestas.stream()
-                    .filter(a -> !a.isFinalizada())
-                    .sorted((a1, a2) -> a2.getFecha().compareTo(a1.getFecha()))
-                    .collect(Collectors.toList());
-                    
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al obtener apuestas activas: " + e.getMessage(), e);
-        }
+        return METRICAS.medir("obtenerApuestasActivas", () -> {
+            try {
+                return masRecientesPrimero(buscar(a -> !a.finalizada, new MapaIdentidad()));
+                
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al obtener apuestas activas: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * READ - Obtiene las apuestas sin finalizar de un juego
+     */
+    public static List<Apuesta> buscarActivasPorJuego(String juegoId) throws PersistenciaException {
+        return METRICAS.medir("buscarActivasPorJuego", () -> {
+            try {
+                return buscar(a -> !a.finalizada && juegoId.equals(a.juego), new MapaIdentidad());
+
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al buscar apuestas por juego: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * READ - Las apuestas de un juego finalizadas por una liquidación que no
+     * llegó a confirmarse, agrupadas por liquidación
+     */
+    public static Map<String, List<Apuesta>> buscarLiquidacionesPendientes(String juegoId) throws PersistenciaException {
+        return METRICAS.medir("buscarLiquidacionesPendientes", () -> {
+            try {
+                Map<String, String> liquidacionDe = new HashMap<>();
+                List<Apuesta> pendientes = buscar(a -> {
+                    if (a.liquidacion != null && juegoId.equals(a.juego)) {
+                        liquidacionDe.put(a.id, a.liquidacion);
+                        return true;
+                    }
+                    return false;
+                }, new MapaIdentidad());
+
+                Map<String, List<Apuesta>> porLiquidacion = new LinkedHashMap<>();
+                for (Apuesta apuesta : pendientes) {
+                    porLiquidacion.computeIfAbsent(liquidacionDe.get(apuesta.getId()), l -> new ArrayList<>()).add(apuesta);
+                }
+                return porLiquidacion;
+
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al buscar liquidaciones pendientes: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
      * UPDATE - Actualiza una apuesta existente
+     *
+     * @return false si no existe o ya está finalizada
      */
-    public static boolean actualizarApuesta(Apuesta apuestaActualizada) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
+    public static synchronized boolean actualizarApuesta(Apuesta apuestaActualizada) throws PersistenciaException {
+        return METRICAS.medir("actualizarApuesta", () -> {
+            try {
+                return reemplazar(List.of(apuestaActualizada)) == 1;
             
-            for (int i = 0; i < apuestas.size(); i++) {
-                if (apuestas.get(i).getId().equals(apuestaActualizada.getId())) {
-                    apuestas.set(i, apuestaActualizada);
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al actualizar la apuesta: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * UPDATE - Actualiza varias apuestas con una sola escritura del archivo
+     *
+     * @return cuántas se encontraron abiertas y se actualizaron
+     */
+    public static synchronized int actualizarApuestas(Collection<Apuesta> apuestasActualizadas) throws PersistenciaException {
+        return METRICAS.medir("actualizarApuestas", () -> {
+            try {
+                return reemplazar(apuestasActualizadas);
+
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al actualizar las apuestas: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * UPDATE - Guarda el resultado de un lote de una liquidación. Las
+     * apuestas se releen bajo el cerrojo del DAO y solo se guardan las que
+     * siguen abiertas (una eliminada o ya liquidada se salta). Quedan
+     * marcadas con la liquidación hasta confirmarLiquidacion.
+     *
+     * @return las apuestas que se finalizaron
+     */
+    public static synchronized List<Apuesta> finalizarLiquidacion(String liquidacion, Collection<Apuesta> lote) throws PersistenciaException {
+        return METRICAS.medir("finalizarLiquidacion", () -> {
+            try {
+                Map<String, Apuesta> porId = new HashMap<>();
+                for (Apuesta apuesta : lote) {
+                    porId.put(apuesta.getId(), apuesta);
+                }
+                List<ApuestaJSON> apuestas = cargarApuestasDesdeArchivo();
+                List<Apuesta> finalizadas = new ArrayList<>();
+                for (int i = 0; i < apuestas.size(); i++) {
+                    Apuesta nueva = porId.get(apuestas.get(i).id);
+                    if (nueva != null && !apuestas.get(i).finalizada) {
+                        ApuestaJSON finalizada = new ApuestaJSON(nueva);
+                        finalizada.liquidacion = liquidacion;
+                        apuestas.set(i, finalizada);
+                        finalizadas.add(nueva);
+                    }
+                }
+                if (!finalizadas.isEmpty()) {
                     guardarApuestasEnArchivo(apuestas);
-                    return true;
                 }
+                return finalizadas;
+
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al finalizar las apuestas: " + e.getMessage(), e);
             }
-            
-            return false; // No se encontró la apuesta
-            
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al actualizar la apuesta: " + e.getMessage(), e);
-        }
+        });
     }
 
     /**
-     * UPDATE - Finaliza una apuesta (marca como ganada o perdida)
+     * UPDATE - Quita la marca de una liquidación cuyas ganancias ya se
+     * acreditaron
      */
-    public static boolean finalizarApuesta(String apuestaId, boolean ganada, double gananciaReal) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            
-            for (Apuesta apuesta : apuestas) {
-                if (apuesta.getId().equals(apuestaId)) {
-                    // Como no podemos modificar directamente los campos privados,
-                    // necesitamos crear una nueva instancia o usar métodos setter
-                    // Por ahora, buscamos y actualizamos toda la apuesta
-                    apuesta.finalizarApuesta(ganada);
+    public static synchronized int confirmarLiquidacion(String liquidacion) throws PersistenciaException {
+        return METRICAS.medir("confirmarLiquidacion", () -> {
+            try {
+                List<ApuestaJSON> apuestas = cargarApuestasDesdeArchivo();
+                int confirmadas = 0;
+                for (ApuestaJSON apuesta : apuestas) {
+                    if (liquidacion.equals(apuesta.liquidacion)) {
+                        apuesta.liquidacion = null;
+                        confirmadas++;
+                    }
+                }
+                if (confirmadas > 0) {
                     guardarApuestasEnArchivo(apuestas);
-                    return true;
                 }
+                return confirmadas;
+
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al confirmar la liquidación: " + e.getMessage(), e);
             }
-            
-            return false;
-            
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al finalizar la apuesta: " + e.getMessage(), e);
-        }
+        });
     }
 
     /**
-     * DELETE - Elimina una apuesta del archivo JSON
+     * DELETE - Elimina una apuesta del archivo JSON, si todavía no está
+     * finalizada
      */
-    public static boolean eliminarApuesta(String id) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            boolean eliminada = apuestas.removeIf(a -> a.getId().equals(id));
+    public static synchronized boolean eliminarApuesta(String id) throws PersistenciaException {
+        return METRICAS.medir("eliminarApuesta", () -> {
+            try {
+                // Se mira el estado guardado: la copia de quien llama puede no
+                // saber que la apuesta ya se liquidó
+                return eliminar(a -> a.id.equals(id) && !a.finalizada);
             
-            if (eliminada) {
-                guardarApuestasEnArchivo(apuestas);
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al eliminar la apuesta: " + e.getMessage(), e);
             }
-            
-            return eliminada;
-            
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al eliminar la apuesta: " + e.getMessage(), e);
-        }
+        });
     }
 
     /**
      * DELETE - Elimina todas las apuestas de un usuario
      */
-    public static boolean eliminarApuestasPorUsuario(String usuarioId) throws PersistenciaException {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            boolean eliminadas = apuestas.removeIf(a -> 
-                a.getEstudiante() != null && a.getEstudiante().getId().equals(usuarioId)
-            );
+    public static synchronized boolean eliminarApuestasPorUsuario(String usuarioId) throws PersistenciaException {
+        return METRICAS.medir("eliminarApuestasPorUsuario", () -> {
+            try {
+                return eliminar(a -> usuarioId.equals(a.estudiante));
             
-            if (eliminadas) {
-                guardarApuestasEnArchivo(apuestas);
+            } catch (Exception e) {
+                throw new PersistenciaException("Error al eliminar apuestas del usuario: " + e.getMessage(), e);
             }
-            
-            return eliminadas;
-            
-        } catch (Exception e) {
-            throw new PersistenciaException("Error al eliminar apuestas del usuario: " + e.getMessage(), e);
-        }
+        });
     }
 
     /**
      * Método utilitario para verificar si existe una apuesta
      */
     public static boolean existeApuesta(String id) {
-        try {
-            List<Apuesta> apuestas = cargarApuestasDesdeArchivo();
-            return apuestas.stream().anyMatch(a -> a.getId().equals(id));
-        } catch (Exception e) {
-            System.err.println("Error al verificar existencia de apuesta: " + e.getMessage());
-            return false;
-        }
+        return METRICAS.medir("existeApuesta", () -> {
+            try {
+                return cargarApuestasDesdeArchivo().stream().anyMatch(a -> a.id.equals(id));
+            } catch (Exception e) {
+                System.err.println("Error al verificar existencia de apuesta: " + e.getMessage());
+                return false;
+            }
+        });
     }
 
     // Métodos privados para manejo del archivo JSON
+
+    /**
+     * Arma las apuestas que cumplen el filtro. Las referencias de todas se
+     * resuelven juntas: una lectura por archivo de entidades y un objeto
+     * por id.
+     */
+    private static List<Apuesta> buscar(Predicate<ApuestaJSON> filtro, MapaIdentidad mapa) throws PersistenciaException {
+        List<ApuestaJSON> elegidas = new ArrayList<>();
+        Set<String> usuarioIds = new HashSet<>();
+        Set<String> lugarIds = new HashSet<>();
+        Set<String> juegoIds = new HashSet<>();
+        for (ApuestaJSON apuesta : cargarApuestasDesdeArchivo()) {
+            if (filtro.test(apuesta)) {
+                elegidas.add(apuesta);
+                agregarSiHay(usuarioIds, apuesta.estudiante);
+                usuarioIds.addAll(apuesta.apostadores());
+                agregarSiHay(lugarIds, apuesta.lugar);
+                agregarSiHay(juegoIds, apuesta.juego);
+            }
+        }
+        if (elegidas.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Usuario> usuarios = mapa.resolver(Usuario.class, usuarioIds, UsuarioDAO::buscarPorIds);
+        Map<String, Lugar> lugares = mapa.resolver(Lugar.class, lugarIds, LugarDAO::buscarPorIds);
+        Map<String, Juego> juegos = mapa.resolver(Juego.class, juegoIds, JuegoDAO::buscarPorIds);
+
+        List<Apuesta> apuestas = new ArrayList<>(elegidas.size());
+        for (ApuestaJSON apuesta : elegidas) {
+            List<Usuario> otros = new ArrayList<>();
+            for (String apostadorId : apuesta.apostadores()) {
+                Usuario apostador = usuarios.get(apostadorId);
+                if (apostador != null) {
+                    otros.add(apostador);
+                }
+            }
+            Apuesta armada = new Apuesta(apuesta.id, usuarios.get(apuesta.estudiante), lugares.get(apuesta.lugar),
+                    juegos.get(apuesta.juego), apuesta.cantidadAPUNAB,
+                    apuesta.fecha != null ? LocalDateTime.parse(apuesta.fecha) : null, otros,
+                    apuesta.ganada, apuesta.finalizada, apuesta.gananciaPotencial, apuesta.gananciaReal);
+            apuestas.add(mapa.registrar(Apuesta.class, apuesta.id, armada));
+        }
+        return apuestas;
+    }
+
+    /**
+     * Reemplaza las apuestas guardadas que siguen abiertas. Una finalizada
+     * no se toca: la copia de quien llama puede ser anterior a la
+     * liquidación y volver a abrirla haría que se pagara otra vez.
+     */
+    private static int reemplazar(Collection<Apuesta> apuestasActualizadas) throws PersistenciaException {
+        Map<String, Apuesta> porId = new HashMap<>();
+        for (Apuesta apuesta : apuestasActualizadas) {
+            porId.put(apuesta.getId(), apuesta);
+        }
+        List<ApuestaJSON> apuestas = cargarApuestasDesdeArchivo();
+        int actualizadas = 0;
+        for (int i = 0; i < apuestas.size(); i++) {
+            Apuesta nueva = porId.get(apuestas.get(i).id);
+            if (nueva != null && !apuestas.get(i).finalizada) {
+                apuestas.set(i, new ApuestaJSON(nueva));
+                actualizadas++;
+            }
+        }
+        if (actualizadas > 0) {
+            guardarApuestasEnArchivo(apuestas);
+        }
+        return actualizadas;
+    }
+
+    private static boolean eliminar(Predicate<ApuestaJSON> filtro) throws PersistenciaException {
+        List<ApuestaJSON> apuestas = cargarApuestasDesdeArchivo();
+        boolean eliminadas = apuestas.removeIf(filtro);
+        if (eliminadas) {
+            guardarApuestasEnArchivo(apuestas);
+        }
+        return eliminadas;
+    }
+
+    private static void agregarSiHay(Set<String> ids, String id) {
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private static List<Apuesta> masRecientesPrimero(List<Apuesta> apuestas) {
+        apuestas.sort(Comparator.comparing(Apuesta::getFecha).reversed());
+        return apuestas;
+    }
     
     /**
-     * Carga todas las apuestas desde el archivo JSON
+     * Carga todas las apuestas desde el archivo JSON, sin resolver sus
+     * referencias
      */
-    private static List<Apuesta> cargarApuestasDesdeArchivo() throws PersistenciaException {
-        inicializarArchivoApuestas();
+    private static List<ApuestaJSON> cargarApuestasDesdeArchivo() throws PersistenciaException {
+        if (!new File(ARCHIVO_APUESTAS).exists()) {
+            inicializarArchivoApuestas();
+        }
         
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        long bytes = new File(ARCHIVO_APUESTAS).length();
         try (FileReader reader = new FileReader(ARCHIVO_APUESTAS)) {
-            Type listType = new TypeToken<List<Apuesta>>(){}.getType();
-            List<Apuesta> apuestas = gson.fromJson(reader, listType);
-            return apuestas != null ? apuestas : new ArrayList<>();
+            JsonElement raiz = JsonParser.parseReader(reader);
+            List<ApuestaJSON> apuestas = new ArrayList<>();
+            if (raiz.isJsonArray()) {
+                for (JsonElement elemento : raiz.getAsJsonArray()) {
+                    if (elemento.isJsonObject()) {
+                        apuestas.add(gson.fromJson(aReferencias(elemento.getAsJsonObject()), ApuestaJSON.class));
+                    }
+                }
+            }
+            METRICAS.lectura(evento, bytes, apuestas.size());
+            return apuestas;
             
-        } catch (JsonSyntaxException e) {
+        } catch (JsonParseException | IllegalStateException e) {
             // Si el archivo está corrupto o vacío, crear una lista vacía
             System.err.println("Archivo JSON corrupto, creando nueva lista: " + e.getMessage());
             return new ArrayList<>();
@@ -253,30 +512,42 @@ public class ApuestaDAO {
     }
 
     /**
-     * Guarda todas las apuestas en el archivo JSON
+     * Cambia los objetos completos del formato anterior por su id
      */
-    private static void guardarApuestasEnArchivo(List<Apuesta> apuestas) throws PersistenciaException {
-        try (FileWriter writer = new FileWriter(ARCHIVO_APUESTAS)) {
-            gson.toJson(apuestas, writer);
-            writer.flush();
-            
-        } catch (IOException e) {
-            throw new PersistenciaException("Error al escribir el archivo de apuestas: " + e.getMessage(), e);
+    private static JsonObject aReferencias(JsonObject apuesta) {
+        for (String campo : REFERENCIAS) {
+            JsonElement valor = apuesta.get(campo);
+            if (valor != null && valor.isJsonObject()) {
+                apuesta.add(campo, idDe(valor.getAsJsonObject()));
+            }
+        }
+        JsonElement otros = apuesta.get("otrosApostadores");
+        if (otros != null && otros.isJsonArray()) {
+            JsonArray ids = new JsonArray();
+            for (JsonElement otro : otros.getAsJsonArray()) {
+                ids.add(otro.isJsonObject() ? idDe(otro.getAsJsonObject()) : otro);
+            }
+            apuesta.add("otrosApostadores", ids);
         }
+        return apuesta;
     }
 
-    // Clase auxiliar para serialización de LocalDateTime
-    private static class LocalDateTimeAdapter implements com.google.gson.JsonSerializer<LocalDateTime>, com.google.gson.JsonDeserializer<LocalDateTime> {
-        
-        @Override
-        public com.google.gson.JsonElement serialize(LocalDateTime dateTime, Type type, com.google.gson.JsonSerializationContext context) {
-            return new com.google.gson.JsonPrimitive(dateTime.toString());
-        }
+    private static JsonElement idDe(JsonObject entidad) {
+        JsonElement id = entidad.get("id");
+        return id != null ? new JsonPrimitive(id.getAsString()) : null;
+    }
 
-        @Override
-        public LocalDateTime deserialize(com.google.gson.JsonElement json, Type type, com.google.gson.JsonDeserializationContext context) throws com.google.gson.JsonParseException {
-            return LocalDateTime.parse(json.getAsString());
+    /**
+     * Guarda todas las apuestas en el archivo JSON
+     */
+    private static void guardarApuestasEnArchivo(List<ApuestaJSON> apuestas) throws PersistenciaException {
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        try {
+            EscrituraAtomica.escribir(ARCHIVO_APUESTAS, gson, apuestas);
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al escribir el archivo de apuestas: " + e.getMessage(), e);
         }
+        METRICAS.escritura(evento, new File(ARCHIVO_APUESTAS).length(), apuestas.size());
     }
 
 }//TODO: documentar en el readme
@@ -0,0 +1,167 @@
+package back_end.dao;
+
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.RegistroMetricas;
+import back_end.util.AlmacenFueraDeHeap;
+import back_end.util.Cache;
+import back_end.util.PoliticaCache;
+import com.google.gson.Gson;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché por id de las entidades de un DAO de catálogo (juegos, lugares),
+ * para que buscar por id no vuelva a leer y convertir todo el archivo.
+ *
+ * Guarda cada entidad serializada (JSON compacto) y entrega un objeto nuevo
+ * en cada acierto, igual que una lectura del archivo: quien lo modifique sin
+ * guardarlo no cambia lo que ven los demás. Tiene dos niveles: uno en el
+ * heap, acotado por entradas con la política elegida, y opcionalmente otro
+ * fuera del heap, acotado por bytes, que recibe una copia de todo lo que se
+ * guarda y devuelve al primero lo que este ya expulsó.
+ *
+ * El DAO invalida el id después de escribir el archivo. Cada invalidación
+ * sube la generación, y una entidad leída antes de la última invalidación
+ * ya no se guarda: así una lectura que se cruzó con una escritura no deja
+ * en el caché la versión vieja.
+ *
+ * Parámetros por caché (nombre = juegos, lugares):
+ * unabet.cache.NOMBRE.politica (LRU, LFU o TTL; LFU),
+ * unabet.cache.NOMBRE.capacidad (entradas en el heap, 1000),
+ * unabet.cache.NOMBRE.vigenciaSegundos (solo TTL, 300) y
+ * unabet.cache.NOMBRE.fueraDeHeapKB (0 lo desactiva), leídos de
+ * ConfiguracionAlmacenamiento.
+ *
+ * @param <V> tipo de la entidad
+ */
+public class CacheEntidades<V> {
+
+    private final Class<V> tipo;
+    private final Gson gson;
+    private final Cache<String, String> memoria;
+    private final AlmacenFueraDeHeap<String> fueraDeHeap;
+    private volatile long generacion;
+
+    public CacheEntidades(Class<V> tipo, Gson gson, Cache<String, String> memoria, AlmacenFueraDeHeap<String> fueraDeHeap) {
+        this.tipo = tipo;
+        this.gson = gson;
+        this.memoria = memoria;
+        this.fueraDeHeap = fueraDeHeap;
+    }
+
+    /**
+     * Crea el caché con los parámetros configurados y publica sus métricas
+     */
+    public static <V> CacheEntidades<V> de(String nombre, Class<V> tipo, Gson gson) {
+        ConfiguracionAlmacenamiento configuracion = ConfiguracionAlmacenamiento.getInstance();
+        String prefijo = "unabet.cache." + nombre + ".";
+        PoliticaCache politica = configuracion.opcion(prefijo + "politica", PoliticaCache.class, PoliticaCache.LFU);
+        Cache<String, String> memoria = politica.crear(configuracion.entero(prefijo + "capacidad", 1000),
+                configuracion.largo(prefijo + "vigenciaSegundos", 300), TimeUnit.SECONDS);
+        long kb = configuracion.largo(prefijo + "fueraDeHeapKB", 0);
+        CacheEntidades<V> cache = new CacheEntidades<>(tipo, gson, memoria,
+                kb > 0 ? new AlmacenFueraDeHeap<>(kb * 1024) : null);
+        cache.registrarMetricas(nombre);
+        return cache;
+    }
+
+    /**
+     * Copia de la entidad guardada para el id, o null si no está
+     */
+    public V obtener(String id) {
+        if (id == null) {
+            return null;
+        }
+        String json = memoria.obtener(id);
+        if (json == null && fueraDeHeap != null) {
+            long leida = generacion;
+            byte[] datos = fueraDeHeap.obtener(id);
+            if (datos != null) {
+                json = new String(datos, StandardCharsets.UTF_8);
+                subir(id, json, leida);
+            }
+        }
+        return json != null ? gson.fromJson(json, tipo) : null;
+    }
+
+    /**
+     * Generación actual; se toma antes de leer el archivo y se pasa a
+     * guardar()
+     */
+    public long generacion() {
+        return generacion;
+    }
+
+    /**
+     * Guarda la entidad leída del archivo, salvo que desde que se tomó la
+     * generación se haya invalidado algo
+     */
+    public synchronized void guardar(String id, V entidad, long generacionLeida) {
+        if (id == null || entidad == null || generacion != generacionLeida) {
+            return;
+        }
+        String json = gson.toJsonTree(entidad).toString();
+        memoria.guardar(id, json);
+        if (fueraDeHeap != null) {
+            fueraDeHeap.guardar(id, json.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Descarta el id de los dos niveles; se llama después de escribir
+     */
+    public synchronized void invalidar(String id) {
+        generacion++;
+        memoria.invalidar(id);
+        if (fueraDeHeap != null) {
+            fueraDeHeap.invalidar(id);
+        }
+    }
+
+    public synchronized void limpiar() {
+        generacion++;
+        memoria.limpiar();
+        if (fueraDeHeap != null) {
+            fueraDeHeap.limpiar();
+        }
+    }
+
+    public long getAciertos() {
+        return memoria.getAciertos() + (fueraDeHeap != null ? fueraDeHeap.getAciertos() : 0);
+    }
+
+    /**
+     * Búsquedas que no estaban en ningún nivel y fueron al archivo
+     */
+    public long getFallos() {
+        return fueraDeHeap != null ? fueraDeHeap.getFallos() : memoria.getFallos();
+    }
+
+    private synchronized void subir(String id, String json, long generacionLeida) {
+        if (generacion == generacionLeida) {
+            memoria.guardar(id, json);
+        }
+    }
+
+    private void registrarMetricas(String nombre) {
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        metricas.medidor("unabet_cache_aciertos", "Búsquedas por id servidas desde el caché",
+                memoria::getAciertos, "cache", nombre, "nivel", "memoria");
+        metricas.medidor("unabet_cache_fallos", "Búsquedas por id que tuvieron que leer el archivo",
+                this::getFallos, "cache", nombre);
+        metricas.medidor("unabet_cache_entradas", "Entidades guardadas en el caché",
+                memoria::tamaño, "cache", nombre, "nivel", "memoria");
+        metricas.medidor("unabet_cache_expulsiones", "Entradas que el caché sacó para hacer lugar",
+                memoria::getExpulsiones, "cache", nombre, "nivel", "memoria");
+        if (fueraDeHeap != null) {
+            metricas.medidor("unabet_cache_aciertos", "Búsquedas por id servidas desde el caché",
+                    fueraDeHeap::getAciertos, "cache", nombre, "nivel", "fuera_heap");
+            metricas.medidor("unabet_cache_entradas", "Entidades guardadas en el caché",
+                    fueraDeHeap::tamaño, "cache", nombre, "nivel", "fuera_heap");
+            metricas.medidor("unabet_cache_expulsiones", "Entradas que el caché sacó para hacer lugar",
+                    fueraDeHeap::getExpulsiones, "cache", nombre, "nivel", "fuera_heap");
+            metricas.medidor("unabet_cache_bytes", "Bytes ocupados fuera del heap",
+                    fueraDeHeap::getBytes, "cache", nombre, "nivel", "fuera_heap");
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package back_end.dao;
+
+import back_end.Classes.Calificacion;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Guarda las calificaciones de los lugares. Cada una referencia a su
+ * usuario y a su lugar por id; el lugar solo guarda los ids de sus
+ * calificaciones y las pide aquí cuando se recorren.
+ */
+public class CalificacionDAO {
+
+    private static final String ARCHIVO_CALIFICACIONES = ConfiguracionAlmacenamiento.getInstance().archivo("calificaciones.json");
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("calificaciones", ARCHIVO_CALIFICACIONES);
+
+    // Clase interna para representar la calificación en JSON
+    private static class CalificacionJSON {
+        private String id;
+        private String usuarioId;
+        private String lugarId;
+        private int puntuacion;
+        private String comentario;
+        private String fecha;
+
+        // Constructor vacío para Gson
+        public CalificacionJSON() {}
+
+        public CalificacionJSON(Calificacion calificacion) {
+            this.id = calificacion.getId();
+            this.usuarioId = calificacion.getUsuario() != null ? calificacion.getUsuario().getId() : null;
+            this.lugarId = calificacion.getLugar() != null ? calificacion.getLugar().getId() : null;
+            this.puntuacion = calificacion.getPuntuacion();
+            this.comentario = calificacion.getComentario();
+            this.fecha = calificacion.getFecha() != null ? calificacion.getFecha().format(FORMATTER) : null;
+        }
+
+        public Calificacion toCalificacion(Usuario usuario, Lugar lugar) {
+            return new Calificacion(id, usuario, lugar, puntuacion, comentario,
+                    fecha != null ? LocalDateTime.parse(fecha, FORMATTER) : null);
+        }
+    }
+
+    /**
+     * Lee todas las calificaciones; si el archivo no existe no hay ninguna
+     */
+    private static List<CalificacionJSON> leerCalificaciones() throws PersistenciaException {
+        File archivo = new File(ARCHIVO_CALIFICACIONES);
+        if (!archivo.exists()) {
+            return new ArrayList<>();
+        }
+
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        try (FileReader reader = new FileReader(archivo)) {
+            Type tipoLista = new TypeToken<List<CalificacionJSON>>(){}.getType();
+            List<CalificacionJSON> calificaciones = gson.fromJson(reader, tipoLista);
+            METRICAS.lectura(evento, archivo.length(), calificaciones != null ? calificaciones.size() : 0);
+            return calificaciones != null ? calificaciones : new ArrayList<>();
+        } catch (JsonParseException e) {
+            throw new PersistenciaException("Archivo " + ARCHIVO_CALIFICACIONES + " corrupto: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al leer el archivo de calificaciones: " + e.getMessage(), e);
+        }
+    }
+
+    private static void escribirCalificaciones(List<CalificacionJSON> calificaciones) throws PersistenciaException {
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        try {
+            EscrituraAtomica.escribir(ARCHIVO_CALIFICACIONES, gson, calificaciones);
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al escribir el archivo de calificaciones: " + e.getMessage(), e);
+        }
+        METRICAS.escritura(evento, new File(ARCHIVO_CALIFICACIONES).length(), calificaciones.size());
+    }
+
+    /**
+     * Guarda una calificación nueva o reemplaza la que tenga el mismo ID
+     */
+    public static synchronized boolean guardarCalificacion(Calificacion calificacion) throws PersistenciaException {
+        return METRICAS.medir("guardarCalificacion", () -> {
+            if (calificacion == null || calificacion.getId() == null) {
+                return false;
+            }
+
+            List<CalificacionJSON> calificaciones = leerCalificaciones();
+            calificaciones.removeIf(c -> c.id.equals(calificacion.getId()));
+            calificaciones.add(new CalificacionJSON(calificacion));
+            escribirCalificaciones(calificaciones);
+            return true;
+        });
+    }
+
+    /**
+     * Busca varias calificaciones por ID con una sola lectura del archivo.
+     * Sus usuarios se buscan juntos; el lugar se toma de los ya cargados,
+     * por id, para no volver a leerlo.
+     */
+    public static Map<String, Calificacion> buscarPorIds(Collection<String> ids, Map<String, Lugar> lugares)
+            throws PersistenciaException {
+        return METRICAS.medir("buscarPorIds", () -> {
+            Map<String, Calificacion> encontradas = new HashMap<>();
+            if (ids == null || ids.isEmpty()) {
+                return encontradas;
+            }
+
+            Set<String> buscadas = new HashSet<>(ids);
+            List<CalificacionJSON> coincidencias = new ArrayList<>();
+            Set<String> usuarioIds = new HashSet<>();
+            for (CalificacionJSON calificacion : leerCalificaciones()) {
+                if (buscadas.contains(calificacion.id)) {
+                    coincidencias.add(calificacion);
+                    if (calificacion.usuarioId != null) {
+                        usuarioIds.add(calificacion.usuarioId);
+                    }
+                }
+            }
+
+            Map<String, Usuario> usuarios = UsuarioDAO.buscarPorIds(usuarioIds);
+            for (CalificacionJSON calificacion : coincidencias) {
+                encontradas.put(calificacion.id, calificacion.toCalificacion(
+                        usuarios.get(calificacion.usuarioId), lugares.get(calificacion.lugarId)));
+            }
+            return encontradas;
+        });
+    }
+
+    /**
+     * Elimina las calificaciones indicadas (por ejemplo, las de un lugar
+     * que se elimina)
+     */
+    public static synchronized int eliminarPorIds(Collection<String> ids) throws PersistenciaException {
+        return METRICAS.medir("eliminarPorIds", () -> {
+            if (ids == null || ids.isEmpty()) {
+                return 0;
+            }
+
+            Set<String> eliminadas = new HashSet<>(ids);
+            List<CalificacionJSON> calificaciones = leerCalificaciones();
+            int antes = calificaciones.size();
+            calificaciones.removeIf(c -> eliminadas.contains(c.id));
+            if (calificaciones.size() != antes) {
+                escribirCalificaciones(calificaciones);
+            }
+            return antes - calificaciones.size();
+        });
+    }
+}
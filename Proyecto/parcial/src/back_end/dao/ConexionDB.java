@@ -1,51 +1,63 @@
 package back_end.dao;
 
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoJDBC;
+import back_end.metricas.MetricasDAO;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class ConexionDB {
 
-    // Constantes de conexión - En una aplicación real, esto debería estar en un archivo de configuración
-    private static final String URL = "jdbc:mysql://localhost:3306/apunab_db";
-    private static final String USUARIO = "apunab_user";
-    private static final String CONTRASEÑA = "apunab_password";
+    // Datos de conexión: unabet.jdbc.url, unabet.jdbc.usuario y unabet.jdbc.contrasena
+    private static final String URL = ConfiguracionAlmacenamiento.getInstance().getJdbcUrl();
+    private static final String USUARIO = ConfiguracionAlmacenamiento.getInstance().getJdbcUsuario();
+    private static final String CONTRASEÑA = ConfiguracionAlmacenamiento.getInstance().getJdbcContrasena();
 
     // Flag para comprobar si se ha registrado el driver
     private static boolean driverRegistrado = false;
 
+    private static final MetricasDAO METRICAS = MetricasDAO.de("conexionDB");
+
     public static Connection obtenerConexion() throws SQLException {
-        // Registrar el driver de MySQL (solo se hace una vez)
-        if (!driverRegistrado) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                driverRegistrado = true;
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("No se encontró el driver de MySQL: " + e.getMessage());
+        return METRICAS.medir("obtenerConexion", () -> {
+            // Registrar el driver de MySQL (solo se hace una vez)
+            if (!driverRegistrado) {
+                try {
+                    Class.forName("com.mysql.cj.jdbc.Driver");
+                    driverRegistrado = true;
+                } catch (ClassNotFoundException e) {
+                    throw new SQLException("No se encontró el driver de MySQL: " + e.getMessage());
+                }
             }
-        }
 
-        // Obtener la conexión
-        return DriverManager.getConnection(URL, USUARIO, CONTRASEÑA);
+            // Obtener la conexión
+            return EventoJDBC.registrar("conectar", URL, 0, () -> DriverManager.getConnection(URL, USUARIO, CONTRASEÑA));
+        });
     }
 
     public static boolean probarConexion() {
-        try (Connection conn = obtenerConexion()) {
-            return conn != null && !conn.isClosed();
-        } catch (SQLException e) {
-            System.err.println("Error al probar la conexión: " + e.getMessage());
-            return false;
-        }
+        return METRICAS.medir("probarConexion", () -> {
+            try (Connection conn = obtenerConexion()) {
+                return conn != null && !conn.isClosed();
+            } catch (SQLException e) {
+                System.err.println("Error al probar la conexión: " + e.getMessage());
+                return false;
+            }
+        });
     }
 
     public static void cerrarConexion(Connection conn) {
-        if (conn != null) {
-            try {
-                conn.close();
-            } catch (SQLException e) {
-                System.err.println("Error al cerrar la conexión: " + e.getMessage());
+        METRICAS.medir("cerrarConexion", () -> {
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("Error al cerrar la conexión: " + e.getMessage());
+                }
             }
-        }
+            return null;
+        });
     }
 
     public static boolean inicializarBaseDeDatos() {
@@ -124,23 +136,28 @@ public class ConexionDB {
                 + "  FOREIGN KEY (apuesta_id) REFERENCES apuestas(id) ON DELETE SET NULL"
                 + ")";
 
-        try (Connection conn = obtenerConexion(); java.sql.Statement stmt = conn.createStatement()) {
+        return METRICAS.medir("inicializarBaseDeDatos", () -> {
+            try (Connection conn = obtenerConexion(); java.sql.Statement stmt = conn.createStatement()) {
 
-            // Crear tablas en orden debido a las dependencias de claves foráneas
-            stmt.execute(sqlCrearTablaUsuarios);
-            stmt.execute(sqlCrearTablaLugares);
-            stmt.execute(sqlCrearTablaJuegos);
-            stmt.execute(sqlCrearTablaApuestas);
-            stmt.execute(sqlCrearTablaApostadores);
-            stmt.execute(sqlCrearTablaTransacciones);
+                // Crear tablas en orden debido a las dependencias de claves foráneas
+                EventoJDBC.registrar("crearTablas", URL, 6, () -> {
+                    stmt.execute(sqlCrearTablaUsuarios);
+                    stmt.execute(sqlCrearTablaLugares);
+                    stmt.execute(sqlCrearTablaJuegos);
+                    stmt.execute(sqlCrearTablaApuestas);
+                    stmt.execute(sqlCrearTablaApostadores);
+                    stmt.execute(sqlCrearTablaTransacciones);
+                    return true;
+                });
 
-            System.out.println("Base de datos inicializada correctamente");
-            return true;
+                System.out.println("Base de datos inicializada correctamente");
+                return true;
 
-        } catch (SQLException e) {
-            System.err.println("Error al inicializar la base de datos: " + e.getMessage());
-            return false;
-        }
+            } catch (SQLException e) {
+                System.err.println("Error al inicializar la base de datos: " + e.getMessage());
+                return false;
+            }
+        });
     }
 
 }//TODO: documentar en el readme
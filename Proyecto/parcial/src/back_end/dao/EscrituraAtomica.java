@@ -0,0 +1,58 @@
+package back_end.dao;
+
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.configuracion.PoliticaFsync;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reescritura atómica de los archivos JSON de los DAO.
+ *
+ * El contenido se escribe en un archivo temporal junto al original y luego
+ * se renombra encima de él. Quien lea el archivo al mismo tiempo (otro hilo
+ * u otro proceso) ve la versión anterior completa o la nueva completa, nunca
+ * un archivo a medio escribir. Si la escritura falla, el original queda
+ * intacto. Cuánto se fuerza a disco lo decide unabet.datos.fsync.
+ */
+final class EscrituraAtomica {
+
+    private EscrituraAtomica() {
+    }
+
+    /**
+     * Serializa los datos con Gson y reemplaza el archivo
+     */
+    static void escribir(String archivo, Gson gson, Object datos) throws IOException {
+        Path destino = Paths.get(archivo).toAbsolutePath();
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        PoliticaFsync fsync = ConfiguracionAlmacenamiento.getInstance().getFsync();
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                Writer writer = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8))) {
+            gson.toJson(datos, writer);
+            writer.flush();
+            fsync.forzar(canal);
+        } catch (IOException | JsonIOException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+        fsync.forzarCarpeta(destino.getParent());
+    }
+}
@@ -0,0 +1,137 @@
+package back_end.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Filtro de Bloom con contadores para los correos registrados.
+ *
+ * Responde "seguro que no existe" sin leer usuarios.json. Solo cuando el
+ * filtro indica un posible acierto se consulta el archivo de usuarios. Usa
+ * contadores de 8 bits en lugar de bits simples para poder quitar correos
+ * cuando se elimina o se actualiza un usuario.
+ *
+ * Vive solo en memoria: UsuarioDAO lo arma desde usuarios.json la primera
+ * vez que lo necesita en cada ejecución.
+ */
+class FiltroBloomCorreos {
+
+    private static final int CAPACIDAD_MINIMA = 1024;
+    private static final double TASA_FALSOS_POSITIVOS = 0.01;
+
+    private byte[] contadores;
+    private int numFunciones;
+    private int capacidad;
+    private int elementos;
+
+    FiltroBloomCorreos() {
+        dimensionar(CAPACIDAD_MINIMA);
+    }
+
+    /**
+     * Normaliza el correo igual que Usuario.registrarse (trim + minúsculas)
+     */
+    static String normalizar(String correo) {
+        return correo == null ? null : correo.trim().toLowerCase();
+    }
+
+    /**
+     * Reconstruye el filtro a partir de los correos del almacén
+     */
+    synchronized void reconstruir(Collection<String> correos) {
+        dimensionar(Math.max(CAPACIDAD_MINIMA, correos.size() * 2));
+        for (String correo : correos) {
+            sumar(normalizar(correo), 1);
+        }
+    }
+
+    /**
+     * Indica si el correo podría estar registrado. Si retorna false, el
+     * correo seguro no está registrado.
+     */
+    synchronized boolean puedeContener(String correo) {
+        String clave = normalizar(correo);
+        if (clave == null || clave.isEmpty()) {
+            return false;
+        }
+        long[] hashes = hashes(clave);
+        for (int i = 0; i < numFunciones; i++) {
+            if (contadores[indice(hashes, i)] == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Agrega un correo. Retorna false si se superó la capacidad y el
+     * llamador debe reconstruir el filtro con un tamaño mayor.
+     */
+    synchronized boolean agregar(String correo) {
+        String clave = normalizar(correo);
+        if (clave == null || clave.isEmpty()) {
+            return true;
+        }
+        sumar(clave, 1);
+        return elementos <= capacidad;
+    }
+
+    /**
+     * Quita un correo previamente agregado
+     */
+    synchronized void quitar(String correo) {
+        String clave = normalizar(correo);
+        if (clave == null || clave.isEmpty()) {
+            return;
+        }
+        sumar(clave, -1);
+    }
+
+    private void dimensionar(int capacidad) {
+        // m = -n ln(p) / (ln 2)^2, k = (m / n) ln 2
+        double ln2 = Math.log(2);
+        int tamaño = (int) Math.ceil(-capacidad * Math.log(TASA_FALSOS_POSITIVOS) / (ln2 * ln2));
+        this.capacidad = capacidad;
+        this.contadores = new byte[tamaño];
+        this.numFunciones = Math.max(1, (int) Math.round((double) tamaño / capacidad * ln2));
+        this.elementos = 0;
+    }
+
+    private void sumar(String clave, int delta) {
+        long[] hashes = hashes(clave);
+        for (int i = 0; i < numFunciones; i++) {
+            int pos = indice(hashes, i);
+            int valor = contadores[pos] & 0xFF;
+            // Un contador saturado ya no se decrementa para no generar falsos negativos
+            if (valor == 0xFF || (delta < 0 && valor == 0)) {
+                continue;
+            }
+            contadores[pos] = (byte) (valor + delta);
+        }
+        elementos = Math.max(0, elementos + delta);
+    }
+
+    private int indice(long[] hashes, int i) {
+        // Doble hashing de Kirsch-Mitzenmacher: h1 + i * h2
+        long combinado = hashes[0] + i * hashes[1];
+        return (int) Long.remainderUnsigned(combinado, contadores.length);
+    }
+
+    private static long[] hashes(String clave) {
+        // FNV-1a de 64 bits sobre los bytes UTF-8, mezclado para obtener dos hashes
+        long h = 0xcbf29ce484222325L;
+        for (byte b : clave.getBytes(StandardCharsets.UTF_8)) {
+            h ^= (b & 0xFF);
+            h *= 0x100000001b3L;
+        }
+        long h1 = mezclar(h);
+        long h2 = mezclar(h ^ 0x9e3779b97f4a7c15L) | 1L;
+        return new long[]{h1, h2};
+    }
+
+    private static long mezclar(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
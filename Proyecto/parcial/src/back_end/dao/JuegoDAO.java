@@ -2,6 +2,9 @@ package back_end.dao;
 
 import back_end.Classes.Juego;
 import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonDeserializationContext;
@@ -17,13 +20,18 @@ import java.lang.reflect.Type;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class JuegoDAO {
     
-    private static final String ARCHIVO_JUEGOS = "juegos.json";
+    private static final String ARCHIVO_JUEGOS = ConfiguracionAlmacenamiento.getInstance().archivo("juegos.json");
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
     
     // Serializador personalizado para LocalDateTime
@@ -44,11 +52,14 @@ public class JuegoDAO {
             .setPrettyPrinting()
             .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
             .create();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("juegos", ARCHIVO_JUEGOS);
+    // Búsquedas por id sin releer el archivo; cada escritura invalida el id que cambia
+    private static final CacheEntidades<Juego> CACHE = CacheEntidades.de("juegos", Juego.class, gson);
     
     /**
      * Inicializa el archivo JSON si no existe
      */
-    private static void inicializarArchivo() throws PersistenciaException {
+    private static synchronized void inicializarArchivo() throws PersistenciaException {
         File archivo = new File(ARCHIVO_JUEGOS);
         if (!archivo.exists()) {
             try {
@@ -67,11 +78,16 @@ public class JuegoDAO {
      * Lee todos los juegos del archivo JSON
      */
     private static List<Juego> leerJuegos() throws PersistenciaException {
-        inicializarArchivo();
+        if (!new File(ARCHIVO_JUEGOS).exists()) {
+            inicializarArchivo();
+        }
         
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        long bytes = new File(ARCHIVO_JUEGOS).length();
         try (FileReader reader = new FileReader(ARCHIVO_JUEGOS)) {
             Type tipoLista = new TypeToken<List<Juego>>(){}.getType();
             List<Juego> juegos = gson.fromJson(reader, tipoLista);
+            METRICAS.lectura(evento, bytes, juegos != null ? juegos.size() : 0);
             return juegos != null ? juegos : new ArrayList<>();
         } catch (IOException e) {
             throw new PersistenciaException("Error al leer el archivo JSON de juegos: " + e.getMessage());
@@ -82,165 +98,244 @@ public class JuegoDAO {
      * Escribe todos los juegos al archivo JSON
      */
     private static void escribirJuegos(List<Juego> juegos) throws PersistenciaException {
-        try (FileWriter writer = new FileWriter(ARCHIVO_JUEGOS)) {
-            gson.toJson(juegos, writer);
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        try {
+            EscrituraAtomica.escribir(ARCHIVO_JUEGOS, gson, juegos);
         } catch (IOException e) {
             throw new PersistenciaException("Error al escribir el archivo JSON de juegos: " + e.getMessage());
         }
+        METRICAS.escritura(evento, new File(ARCHIVO_JUEGOS).length(), juegos.size());
     }
     
     /**
      * Guarda un juego en el archivo JSON
      */
-    public static boolean guardarJuego(Juego juego) throws PersistenciaException {
-        if (juego == null) {
+    public static synchronized boolean guardarJuego(Juego juego) throws PersistenciaException {
+        return METRICAS.medir("guardarJuego", () -> {
+            if (juego == null) {
+                return false;
+            }
+            
+            List<Juego> juegos = leerJuegos();
+            
+            // Verificar si el juego ya existe por ID
+            boolean existe = juegos.stream()
+                    .anyMatch(j -> j.getId().equals(juego.getId()));
+            
+            if (!existe) {
+                juegos.add(juego);
+                escribirJuegos(juegos);
+                CACHE.invalidar(juego.getId());
+                return true;
+            }
+            
             return false;
-        }
-        
-        List<Juego> juegos = leerJuegos();
-        
-        // Verificar si el juego ya existe por ID
-        boolean existe = juegos.stream()
-                .anyMatch(j -> j.getId().equals(juego.getId()));
-        
-        if (!existe) {
-            juegos.add(juego);
-            escribirJuegos(juegos);
-            return true;
-        }
-        
-        return false;
+        });
     }
     
     /**
      * Actualiza un juego existente en el archivo JSON
      */
-    public static boolean actualizarJuego(Juego juego) throws PersistenciaException {
-        if (juego == null) {
-            return false;
-        }
-        
-        List<Juego> juegos = leerJuegos();
-        
-        for (int i = 0; i < juegos.size(); i++) {
-            if (juegos.get(i).getId().equals(juego.getId())) {
-                juegos.set(i, juego);
-                escribirJuegos(juegos);
-                return true;
+    public static synchronized boolean actualizarJuego(Juego juego) throws PersistenciaException {
+        return METRICAS.medir("actualizarJuego", () -> {
+            if (juego == null) {
+                return false;
             }
-        }
-        
-        return false;
+            
+            List<Juego> juegos = leerJuegos();
+            
+            for (int i = 0; i < juegos.size(); i++) {
+                if (juegos.get(i).getId().equals(juego.getId())) {
+                    juegos.set(i, juego);
+                    escribirJuegos(juegos);
+                    CACHE.invalidar(juego.getId());
+                    return true;
+                }
+            }
+            
+            return false;
+        });
     }
     
     /**
-     * Elimina un juego del archivo JSON por su ID (eliminación física)
+     * Descarta del caché los juegos indicados, por ejemplo porque el
+     * archivo se modificó fuera de la aplicación
      */
-    public static boolean eliminarJuegoFisico(String id) throws PersistenciaException {
-        if (id == null || id.trim().isEmpty()) {
-            return false;
+    public static void invalidarCache(Collection<String> ids) {
+        for (String id : ids) {
+            CACHE.invalidar(id);
         }
-        
-        List<Juego> juegos = leerJuegos();
-        boolean eliminado = juegos.removeIf(juego -> juego.getId().equals(id));
-        
-        if (eliminado) {
-            escribirJuegos(juegos);
-        }
-        
-        return eliminado;
+    }
+
+    /**
+     * Elimina un juego del archivo JSON por su ID (eliminación física)
+     */
+    public static synchronized boolean eliminarJuegoFisico(String id) throws PersistenciaException {
+        return METRICAS.medir("eliminarJuegoFisico", () -> {
+            if (id == null || id.trim().isEmpty()) {
+                return false;
+            }
+            
+            List<Juego> juegos = leerJuegos();
+            boolean eliminado = juegos.removeIf(juego -> juego.getId().equals(id));
+            
+            if (eliminado) {
+                escribirJuegos(juegos);
+                CACHE.invalidar(id);
+            }
+            
+            return eliminado;
+        });
     }
     
     /**
      * Busca un juego por su ID
      */
     public static Juego buscarPorId(String id) throws PersistenciaException {
-        if (id == null || id.trim().isEmpty()) {
-            return null;
-        }
-        
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .filter(juego -> juego.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return METRICAS.medir("buscarPorId", () -> {
+            if (id == null || id.trim().isEmpty()) {
+                return null;
+            }
+            
+            Juego enCache = CACHE.obtener(id);
+            if (enCache != null) {
+                return enCache;
+            }
+            
+            long generacion = CACHE.generacion();
+            Juego encontrado = leerJuegos().stream()
+                    .filter(juego -> juego.getId().equals(id))
+                    .findFirst()
+                    .orElse(null);
+            CACHE.guardar(id, encontrado, generacion);
+            return encontrado;
+        });
+    }
+    
+    /**
+     * Busca varios juegos por ID; los que no están en el caché salen de una
+     * sola lectura del archivo
+     */
+    public static Map<String, Juego> buscarPorIds(Collection<String> ids) throws PersistenciaException {
+        return METRICAS.medir("buscarPorIds", () -> {
+            Map<String, Juego> encontrados = new HashMap<>();
+            if (ids == null || ids.isEmpty()) {
+                return encontrados;
+            }
+            
+            Set<String> buscados = new HashSet<>();
+            for (String id : ids) {
+                Juego enCache = CACHE.obtener(id);
+                if (enCache != null) {
+                    encontrados.put(id, enCache);
+                } else if (id != null) {
+                    buscados.add(id);
+                }
+            }
+            if (buscados.isEmpty()) {
+                return encontrados;
+            }
+            
+            long generacion = CACHE.generacion();
+            for (Juego juego : leerJuegos()) {
+                if (buscados.contains(juego.getId())) {
+                    encontrados.put(juego.getId(), juego);
+                    CACHE.guardar(juego.getId(), juego, generacion);
+                }
+            }
+            return encontrados;
+        });
     }
     
     /**
      * Busca juegos por nombre (búsqueda parcial, case-insensitive)
      */
     public static List<Juego> buscarPorNombre(String nombre) throws PersistenciaException {
-        if (nombre == null || nombre.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .filter(juego -> juego.getNombre().toLowerCase()
-                        .contains(nombre.toLowerCase()))
-                .collect(Collectors.toList());
+        return METRICAS.medir("buscarPorNombre", () -> {
+            if (nombre == null || nombre.trim().isEmpty()) {
+                return new ArrayList<>();
+            }
+            
+            List<Juego> juegos = leerJuegos();
+            return juegos.stream()
+                    .filter(juego -> juego.getNombre().toLowerCase()
+                            .contains(nombre.toLowerCase()))
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Obtiene todos los juegos del archivo JSON
      */
     public static List<Juego> obtenerTodosLosJuegos() throws PersistenciaException {
-        return new ArrayList<>(leerJuegos());
+        return METRICAS.medir("obtenerTodosLosJuegos", () -> {
+            return new ArrayList<>(leerJuegos());
+        });
     }
     
     /**
      * Obtiene solo los juegos activos
      */
     public static List<Juego> obtenerJuegosActivos() throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .filter(Juego::isActivo)
-                .collect(Collectors.toList());
+        return METRICAS.medir("obtenerJuegosActivos", () -> {
+            List<Juego> juegos = leerJuegos();
+            return juegos.stream()
+                    .filter(Juego::isActivo)
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Obtiene juegos ordenados por factor multiplicador (de mayor a menor)
      */
     public static List<Juego> obtenerJuegosPorFactor() throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .sorted(Comparator.comparingDouble(Juego::getFactorMultiplicador).reversed())
-                .collect(Collectors.toList());
+        return METRICAS.medir("obtenerJuegosPorFactor", () -> {
+            List<Juego> juegos = leerJuegos();
+            return juegos.stream()
+                    .sorted(Comparator.comparingDouble(Juego::getFactorMultiplicador).reversed())
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Verifica si existe un juego con el nombre especificado
      */
     public static boolean existeJuego(String nombre) {
-        if (nombre == null || nombre.trim().isEmpty()) {
-            return false;
-        }
-        
-        try {
-            List<Juego> juegos = leerJuegos();
-            return juegos.stream()
-                    .anyMatch(juego -> juego.getNombre().equalsIgnoreCase(nombre.trim()));
-        } catch (PersistenciaException e) {
-            System.err.println("Error al verificar existencia del juego: " + e.getMessage());
-            return false;
-        }
+        return METRICAS.medir("existeJuego", () -> {
+            if (nombre == null || nombre.trim().isEmpty()) {
+                return false;
+            }
+            
+            try {
+                List<Juego> juegos = leerJuegos();
+                return juegos.stream()
+                        .anyMatch(juego -> juego.getNombre().equalsIgnoreCase(nombre.trim()));
+            } catch (PersistenciaException e) {
+                System.err.println("Error al verificar existencia del juego: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
      * Cuenta el total de juegos
      */
     public static int contarJuegos() throws PersistenciaException {
-        return leerJuegos().size();
+        return METRICAS.medir("contarJuegos", () -> {
+            return leerJuegos().size();
+        });
     }
     
     /**
      * Cuenta solo los juegos activos
      */
     public static int contarJuegosActivos() throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        return (int) juegos.stream()
-                .filter(Juego::isActivo)
-                .count();
+        return METRICAS.medir("contarJuegosActivos", () -> {
+            List<Juego> juegos = leerJuegos();
+            return (int) juegos.stream()
+                    .filter(Juego::isActivo)
+                    .count();
+        });
     }
     
     /**
@@ -248,11 +343,13 @@ public class JuegoDAO {
      */
     public static List<Juego> buscarPorRangoFactor(double minimo, double maximo) 
             throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .filter(juego -> juego.getFactorMultiplicador() >= minimo && 
-                               juego.getFactorMultiplicador() <= maximo)
-                .collect(Collectors.toList());
+        return METRICAS.medir("buscarPorRangoFactor", () -> {
+            List<Juego> juegos = leerJuegos();
+            return juegos.stream()
+                    .filter(juego -> juego.getFactorMultiplicador() >= minimo && 
+                                   juego.getFactorMultiplicador() <= maximo)
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
@@ -260,57 +357,63 @@ public class JuegoDAO {
      */
     public static List<Juego> buscarPorRangoFechas(LocalDateTime fechaInicio, LocalDateTime fechaFin) 
             throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .filter(juego -> {
-                    LocalDateTime fechaCreacion = juego.getFechaCreacion();
-                    return fechaCreacion.isAfter(fechaInicio) && fechaCreacion.isBefore(fechaFin);
-                })
-                .collect(Collectors.toList());
+        return METRICAS.medir("buscarPorRangoFechas", () -> {
+            List<Juego> juegos = leerJuegos();
+            return juegos.stream()
+                    .filter(juego -> {
+                        LocalDateTime fechaCreacion = juego.getFechaCreacion();
+                        return fechaCreacion.isAfter(fechaInicio) && fechaCreacion.isBefore(fechaFin);
+                    })
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Obtiene los juegos más recientes (ordenados por fecha de creación descendente)
      */
     public static List<Juego> obtenerJuegosRecientes(int limite) throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        return juegos.stream()
-                .sorted(Comparator.comparing(Juego::getFechaCreacion).reversed())
-                .limit(limite)
-                .collect(Collectors.toList());
+        return METRICAS.medir("obtenerJuegosRecientes", () -> {
+            List<Juego> juegos = leerJuegos();
+            return juegos.stream()
+                    .sorted(Comparator.comparing(Juego::getFechaCreacion).reversed())
+                    .limit(limite)
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Obtiene estadísticas básicas de los juegos
      */
     public static JuegoEstadisticas obtenerEstadisticas() throws PersistenciaException {
-        List<Juego> juegos = leerJuegos();
-        
-        if (juegos.isEmpty()) {
-            return new JuegoEstadisticas(0, 0, 0, 0.0, 0.0, 0.0);
-        }
-        
-        int totalJuegos = juegos.size();
-        int juegosActivos = (int) juegos.stream().filter(Juego::isActivo).count();
-        int juegosInactivos = totalJuegos - juegosActivos;
-        
-        double factorPromedio = juegos.stream()
-                .mapToDouble(Juego::getFactorMultiplicador)
-                .average()
-                .orElse(0.0);
-        
-        double factorMinimo = juegos.stream()
-                .mapToDouble(Juego::getFactorMultiplicador)
-                .min()
-                .orElse(0.0);
-        
-        double factorMaximo = juegos.stream()
-                .mapToDouble(Juego::getFactorMultiplicador)
-                .max()
-                .orElse(0.0);
-        
-        return new JuegoEstadisticas(totalJuegos, juegosActivos, juegosInactivos, 
-                                   factorPromedio, factorMinimo, factorMaximo);
+        return METRICAS.medir("obtenerEstadisticas", () -> {
+            List<Juego> juegos = leerJuegos();
+            
+            if (juegos.isEmpty()) {
+                return new JuegoEstadisticas(0, 0, 0, 0.0, 0.0, 0.0);
+            }
+            
+            int totalJuegos = juegos.size();
+            int juegosActivos = (int) juegos.stream().filter(Juego::isActivo).count();
+            int juegosInactivos = totalJuegos - juegosActivos;
+            
+            double factorPromedio = juegos.stream()
+                    .mapToDouble(Juego::getFactorMultiplicador)
+                    .average()
+                    .orElse(0.0);
+            
+            double factorMinimo = juegos.stream()
+                    .mapToDouble(Juego::getFactorMultiplicador)
+                    .min()
+                    .orElse(0.0);
+            
+            double factorMaximo = juegos.stream()
+                    .mapToDouble(Juego::getFactorMultiplicador)
+                    .max()
+                    .orElse(0.0);
+            
+            return new JuegoEstadisticas(totalJuegos, juegosActivos, juegosInactivos, 
+                                       factorPromedio, factorMinimo, factorMaximo);
+        });
     }
     
     /**
@@ -5,24 +5,67 @@ import back_end.Classes.Juego;
 import back_end.Classes.Usuario;
 import back_end.Classes.Calificacion;
 import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.membresias.MembresiaLugares;
+import back_end.metricas.MetricasDAO;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
 import com.google.gson.reflect.TypeToken;
 import java.io.*;
 import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class LugarDAO {
 
-    private static final String ARCHIVO_LUGARES = "lugares.json";
-    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final String ARCHIVO_LUGARES = ConfiguracionAlmacenamiento.getInstance().archivo("lugares.json");
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    // Serializador personalizado para LocalDateTime (fechas de juegos y calificaciones)
+    private static class LocalDateTimeAdapter implements JsonSerializer<LocalDateTime>, JsonDeserializer<LocalDateTime> {
+        @Override
+        public JsonElement serialize(LocalDateTime src, Type typeOfSrc, JsonSerializationContext context) {
+            return new JsonPrimitive(src.format(FORMATTER));
+        }
+
+        @Override
+        public LocalDateTime deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context)
+                throws JsonParseException {
+            return LocalDateTime.parse(json.getAsString(), FORMATTER);
+        }
+    }
+
+    private static final Gson gson = new GsonBuilder()
+            .setPrettyPrinting()
+            .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+            .create();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("lugares", ARCHIVO_LUGARES);
+    // Búsquedas por id sin releer el archivo; cada escritura invalida el id que cambia
+    private static final CacheEntidades<Lugar> CACHE = CacheEntidades.de("lugares", Lugar.class, gson);
     
     /**
      * Inicializa el archivo JSON si no existe
      */
-    private static void inicializarArchivo() throws PersistenciaException {
+    private static synchronized void inicializarArchivo() throws PersistenciaException {
         File archivo = new File(ARCHIVO_LUGARES);
         if (!archivo.exists()) {
             try {
@@ -41,11 +84,16 @@ public class LugarDAO {
      * Lee todos los lugares del archivo JSON
      */
     private static List<Lugar> leerLugares() throws PersistenciaException {
-        inicializarArchivo();
+        if (!new File(ARCHIVO_LUGARES).exists()) {
+            inicializarArchivo();
+        }
         
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        long bytes = new File(ARCHIVO_LUGARES).length();
         try (FileReader reader = new FileReader(ARCHIVO_LUGARES)) {
             Type tipoLista = new TypeToken<List<Lugar>>(){}.getType();
             List<Lugar> lugares = gson.fromJson(reader, tipoLista);
+            METRICAS.lectura(evento, bytes, lugares != null ? lugares.size() : 0);
             return lugares != null ? lugares : new ArrayList<>();
         } catch (IOException e) {
             throw new PersistenciaException("Error al leer el archivo JSON: " + e.getMessage());
@@ -56,147 +104,260 @@ public class LugarDAO {
      * Escribe todos los lugares al archivo JSON
      */
     private static void escribirLugares(List<Lugar> lugares) throws PersistenciaException {
-        try (FileWriter writer = new FileWriter(ARCHIVO_LUGARES)) {
-            gson.toJson(lugares, writer);
+        // Los usuarios inscritos ya no se guardan en este archivo: antes de
+        // reescribirlo deben haber pasado al archivo de membresías
+        MembresiaLugares.getInstance().cargar();
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        try {
+            EscrituraAtomica.escribir(ARCHIVO_LUGARES, gson, lugares);
         } catch (IOException e) {
             throw new PersistenciaException("Error al escribir el archivo JSON: " + e.getMessage());
         }
+        METRICAS.escritura(evento, new File(ARCHIVO_LUGARES).length(), lugares.size());
     }
     
     /**
-     * Guarda un lugar en el archivo JSON
+     * Ids de los usuarios inscritos que quedaron guardados dentro de cada
+     * lugar (formato anterior al archivo de membresías), por id de lugar
      */
-    public static boolean guardarLugar(Lugar lugar) throws PersistenciaException {
-        if (lugar == null) {
-            return false;
+    public static Map<String, List<String>> leerInscritosGuardados() throws PersistenciaException {
+        Map<String, List<String>> inscritos = new LinkedHashMap<>();
+        File archivo = new File(ARCHIVO_LUGARES);
+        if (!archivo.exists()) {
+            return inscritos;
         }
-        
-        List<Lugar> lugares = leerLugares();
-        
-        // Verificar si el lugar ya existe
-        boolean existe = lugares.stream()
-                .anyMatch(l -> l.getId().equals(lugar.getId()));
-        
-        if (!existe) {
-            lugares.add(lugar);
-            escribirLugares(lugares);
-            return true;
+        try (FileReader reader = new FileReader(archivo)) {
+            JsonElement raiz = JsonParser.parseReader(reader);
+            if (!raiz.isJsonArray()) {
+                return inscritos;
+            }
+            for (JsonElement elemento : raiz.getAsJsonArray()) {
+                JsonObject lugar = elemento.getAsJsonObject();
+                JsonElement usuarios = lugar.get("usuariosRegistrados");
+                if (!lugar.has("id") || usuarios == null || !usuarios.isJsonArray()) {
+                    continue;
+                }
+                List<String> ids = new ArrayList<>();
+                for (JsonElement usuario : usuarios.getAsJsonArray()) {
+                    if (usuario.isJsonObject() && usuario.getAsJsonObject().has("id")) {
+                        ids.add(usuario.getAsJsonObject().get("id").getAsString());
+                    }
+                }
+                inscritos.put(lugar.get("id").getAsString(), ids);
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            throw new PersistenciaException("Error al leer los inscritos de " + ARCHIVO_LUGARES + ": " + e.getMessage());
         }
-        
-        return false;
+        return inscritos;
+    }
+
+    /**
+     * Guarda un lugar en el archivo JSON
+     */
+    public static synchronized boolean guardarLugar(Lugar lugar) throws PersistenciaException {
+        return METRICAS.medir("guardarLugar", () -> {
+            if (lugar == null) {
+                return false;
+            }
+            
+            List<Lugar> lugares = leerLugares();
+            
+            // Verificar si el lugar ya existe
+            boolean existe = lugares.stream()
+                    .anyMatch(l -> l.getId().equals(lugar.getId()));
+            
+            if (!existe) {
+                lugares.add(lugar);
+                escribirLugares(lugares);
+                CACHE.invalidar(lugar.getId());
+                return true;
+            }
+            
+            return false;
+        });
     }
     
     /**
      * Actualiza un lugar existente en el archivo JSON
      */
-    public static boolean actualizarLugar(Lugar lugar) throws PersistenciaException {
-        if (lugar == null) {
+    public static synchronized boolean actualizarLugar(Lugar lugar) throws PersistenciaException {
+        return METRICAS.medir("actualizarLugar", () -> {
+            if (lugar == null) {
+                return false;
+            }
+            
+            List<Lugar> lugares = leerLugares();
+            
+            for (int i = 0; i < lugares.size(); i++) {
+                if (lugares.get(i).getId().equals(lugar.getId())) {
+                    lugares.set(i, lugar);
+                    escribirLugares(lugares);
+                    CACHE.invalidar(lugar.getId());
+                    return true;
+                }
+            }
+            
             return false;
-        }
-        
-        List<Lugar> lugares = leerLugares();
-        
-        for (int i = 0; i < lugares.size(); i++) {
-            if (lugares.get(i).getId().equals(lugar.getId())) {
-                lugares.set(i, lugar);
+        });
+    }
+    
+    /**
+     * Elimina un lugar del archivo JSON por su ID
+     */
+    public static synchronized boolean eliminarLugar(String id) throws PersistenciaException {
+        return METRICAS.medir("eliminarLugar", () -> {
+            if (id == null || id.trim().isEmpty()) {
+                return false;
+            }
+            
+            List<Lugar> lugares = leerLugares();
+            boolean eliminado = lugares.removeIf(lugar -> lugar.getId().equals(id));
+            
+            if (eliminado) {
                 escribirLugares(lugares);
-                return true;
+                CACHE.invalidar(id);
             }
-        }
-        
-        return false;
+            
+            return eliminado;
+        });
     }
     
     /**
-     * Elimina un lugar del archivo JSON por su ID
+     * Descarta del caché los lugares indicados, por ejemplo porque el
+     * archivo se modificó fuera de la aplicación
      */
-    public static boolean eliminarLugar(String id) throws PersistenciaException {
-        if (id == null || id.trim().isEmpty()) {
-            return false;
-        }
-        
-        List<Lugar> lugares = leerLugares();
-        boolean eliminado = lugares.removeIf(lugar -> lugar.getId().equals(id));
-        
-        if (eliminado) {
-            escribirLugares(lugares);
+    public static void invalidarCache(Collection<String> ids) {
+        for (String id : ids) {
+            CACHE.invalidar(id);
         }
-        
-        return eliminado;
     }
-    
+
     /**
      * Busca un lugar por su ID
      */
     public static Lugar buscarPorId(String id) throws PersistenciaException {
-        if (id == null || id.trim().isEmpty()) {
-            return null;
-        }
-        
-        List<Lugar> lugares = leerLugares();
-        return lugares.stream()
-                .filter(lugar -> lugar.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        return METRICAS.medir("buscarPorId", () -> {
+            if (id == null || id.trim().isEmpty()) {
+                return null;
+            }
+            
+            Lugar enCache = CACHE.obtener(id);
+            if (enCache != null) {
+                return enCache;
+            }
+            
+            long generacion = CACHE.generacion();
+            Lugar encontrado = leerLugares().stream()
+                    .filter(lugar -> lugar.getId().equals(id))
+                    .findFirst()
+                    .orElse(null);
+            CACHE.guardar(id, encontrado, generacion);
+            return encontrado;
+        });
+    }
+    
+    /**
+     * Busca varios lugares por ID; los que no están en el caché salen de una
+     * sola lectura del archivo
+     */
+    public static Map<String, Lugar> buscarPorIds(Collection<String> ids) throws PersistenciaException {
+        return METRICAS.medir("buscarPorIds", () -> {
+            Map<String, Lugar> encontrados = new HashMap<>();
+            if (ids == null || ids.isEmpty()) {
+                return encontrados;
+            }
+            
+            Set<String> buscados = new HashSet<>();
+            for (String id : ids) {
+                Lugar enCache = CACHE.obtener(id);
+                if (enCache != null) {
+                    encontrados.put(id, enCache);
+                } else if (id != null) {
+                    buscados.add(id);
+                }
+            }
+            if (buscados.isEmpty()) {
+                return encontrados;
+            }
+            
+            long generacion = CACHE.generacion();
+            for (Lugar lugar : leerLugares()) {
+                if (buscados.contains(lugar.getId())) {
+                    encontrados.put(lugar.getId(), lugar);
+                    CACHE.guardar(lugar.getId(), lugar, generacion);
+                }
+            }
+            return encontrados;
+        });
     }
     
     /**
      * Busca lugares por nombre (búsqueda parcial, case-insensitive)
      */
     public static List<Lugar> buscarPorNombre(String nombre) throws PersistenciaException {
-        if (nombre == null || nombre.trim().isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        List<Lugar> lugares = leerLugares();
-        return lugares.stream()
-                .filter(lugar -> lugar.getNombre().toLowerCase()
-                        .contains(nombre.toLowerCase()))
-                .collect(Collectors.toList());
+        return METRICAS.medir("buscarPorNombre", () -> {
+            if (nombre == null || nombre.trim().isEmpty()) {
+                return new ArrayList<>();
+            }
+            
+            List<Lugar> lugares = leerLugares();
+            return lugares.stream()
+                    .filter(lugar -> lugar.getNombre().toLowerCase()
+                            .contains(nombre.toLowerCase()))
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Obtiene todos los lugares del archivo JSON
      */
     public static List<Lugar> obtenerTodosLosLugares() throws PersistenciaException {
-        return new ArrayList<>(leerLugares());
+        return METRICAS.medir("obtenerTodosLosLugares", () -> {
+            return new ArrayList<>(leerLugares());
+        });
     }
     
     /**
      * Obtiene lugares ordenados por calificación (de mayor a menor)
      */
     public static List<Lugar> obtenerLugaresPorCalificacion() throws PersistenciaException {
-        List<Lugar> lugares = leerLugares();
-        return lugares.stream()
-                .sorted((l1, l2) -> Double.compare(l2.getCalificacionPromedio(), 
-                                                 l1.getCalificacionPromedio()))
-                .collect(Collectors.toList());
+        return METRICAS.medir("obtenerLugaresPorCalificacion", () -> {
+            List<Lugar> lugares = leerLugares();
+            return lugares.stream()
+                    .sorted((l1, l2) -> Double.compare(l2.getCalificacionPromedio(), 
+                                                     l1.getCalificacionPromedio()))
+                    .collect(Collectors.toList());
+        });
     }
     
     /**
      * Verifica si existe un lugar con el mismo nombre y dirección
      */
     public static boolean existeLugar(String nombre, String direccion) {
-        if (nombre == null || direccion == null) {
-            return false;
-        }
-        
-        try {
-            List<Lugar> lugares = leerLugares();
-            return lugares.stream()
-                    .anyMatch(lugar -> lugar.getNombre().equalsIgnoreCase(nombre.trim()) && 
-                                     lugar.getDireccion().equalsIgnoreCase(direccion.trim()));
-        } catch (PersistenciaException e) {
-            System.err.println("Error al verificar existencia del lugar: " + e.getMessage());
-            return false;
-        }
+        return METRICAS.medir("existeLugar", () -> {
+            if (nombre == null || direccion == null) {
+                return false;
+            }
+            
+            try {
+                List<Lugar> lugares = leerLugares();
+                return lugares.stream()
+                        .anyMatch(lugar -> lugar.getNombre().equalsIgnoreCase(nombre.trim()) && 
+                                         lugar.getDireccion().equalsIgnoreCase(direccion.trim()));
+            } catch (PersistenciaException e) {
+                System.err.println("Error al verificar existencia del lugar: " + e.getMessage());
+                return false;
+            }
+        });
     }
     
     /**
      * Obtiene la cantidad total de lugares
      */
     public static int contarLugares() throws PersistenciaException {
-        return leerLugares().size();
+        return METRICAS.medir("contarLugares", () -> {
+            return leerLugares().size();
+        });
     }
     
     /**
@@ -204,10 +365,12 @@ public class LugarDAO {
      */
     public static List<Lugar> buscarPorRangoCalificacion(double minimo, double maximo) 
             throws PersistenciaException {
-        List<Lugar> lugares = leerLugares();
-        return lugares.stream()
-                .filter(lugar -> lugar.getCalificacionPromedio() >= minimo && 
-                               lugar.getCalificacionPromedio() <= maximo)
-                .collect(Collectors.toList());
+        return METRICAS.medir("buscarPorRangoCalificacion", () -> {
+            List<Lugar> lugares = leerLugares();
+            return lugares.stream()
+                    .filter(lugar -> lugar.getCalificacionPromedio() >= minimo && 
+                                   lugar.getCalificacionPromedio() <= maximo)
+                    .collect(Collectors.toList());
+        });
     }
 }
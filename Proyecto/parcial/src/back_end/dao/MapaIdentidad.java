@@ -0,0 +1,83 @@
+package back_end.dao;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.util.RelacionPerezosa;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Mapa de identidad de una carga: cada entidad se carga una sola vez por id
+ * y todas las referencias a ese id comparten el mismo objeto.
+ *
+ * Los DAO que guardan referencias por id (por ejemplo ApuestaDAO) lo usan
+ * para armar el grafo: juntan los ids que faltan y los piden con una sola
+ * llamada por tipo. Así la memoria crece con las entidades distintas y no
+ * con las referencias. Quien ya tiene un objeto cargado lo registra antes
+ * para que la carga lo reutilice.
+ *
+ * No es seguro para hilos: se usa dentro de una sola operación.
+ */
+public class MapaIdentidad {
+
+    private final Map<Class<?>, Map<String, Object>> entidades = new HashMap<>();
+
+    /**
+     * Registra una entidad ya cargada; si el id ya estaba, devuelve la que
+     * estaba
+     */
+    public <T> T registrar(Class<T> tipo, String id, T entidad) {
+        Object existente = porTipo(tipo).putIfAbsent(id, entidad);
+        return existente != null ? tipo.cast(existente) : entidad;
+    }
+
+    /**
+     * Entidad del id si ya se cargó, o null
+     */
+    public <T> T obtener(Class<T> tipo, String id) {
+        return id != null ? tipo.cast(porTipo(tipo).get(id)) : null;
+    }
+
+    /**
+     * Entidades de los ids pedidos. Las que todavía no están se piden al
+     * cargador con una sola llamada; las que no existen se omiten.
+     */
+    public <T> Map<String, T> resolver(Class<T> tipo, Collection<String> ids, RelacionPerezosa.Cargador<T> cargador)
+            throws PersistenciaException {
+        Map<String, Object> cargadas = porTipo(tipo);
+        Set<String> faltantes = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !cargadas.containsKey(id)) {
+                faltantes.add(id);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            cargadas.putAll(cargador.cargar(faltantes));
+        }
+        Map<String, T> resultado = new HashMap<>();
+        for (String id : ids) {
+            Object entidad = id != null ? cargadas.get(id) : null;
+            if (entidad != null) {
+                resultado.put(id, tipo.cast(entidad));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cuántas entidades distintas hay cargadas, de todos los tipos
+     */
+    public int tamaño() {
+        int total = 0;
+        for (Map<String, Object> porId : entidades.values()) {
+            total += porId.size();
+        }
+        return total;
+    }
+
+    private Map<String, Object> porTipo(Class<?> tipo) {
+        return entidades.computeIfAbsent(tipo, t -> new HashMap<>());
+    }
+}
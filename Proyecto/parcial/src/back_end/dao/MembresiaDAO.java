@@ -0,0 +1,66 @@
+package back_end.dao;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Guarda las inscripciones de usuarios en lugares como pares de ids
+ * [usuarioId, lugarId], sin copiar los objetos. El índice en memoria lo
+ * arma MembresiaLugares.
+ */
+public class MembresiaDAO {
+
+    private static final String ARCHIVO_MEMBRESIAS = ConfiguracionAlmacenamiento.getInstance().archivo("membresias.json");
+    private static final Gson gson = new Gson();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("membresias", ARCHIVO_MEMBRESIAS);
+
+    public static boolean existeArchivo() {
+        return new File(ARCHIVO_MEMBRESIAS).exists();
+    }
+
+    /**
+     * Lee los pares guardados; si el archivo no existe no hay ninguno
+     */
+    public static String[][] obtenerPares() throws PersistenciaException {
+        return METRICAS.medir("obtenerPares", () -> {
+            File archivo = new File(ARCHIVO_MEMBRESIAS);
+            if (!archivo.exists()) {
+                return new String[0][];
+            }
+            EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+            try (FileReader reader = new FileReader(archivo)) {
+                String[][] pares = gson.fromJson(reader, String[][].class);
+                METRICAS.lectura(evento, archivo.length(), pares != null ? pares.length : 0);
+                return pares != null ? pares : new String[0][];
+            } catch (JsonSyntaxException e) {
+                throw new PersistenciaException("Archivo " + ARCHIVO_MEMBRESIAS + " corrupto: " + e.getMessage(), e);
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al leer el archivo de membresías: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reemplaza todos los pares
+     */
+    public static synchronized void guardarPares(List<String[]> pares) throws PersistenciaException {
+        METRICAS.medir("guardarPares", () -> {
+            EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+            try {
+                EscrituraAtomica.escribir(ARCHIVO_MEMBRESIAS, gson, pares);
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al escribir el archivo de membresías: " + e.getMessage(), e);
+            }
+            METRICAS.escritura(evento, new File(ARCHIVO_MEMBRESIAS).length(), pares.size());
+            return null;
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package back_end.dao;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
+import back_end.programacion.TareaProgramada;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Guarda las tareas pendientes del programador de juegos (aperturas,
+ * cierres y liquidaciones) para retomarlas después de reiniciar.
+ */
+public class ProgramacionDAO {
+
+    private static final String ARCHIVO_PROGRAMACION = ConfiguracionAlmacenamiento.getInstance().archivo("programacion.json");
+    private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("programacion", ARCHIVO_PROGRAMACION);
+
+    /**
+     * Lee las tareas pendientes; si el archivo no existe no hay ninguna
+     */
+    public static List<TareaProgramada> obtenerTareas() throws PersistenciaException {
+        return METRICAS.medir("obtenerTareas", () -> {
+            File archivo = new File(ARCHIVO_PROGRAMACION);
+            if (!archivo.exists()) {
+                return new ArrayList<>();
+            }
+            EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+            try (FileReader reader = new FileReader(archivo)) {
+                Type tipoLista = new TypeToken<List<TareaProgramada>>(){}.getType();
+                List<TareaProgramada> tareas = gson.fromJson(reader, tipoLista);
+                METRICAS.lectura(evento, archivo.length(), tareas != null ? tareas.size() : 0);
+                return tareas != null ? tareas : new ArrayList<>();
+            } catch (JsonSyntaxException e) {
+                System.err.println("Archivo " + ARCHIVO_PROGRAMACION + " corrupto, se reconstruye desde los juegos: " + e.getMessage());
+                return new ArrayList<>();
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al leer el archivo de programación: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Reemplaza la lista de tareas pendientes
+     */
+    public static synchronized void guardarTareas(List<TareaProgramada> tareas) throws PersistenciaException {
+        METRICAS.medir("guardarTareas", () -> {
+            EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+            try {
+                EscrituraAtomica.escribir(ARCHIVO_PROGRAMACION, gson, tareas);
+            } catch (IOException e) {
+                throw new PersistenciaException("Error al escribir el archivo de programación: " + e.getMessage(), e);
+            }
+            METRICAS.escritura(evento, new File(ARCHIVO_PROGRAMACION).length(), tareas.size());
+            return null;
+        });
+    }
+}
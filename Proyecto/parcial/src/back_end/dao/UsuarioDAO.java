@@ -2,6 +2,9 @@ package back_end.dao;
 
 import back_end.Classes.Usuario;
 import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
@@ -12,12 +15,21 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class UsuarioDAO {
 
-    private static final String ARCHIVO_JSON = "usuarios.json";
+    private static final String ARCHIVO_JSON = ConfiguracionAlmacenamiento.getInstance().archivo("usuarios.json");
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("usuarios", ARCHIVO_JSON);
+    // Una liquidación se confirma justo después de acreditarse: basta con recordar las últimas
+    private static final int LIQUIDACIONES_RECORDADAS = 32;
+    private static FiltroBloomCorreos filtroCorreos;
     
     // Clase interna para representar los datos del usuario en JSON
     private static class UsuarioJSON {
@@ -30,6 +42,8 @@ public class UsuarioDAO {
         private String carrera;
         private int semestre;
         private double saldoAPUNAB;
+        // Últimas liquidaciones acreditadas, para no pagar dos veces la misma
+        private List<String> liquidaciones;
         
         // Constructor vacío para Gson
         public UsuarioJSON() {}
@@ -79,12 +93,15 @@ public class UsuarioDAO {
         
         public double getSaldoAPUNAB() { return saldoAPUNAB; }
         public void setSaldoAPUNAB(double saldoAPUNAB) { this.saldoAPUNAB = saldoAPUNAB; }
+        
+        public List<String> getLiquidaciones() { return liquidaciones; }
+        public void setLiquidaciones(List<String> liquidaciones) { this.liquidaciones = liquidaciones; }
     }
     
     /**
      * Inicializa el archivo JSON si no existe
      */
-    private static void inicializarArchivo() throws PersistenciaException {
+    private static synchronized void inicializarArchivo() throws PersistenciaException {
         try {
             Path archivoPath = Paths.get(ARCHIVO_JSON);
             
@@ -108,8 +125,12 @@ public class UsuarioDAO {
      * Lee todos los usuarios del archivo JSON
      */
     private static List<UsuarioJSON> leerUsuariosJSON() throws PersistenciaException {
-        inicializarArchivo();
+        if (!Files.exists(Paths.get(ARCHIVO_JSON))) {
+            inicializarArchivo();
+        }
         
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        long bytes = new File(ARCHIVO_JSON).length();
         try (FileReader reader = new FileReader(ARCHIVO_JSON)) {
             Type listType = new TypeToken<List<UsuarioJSON>>(){}.getType();
             List<UsuarioJSON> usuarios = gson.fromJson(reader, listType);
@@ -119,6 +140,7 @@ public class UsuarioDAO {
                 usuarios = new ArrayList<>();
             }
             
+            METRICAS.lectura(evento, bytes, usuarios.size());
             return usuarios;
         } catch (IOException e) {
             throw new PersistenciaException("Error al leer el archivo JSON: " + e.getMessage());
@@ -129,165 +151,338 @@ public class UsuarioDAO {
      * Escribe todos los usuarios al archivo JSON
      */
     private static void escribirUsuariosJSON(List<UsuarioJSON> usuarios) throws PersistenciaException {
-        try (FileWriter writer = new FileWriter(ARCHIVO_JSON)) {
-            gson.toJson(usuarios, writer);
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        try {
+            EscrituraAtomica.escribir(ARCHIVO_JSON, gson, usuarios);
         } catch (IOException e) {
             throw new PersistenciaException("Error al escribir en el archivo JSON: " + e.getMessage());
         }
+        METRICAS.escritura(evento, new File(ARCHIVO_JSON).length(), usuarios.size());
     }
     
     /**
-     * Guarda un usuario en el archivo JSON
+     * Obtiene el filtro de correos, reconstruyéndolo desde el archivo la
+     * primera vez que se usa en esta ejecución
      */
-    public static boolean guardarUsuario(Usuario usuario) throws PersistenciaException {
-        if (usuario == null) {
-            return false;
+    private static synchronized FiltroBloomCorreos obtenerFiltroCorreos() throws PersistenciaException {
+        if (filtroCorreos == null) {
+            FiltroBloomCorreos filtro = new FiltroBloomCorreos();
+            reconstruirFiltro(filtro, leerUsuariosJSON());
+            filtroCorreos = filtro;
         }
-        
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        UsuarioJSON usuarioJSON = new UsuarioJSON(usuario);
-        
-        // Verificar si el usuario ya existe (por ID)
-        boolean existe = usuarios.stream()
-                .anyMatch(u -> u.getId().equals(usuario.getId()));
-        
-        if (!existe) {
-            usuarios.add(usuarioJSON);
-            escribirUsuariosJSON(usuarios);
-            return true;
+        return filtroCorreos;
+    }
+    
+    /**
+     * Lee usuarios.json y arma el filtro de correos si todavía no se hizo,
+     * para que el primer registro o inicio de sesión no pague esa carga
+     */
+    public static void precalentar() throws PersistenciaException {
+        METRICAS.medir("precalentar", () -> obtenerFiltroCorreos());
+    }
+    
+    /**
+     * Descarta el filtro de correos para que se reconstruya desde el archivo
+     * en el próximo uso, por ejemplo porque se modificó fuera de la
+     * aplicación
+     */
+    public static synchronized void invalidarFiltroCorreos() {
+        filtroCorreos = null;
+    }
+    
+    private static void reconstruirFiltro(FiltroBloomCorreos filtro, List<UsuarioJSON> usuarios) {
+        List<String> correos = new ArrayList<>(usuarios.size());
+        for (UsuarioJSON usuario : usuarios) {
+            correos.add(usuario.getCorreo());
         }
-        
-        return false; // Usuario ya existe
+        filtro.reconstruir(correos);
+    }
+    
+    /**
+     * Guarda un usuario en el archivo JSON
+     */
+    public static synchronized boolean guardarUsuario(Usuario usuario) throws PersistenciaException {
+        return METRICAS.medir("guardarUsuario", () -> {
+            if (usuario == null) {
+                return false;
+            }
+            
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            UsuarioJSON usuarioJSON = new UsuarioJSON(usuario);
+            
+            // Verificar si el usuario ya existe (por ID)
+            boolean existe = usuarios.stream()
+                    .anyMatch(u -> u.getId().equals(usuario.getId()));
+            
+            if (!existe) {
+                usuarios.add(usuarioJSON);
+                escribirUsuariosJSON(usuarios);
+                
+                // Mantener el filtro al día; si se llenó, reconstruirlo más grande
+                FiltroBloomCorreos filtro = obtenerFiltroCorreos();
+                if (!filtro.agregar(usuario.getCorreo())) {
+                    reconstruirFiltro(filtro, usuarios);
+                }
+                return true;
+            }
+            
+            return false; // Usuario ya existe
+        });
     }
     
     /**
      * Busca un usuario por su ID
      */
     public static Usuario buscarPorId(String id) throws PersistenciaException {
-        if (id == null || id.trim().isEmpty()) {
-            return null;
-        }
-        
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        
-        return usuarios.stream()
-                .filter(u -> u.getId().equals(id))
-                .findFirst()
-                .map(UsuarioJSON::toUsuario)
-                .orElse(null);
+        return METRICAS.medir("buscarPorId", () -> {
+            if (id == null || id.trim().isEmpty()) {
+                return null;
+            }
+            
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            
+            return usuarios.stream()
+                    .filter(u -> u.getId().equals(id))
+                    .findFirst()
+                    .map(UsuarioJSON::toUsuario)
+                    .orElse(null);
+        });
+    }
+    
+    /**
+     * Busca varios usuarios por ID con una sola lectura del archivo; solo
+     * arma los usuarios pedidos
+     */
+    public static Map<String, Usuario> buscarPorIds(Collection<String> ids) throws PersistenciaException {
+        return METRICAS.medir("buscarPorIds", () -> {
+            Map<String, Usuario> encontrados = new HashMap<>();
+            if (ids == null || ids.isEmpty()) {
+                return encontrados;
+            }
+            
+            Set<String> buscados = new HashSet<>(ids);
+            for (UsuarioJSON usuario : leerUsuariosJSON()) {
+                if (buscados.contains(usuario.getId())) {
+                    encontrados.put(usuario.getId(), usuario.toUsuario());
+                }
+            }
+            return encontrados;
+        });
     }
     
     /**
      * Busca un usuario por su correo electrónico
      */
     public static Usuario buscarPorCorreo(String correo) throws PersistenciaException {
-        if (correo == null || correo.trim().isEmpty()) {
-            return null;
-        }
-        
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        
-        return usuarios.stream()
-                .filter(u -> u.getCorreo().equalsIgnoreCase(correo.trim()))
-                .findFirst()
-                .map(UsuarioJSON::toUsuario)
-                .orElse(null);
+        return METRICAS.medir("buscarPorCorreo", () -> {
+            if (correo == null || correo.trim().isEmpty()) {
+                return null;
+            }
+            
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            
+            return usuarios.stream()
+                    .filter(u -> u.getCorreo().equalsIgnoreCase(correo.trim()))
+                    .findFirst()
+                    .map(UsuarioJSON::toUsuario)
+                    .orElse(null);
+        });
     }
     
     /**
      * Verifica si existe un correo en el sistema
      */
     public static boolean existeCorreo(String correo) throws PersistenciaException {
-        return buscarPorCorreo(correo) != null;
+        return METRICAS.medir("existeCorreo", () -> {
+            if (correo == null || correo.trim().isEmpty()) {
+                return false;
+            }
+            
+            // Si el filtro descarta el correo, no hace falta leer el archivo
+            if (!obtenerFiltroCorreos().puedeContener(correo)) {
+                return false;
+            }
+            
+            return buscarPorCorreo(correo) != null;
+        });
     }
     
     /**
      * Obtiene todos los usuarios
      */
     public static List<Usuario> obtenerTodosLosUsuarios() throws PersistenciaException {
-        List<UsuarioJSON> usuariosJSON = leerUsuariosJSON();
-        List<Usuario> usuarios = new ArrayList<>();
-        
-        for (UsuarioJSON usuarioJSON : usuariosJSON) {
-            usuarios.add(usuarioJSON.toUsuario());
-        }
-        
-        return usuarios;
+        return METRICAS.medir("obtenerTodosLosUsuarios", () -> {
+            List<UsuarioJSON> usuariosJSON = leerUsuariosJSON();
+            List<Usuario> usuarios = new ArrayList<>();
+            
+            for (UsuarioJSON usuarioJSON : usuariosJSON) {
+                usuarios.add(usuarioJSON.toUsuario());
+            }
+            
+            return usuarios;
+        });
     }
     
     /**
      * Actualiza un usuario existente
      */
-    public static boolean actualizarUsuario(Usuario usuario) throws PersistenciaException {
-        if (usuario == null || usuario.getId() == null) {
-            return false;
-        }
-        
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        
-        // Buscar el usuario por ID y actualizarlo
-        for (int i = 0; i < usuarios.size(); i++) {
-            if (usuarios.get(i).getId().equals(usuario.getId())) {
-                usuarios.set(i, new UsuarioJSON(usuario));
+    public static synchronized boolean actualizarUsuario(Usuario usuario) throws PersistenciaException {
+        return METRICAS.medir("actualizarUsuario", () -> {
+            if (usuario == null || usuario.getId() == null) {
+                return false;
+            }
+            
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            
+            // Buscar el usuario por ID y actualizarlo
+            for (int i = 0; i < usuarios.size(); i++) {
+                if (usuarios.get(i).getId().equals(usuario.getId())) {
+                    String correoAnterior = usuarios.get(i).getCorreo();
+                    UsuarioJSON actualizado = new UsuarioJSON(usuario);
+                    // El saldo solo cambia con ajustarSaldo o acreditarLiquidacion:
+                    // se conserva el guardado para no pisar una acreditación
+                    actualizado.setSaldoAPUNAB(usuarios.get(i).getSaldoAPUNAB());
+                    actualizado.setLiquidaciones(usuarios.get(i).getLiquidaciones());
+                    usuario.setSaldoAPUNAB(actualizado.getSaldoAPUNAB());
+                    usuarios.set(i, actualizado);
+                    escribirUsuariosJSON(usuarios);
+                    
+                    // Si cambió el correo, reflejarlo en el filtro
+                    String correoNuevo = usuario.getCorreo();
+                    if (correoNuevo != null && !correoNuevo.equalsIgnoreCase(correoAnterior)) {
+                        FiltroBloomCorreos filtro = obtenerFiltroCorreos();
+                        filtro.quitar(correoAnterior);
+                        if (!filtro.agregar(correoNuevo)) {
+                            reconstruirFiltro(filtro, usuarios);
+                        }
+                    }
+                    return true;
+                }
+            }
+            
+            return false; // Usuario no encontrado
+        });
+    }
+    
+    /**
+     * Suma el monto (negativo para descontar) al saldo guardado del usuario
+     *
+     * @return el usuario actualizado, o null si no existe o el saldo quedaría
+     * negativo
+     */
+    public static synchronized Usuario ajustarSaldo(String id, double monto) throws PersistenciaException {
+        return METRICAS.medir("ajustarSaldo", () -> {
+            if (id == null) {
+                return null;
+            }
+
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            for (UsuarioJSON usuario : usuarios) {
+                if (usuario.getId().equals(id)) {
+                    double nuevoSaldo = usuario.getSaldoAPUNAB() + monto;
+                    if (nuevoSaldo < 0) {
+                        return null;
+                    }
+                    usuario.setSaldoAPUNAB(nuevoSaldo);
+                    escribirUsuariosJSON(usuarios);
+                    return usuario.toUsuario();
+                }
+            }
+
+            return null; // Usuario no encontrado
+        });
+    }
+
+    /**
+     * Suma a cada usuario su ganancia de una liquidación con una sola
+     * escritura del archivo. El usuario guarda la liquidación junto con el
+     * saldo, así que repetirla (por ejemplo, tras una caída antes de
+     * confirmarla) no le vuelve a pagar.
+     *
+     * @return los usuarios a los que se les acreditó ahora
+     */
+    public static synchronized List<Usuario> acreditarLiquidacion(String liquidacion, Map<String, Double> montos) throws PersistenciaException {
+        return METRICAS.medir("acreditarLiquidacion", () -> {
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            List<Usuario> actualizados = new ArrayList<>();
+            for (UsuarioJSON usuario : usuarios) {
+                Double monto = montos.get(usuario.getId());
+                List<String> acreditadas = usuario.getLiquidaciones() != null
+                        ? usuario.getLiquidaciones() : new ArrayList<>();
+                if (monto != null && !acreditadas.contains(liquidacion)) {
+                    usuario.setSaldoAPUNAB(usuario.getSaldoAPUNAB() + monto);
+                    acreditadas.add(liquidacion);
+                    while (acreditadas.size() > LIQUIDACIONES_RECORDADAS) {
+                        acreditadas.remove(0);
+                    }
+                    usuario.setLiquidaciones(acreditadas);
+                    actualizados.add(usuario.toUsuario());
+                }
+            }
+            if (!actualizados.isEmpty()) {
                 escribirUsuariosJSON(usuarios);
-                return true;
             }
-        }
-        
-        return false; // Usuario no encontrado
+            return actualizados;
+        });
     }
     
     /**
      * Actualiza solo la contraseña de un usuario
      */
-    public static boolean actualizarContraseña(String id, String nuevaContraseña) throws PersistenciaException {
-        if (id == null || nuevaContraseña == null) {
-            return false;
-        }
-        
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        
-        // Buscar el usuario por ID y actualizar su contraseña
-        for (UsuarioJSON usuario : usuarios) {
-            if (usuario.getId().equals(id)) {
-                usuario.setContraseña(nuevaContraseña);
-                escribirUsuariosJSON(usuarios);
-                return true;
+    public static synchronized boolean actualizarContraseña(String id, String nuevaContraseña) throws PersistenciaException {
+        return METRICAS.medir("actualizarContraseña", () -> {
+            if (id == null || nuevaContraseña == null) {
+                return false;
             }
-        }
-        
-        return false; // Usuario no encontrado
+            
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            
+            // Buscar el usuario por ID y actualizar su contraseña
+            for (UsuarioJSON usuario : usuarios) {
+                if (usuario.getId().equals(id)) {
+                    usuario.setContraseña(nuevaContraseña);
+                    escribirUsuariosJSON(usuarios);
+                    return true;
+                }
+            }
+            
+            return false; // Usuario no encontrado
+        });
     }
     
     /**
      * Elimina un usuario del archivo JSON
      */
-    public static boolean eliminarUsuario(String id) throws PersistenciaException {
-        if (id == null || id.trim().isEmpty()) {
-            return false;
-        }
-        
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        
-        // Filtrar la lista para remover el usuario con el ID especificado
-        int tamañoInicial = usuarios.size();
-        usuarios.removeIf(u -> u.getId().equals(id));
-        
-        // Si se removió algún elemento, actualizar el archivo
-        if (usuarios.size() < tamañoInicial) {
-            escribirUsuariosJSON(usuarios);
-            return true;
-        }
-        
-        return false; // Usuario no encontrado
+    public static synchronized boolean eliminarUsuario(String id) throws PersistenciaException {
+        return METRICAS.medir("eliminarUsuario", () -> {
+            if (id == null || id.trim().isEmpty()) {
+                return false;
+            }
+            
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            
+            // Buscar el usuario con el ID especificado y removerlo de la lista
+            for (int i = 0; i < usuarios.size(); i++) {
+                if (usuarios.get(i).getId().equals(id)) {
+                    UsuarioJSON eliminado = usuarios.remove(i);
+                    escribirUsuariosJSON(usuarios);
+                    obtenerFiltroCorreos().quitar(eliminado.getCorreo());
+                    return true;
+                }
+            }
+            
+            return false; // Usuario no encontrado
+        });
     }
     
     /**
      * Obtiene el número total de usuarios registrados
      */
     public static int contarUsuarios() throws PersistenciaException {
-        List<UsuarioJSON> usuarios = leerUsuariosJSON();
-        return usuarios.size();
+        return METRICAS.medir("contarUsuarios", () -> {
+            List<UsuarioJSON> usuarios = leerUsuariosJSON();
+            return usuarios.size();
+        });
     }
 
 }//TODO: documentar en el readme
@@ -0,0 +1,263 @@
+package back_end.eventos;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.chat.Mensaje;
+import back_end.metricas.Contador;
+import back_end.metricas.RegistroMetricas;
+import back_end.vigilancia.CambioArchivo;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Bus de eventos en memoria que alimentan Apuesta, Usuario, Lugar y Juego.
+ *
+ * Cada suscriptor tiene su propio buffer circular acotado (ver Suscripcion),
+ * así que publicar no depende de qué tan rápido consuman los demás, salvo
+ * los suscriptores con política BLOQUEAR, que frenan a quien publica hasta
+ * un tiempo máximo. Los eventos se numeran en orden y los últimos se
+ * guardan para que un cliente que se reconecta recupere los que se perdió.
+ *
+ * Solo la numeración se hace bajo el cerrojo del bus; la entrega a los
+ * suscriptores se hace después de soltarlo, así que un buffer BLOQUEAR lleno
+ * frena únicamente a quien está publicando y no a los demás hilos. Por lo
+ * mismo, los eventos de publicaciones simultáneas pueden llegar a un
+ * suscriptor en un orden distinto al de su secuencia.
+ *
+ * Parámetros (propiedades del sistema): unabet.eventos.recientes (cuántos
+ * eventos se guardan para reconexiones, 256).
+ */
+public class BusEventos {
+
+    private static final BusEventos instance = new BusEventos(Integer.getInteger("unabet.eventos.recientes", 256));
+
+    private final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+    private final ReentrantLock orden = new ReentrantLock();
+    private final Evento[] recientes;
+    private long secuencia;
+
+    private final RegistroMetricas metricas = RegistroMetricas.getInstance();
+    private final Contador descartados = metricas.contador("unabet_eventos_descartados_total",
+            "Eventos descartados por buffers de suscriptores llenos");
+
+    public BusEventos(int capacidadRecientes) {
+        this.recientes = new Evento[Math.max(1, capacidadRecientes)];
+        metricas.medidor("unabet_eventos_suscriptores", "Suscriptores activos del bus de eventos", suscripciones::size);
+    }
+
+    public static BusEventos getInstance() {
+        return instance;
+    }
+
+    /**
+     * Suscribe con la política DESCARTAR_ANTIGUOS
+     */
+    public Suscripcion suscribir(Predicate<Evento> filtro, int capacidad) {
+        return suscribir(filtro, capacidad, PoliticaDesborde.DESCARTAR_ANTIGUOS, 0, TimeUnit.MILLISECONDS, -1);
+    }
+
+    /**
+     * Crea una suscripción.
+     *
+     * @param espera tiempo máximo que espera quien publica con la política
+     * BLOQUEAR
+     * @param desdeSecuencia si es mayor o igual a cero, primero se entregan
+     * los eventos recientes con secuencia mayor (reconexión); los que ya no
+     * están guardados se pierden
+     */
+    public Suscripcion suscribir(Predicate<Evento> filtro, int capacidad, PoliticaDesborde politica,
+            long espera, TimeUnit unidad, long desdeSecuencia) {
+        Suscripcion suscripcion = new Suscripcion(this, filtro, capacidad, politica, unidad.toNanos(espera));
+        orden.lock();
+        try {
+            if (desdeSecuencia >= 0) {
+                for (Evento evento : recientesDesde(desdeSecuencia)) {
+                    if (suscripcion.acepta(evento)) {
+                        suscripcion.ofrecer(evento);
+                    }
+                }
+            }
+            suscripciones.add(suscripcion);
+        } finally {
+            orden.unlock();
+        }
+        return suscripcion;
+    }
+
+    /**
+     * Publica un evento a todos los suscriptores que lo aceptan
+     *
+     * @param usuarioId destinatario, o null para un evento público
+     */
+    public Evento publicar(TipoEvento tipo, String usuarioId, Map<String, Object> datos) {
+        metricas.contador("unabet_eventos_publicados_total", "Eventos publicados en el bus", "tipo", tipo.name()).incrementar();
+        Evento evento;
+        Iterator<Suscripcion> destinatarios;
+        orden.lock();
+        try {
+            evento = new Evento(++secuencia, tipo, usuarioId, System.currentTimeMillis(), datos);
+            recientes[(int) (evento.secuencia() % recientes.length)] = evento;
+            // Los suscriptores de este momento: quien se suscriba después ya recibe el evento en la reconexión
+            destinatarios = suscripciones.iterator();
+        } finally {
+            orden.unlock();
+        }
+        while (destinatarios.hasNext()) {
+            Suscripcion suscripcion = destinatarios.next();
+            if (suscripcion.acepta(evento)) {
+                suscripcion.ofrecer(evento);
+            }
+        }
+        return evento;
+    }
+
+    public Evento publicarApuesta(TipoEvento tipo, Apuesta apuesta) {
+        Usuario estudiante = apuesta.getEstudiante();
+        return publicar(tipo, estudiante != null ? estudiante.getId() : null, datosApuesta(apuesta));
+    }
+
+    /**
+     * Publica una apuesta finalizada por la liquidación de su juego. Se
+     * marca para que las notificaciones se agrupen en una por juego.
+     */
+    public Evento publicarLiquidacion(Apuesta apuesta) {
+        Map<String, Object> datos = datosApuesta(apuesta);
+        datos.put("liquidacionJuego", true);
+        Usuario estudiante = apuesta.getEstudiante();
+        return publicar(TipoEvento.APUESTA_FINALIZADA, estudiante != null ? estudiante.getId() : null, datos);
+    }
+
+    private static Map<String, Object> datosApuesta(Apuesta apuesta) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("apuestaId", apuesta.getId());
+        datos.put("lugarId", apuesta.getLugar() != null ? apuesta.getLugar().getId() : null);
+        datos.put("juegoId", apuesta.getJuego() != null ? apuesta.getJuego().getId() : null);
+        datos.put("cantidadAPUNAB", apuesta.getCantidadAPUNAB());
+        datos.put("gananciaPotencial", apuesta.getGananciaPotencial());
+        if (apuesta.getFecha() != null) {
+            datos.put("fecha", apuesta.getFecha().toString());
+        }
+        if (apuesta.getOtrosApostadores() != null && !apuesta.getOtrosApostadores().isEmpty()) {
+            datos.put("otrosApostadores", apuesta.getOtrosApostadores().stream()
+                    .filter(Objects::nonNull).map(Usuario::getId).toList());
+        }
+        if (apuesta.isFinalizada()) {
+            datos.put("ganada", apuesta.isGanada());
+            datos.put("gananciaReal", apuesta.getGananciaReal());
+        }
+        return datos;
+    }
+
+    public Evento publicarSaldo(Usuario usuario, double cambio) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("saldoAPUNAB", usuario.getSaldoAPUNAB());
+        datos.put("cambio", cambio);
+        return publicar(TipoEvento.SALDO_ACTUALIZADO, usuario.getId(), datos);
+    }
+
+    /**
+     * Publica un mensaje del chat
+     *
+     * @param destinatarioId participante de una conversación directa, o
+     * null para una conversación abierta a todos
+     */
+    public Evento publicarMensaje(Mensaje mensaje, String destinatarioId) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("mensajeId", mensaje.id());
+        datos.put("conversacionId", mensaje.conversacionId());
+        datos.put("autorId", mensaje.autorId());
+        datos.put("autorNombre", mensaje.autorNombre());
+        datos.put("texto", mensaje.texto());
+        datos.put("fechaMillis", mensaje.fechaMillis());
+        return publicar(TipoEvento.MENSAJE_CHAT, destinatarioId, datos);
+    }
+
+    public Evento publicarLugar(TipoEvento tipo, Lugar lugar) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("lugarId", lugar.getId());
+        datos.put("nombre", lugar.getNombre());
+        datos.put("direccion", lugar.getDireccion());
+        return publicar(tipo, null, datos);
+    }
+
+    public Evento publicarJuego(TipoEvento tipo, Juego juego) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("juegoId", juego.getId());
+        datos.put("nombre", juego.getNombre());
+        datos.put("factorMultiplicador", juego.getFactorMultiplicador());
+        datos.put("activo", juego.isActivo());
+        if (juego.getFechaCreacion() != null) {
+            datos.put("fechaCreacion", juego.getFechaCreacion().toString());
+        }
+        if (juego.getFechaInicio() != null) {
+            datos.put("fechaInicio", juego.getFechaInicio().toString());
+        }
+        if (juego.getFechaFin() != null) {
+            datos.put("fechaFin", juego.getFechaFin().toString());
+        }
+        return publicar(tipo, null, datos);
+    }
+
+    /**
+     * Publica qué registros de un archivo de datos cambiaron en disco. El
+     * evento llega a todos los suscriptores: sin ids solo se publica
+     * cuántos registros cambiaron.
+     */
+    public Evento publicarCambioDatos(CambioArchivo cambio, boolean conIds) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("archivo", cambio.archivo());
+        datos.put("registros", cambio.ids().size());
+        if (conIds) {
+            datos.put("agregados", new ArrayList<>(cambio.agregados()));
+            datos.put("modificados", new ArrayList<>(cambio.modificados()));
+            datos.put("eliminados", new ArrayList<>(cambio.eliminados()));
+        }
+        return publicar(TipoEvento.DATOS_CAMBIADOS, null, datos);
+    }
+
+    public int contarSuscriptores() {
+        return suscripciones.size();
+    }
+
+    /**
+     * Secuencia del último evento publicado
+     */
+    public long getSecuencia() {
+        orden.lock();
+        try {
+            return secuencia;
+        } finally {
+            orden.unlock();
+        }
+    }
+
+    void quitar(Suscripcion suscripcion) {
+        suscripciones.remove(suscripcion);
+    }
+
+    void contarDescarte() {
+        descartados.incrementar();
+    }
+
+    private List<Evento> recientesDesde(long desdeSecuencia) {
+        List<Evento> eventos = new ArrayList<>();
+        long primera = Math.max(desdeSecuencia + 1, secuencia - recientes.length + 1);
+        for (long s = primera; s <= secuencia; s++) {
+            Evento evento = recientes[(int) (s % recientes.length)];
+            if (evento != null && evento.secuencia() == s) {
+                eventos.add(evento);
+            }
+        }
+        return eventos;
+    }
+}
@@ -0,0 +1,25 @@
+package back_end.eventos;
+
+import java.util.Map;
+
+/**
+ * Evento publicado en el bus.
+ *
+ * @param secuencia número creciente asignado al publicar
+ * @param usuarioId destinatario del evento, o null si es público (lugares,
+ * cuotas de los juegos)
+ * @param datos valores del evento; se serializan tal cual a JSON
+ */
+public record Evento(long secuencia, TipoEvento tipo, String usuarioId, long fechaMillis, Map<String, Object> datos) {
+
+    public boolean esPublico() {
+        return usuarioId == null;
+    }
+
+    /**
+     * Si el usuario puede ver el evento: los públicos y los suyos
+     */
+    public boolean esVisiblePara(String idUsuario) {
+        return usuarioId == null || usuarioId.equals(idUsuario);
+    }
+}
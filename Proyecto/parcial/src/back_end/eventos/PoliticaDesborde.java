@@ -0,0 +1,21 @@
+package back_end.eventos;
+
+/**
+ * Qué hacer cuando el buffer de un suscriptor está lleno
+ */
+public enum PoliticaDesborde {
+    /**
+     * Descarta el evento más antiguo del buffer; el suscriptor ve lo más
+     * reciente (útil para saldos y cuotas, donde solo importa el último valor)
+     */
+    DESCARTAR_ANTIGUOS,
+    /**
+     * Descarta el evento que llega
+     */
+    DESCARTAR_NUEVOS,
+    /**
+     * Hace esperar a quien publica hasta que haya lugar, con un tiempo
+     * máximo; si se vence, descarta el evento que llega
+     */
+    BLOQUEAR
+}
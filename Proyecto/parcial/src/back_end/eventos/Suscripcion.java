@@ -0,0 +1,190 @@
+package back_end.eventos;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * Suscripción al bus de eventos con su propio buffer circular acotado.
+ *
+ * El bus deja los eventos en el buffer y el suscriptor los retira a su
+ * ritmo con siguiente(). Un suscriptor lento no frena a los demás: cuando
+ * su buffer se llena se aplica su política de desborde y se cuentan los
+ * eventos perdidos.
+ */
+public final class Suscripcion implements AutoCloseable {
+
+    private final BusEventos bus;
+    private final Predicate<Evento> filtro;
+    private final PoliticaDesborde politica;
+    private final long esperaMaximaNanos;
+
+    private final Evento[] buffer;
+    private int inicio;
+    private int tamaño;
+    private long descartados;
+    private long descartadosSinInformar;
+    private boolean cerrada;
+
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final Condition hayEventos = cerrojo.newCondition();
+    private final Condition hayLugar = cerrojo.newCondition();
+
+    Suscripcion(BusEventos bus, Predicate<Evento> filtro, int capacidad, PoliticaDesborde politica, long esperaMaximaNanos) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva");
+        }
+        this.bus = bus;
+        this.filtro = filtro;
+        this.politica = politica;
+        this.esperaMaximaNanos = esperaMaximaNanos;
+        this.buffer = new Evento[capacidad];
+    }
+
+    boolean acepta(Evento evento) {
+        return filtro.test(evento);
+    }
+
+    /**
+     * Deja el evento en el buffer aplicando la política de desborde
+     *
+     * @return false si el evento se descartó
+     */
+    boolean ofrecer(Evento evento) {
+        cerrojo.lock();
+        try {
+            if (cerrada) {
+                return false;
+            }
+            if (tamaño == buffer.length) {
+                switch (politica) {
+                    case DESCARTAR_ANTIGUOS -> {
+                        buffer[inicio] = null;
+                        inicio = (inicio + 1) % buffer.length;
+                        tamaño--;
+                        contarDescarte();
+                    }
+                    case DESCARTAR_NUEVOS -> {
+                        contarDescarte();
+                        return false;
+                    }
+                    case BLOQUEAR -> {
+                        long restante = esperaMaximaNanos;
+                        while (tamaño == buffer.length && !cerrada && restante > 0) {
+                            restante = hayLugar.awaitNanos(restante);
+                        }
+                        if (tamaño == buffer.length || cerrada) {
+                            contarDescarte();
+                            return false;
+                        }
+                    }
+                }
+            }
+            buffer[(inicio + tamaño) % buffer.length] = evento;
+            tamaño++;
+            hayEventos.signal();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            contarDescarte();
+            return false;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Retira el siguiente evento, esperando hasta el tiempo indicado
+     *
+     * @return el evento, o null si se venció la espera o la suscripción
+     * está cerrada
+     */
+    public Evento siguiente(long espera, TimeUnit unidad) throws InterruptedException {
+        long restante = unidad.toNanos(espera);
+        cerrojo.lock();
+        try {
+            while (tamaño == 0) {
+                if (cerrada || restante <= 0) {
+                    return null;
+                }
+                restante = hayEventos.awaitNanos(restante);
+            }
+            Evento evento = buffer[inicio];
+            buffer[inicio] = null;
+            inicio = (inicio + 1) % buffer.length;
+            tamaño--;
+            hayLugar.signal();
+            return evento;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Eventos descartados desde la última llamada, para avisar al cliente
+     * que se perdió algo
+     */
+    public long tomarDescartados() {
+        cerrojo.lock();
+        try {
+            long cantidad = descartadosSinInformar;
+            descartadosSinInformar = 0;
+            return cantidad;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public long getDescartados() {
+        cerrojo.lock();
+        try {
+            return descartados;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public int getPendientes() {
+        cerrojo.lock();
+        try {
+            return tamaño;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    public boolean estaCerrada() {
+        cerrojo.lock();
+        try {
+            return cerrada;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Se da de baja del bus y despierta a quien esté esperando
+     */
+    @Override
+    public void close() {
+        cerrojo.lock();
+        try {
+            if (cerrada) {
+                return;
+            }
+            cerrada = true;
+            hayEventos.signalAll();
+            hayLugar.signalAll();
+        } finally {
+            cerrojo.unlock();
+        }
+        bus.quitar(this);
+    }
+
+    private void contarDescarte() {
+        descartados++;
+        descartadosSinInformar++;
+        bus.contarDescarte();
+    }
+}
@@ -0,0 +1,22 @@
+package back_end.eventos;
+
+/**
+ * Tipos de evento que publica el dominio
+ */
+public enum TipoEvento {
+    APUESTA_CREADA,
+    APUESTA_ACTUALIZADA,
+    APUESTA_ELIMINADA,
+    APUESTA_FINALIZADA,
+    SALDO_ACTUALIZADO,
+    LUGAR_CREADO,
+    LUGAR_ACTUALIZADO,
+    LUGAR_ELIMINADO,
+    JUEGO_CREADO,
+    JUEGO_ACTUALIZADO,
+    JUEGO_ABIERTO,
+    JUEGO_CERRADO,
+    JUEGO_LIQUIDADO,
+    MENSAJE_CHAT,
+    DATOS_CAMBIADOS
+}
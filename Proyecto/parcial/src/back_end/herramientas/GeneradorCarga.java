@@ -0,0 +1,392 @@
+package back_end.herramientas;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.RegistroMetricas;
+import back_end.util.HistogramaLatencias;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * Generador de carga sin interfaz gráfica.
+ *
+ * Recorre el mismo camino que la aplicación, a través de las clases de
+ * dominio: registra N usuarios con Usuario.registrarse y les carga saldo,
+ * crea los catálogos de lugares y juegos, y luego M clientes concurrentes
+ * (un hilo virtual cada uno) inician sesión, crean apuestas con
+ * Apuesta.crearApuesta (algunas grupales, con otrosApostadores), modifican
+ * y cancelan una parte, y al final se liquidan las que quedaron abiertas.
+ * Al terminar imprime, por operación, el rendimiento, los percentiles de
+ * latencia y los errores.
+ *
+ * Trabaja sobre los archivos JSON de la carpeta de datos, igual que la
+ * aplicación (unabet.datos.directorio, por defecto la carpeta actual); por
+ * eso exige --limpiar para borrar los datos que encuentre.
+ * Use "ant carga", que lo ejecuta en ${build.dir}/carga.
+ *
+ * Opciones: --usuarios N (100), --clientes M (16), --apuestas K por cliente
+ * (5), --lugares (10), --juegos (20), --semilla (42), --limpiar y
+ * --metricas archivo, que al terminar exporta las métricas de los DAO en
+ * formato Prometheus.
+ */
+public final class GeneradorCarga {
+
+    private static final String CONTRASEÑA = "Carga2024x";
+    private static final double SALDO_INICIAL = 10_000.0;
+    // Todo lo que la carga escribe en la carpeta de datos, también los índices y registros derivados
+    private static final String[] ARCHIVOS = {
+        "usuarios.json", "lugares.json", "juegos.json", "apuestas.json", "membresias.json",
+        "calificaciones.json", "programacion.json", "notificaciones.jsonl", "notificaciones_leidas.jsonl"
+    };
+    private static final String[] CARRERAS = {"Ingeniería de Sistemas", "Medicina", "Derecho", "Psicología", "Música"};
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * Llamada medida; un resultado null o false cuenta como rechazada
+     */
+    @FunctionalInterface
+    private interface Llamada<T> {
+
+        T ejecutar() throws Exception;
+    }
+
+    /**
+     * Resultados acumulados de una operación
+     */
+    private static final class Operacion {
+
+        final String fase;
+        final HistogramaLatencias latencias = new HistogramaLatencias();
+        final LongAdder rechazadas = new LongAdder();
+        final LongAdder errores = new LongAdder();
+        final Map<String, LongAdder> tiposError = new ConcurrentHashMap<>();
+        final Map<String, String> ejemplos = new ConcurrentHashMap<>();
+
+        Operacion(String fase) {
+            this.fase = fase;
+        }
+
+        void error(Throwable e) {
+            errores.increment();
+            String tipo = e.getClass().getSimpleName();
+            tiposError.computeIfAbsent(tipo, t -> new LongAdder()).increment();
+            ejemplos.putIfAbsent(tipo, String.valueOf(e.getMessage()));
+        }
+    }
+
+    private final int usuarios;
+    private final int clientes;
+    private final int apuestasPorCliente;
+    private final int lugares;
+    private final int juegos;
+    private final long semilla;
+
+    private final Map<String, Operacion> operaciones = new LinkedHashMap<>();
+    private final Map<String, Long> duracionesFase = new LinkedHashMap<>();
+    private final List<Lugar> catalogoLugares = new ArrayList<>();
+    private final List<Juego> catalogoJuegos = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Apuesta> abiertas = new ConcurrentLinkedQueue<>();
+    private AtomicReferenceArray<Usuario> registrados;
+
+    GeneradorCarga(int usuarios, int clientes, int apuestasPorCliente, int lugares, int juegos, long semilla) {
+        this.usuarios = usuarios;
+        this.clientes = clientes;
+        this.apuestasPorCliente = apuestasPorCliente;
+        this.lugares = lugares;
+        this.juegos = juegos;
+        this.semilla = semilla;
+
+        // Orden fijo de las filas del reporte
+        operacion("registro", "registrarse");
+        operacion("registro", "recargarSaldo");
+        operacion("catalogos", "crearLugar");
+        operacion("catalogos", "crearJuego");
+        operacion("clientes", "iniciarSesion");
+        operacion("clientes", "crearApuesta");
+        operacion("clientes", "actualizarApuesta");
+        operacion("clientes", "eliminarApuesta");
+        operacion("liquidacion", "finalizarApuesta");
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = leerOpciones(args);
+        if (opciones == null) {
+            System.exit(2);
+            return;
+        }
+
+        if (!prepararCarpeta(opciones.containsKey("limpiar"))) {
+            System.exit(2);
+            return;
+        }
+
+        GeneradorCarga generador = new GeneradorCarga(
+                entero(opciones, "usuarios", 100),
+                entero(opciones, "clientes", 16),
+                entero(opciones, "apuestas", 5),
+                entero(opciones, "lugares", 10),
+                entero(opciones, "juegos", 20),
+                Long.parseLong(opciones.getOrDefault("semilla", "42")));
+        generador.ejecutar();
+        System.out.print(generador.reporte());
+        if (opciones.containsKey("metricas")) {
+            RegistroMetricas.getInstance().exportarPrometheus(Paths.get(opciones.get("metricas")));
+        }
+    }
+
+    void ejecutar() {
+        registrados = new AtomicReferenceArray<>(usuarios);
+        fase("registro", usuarios, this::registrar);
+        fase("catalogos", 1, i -> crearCatalogos());
+        fase("clientes", clientes, this::cliente);
+        List<Apuesta> pendientes = new ArrayList<>(abiertas);
+        fase("liquidacion", pendientes.size(), i -> liquidar(pendientes.get(i), new SplittableRandom(semilla ^ i)));
+    }
+
+    private void registrar(int i) {
+        SplittableRandom aleatorio = new SplittableRandom(semilla + i);
+        Usuario usuario = new Usuario(String.format("C%07d", i), "Carga", "Usuario", correo(i), CONTRASEÑA,
+                CARRERAS[aleatorio.nextInt(CARRERAS.length)], 1 + aleatorio.nextInt(10));
+        Boolean registrado = medir("registrarse", () -> usuario.registrarse("Carga", "Usuario" + i, correo(i),
+                CONTRASEÑA, usuario.getCarrera(), usuario.getSemestre()));
+        if (registrado != null && registrado) {
+            medir("recargarSaldo", () -> usuario.actualizarSaldo(SALDO_INICIAL));
+            registrados.set(i, usuario);
+        }
+    }
+
+    private void crearCatalogos() {
+        SplittableRandom aleatorio = new SplittableRandom(semilla);
+        for (int i = 0; i < lugares; i++) {
+            String nombre = "Lugar " + i;
+            String direccion = "Calle " + (i + 1);
+            Lugar lugar = new Lugar(nombre, direccion, "Lugar de carga");
+            if (Boolean.TRUE.equals(medir("crearLugar", () -> lugar.crearLugar(nombre, direccion, "Lugar de carga")))) {
+                catalogoLugares.add(lugar);
+            }
+        }
+        for (int i = 0; i < juegos; i++) {
+            String nombre = "Juego " + i;
+            double factor = 1.0 + aleatorio.nextInt(40) / 10.0;
+            Juego juego = new Juego(nombre, "Juego de carga", factor);
+            if (Boolean.TRUE.equals(medir("crearJuego", () -> juego.crearJuego(nombre, "Juego de carga", factor)))) {
+                catalogoJuegos.add(juego);
+            }
+        }
+    }
+
+    private void cliente(int c) {
+        if (catalogoLugares.isEmpty() || catalogoJuegos.isEmpty() || usuarios == 0) {
+            return;
+        }
+        SplittableRandom aleatorio = new SplittableRandom(semilla * 31 + c);
+        int indice = c % usuarios;
+        Usuario usuario = medir("iniciarSesion", () -> Usuario.iniciarSesion(correo(indice), CONTRASEÑA));
+        if (usuario == null) {
+            return;
+        }
+
+        for (int k = 0; k < apuestasPorCliente; k++) {
+            Lugar lugar = catalogoLugares.get(aleatorio.nextInt(catalogoLugares.size()));
+            Juego juego = catalogoJuegos.get(aleatorio.nextInt(catalogoJuegos.size()));
+            double cantidad = 10 + aleatorio.nextInt(91);
+            List<Usuario> otros = otrosApostadores(aleatorio, indice);
+            Apuesta apuesta = new Apuesta(usuario, lugar, juego, cantidad, otros);
+            if (!Boolean.TRUE.equals(medir("crearApuesta", () -> apuesta.crearApuesta(usuario, lugar, juego, cantidad, otros)))) {
+                continue;
+            }
+
+            int accion = aleatorio.nextInt(10);
+            if (accion < 2) {
+                medir("actualizarApuesta", () -> apuesta.actualizarApuesta(cantidad + 10, null));
+            } else if (accion == 2 && Boolean.TRUE.equals(medir("eliminarApuesta", apuesta::eliminarApuesta))) {
+                continue;
+            }
+            abiertas.add(apuesta);
+        }
+    }
+
+    private void liquidar(Apuesta apuesta, SplittableRandom aleatorio) {
+        boolean ganada = aleatorio.nextBoolean();
+        medir("finalizarApuesta", () -> apuesta.finalizarApuesta(ganada));
+    }
+
+    private List<Usuario> otrosApostadores(SplittableRandom aleatorio, int propio) {
+        // Un tercio de las apuestas es grupal, con uno o dos compañeros
+        List<Usuario> otros = new ArrayList<>();
+        if (usuarios > 1 && aleatorio.nextInt(3) == 0) {
+            int cantidad = 1 + aleatorio.nextInt(2);
+            for (int i = 0; i < cantidad; i++) {
+                int otro = aleatorio.nextInt(usuarios);
+                Usuario usuario = otro != propio ? registrados.get(otro) : null;
+                if (usuario != null && !otros.contains(usuario)) {
+                    otros.add(usuario);
+                }
+            }
+        }
+        return otros;
+    }
+
+    /**
+     * Reparte las tareas 0..tareas-1 entre a lo sumo M hilos virtuales y
+     * registra la duración de la fase
+     */
+    private void fase(String nombre, int tareas, IntConsumer trabajo) {
+        int hilos = Math.max(1, Math.min(tareas, clientes));
+        AtomicInteger siguiente = new AtomicInteger();
+        List<Thread> trabajadores = new ArrayList<>(hilos);
+        long inicio = System.nanoTime();
+        for (int h = 0; h < hilos; h++) {
+            trabajadores.add(Thread.ofVirtual().name(nombre + "-" + h).start(() -> {
+                for (int i = siguiente.getAndIncrement(); i < tareas; i = siguiente.getAndIncrement()) {
+                    trabajo.accept(i);
+                }
+            }));
+        }
+        for (Thread trabajador : trabajadores) {
+            try {
+                trabajador.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        duracionesFase.put(nombre, System.nanoTime() - inicio);
+    }
+
+    private <T> T medir(String nombre, Llamada<T> llamada) {
+        Operacion operacion = operaciones.get(nombre);
+        long inicio = System.nanoTime();
+        try {
+            T resultado = llamada.ejecutar();
+            operacion.latencias.registrarDesde(inicio);
+            if (resultado == null || Boolean.FALSE.equals(resultado)) {
+                operacion.rechazadas.increment();
+            }
+            return resultado;
+        } catch (Exception e) {
+            operacion.latencias.registrarDesde(inicio);
+            operacion.error(e);
+            return null;
+        }
+    }
+
+    String reporte() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("=== Carga: %d usuarios, %d clientes, %d apuestas por cliente ===%n",
+                usuarios, clientes, apuestasPorCliente));
+        for (Map.Entry<String, Long> fase : duracionesFase.entrySet()) {
+            sb.append(String.format("  fase %-12s %8d ms%n", fase.getKey(), TimeUnit.NANOSECONDS.toMillis(fase.getValue())));
+        }
+        sb.append(String.format("%n  %-18s %7s %7s %7s %8s %9s %9s %9s %9s %9s%n",
+                "operación", "total", "rechaz.", "errores", "ops/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "máx ms"));
+        for (Map.Entry<String, Operacion> entrada : operaciones.entrySet()) {
+            Operacion operacion = entrada.getValue();
+            long total = operacion.latencias.getCuenta();
+            if (total == 0) {
+                continue;
+            }
+            long nanosFase = duracionesFase.getOrDefault(operacion.fase, 0L);
+            double porSegundo = nanosFase > 0 ? total * 1e9 / nanosFase : 0;
+            sb.append(String.format("  %-18s %7d %7d %7d %8.1f", entrada.getKey(), total,
+                    operacion.rechazadas.sum(), operacion.errores.sum(), porSegundo));
+            for (double percentil : PERCENTILES) {
+                sb.append(String.format(" %9.2f", operacion.latencias.percentilMillis(percentil)));
+            }
+            sb.append(String.format(" %9.2f%n", operacion.latencias.getMaximoNanos() / 1e6));
+        }
+
+        boolean hayErrores = false;
+        for (Map.Entry<String, Operacion> entrada : operaciones.entrySet()) {
+            for (Map.Entry<String, LongAdder> tipo : entrada.getValue().tiposError.entrySet()) {
+                if (!hayErrores) {
+                    sb.append(String.format("%n  Errores:%n"));
+                    hayErrores = true;
+                }
+                sb.append(String.format("    %-18s %-28s %6d  %s%n", entrada.getKey(), tipo.getKey(), tipo.getValue().sum(),
+                        recortar(entrada.getValue().ejemplos.get(tipo.getKey()))));
+            }
+        }
+        return sb.toString();
+    }
+
+    private void operacion(String fase, String nombre) {
+        operaciones.put(nombre, new Operacion(fase));
+    }
+
+    private static String correo(int i) {
+        return "carga" + i + "@unab.edu.co";
+    }
+
+    private static String recortar(String texto) {
+        return texto.length() > 80 ? texto.substring(0, 77) + "..." : texto;
+    }
+
+    private static boolean prepararCarpeta(boolean limpiar) throws IOException {
+        ConfiguracionAlmacenamiento configuracion = ConfiguracionAlmacenamiento.getInstance();
+        List<String> problemas = configuracion.validar();
+        if (!problemas.isEmpty()) {
+            problemas.forEach(problema -> System.err.println("Configuración inválida: " + problema));
+            return false;
+        }
+        Path carpeta = configuracion.getDirectorio();
+        for (String archivo : ARCHIVOS) {
+            Path ruta = carpeta.resolve(archivo);
+            if (!Files.exists(ruta)) {
+                continue;
+            }
+            if (!limpiar) {
+                System.err.println("Ya existe " + ruta + ". Ejecute el generador con otra carpeta de datos "
+                        + "(unabet.datos.directorio) o use --limpiar para borrar los datos.");
+                return false;
+            }
+            Files.delete(ruta);
+        }
+        return true;
+    }
+
+    private static Map<String, String> leerOpciones(String[] args) {
+        Map<String, String> opciones = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                System.err.println("Opción no reconocida: " + args[i]);
+                return null;
+            }
+            String nombre = args[i].substring(2);
+            if (nombre.equals("limpiar")) {
+                opciones.put(nombre, "true");
+            } else if (i + 1 < args.length) {
+                opciones.put(nombre, args[++i]);
+            } else {
+                System.err.println("Falta el valor de --" + nombre);
+                return null;
+            }
+        }
+        return opciones;
+    }
+
+    private static int entero(Map<String, String> opciones, String nombre, int porDefecto) {
+        int valor = Integer.parseInt(opciones.getOrDefault(nombre, String.valueOf(porDefecto)));
+        if (valor < 0) {
+            throw new IllegalArgumentException("--" + nombre + " no puede ser negativo");
+        }
+        return valor;
+    }
+}
@@ -0,0 +1,326 @@
+package back_end.membresias;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.LugarDAO;
+import back_end.dao.MembresiaDAO;
+import back_end.metricas.RegistroMetricas;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inscripciones de usuarios en lugares.
+ *
+ * Índice muchos a muchos en las dos direcciones (lugares de cada usuario e
+ * inscritos de cada lugar) con conjuntos de ids: saber si alguien está
+ * inscrito o cuántos inscritos tiene un lugar es O(1) y no carga usuarios ni
+ * lugares. Cada cambio, individual o en bloque, se guarda con una sola
+ * escritura de membresias.json; si falla, el índice vuelve a como estaba.
+ *
+ * La primera vez que se usa sin membresias.json se importan los inscritos
+ * que estaban guardados dentro de lugares.json.
+ */
+public class MembresiaLugares {
+
+    private static final MembresiaLugares instance = new MembresiaLugares();
+
+    private final Map<String, Set<String>> lugaresPorUsuario = new HashMap<>();
+    private final Map<String, Set<String>> usuariosPorLugar = new HashMap<>();
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private int pares;
+    private volatile boolean cargada;
+
+    private MembresiaLugares() {
+        RegistroMetricas.getInstance().medidor("unabet_membresias", "Inscripciones de usuarios en lugares",
+                this::contarPares);
+    }
+
+    public static MembresiaLugares getInstance() {
+        return instance;
+    }
+
+    /**
+     * Arma el índice desde el archivo; solo la primera vez
+     */
+    public void cargar() throws PersistenciaException {
+        if (cargada) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            if (cargada) {
+                return;
+            }
+            if (MembresiaDAO.existeArchivo()) {
+                agregarPares(MembresiaDAO.obtenerPares());
+            } else {
+                for (Map.Entry<String, List<String>> lugar : LugarDAO.leerInscritosGuardados().entrySet()) {
+                    for (String usuarioId : lugar.getValue()) {
+                        agregar(usuarioId, lugar.getKey());
+                    }
+                }
+                MembresiaDAO.guardarPares(todosLosPares());
+            }
+            cargada = true;
+        } catch (PersistenciaException e) {
+            lugaresPorUsuario.clear();
+            usuariosPorLugar.clear();
+            pares = 0;
+            throw e;
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Vuelve a armar el índice desde membresias.json, por ejemplo cuando
+     * otro programa lo modificó. Si todavía no se había cargado no hace
+     * nada: se leerá en la primera consulta.
+     */
+    public void recargar() throws PersistenciaException {
+        if (!cargada) {
+            return;
+        }
+        cerrojo.writeLock().lock();
+        try {
+            // Si la lectura falla, el índice queda como estaba
+            String[][] leidos = MembresiaDAO.obtenerPares();
+            lugaresPorUsuario.clear();
+            usuariosPorLugar.clear();
+            pares = 0;
+            agregarPares(leidos);
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    public boolean estaInscrito(String usuarioId, String lugarId) throws PersistenciaException {
+        cargar();
+        cerrojo.readLock().lock();
+        try {
+            Set<String> lugares = lugaresPorUsuario.get(usuarioId);
+            return lugares != null && lugares.contains(lugarId);
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de los lugares en que está inscrito el usuario
+     */
+    public Set<String> lugaresDe(String usuarioId) throws PersistenciaException {
+        return copia(lugaresPorUsuario, usuarioId);
+    }
+
+    /**
+     * Ids de los usuarios inscritos en el lugar
+     */
+    public Set<String> inscritosEn(String lugarId) throws PersistenciaException {
+        return copia(usuariosPorLugar, lugarId);
+    }
+
+    public int contarInscritos(String lugarId) throws PersistenciaException {
+        return contar(usuariosPorLugar, lugarId);
+    }
+
+    public int contarLugares(String usuarioId) throws PersistenciaException {
+        return contar(lugaresPorUsuario, usuarioId);
+    }
+
+    /**
+     * @return true si no estaba inscrito
+     */
+    public boolean inscribir(String usuarioId, String lugarId) throws PersistenciaException {
+        return inscribir(List.of(usuarioId), lugarId) == 1;
+    }
+
+    /**
+     * @return true si estaba inscrito
+     */
+    public boolean darDeBaja(String usuarioId, String lugarId) throws PersistenciaException {
+        return darDeBaja(List.of(usuarioId), lugarId) == 1;
+    }
+
+    /**
+     * Inscribe varios usuarios en un lugar con una sola escritura
+     *
+     * @return cuántos no estaban inscritos
+     */
+    public int inscribir(Collection<String> usuarioIds, String lugarId) throws PersistenciaException {
+        cargar();
+        cerrojo.writeLock().lock();
+        try {
+            List<String> nuevos = new ArrayList<>();
+            for (String usuarioId : usuarioIds) {
+                if (usuarioId != null && agregar(usuarioId, lugarId)) {
+                    nuevos.add(usuarioId);
+                }
+            }
+            if (!nuevos.isEmpty()) {
+                try {
+                    MembresiaDAO.guardarPares(todosLosPares());
+                } catch (PersistenciaException e) {
+                    for (String usuarioId : nuevos) {
+                        quitar(usuarioId, lugarId);
+                    }
+                    throw e;
+                }
+            }
+            return nuevos.size();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Da de baja a varios usuarios de un lugar con una sola escritura
+     *
+     * @return cuántos estaban inscritos
+     */
+    public int darDeBaja(Collection<String> usuarioIds, String lugarId) throws PersistenciaException {
+        cargar();
+        cerrojo.writeLock().lock();
+        try {
+            List<String> quitados = new ArrayList<>();
+            for (String usuarioId : usuarioIds) {
+                if (usuarioId != null && quitar(usuarioId, lugarId)) {
+                    quitados.add(usuarioId);
+                }
+            }
+            guardarOReponer(quitados, lugarId);
+            return quitados.size();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Da de baja a todos los inscritos de un lugar (al eliminarlo)
+     */
+    public int quitarLugar(String lugarId) throws PersistenciaException {
+        return darDeBaja(inscritosEn(lugarId), lugarId);
+    }
+
+    /**
+     * Da de baja al usuario de todos sus lugares (al eliminarlo)
+     */
+    public int quitarUsuario(String usuarioId) throws PersistenciaException {
+        cargar();
+        cerrojo.writeLock().lock();
+        try {
+            Set<String> lugares = lugaresPorUsuario.get(usuarioId);
+            if (lugares == null) {
+                return 0;
+            }
+            List<String> quitados = new ArrayList<>(lugares);
+            for (String lugarId : quitados) {
+                quitar(usuarioId, lugarId);
+            }
+            try {
+                MembresiaDAO.guardarPares(todosLosPares());
+            } catch (PersistenciaException e) {
+                for (String lugarId : quitados) {
+                    agregar(usuarioId, lugarId);
+                }
+                throw e;
+            }
+            return quitados.size();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    private void guardarOReponer(List<String> quitados, String lugarId) throws PersistenciaException {
+        if (quitados.isEmpty()) {
+            return;
+        }
+        try {
+            MembresiaDAO.guardarPares(todosLosPares());
+        } catch (PersistenciaException e) {
+            for (String usuarioId : quitados) {
+                agregar(usuarioId, lugarId);
+            }
+            throw e;
+        }
+    }
+
+    private Set<String> copia(Map<String, Set<String>> indice, String id) throws PersistenciaException {
+        cargar();
+        cerrojo.readLock().lock();
+        try {
+            Set<String> ids = indice.get(id);
+            return ids != null ? Set.copyOf(ids) : Set.of();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private int contar(Map<String, Set<String>> indice, String id) throws PersistenciaException {
+        cargar();
+        cerrojo.readLock().lock();
+        try {
+            Set<String> ids = indice.get(id);
+            return ids != null ? ids.size() : 0;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private int contarPares() {
+        cerrojo.readLock().lock();
+        try {
+            return pares;
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private void agregarPares(String[][] leidos) {
+        for (String[] par : leidos) {
+            if (par != null && par.length == 2 && par[0] != null && par[1] != null) {
+                agregar(par[0], par[1]);
+            }
+        }
+    }
+
+    private boolean agregar(String usuarioId, String lugarId) {
+        if (!lugaresPorUsuario.computeIfAbsent(usuarioId, id -> new HashSet<>()).add(lugarId)) {
+            return false;
+        }
+        usuariosPorLugar.computeIfAbsent(lugarId, id -> new HashSet<>()).add(usuarioId);
+        pares++;
+        return true;
+    }
+
+    private boolean quitar(String usuarioId, String lugarId) {
+        Set<String> lugares = lugaresPorUsuario.get(usuarioId);
+        if (lugares == null || !lugares.remove(lugarId)) {
+            return false;
+        }
+        if (lugares.isEmpty()) {
+            lugaresPorUsuario.remove(usuarioId);
+        }
+        Set<String> usuarios = usuariosPorLugar.get(lugarId);
+        usuarios.remove(usuarioId);
+        if (usuarios.isEmpty()) {
+            usuariosPorLugar.remove(lugarId);
+        }
+        pares--;
+        return true;
+    }
+
+    private List<String[]> todosLosPares() {
+        List<String[]> todos = new ArrayList<>(pares);
+        for (Map.Entry<String, Set<String>> usuario : lugaresPorUsuario.entrySet()) {
+            for (String lugarId : usuario.getValue()) {
+                todos.add(new String[]{usuario.getKey(), lugarId});
+            }
+        }
+        return todos;
+    }
+}
@@ -0,0 +1,29 @@
+package back_end.metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contador que solo crece. Incrementar no toma bloqueos: cada hilo suma en
+ * su propia celda (LongAdder) y las celdas se juntan al leer.
+ */
+public final class Contador {
+
+    private final LongAdder valor = new LongAdder();
+
+    Contador() {
+    }
+
+    public void incrementar() {
+        valor.increment();
+    }
+
+    public void sumar(long cantidad) {
+        if (cantidad > 0) {
+            valor.add(cantidad);
+        }
+    }
+
+    public long valor() {
+        return valor.sum();
+    }
+}
@@ -0,0 +1,74 @@
+package back_end.metricas;
+
+import back_end.Classes.Apuesta;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR: creación, modificación, cancelación o liquidación de una apuesta
+ */
+@Name("unabet.Apuesta")
+@Label("Apuesta")
+@Category({"UNABet", "Apuestas"})
+@Description("Operación sobre una apuesta, con la E/S de archivos que provocó")
+public final class EventoApuesta extends EventoDominio {
+
+    @Label("Operación")
+    @Description("crear, actualizar, eliminar o finalizar")
+    String operacion;
+
+    @Label("Apuesta")
+    String apuestaId;
+
+    @Label("Usuario")
+    String usuarioId;
+
+    @Label("Juego")
+    String juegoId;
+
+    @Label("Lugar")
+    String lugarId;
+
+    @Label("Cantidad APUNAB")
+    double cantidad;
+
+    @Label("Otros apostadores")
+    int otrosApostadores;
+
+    @Label("Ganada")
+    boolean ganada;
+
+    /**
+     * Ejecuta una operación de la apuesta dentro de un evento. Los datos de
+     * la apuesta se leen al terminar, así que reflejan lo que hizo la operación.
+     */
+    public static <E extends Exception> boolean registrar(String operacion, Apuesta apuesta,
+            MetricasDAO.Accion<Boolean, E> accion) throws E {
+        EventoApuesta evento = new EventoApuesta();
+        evento.begin();
+        MetricasDAO.Totales anteriores = MetricasDAO.abrirTotales();
+        boolean exito = false;
+        try {
+            exito = Boolean.TRUE.equals(accion.ejecutar());
+            return exito;
+        } finally {
+            MetricasDAO.Totales totales = MetricasDAO.cerrarTotales(anteriores);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.operacion = operacion;
+                evento.apuestaId = apuesta.getId();
+                evento.usuarioId = apuesta.getEstudiante() != null ? apuesta.getEstudiante().getId() : null;
+                evento.juegoId = apuesta.getJuego() != null ? apuesta.getJuego().getId() : null;
+                evento.lugarId = apuesta.getLugar() != null ? apuesta.getLugar().getId() : null;
+                evento.cantidad = apuesta.getCantidadAPUNAB();
+                evento.otrosApostadores = apuesta.getOtrosApostadores() != null ? apuesta.getOtrosApostadores().size() : 0;
+                evento.ganada = apuesta.isGanada();
+                evento.exito = exito;
+                evento.completar(totales);
+                evento.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package back_end.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR: carga o reescritura completa del archivo de un DAO
+ */
+@Name("unabet.ArchivoDAO")
+@Label("Archivo de DAO")
+@Category({"UNABet", "Persistencia"})
+@Description("Lectura completa o reescritura completa de un archivo JSON de datos")
+public final class EventoArchivoDAO extends EventoUnabet {
+
+    @Label("DAO")
+    String dao;
+
+    @Label("Operación")
+    @Description("Operación pública del DAO que provocó el acceso")
+    String operacion;
+
+    @Label("Tipo")
+    @Description("carga o reescritura")
+    String tipo;
+
+    @Label("Archivo")
+    String archivo;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+
+    @Label("Registros")
+    int registros;
+
+    EventoArchivoDAO() {
+    }
+}
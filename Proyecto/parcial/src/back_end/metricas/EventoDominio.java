@@ -0,0 +1,41 @@
+package back_end.metricas;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+
+/**
+ * Base de los eventos JFR de operaciones de dominio (apuestas, inicio de
+ * sesión). Suman los bytes y registros que leyeron y escribieron los DAO en
+ * el mismo hilo mientras duró la operación.
+ */
+abstract class EventoDominio extends EventoUnabet {
+
+    @Label("Bytes leídos")
+    @Description("Bytes leídos de los archivos de datos durante la operación")
+    @DataAmount
+    long bytesLeidos;
+
+    @Label("Bytes escritos")
+    @Description("Bytes escritos en los archivos de datos durante la operación")
+    @DataAmount
+    long bytesEscritos;
+
+    @Label("Registros leídos")
+    long registrosLeidos;
+
+    @Label("Registros escritos")
+    long registrosEscritos;
+
+    @Label("Éxito")
+    boolean exito;
+
+    void completar(MetricasDAO.Totales totales) {
+        if (totales != null) {
+            bytesLeidos = totales.bytesLeidos;
+            bytesEscritos = totales.bytesEscritos;
+            registrosLeidos = totales.registrosLeidos;
+            registrosEscritos = totales.registrosEscritos;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package back_end.metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR: llamada JDBC hecha a través de ConexionDB
+ */
+@Name("unabet.JDBC")
+@Label("Llamada JDBC")
+@Category({"UNABet", "Persistencia"})
+@Description("Conexión o sentencias ejecutadas contra la base de datos")
+public final class EventoJDBC extends EventoUnabet {
+
+    @Label("Operación")
+    String operacion;
+
+    @Label("URL")
+    String url;
+
+    @Label("Sentencias")
+    int sentencias;
+
+    @Label("Éxito")
+    boolean exito;
+
+    /**
+     * Ejecuta una llamada JDBC dentro de un evento
+     */
+    public static <T, E extends Exception> T registrar(String operacion, String url, int sentencias,
+            MetricasDAO.Accion<T, E> accion) throws E {
+        EventoJDBC evento = new EventoJDBC();
+        evento.begin();
+        boolean exito = false;
+        try {
+            T resultado = accion.ejecutar();
+            exito = !Boolean.FALSE.equals(resultado);
+            return resultado;
+        } finally {
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.operacion = operacion;
+                evento.url = url;
+                evento.sentencias = sentencias;
+                evento.exito = exito;
+                evento.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package back_end.metricas;
+
+import back_end.Classes.Usuario;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento JFR: verificación de credenciales en Usuario.iniciarSesion
+ */
+@Name("unabet.Login")
+@Label("Inicio de sesión")
+@Category({"UNABet", "Usuarios"})
+@Description("Búsqueda del usuario y verificación de la contraseña")
+public final class EventoLogin extends EventoDominio {
+
+    @Label("Usuario")
+    @Description("Id del usuario autenticado; vacío si las credenciales no coinciden")
+    String usuarioId;
+
+    /**
+     * Ejecuta el inicio de sesión dentro de un evento
+     */
+    public static <E extends Exception> Usuario registrar(MetricasDAO.Accion<Usuario, E> accion) throws E {
+        EventoLogin evento = new EventoLogin();
+        evento.begin();
+        MetricasDAO.Totales anteriores = MetricasDAO.abrirTotales();
+        Usuario usuario = null;
+        try {
+            usuario = accion.ejecutar();
+            return usuario;
+        } finally {
+            MetricasDAO.Totales totales = MetricasDAO.cerrarTotales(anteriores);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.usuarioId = usuario != null ? usuario.getId() : null;
+                evento.exito = usuario != null;
+                evento.completar(totales);
+                evento.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package back_end.metricas;
+
+import jdk.jfr.Event;
+
+/**
+ * Base de los eventos JFR de la aplicación.
+ *
+ * Los eventos se graban con una grabación de JFR en curso, por ejemplo:
+ * java -XX:StartFlightRecording=filename=unabet.jfr,settings=profile ...
+ * y se ven en JDK Mission Control (categoría UNABet) o con
+ * "jfr print --categories UNABet unabet.jfr". Si no hay grabación, crear
+ * y confirmar un evento prácticamente no cuesta nada.
+ */
+abstract class EventoUnabet extends Event {
+}
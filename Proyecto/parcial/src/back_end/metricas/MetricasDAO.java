@@ -0,0 +1,217 @@
+package back_end.metricas;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Métricas de un DAO, por operación pública.
+ *
+ * Cada operación se ejecuta dentro de medir(), que cuenta llamadas y
+ * errores y registra la latencia. Mientras corre, las lecturas y
+ * escrituras del archivo que reporte el DAO (bytes y registros) se
+ * atribuyen a esa operación; si una operación llama a otra del mismo DAO,
+ * los bytes van a la más interna. Cada carga y reescritura del archivo
+ * también se graba como evento JFR (EventoArchivoDAO).
+ */
+public final class MetricasDAO {
+
+    /**
+     * Cuerpo de una operación del DAO
+     */
+    @FunctionalInterface
+    public interface Accion<T, E extends Exception> {
+
+        T ejecutar() throws E;
+    }
+
+    private static final class MetricasOperacion {
+
+        final MetricasDAO propietario;
+        final String operacion;
+        final Temporizador duracion;
+        final Contador llamadas;
+        final Contador errores;
+        final Contador bytesLeidos;
+        final Contador bytesEscritos;
+        final Contador registrosLeidos;
+        final Contador registrosEscritos;
+
+        MetricasOperacion(MetricasDAO propietario, String operacion) {
+            RegistroMetricas registro = propietario.registro;
+            String[] etiquetas = {"dao", propietario.dao, "operacion", operacion};
+            this.propietario = propietario;
+            this.operacion = operacion;
+            duracion = registro.temporizador("unabet_dao_duracion_segundos", "Duración de las operaciones de los DAO", etiquetas);
+            llamadas = registro.contador("unabet_dao_llamadas_total", "Llamadas a las operaciones de los DAO", etiquetas);
+            errores = registro.contador("unabet_dao_errores_total", "Operaciones de los DAO que terminaron con excepción", etiquetas);
+            bytesLeidos = registro.contador("unabet_dao_bytes_leidos_total", "Bytes leídos del archivo de datos", etiquetas);
+            bytesEscritos = registro.contador("unabet_dao_bytes_escritos_total", "Bytes escritos en el archivo de datos", etiquetas);
+            registrosLeidos = registro.contador("unabet_dao_registros_leidos_total", "Registros deserializados del archivo", etiquetas);
+            registrosEscritos = registro.contador("unabet_dao_registros_escritos_total", "Registros serializados al archivo", etiquetas);
+        }
+    }
+
+    /**
+     * E/S acumulada en un hilo, para los eventos de dominio que abarcan
+     * varias operaciones de DAO
+     */
+    static final class Totales {
+
+        long bytesLeidos;
+        long bytesEscritos;
+        long registrosLeidos;
+        long registrosEscritos;
+
+        void agregar(Totales otros) {
+            bytesLeidos += otros.bytesLeidos;
+            bytesEscritos += otros.bytesEscritos;
+            registrosLeidos += otros.registrosLeidos;
+            registrosEscritos += otros.registrosEscritos;
+        }
+    }
+
+    private static final ThreadLocal<MetricasOperacion> actual = new ThreadLocal<>();
+    private static final ThreadLocal<Totales> totales = new ThreadLocal<>();
+
+    private final RegistroMetricas registro;
+    private final String dao;
+    private String archivo;
+    private final ConcurrentHashMap<String, MetricasOperacion> operaciones = new ConcurrentHashMap<>();
+
+    private MetricasDAO(RegistroMetricas registro, String dao) {
+        this.registro = registro;
+        this.dao = dao;
+    }
+
+    /**
+     * Métricas de un DAO que guarda sus datos en un archivo; el tamaño del
+     * archivo se publica como medidor
+     */
+    public static MetricasDAO de(String dao, String archivo) {
+        MetricasDAO metricas = de(dao);
+        metricas.archivo = archivo;
+        if (archivo != null) {
+            File ruta = new File(archivo);
+            metricas.registro.medidor("unabet_dao_archivo_bytes", "Tamaño actual del archivo de datos", ruta::length, "dao", dao);
+        }
+        return metricas;
+    }
+
+    public static MetricasDAO de(String dao) {
+        return new MetricasDAO(RegistroMetricas.getInstance(), dao);
+    }
+
+    /**
+     * Ejecuta una operación registrando su latencia, la llamada y, si lanza
+     * una excepción, el error
+     */
+    public <T, E extends Exception> T medir(String operacion, Accion<T, E> accion) throws E {
+        MetricasOperacion metricas = operaciones.computeIfAbsent(operacion, o -> new MetricasOperacion(this, o));
+        MetricasOperacion anterior = actual.get();
+        actual.set(metricas);
+        long inicio = System.nanoTime();
+        try {
+            return accion.ejecutar();
+        } catch (Exception | Error e) {
+            metricas.errores.incrementar();
+            throw e;
+        } finally {
+            metricas.duracion.registrarDesde(inicio);
+            metricas.llamadas.incrementar();
+            if (anterior != null) {
+                actual.set(anterior);
+            } else {
+                actual.remove();
+            }
+        }
+    }
+
+    /**
+     * Marca el inicio de un acceso al archivo; se cierra con lectura() o escritura()
+     */
+    public EventoArchivoDAO iniciarArchivo() {
+        EventoArchivoDAO evento = new EventoArchivoDAO();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Registra una carga completa del archivo
+     */
+    public void lectura(EventoArchivoDAO evento, long bytes, int registros) {
+        MetricasOperacion metricas = operacionActual();
+        metricas.bytesLeidos.sumar(bytes);
+        metricas.registrosLeidos.sumar(registros);
+        Totales enHilo = totales.get();
+        if (enHilo != null) {
+            enHilo.bytesLeidos += bytes;
+            enHilo.registrosLeidos += registros;
+        }
+        confirmar(evento, "carga", bytes, registros);
+    }
+
+    /**
+     * Registra una reescritura completa del archivo
+     */
+    public void escritura(EventoArchivoDAO evento, long bytes, int registros) {
+        MetricasOperacion metricas = operacionActual();
+        metricas.bytesEscritos.sumar(bytes);
+        metricas.registrosEscritos.sumar(registros);
+        Totales enHilo = totales.get();
+        if (enHilo != null) {
+            enHilo.bytesEscritos += bytes;
+            enHilo.registrosEscritos += registros;
+        }
+        confirmar(evento, "reescritura", bytes, registros);
+    }
+
+    /**
+     * Empieza a acumular la E/S del hilo; devuelve lo que se acumulaba antes
+     */
+    static Totales abrirTotales() {
+        Totales anteriores = totales.get();
+        totales.set(new Totales());
+        return anteriores;
+    }
+
+    /**
+     * Termina de acumular y devuelve lo acumulado desde abrirTotales(). Lo
+     * acumulado se suma también a los totales anteriores, si los había.
+     */
+    static Totales cerrarTotales(Totales anteriores) {
+        Totales actuales = totales.get();
+        if (anteriores != null) {
+            anteriores.agregar(actuales);
+            totales.set(anteriores);
+        } else {
+            totales.remove();
+        }
+        return actuales;
+    }
+
+    private void confirmar(EventoArchivoDAO evento, String tipo, long bytes, int registros) {
+        if (evento == null) {
+            return;
+        }
+        evento.end();
+        if (evento.shouldCommit()) {
+            MetricasOperacion metricas = actual.get();
+            evento.dao = dao;
+            evento.operacion = metricas != null && metricas.propietario == this ? metricas.operacion : "interna";
+            evento.tipo = tipo;
+            evento.archivo = archivo;
+            evento.bytes = bytes;
+            evento.registros = registros;
+            evento.commit();
+        }
+    }
+
+    private MetricasOperacion operacionActual() {
+        MetricasOperacion metricas = actual.get();
+        if (metricas == null || metricas.propietario != this) {
+            // Lectura fuera de una operación medida de este DAO (por ejemplo, al inicializar)
+            metricas = operaciones.computeIfAbsent("interna", o -> new MetricasOperacion(this, o));
+        }
+        return metricas;
+    }
+}
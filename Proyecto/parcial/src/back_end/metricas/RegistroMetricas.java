@@ -0,0 +1,279 @@
+package back_end.metricas;
+
+import back_end.util.HistogramaLatencias;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Registro central de métricas de la aplicación: contadores, medidores
+ * (gauges) y temporizadores de latencia.
+ *
+ * Cada métrica se identifica por su nombre y sus etiquetas (pares
+ * clave, valor). Obtener una métrica ya creada es una búsqueda en un mapa
+ * concurrente; quien la usa seguido debe guardarla en un campo. Registrar
+ * valores no toma bloqueos.
+ *
+ * Se puede exportar en el formato de texto de Prometheus, a pedido o cada
+ * cierto tiempo a un archivo (-Dunabet.metricas.archivo=ruta y
+ * -Dunabet.metricas.intervaloSegundos, por defecto 15).
+ */
+public final class RegistroMetricas {
+
+    private static final RegistroMetricas instance = new RegistroMetricas();
+
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Una fila de la instantánea, para mostrar en pantalla
+     */
+    public record Muestra(String nombre, String etiquetas, String valor) {
+    }
+
+    private enum Tipo {
+        COUNTER, GAUGE, SUMMARY
+    }
+
+    private static final class Familia {
+
+        final Tipo tipo;
+        final String ayuda;
+        final Map<String, Object> series = new ConcurrentSkipListMap<>();
+
+        Familia(Tipo tipo, String ayuda) {
+            this.tipo = tipo;
+            this.ayuda = ayuda;
+        }
+    }
+
+    private final Map<String, Familia> familias = new ConcurrentHashMap<>();
+    private ScheduledExecutorService exportador;
+    private volatile Path archivoExportacion;
+    private boolean exportacionFinalRegistrada;
+
+    public RegistroMetricas() {
+        medidor("unabet_jvm_memoria_usada_bytes", "Memoria del heap en uso",
+                () -> Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        medidor("unabet_jvm_hilos", "Hilos de plataforma vivos",
+                () -> ManagementFactory.getThreadMXBean().getThreadCount());
+    }
+
+    public static RegistroMetricas getInstance() {
+        return instance;
+    }
+
+    /**
+     * Obtiene (o crea) un contador
+     *
+     * @param etiquetas pares clave, valor
+     */
+    public Contador contador(String nombre, String ayuda, String... etiquetas) {
+        return (Contador) familia(nombre, Tipo.COUNTER, ayuda).series
+                .computeIfAbsent(etiquetas(etiquetas), e -> new Contador());
+    }
+
+    /**
+     * Obtiene (o crea) un temporizador de latencias
+     *
+     * @param etiquetas pares clave, valor
+     */
+    public Temporizador temporizador(String nombre, String ayuda, String... etiquetas) {
+        return (Temporizador) familia(nombre, Tipo.SUMMARY, ayuda).series
+                .computeIfAbsent(etiquetas(etiquetas), e -> new Temporizador());
+    }
+
+    /**
+     * Registra un medidor cuyo valor se calcula al exportar. Si ya había
+     * uno con el mismo nombre y etiquetas, se reemplaza.
+     *
+     * @param etiquetas pares clave, valor
+     */
+    public void medidor(String nombre, String ayuda, DoubleSupplier valor, String... etiquetas) {
+        familia(nombre, Tipo.GAUGE, ayuda).series.put(etiquetas(etiquetas), valor);
+    }
+
+    /**
+     * Todas las métricas en el formato de texto de Prometheus (versión 0.0.4)
+     */
+    public String exportarPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Familia> entrada : new TreeMap<>(familias).entrySet()) {
+            String nombre = entrada.getKey();
+            Familia familia = entrada.getValue();
+            sb.append("# HELP ").append(nombre).append(' ').append(familia.ayuda).append('\n');
+            sb.append("# TYPE ").append(nombre).append(' ').append(familia.tipo.name().toLowerCase(Locale.ROOT)).append('\n');
+            for (Map.Entry<String, Object> serie : familia.series.entrySet()) {
+                String etiquetas = serie.getKey();
+                switch (familia.tipo) {
+                    case COUNTER ->
+                        linea(sb, nombre, etiquetas, ((Contador) serie.getValue()).valor());
+                    case GAUGE ->
+                        linea(sb, nombre, etiquetas, leer((DoubleSupplier) serie.getValue()));
+                    case SUMMARY -> {
+                        HistogramaLatencias histograma = ((Temporizador) serie.getValue()).getHistograma();
+                        for (double cuantil : CUANTILES) {
+                            String conCuantil = (etiquetas.isEmpty() ? "" : etiquetas + ",") + "quantile=\"" + cuantil + "\"";
+                            linea(sb, nombre, conCuantil, histograma.percentil(cuantil * 100) / 1e9);
+                        }
+                        linea(sb, nombre + "_sum", etiquetas, histograma.getSumaNanos() / 1e9);
+                        linea(sb, nombre + "_count", etiquetas, histograma.getCuenta());
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Escribe la exportación en un archivo. Se escribe primero a un archivo
+     * temporal y luego se renombra, para que quien lo lea nunca vea un
+     * archivo a medio escribir.
+     */
+    public void exportarPrometheus(Path archivo) throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if (carpeta != null) {
+            Files.createDirectories(carpeta);
+        }
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+            writer.write(exportarPrometheus());
+        }
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Exporta al archivo cada cierto tiempo y una última vez al cerrar la JVM.
+     * Llamarlo otra vez cambia el archivo y el intervalo.
+     */
+    public synchronized void exportarPeriodicamente(Path archivo, long intervalo, TimeUnit unidad) {
+        if (exportador != null) {
+            exportador.shutdownNow();
+        }
+        exportador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "exportador-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        archivoExportacion = archivo;
+        exportador.scheduleAtFixedRate(this::exportarAlArchivo, intervalo, intervalo, unidad);
+        if (!exportacionFinalRegistrada) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::exportarAlArchivo, "exportador-metricas-final"));
+            exportacionFinalRegistrada = true;
+        }
+    }
+
+    private void exportarAlArchivo() {
+        Path archivo = archivoExportacion;
+        try {
+            exportarPrometheus(archivo);
+        } catch (IOException e) {
+            System.err.println("Error al exportar métricas a " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Inicia la exportación periódica si se configuró unabet.metricas.archivo
+     */
+    public void configurarExportacionDesdePropiedades() {
+        String archivo = System.getProperty("unabet.metricas.archivo");
+        if (archivo != null && !archivo.isBlank()) {
+            exportarPeriodicamente(Path.of(archivo), Long.getLong("unabet.metricas.intervaloSegundos", 15), TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Valores actuales de todas las métricas, ordenados por nombre
+     */
+    public List<Muestra> instantanea() {
+        List<Muestra> muestras = new ArrayList<>();
+        for (Map.Entry<String, Familia> entrada : new TreeMap<>(familias).entrySet()) {
+            for (Map.Entry<String, Object> serie : entrada.getValue().series.entrySet()) {
+                muestras.add(new Muestra(entrada.getKey(), serie.getKey(), describir(serie.getValue())));
+            }
+        }
+        return muestras;
+    }
+
+    private Familia familia(String nombre, Tipo tipo, String ayuda) {
+        Familia familia = familias.computeIfAbsent(nombre, n -> new Familia(tipo, ayuda));
+        if (familia.tipo != tipo) {
+            throw new IllegalArgumentException("La métrica " + nombre + " ya existe con tipo " + familia.tipo);
+        }
+        return familia;
+    }
+
+    private static String describir(Object metrica) {
+        if (metrica instanceof Contador contador) {
+            return String.valueOf(contador.valor());
+        }
+        if (metrica instanceof DoubleSupplier medidor) {
+            return formatear(leer(medidor));
+        }
+        HistogramaLatencias histograma = ((Temporizador) metrica).getHistograma();
+        return String.format(Locale.ROOT, "n=%d  p50=%.3f ms  p99=%.3f ms  máx=%.3f ms", histograma.getCuenta(),
+                histograma.percentilMillis(50), histograma.percentilMillis(99), histograma.getMaximoNanos() / 1e6);
+    }
+
+    private static double leer(DoubleSupplier medidor) {
+        try {
+            return medidor.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static void linea(StringBuilder sb, String nombre, String etiquetas, double valor) {
+        sb.append(nombre);
+        if (!etiquetas.isEmpty()) {
+            sb.append('{').append(etiquetas).append('}');
+        }
+        sb.append(' ').append(formatear(valor)).append('\n');
+    }
+
+    private static String formatear(double valor) {
+        if (Double.isNaN(valor)) {
+            return "NaN";
+        }
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            return String.valueOf((long) valor);
+        }
+        return String.valueOf(valor);
+    }
+
+    private static String etiquetas(String[] pares) {
+        if (pares.length % 2 != 0) {
+            throw new IllegalArgumentException("Las etiquetas deben ir en pares clave, valor");
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pares.length; i += 2) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(pares[i]).append("=\"").append(escapar(pares[i + 1])).append('"');
+        }
+        return sb.toString();
+    }
+
+    private static String escapar(String valor) {
+        return valor.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,30 @@
+package back_end.metricas;
+
+import back_end.util.HistogramaLatencias;
+
+/**
+ * Latencias de una operación: un histograma sin bloqueos más la cuenta de
+ * llamadas. Se exporta como "summary" de Prometheus, en segundos.
+ */
+public final class Temporizador {
+
+    private final HistogramaLatencias histograma = new HistogramaLatencias();
+
+    Temporizador() {
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde inicioNanos (System.nanoTime())
+     */
+    public void registrarDesde(long inicioNanos) {
+        histograma.registrarDesde(inicioNanos);
+    }
+
+    public void registrar(long nanos) {
+        histograma.registrar(nanos);
+    }
+
+    public HistogramaLatencias getHistograma() {
+        return histograma;
+    }
+}
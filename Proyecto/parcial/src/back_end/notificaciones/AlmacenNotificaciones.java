@@ -0,0 +1,247 @@
+package back_end.notificaciones;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.EventoArchivoDAO;
+import back_end.metricas.MetricasDAO;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Almacén de notificaciones con una bandeja por usuario.
+ *
+ * En disco son dos registros de solo agregado (una línea JSON por
+ * registro): notificaciones.jsonl guarda cada lote entregado, es decir la
+ * notificación y la lista de sus destinatarios, así que entregar a mil
+ * usuarios es una sola escritura; notificaciones_leidas.jsonl guarda las
+ * marcas de lectura. Al iniciar se leen ambos y se arman las bandejas en
+ * memoria; desde ahí las lecturas y los contadores de no leídas no tocan el
+ * disco.
+ */
+public class AlmacenNotificaciones {
+
+    private static final String ARCHIVO_NOTIFICACIONES = ConfiguracionAlmacenamiento.getInstance().archivo("notificaciones.jsonl");
+    private static final String ARCHIVO_LEIDAS = ConfiguracionAlmacenamiento.getInstance().archivo("notificaciones_leidas.jsonl");
+
+    private static final AlmacenNotificaciones instance = new AlmacenNotificaciones(
+            Paths.get(ARCHIVO_NOTIFICACIONES), Paths.get(ARCHIVO_LEIDAS));
+
+    private static final Gson gson = new Gson();
+    private static final MetricasDAO METRICAS = MetricasDAO.de("notificaciones", ARCHIVO_NOTIFICACIONES);
+
+    /**
+     * Línea de notificaciones.jsonl: la notificación y un lote de destinatarios
+     */
+    private static final class Lote {
+
+        long id;
+        String tipo;
+        String titulo;
+        String mensaje;
+        String referenciaId;
+        long fechaMillis;
+        List<String> destinatarios;
+    }
+
+    /**
+     * Línea de notificaciones_leidas.jsonl
+     */
+    private static final class Lectura {
+
+        String usuarioId;
+        long hasta;
+    }
+
+    private final Path archivoNotificaciones;
+    private final Path archivoLeidas;
+    private final Map<String, Bandeja> bandejas = new ConcurrentHashMap<>();
+    private final AtomicLong ultimoId = new AtomicLong();
+    private final ReentrantLock escritura = new ReentrantLock();
+    private volatile boolean cargado;
+
+    public AlmacenNotificaciones(Path archivoNotificaciones, Path archivoLeidas) {
+        this.archivoNotificaciones = archivoNotificaciones;
+        this.archivoLeidas = archivoLeidas;
+    }
+
+    public static AlmacenNotificaciones getInstance() {
+        return instance;
+    }
+
+    /**
+     * Crea una notificación con el siguiente id; todavía no se entrega
+     */
+    public Notificacion crear(String tipo, String titulo, String mensaje, String referenciaId) throws PersistenciaException {
+        cargar();
+        return new Notificacion(ultimoId.incrementAndGet(), tipo, titulo, mensaje, referenciaId, System.currentTimeMillis());
+    }
+
+    /**
+     * Entrega la notificación a un lote de destinatarios con una sola
+     * escritura al registro
+     */
+    public void entregar(Notificacion notificacion, List<String> destinatarios) throws PersistenciaException {
+        if (destinatarios.isEmpty()) {
+            return;
+        }
+        cargar();
+        METRICAS.medir("entregar", () -> {
+            Lote lote = new Lote();
+            lote.id = notificacion.id();
+            lote.tipo = notificacion.tipo();
+            lote.titulo = notificacion.titulo();
+            lote.mensaje = notificacion.mensaje();
+            lote.referenciaId = notificacion.referenciaId();
+            lote.fechaMillis = notificacion.fechaMillis();
+            lote.destinatarios = destinatarios;
+            agregarLinea(archivoNotificaciones, gson.toJson(lote), destinatarios.size());
+            return null;
+        });
+        for (String usuarioId : destinatarios) {
+            bandeja(usuarioId).agregar(notificacion);
+        }
+    }
+
+    /**
+     * Página de la bandeja del usuario, de la más nueva a la más vieja
+     *
+     * @param antesDe cursor devuelto por la página anterior, o 0 para
+     * empezar por la más nueva
+     */
+    public PaginaNotificaciones pagina(String usuarioId, long antesDe, int limite) throws PersistenciaException {
+        cargar();
+        Bandeja bandeja = bandejas.get(usuarioId);
+        if (bandeja == null) {
+            return new PaginaNotificaciones(List.of(), 0, 0, 0);
+        }
+        return bandeja.pagina(antesDe, Math.max(1, limite));
+    }
+
+    public int contarNoLeidas(String usuarioId) throws PersistenciaException {
+        cargar();
+        Bandeja bandeja = bandejas.get(usuarioId);
+        return bandeja != null ? bandeja.contarNoLeidas() : 0;
+    }
+
+    /**
+     * Marca como leídas las notificaciones del usuario con id menor o igual
+     * a hastaId (0 marca todas)
+     */
+    public void marcarLeidas(String usuarioId, long hastaId) throws PersistenciaException {
+        cargar();
+        Bandeja bandeja = bandejas.get(usuarioId);
+        if (bandeja == null) {
+            return;
+        }
+        long hasta = hastaId > 0 ? Math.min(hastaId, bandeja.getUltimoId()) : bandeja.getUltimoId();
+        if (!bandeja.marcarLeidas(hasta)) {
+            return;
+        }
+        METRICAS.medir("marcarLeidas", () -> {
+            Lectura lectura = new Lectura();
+            lectura.usuarioId = usuarioId;
+            lectura.hasta = hasta;
+            agregarLinea(archivoLeidas, gson.toJson(lectura), 1);
+            return null;
+        });
+    }
+
+    private Bandeja bandeja(String usuarioId) {
+        return bandejas.computeIfAbsent(usuarioId, id -> new Bandeja());
+    }
+
+    private void agregarLinea(Path archivo, String linea, int registros) throws PersistenciaException {
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        byte[] datos = (linea + "\n").getBytes(StandardCharsets.UTF_8);
+        escritura.lock();
+        try {
+            ConfiguracionAlmacenamiento.getInstance().getFsync().agregar(archivo, datos);
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al escribir " + archivo + ": " + e.getMessage());
+        } finally {
+            escritura.unlock();
+        }
+        METRICAS.escritura(evento, datos.length, registros);
+    }
+
+    /**
+     * Lee los registros la primera vez que se usa el almacén
+     */
+    private void cargar() throws PersistenciaException {
+        if (cargado) {
+            return;
+        }
+        synchronized (this) {
+            if (cargado) {
+                return;
+            }
+            METRICAS.medir("cargar", () -> {
+                leer(archivoNotificaciones, linea -> {
+                    Lote lote = gson.fromJson(linea, Lote.class);
+                    Notificacion notificacion = new Notificacion(lote.id, lote.tipo, lote.titulo, lote.mensaje,
+                            lote.referenciaId, lote.fechaMillis);
+                    ultimoId.accumulateAndGet(lote.id, Math::max);
+                    if (lote.destinatarios != null) {
+                        for (String usuarioId : lote.destinatarios) {
+                            bandeja(usuarioId).agregar(notificacion);
+                        }
+                    }
+                    return lote.destinatarios != null ? lote.destinatarios.size() : 0;
+                });
+                leer(archivoLeidas, linea -> {
+                    Lectura lectura = gson.fromJson(linea, Lectura.class);
+                    bandeja(lectura.usuarioId).marcarLeidas(lectura.hasta);
+                    return 1;
+                });
+                return null;
+            });
+            cargado = true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface LectorLinea {
+
+        int leer(String linea);
+    }
+
+    private void leer(Path archivo, LectorLinea lector) throws PersistenciaException {
+        EventoArchivoDAO evento = METRICAS.iniciarArchivo();
+        long bytes = 0;
+        int registros = 0;
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            int numero = 0;
+            while ((linea = reader.readLine()) != null) {
+                numero++;
+                bytes += linea.length() + 1;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                try {
+                    registros += lector.leer(linea);
+                } catch (JsonParseException | NullPointerException e) {
+                    // Una línea cortada por un cierre abrupto no invalida el resto del registro
+                    System.err.println("Línea " + numero + " inválida en " + archivo + ": " + e.getMessage());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            throw new PersistenciaException("Error al leer " + archivo + ": " + e.getMessage());
+        }
+        METRICAS.lectura(evento, bytes, registros);
+    }
+}
@@ -0,0 +1,84 @@
+package back_end.notificaciones;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bandeja de un usuario: lista de solo agregado, ordenada por id, y la marca
+ * de lectura (todas las notificaciones con id menor o igual están leídas).
+ * Contar las no leídas es una búsqueda binaria.
+ */
+final class Bandeja {
+
+    private final List<Notificacion> notificaciones = new ArrayList<>();
+    private long leidasHasta;
+
+    synchronized void agregar(Notificacion notificacion) {
+        int ultima = notificaciones.size() - 1;
+        if (ultima >= 0 && notificaciones.get(ultima).id() >= notificacion.id()) {
+            // Entregas fuera de orden (no debería pasar): insertar en su lugar
+            int posicion = primeraMayorQue(notificacion.id() - 1);
+            if (posicion < notificaciones.size() && notificaciones.get(posicion).id() == notificacion.id()) {
+                return;
+            }
+            notificaciones.add(posicion, notificacion);
+            return;
+        }
+        notificaciones.add(notificacion);
+    }
+
+    /**
+     * @return true si la marca avanzó
+     */
+    synchronized boolean marcarLeidas(long hastaId) {
+        if (hastaId <= leidasHasta) {
+            return false;
+        }
+        leidasHasta = hastaId;
+        return true;
+    }
+
+    synchronized int contarNoLeidas() {
+        return notificaciones.size() - primeraMayorQue(leidasHasta);
+    }
+
+    synchronized long getLeidasHasta() {
+        return leidasHasta;
+    }
+
+    synchronized long getUltimoId() {
+        return notificaciones.isEmpty() ? 0 : notificaciones.get(notificaciones.size() - 1).id();
+    }
+
+    /**
+     * Hasta "limite" notificaciones con id menor que antesDe, de la más
+     * nueva a la más vieja
+     */
+    synchronized PaginaNotificaciones pagina(long antesDe, int limite) {
+        int fin = antesDe > 0 ? primeraMayorQue(antesDe - 1) : notificaciones.size();
+        int inicio = Math.max(0, fin - limite);
+        List<Notificacion> pagina = new ArrayList<>(fin - inicio);
+        for (int i = fin - 1; i >= inicio; i--) {
+            pagina.add(notificaciones.get(i));
+        }
+        long siguiente = inicio > 0 ? notificaciones.get(inicio).id() : 0;
+        return new PaginaNotificaciones(pagina, siguiente, contarNoLeidas(), leidasHasta);
+    }
+
+    /**
+     * Posición de la primera notificación con id mayor que el dado
+     */
+    private int primeraMayorQue(long id) {
+        int bajo = 0;
+        int alto = notificaciones.size();
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (notificaciones.get(medio).id() <= id) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
@@ -0,0 +1,11 @@
+package back_end.notificaciones;
+
+/**
+ * Notificación para uno o más usuarios. Un mismo objeto se comparte entre
+ * las bandejas de todos sus destinatarios.
+ *
+ * @param id número creciente; ordena las bandejas y sirve de cursor
+ * @param referenciaId entidad a la que se refiere (lugar, apuesta), o null
+ */
+public record Notificacion(long id, String tipo, String titulo, String mensaje, String referenciaId, long fechaMillis) {
+}
@@ -0,0 +1,13 @@
+package back_end.notificaciones;
+
+import java.util.List;
+
+/**
+ * Una página de la bandeja, de la más nueva a la más vieja.
+ *
+ * @param siguiente cursor para pedir la página siguiente (notificaciones
+ * con id menor), o 0 si no hay más
+ * @param noLeidas notificaciones sin leer en toda la bandeja
+ */
+public record PaginaNotificaciones(List<Notificacion> notificaciones, long siguiente, int noLeidas, long leidasHasta) {
+}
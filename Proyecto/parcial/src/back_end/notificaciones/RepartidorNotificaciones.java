@@ -0,0 +1,202 @@
+package back_end.notificaciones;
+
+import back_end.Classes.Juego;
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.UsuarioDAO;
+import back_end.eventos.BusEventos;
+import back_end.eventos.Evento;
+import back_end.eventos.PoliticaDesborde;
+import back_end.eventos.Suscripcion;
+import back_end.membresias.MembresiaLugares;
+import back_end.metricas.Contador;
+import back_end.metricas.RegistroMetricas;
+import back_end.metricas.Temporizador;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Convierte los eventos del dominio en notificaciones y las reparte.
+ *
+ * Quien crea un lugar o liquida una apuesta solo publica un evento en el
+ * bus; un hilo aparte decide los destinatarios (todos los usuarios, los
+ * registrados en el lugar, los apostadores) y entrega la notificación en
+ * lotes de unabet.notificaciones.lote usuarios (500), una escritura por
+ * lote. Así un lugar con diez mil registrados no frena la petición que lo
+ * modificó.
+ */
+public class RepartidorNotificaciones {
+
+    private static final RepartidorNotificaciones instance = new RepartidorNotificaciones(
+            AlmacenNotificaciones.getInstance(), Integer.getInteger("unabet.notificaciones.lote", 500));
+
+    /**
+     * Destinatarios que se calculan en el hilo del repartidor
+     */
+    @FunctionalInterface
+    public interface Destinatarios {
+
+        Collection<String> obtener() throws PersistenciaException;
+    }
+
+    private record Trabajo(String tipo, String titulo, String mensaje, String referenciaId, Destinatarios destinatarios) {
+    }
+
+    private final AlmacenNotificaciones almacen;
+    private final int tamañoLote;
+    private final BlockingQueue<Trabajo> pendientes = new LinkedBlockingQueue<>();
+    private Suscripcion suscripcion;
+
+    private final Contador entregadas;
+    private final Contador lotes;
+    private final Temporizador duracion;
+
+    public RepartidorNotificaciones(AlmacenNotificaciones almacen, int tamañoLote) {
+        if (tamañoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo");
+        }
+        this.almacen = almacen;
+        this.tamañoLote = tamañoLote;
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        entregadas = metricas.contador("unabet_notificaciones_entregadas_total", "Notificaciones entregadas a bandejas");
+        lotes = metricas.contador("unabet_notificaciones_lotes_total", "Lotes escritos al registro de notificaciones");
+        duracion = metricas.temporizador("unabet_notificaciones_reparto_segundos", "Tiempo en repartir una notificación");
+        metricas.medidor("unabet_notificaciones_pendientes", "Notificaciones esperando reparto", pendientes::size);
+    }
+
+    public static RepartidorNotificaciones getInstance() {
+        return instance;
+    }
+
+    /**
+     * Se suscribe al bus de eventos e inicia el reparto. Llamar más de una
+     * vez no tiene efecto.
+     */
+    public synchronized void iniciar() {
+        if (suscripcion != null) {
+            return;
+        }
+        // BLOQUEAR: si el repartidor se atrasa, quien publica espera un poco antes de perder la notificación
+        suscripcion = BusEventos.getInstance().suscribir(this::interesa, 4096, PoliticaDesborde.BLOQUEAR,
+                1, TimeUnit.SECONDS, -1);
+        Thread.ofVirtual().name("notificaciones-eventos").start(this::escucharEventos);
+        Thread.ofVirtual().name("notificaciones-reparto").start(this::repartir);
+    }
+
+    /**
+     * Encola una notificación; los destinatarios se calculan al repartirla
+     */
+    public void notificar(String tipo, String titulo, String mensaje, String referenciaId, Destinatarios destinatarios) {
+        pendientes.add(new Trabajo(tipo, titulo, mensaje, referenciaId, destinatarios));
+    }
+
+    /**
+     * Avisa a los apostadores que se liquidaron las apuestas de un juego
+     */
+    public void notificarJuegoLiquidado(Juego juego, Collection<String> apostadores) {
+        List<String> destinatarios = List.copyOf(new LinkedHashSet<>(apostadores));
+        notificar("JUEGO_LIQUIDADO", "Resultados de " + juego.getNombre(),
+                "Se liquidaron las apuestas de " + juego.getNombre() + ". Revisa tu historial.",
+                juego.getId(), () -> destinatarios);
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    private boolean interesa(Evento evento) {
+        return switch (evento.tipo()) {
+            case LUGAR_CREADO, LUGAR_ACTUALIZADO -> true;
+            // Las liquidaciones de un juego se avisan con una sola notificación (notificarJuegoLiquidado)
+            case APUESTA_FINALIZADA -> !Boolean.TRUE.equals(evento.datos().get("liquidacionJuego"));
+            default -> false;
+        };
+    }
+
+    private void escucharEventos() {
+        try {
+            while (!suscripcion.estaCerrada()) {
+                Evento evento = suscripcion.siguiente(1, TimeUnit.MINUTES);
+                if (evento != null) {
+                    traducir(evento);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void traducir(Evento evento) {
+        Object lugarId = evento.datos().get("lugarId");
+        switch (evento.tipo()) {
+            case LUGAR_CREADO ->
+                notificar("LUGAR_CREADO", "¡ Nuevo lugar disponible para apostar !",
+                        evento.datos().get("nombre") + " - " + evento.datos().get("direccion"),
+                        (String) lugarId, RepartidorNotificaciones::todosLosUsuarios);
+            case LUGAR_ACTUALIZADO ->
+                notificar("LUGAR_ACTUALIZADO", "Novedades en " + evento.datos().get("nombre"),
+                        "Hay cambios en un lugar donde estás registrado.",
+                        (String) lugarId, () -> registradosEn((String) lugarId));
+            case APUESTA_FINALIZADA -> {
+                boolean ganada = Boolean.TRUE.equals(evento.datos().get("ganada"));
+                List<String> apostadores = new ArrayList<>();
+                apostadores.add(evento.usuarioId());
+                if (evento.datos().get("otrosApostadores") instanceof Collection<?> otros) {
+                    otros.forEach(id -> apostadores.add(String.valueOf(id)));
+                }
+                String mensaje = ganada
+                        ? String.format(Locale.ROOT, "Ganancia: %.2f APUNAB", (Double) evento.datos().get("gananciaReal"))
+                        : "Esta vez no hubo suerte.";
+                notificar("APUESTA_FINALIZADA", ganada ? "¡ Lograste conseguir más APUNAB !" : "Tu apuesta fue liquidada",
+                        mensaje, (String) evento.datos().get("apuestaId"), () -> apostadores);
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void repartir() {
+        while (true) {
+            Trabajo trabajo;
+            try {
+                trabajo = pendientes.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            long inicio = System.nanoTime();
+            try {
+                List<String> destinatarios = new ArrayList<>(new LinkedHashSet<>(trabajo.destinatarios().obtener()));
+                destinatarios.removeIf(Objects::isNull);
+                if (destinatarios.isEmpty()) {
+                    continue;
+                }
+                Notificacion notificacion = almacen.crear(trabajo.tipo(), trabajo.titulo(), trabajo.mensaje(), trabajo.referenciaId());
+                for (int desde = 0; desde < destinatarios.size(); desde += tamañoLote) {
+                    List<String> lote = destinatarios.subList(desde, Math.min(desde + tamañoLote, destinatarios.size()));
+                    almacen.entregar(notificacion, lote);
+                    lotes.incrementar();
+                    entregadas.sumar(lote.size());
+                }
+            } catch (PersistenciaException | RuntimeException e) {
+                System.err.println("Error al repartir la notificación " + trabajo.tipo() + ": " + e.getMessage());
+            } finally {
+                duracion.registrarDesde(inicio);
+            }
+        }
+    }
+
+    private static Collection<String> todosLosUsuarios() throws PersistenciaException {
+        return UsuarioDAO.obtenerTodosLosUsuarios().stream().map(Usuario::getId).toList();
+    }
+
+    private static Collection<String> registradosEn(String lugarId) throws PersistenciaException {
+        return MembresiaLugares.getInstance().inscritosEn(lugarId);
+    }
+}
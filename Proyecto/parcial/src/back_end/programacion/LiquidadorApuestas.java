@@ -0,0 +1,130 @@
+package back_end.programacion;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.ApuestaDAO;
+import back_end.dao.UsuarioDAO;
+import back_end.eventos.BusEventos;
+import back_end.metricas.Contador;
+import back_end.metricas.RegistroMetricas;
+import back_end.metricas.Temporizador;
+import back_end.notificaciones.RepartidorNotificaciones;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Liquida todas las apuestas abiertas de un juego.
+ *
+ * Las apuestas se procesan en lotes, en vez de dos escrituras por apuesta
+ * como hace Apuesta.finalizarApuesta. Cada lote es una liquidación con su
+ * propio id: primero se guardan las apuestas finalizadas y marcadas con
+ * ella, luego se acreditan las ganancias (el usuario recuerda las
+ * liquidaciones que ya cobró) y al final se quita la marca. Si el proceso
+ * se corta en medio, la siguiente liquidación del juego retoma las
+ * apuestas marcadas sin pagar dos veces. Al terminar se envía una sola
+ * notificación a todos los apostadores.
+ */
+public class LiquidadorApuestas {
+
+    private final ResolutorResultados resolutor;
+    private final int tamañoLote;
+
+    private final Contador liquidadas;
+    private final Temporizador duracion;
+
+    public LiquidadorApuestas(ResolutorResultados resolutor, int tamañoLote) {
+        if (tamañoLote <= 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo");
+        }
+        this.resolutor = resolutor;
+        this.tamañoLote = tamañoLote;
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        liquidadas = metricas.contador("unabet_programacion_apuestas_liquidadas_total", "Apuestas liquidadas al cerrar un juego");
+        duracion = metricas.temporizador("unabet_programacion_liquidacion_segundos", "Tiempo en liquidar un juego");
+    }
+
+    /**
+     * @return cuántas apuestas se liquidaron
+     */
+    public int liquidar(Juego juego) throws PersistenciaException {
+        long inicio = System.nanoTime();
+        try {
+            Set<String> apostadores = new LinkedHashSet<>();
+            int total = 0;
+            // Primero las liquidaciones que una caída dejó sin confirmar
+            for (Map.Entry<String, List<Apuesta>> pendiente
+                    : ApuestaDAO.buscarLiquidacionesPendientes(juego.getId()).entrySet()) {
+                total += acreditar(pendiente.getKey(), pendiente.getValue(), apostadores);
+            }
+
+            List<Apuesta> abiertas = ApuestaDAO.buscarActivasPorJuego(juego.getId());
+            for (int desde = 0; desde < abiertas.size(); desde += tamañoLote) {
+                List<Apuesta> lote = abiertas.subList(desde, Math.min(desde + tamañoLote, abiertas.size()));
+                total += liquidarLote(juego, lote, apostadores);
+            }
+            if (!apostadores.isEmpty()) {
+                RepartidorNotificaciones.getInstance().notificarJuegoLiquidado(juego, apostadores);
+            }
+            return total;
+        } finally {
+            duracion.registrarDesde(inicio);
+        }
+    }
+
+    private int liquidarLote(Juego juego, List<Apuesta> lote, Set<String> apostadores) throws PersistenciaException {
+        for (Apuesta apuesta : lote) {
+            boolean ganada = resolutor.ganada(juego, apuesta);
+            apuesta.setFinalizada(true);
+            apuesta.setGanada(ganada);
+            apuesta.setGananciaReal(ganada ? apuesta.getGananciaPotencial() : 0);
+        }
+        String liquidacion = juego.getId() + ":" + UUID.randomUUID();
+        // Solo siguen las que no se eliminaron ni liquidaron mientras tanto
+        List<Apuesta> finalizadas = ApuestaDAO.finalizarLiquidacion(liquidacion, lote);
+        return acreditar(liquidacion, finalizadas, apostadores);
+    }
+
+    /**
+     * Acredita las ganancias de las apuestas ya guardadas con la
+     * liquidación y la confirma
+     */
+    private int acreditar(String liquidacion, List<Apuesta> apuestas, Set<String> apostadores) throws PersistenciaException {
+        if (apuestas.isEmpty()) {
+            return 0;
+        }
+        Map<String, Double> ganancias = new HashMap<>();
+        for (Apuesta apuesta : apuestas) {
+            if (apuesta.isGanada() && apuesta.getEstudiante() != null) {
+                ganancias.merge(apuesta.getEstudiante().getId(), apuesta.getGananciaReal(), Double::sum);
+            }
+        }
+
+        List<Usuario> acreditados = ganancias.isEmpty()
+                ? List.of() : UsuarioDAO.acreditarLiquidacion(liquidacion, ganancias);
+        ApuestaDAO.confirmarLiquidacion(liquidacion);
+
+        BusEventos bus = BusEventos.getInstance();
+        for (Apuesta apuesta : apuestas) {
+            bus.publicarLiquidacion(apuesta);
+            if (apuesta.getEstudiante() != null) {
+                apostadores.add(apuesta.getEstudiante().getId());
+            }
+            if (apuesta.getOtrosApostadores() != null) {
+                apuesta.getOtrosApostadores().stream().filter(Objects::nonNull)
+                        .forEach(otro -> apostadores.add(otro.getId()));
+            }
+        }
+        for (Usuario usuario : acreditados) {
+            bus.publicarSaldo(usuario, ganancias.get(usuario.getId()));
+        }
+        liquidadas.sumar(apuestas.size());
+        return apuestas.size();
+    }
+}
@@ -0,0 +1,341 @@
+package back_end.programacion;
+
+import back_end.Classes.Juego;
+import back_end.Excepciones.PersistenciaException;
+import back_end.dao.JuegoDAO;
+import back_end.dao.ProgramacionDAO;
+import back_end.eventos.BusEventos;
+import back_end.eventos.Evento;
+import back_end.eventos.PoliticaDesborde;
+import back_end.eventos.Suscripcion;
+import back_end.eventos.TipoEvento;
+import back_end.metricas.RegistroMetricas;
+import back_end.programacion.TareaProgramada.Accion;
+import back_end.util.RuedaTemporizadores;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Abre, cierra y liquida los juegos según su horario.
+ *
+ * Cada juego con horario tiene una tarea pendiente (abrir, cerrar o
+ * liquidar) en una rueda de temporizadores de tic de 1 s, así decenas de
+ * miles de juegos comparten un solo hilo. Las tareas se ejecutan en hilos
+ * virtuales y se guardan en programacion.json (a lo sumo una escritura por
+ * segundo) para retomarlas al reiniciar; una liquidación interrumpida se
+ * repite y solo toma las apuestas que quedaron abiertas.
+ *
+ * Para liquidar hace falta saber quién ganó: la instancia compartida
+ * arranca sin ResolutorResultados y los juegos cerrados esperan, sin tocar
+ * saldos, hasta que se configure uno con setResolutor.
+ *
+ * Los cambios de horario llegan por el bus de eventos. Que un juego cerrado
+ * no reciba apuestas no depende del temporizador: Juego.aceptaApuestas
+ * compara la hora actual con el horario.
+ */
+public class ProgramadorJuegos {
+
+    private static final ProgramadorJuegos instance = new ProgramadorJuegos(null);
+
+    private static final int TAMAÑO_LOTE = Integer.getInteger("unabet.programacion.lote", 200);
+    private static final long REINTENTO_MS = TimeUnit.MINUTES.toMillis(1);
+    // Sin resolutor, cada cuánto se vuelve a mirar una liquidación pendiente
+    private static final long ESPERA_RESULTADOS_MS = TimeUnit.HOURS.toMillis(1);
+
+    private record Programada(TareaProgramada tarea, RuedaTemporizadores.Temporizador temporizador) {
+    }
+
+    private volatile LiquidadorApuestas liquidador;
+    private final Map<String, Programada> pendientes = new ConcurrentHashMap<>();
+    private final ExecutorService ejecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("programador-juegos-", 0).factory());
+    private final AtomicBoolean cambios = new AtomicBoolean();
+    private RuedaTemporizadores rueda;
+    private Suscripcion suscripcion;
+
+    /**
+     * @param liquidador null para dejar las liquidaciones pendientes hasta
+     * que se llame a setResolutor
+     */
+    public ProgramadorJuegos(LiquidadorApuestas liquidador) {
+        this.liquidador = liquidador;
+        RegistroMetricas.getInstance().medidor("unabet_programacion_pendientes", "Juegos con una tarea programada",
+                pendientes::size);
+    }
+
+    public static ProgramadorJuegos getInstance() {
+        return instance;
+    }
+
+    /**
+     * Define cómo se deciden los resultados y liquida de inmediato los
+     * juegos cerrados que esperaban uno
+     */
+    public synchronized void setResolutor(ResolutorResultados resolutor) {
+        liquidador = new LiquidadorApuestas(resolutor, TAMAÑO_LOTE);
+        long ahora = System.currentTimeMillis();
+        for (Programada programada : new ArrayList<>(pendientes.values())) {
+            if (programada.tarea().accion() == Accion.LIQUIDAR) {
+                agendar(new TareaProgramada(programada.tarea().juegoId(), Accion.LIQUIDAR, ahora));
+            }
+        }
+    }
+
+    /**
+     * Retoma las tareas guardadas y empieza a seguir los cambios de horario.
+     * Llamar más de una vez no tiene efecto.
+     */
+    public synchronized void iniciar() {
+        if (rueda != null) {
+            return;
+        }
+        // Tic de 1 s y 3600 casillas: una vuelta es una hora, los plazos más largos dan varias vueltas
+        rueda = new RuedaTemporizadores("programador-juegos", 1, TimeUnit.SECONDS, 3600);
+        suscripcion = BusEventos.getInstance().suscribir(evento -> switch (evento.tipo()) {
+            case JUEGO_CREADO, JUEGO_ACTUALIZADO -> true;
+            default -> false;
+        }, 4096, PoliticaDesborde.BLOQUEAR, 1, TimeUnit.SECONDS, -1);
+        Thread.ofVirtual().name("programador-juegos-eventos").start(this::escucharEventos);
+        try {
+            for (TareaProgramada tarea : ProgramacionDAO.obtenerTareas()) {
+                agendar(tarea);
+            }
+            reconciliar();
+        } catch (PersistenciaException e) {
+            System.err.println("Error al cargar la programación de juegos: " + e.getMessage());
+        }
+        programarGuardado();
+        if (liquidador == null) {
+            System.out.println("Programador de juegos sin resolutor de resultados: "
+                    + "los juegos cerrados quedan pendientes de liquidar");
+        }
+    }
+
+    /**
+     * Guarda las tareas pendientes y detiene la rueda
+     */
+    public synchronized void detener() {
+        if (rueda == null) {
+            return;
+        }
+        suscripcion.close();
+        rueda.detener();
+        rueda = null;
+        cambios.set(true);
+        guardarSiHayCambios();
+    }
+
+    /**
+     * Próxima acción programada de un juego, o null si no tiene
+     */
+    public TareaProgramada tareaDe(String juegoId) {
+        Programada programada = pendientes.get(juegoId);
+        return programada != null ? programada.tarea() : null;
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    /**
+     * Programa los juegos con horario futuro que no están en el archivo
+     * (por ejemplo, si se programaron con el programador detenido). Los
+     * cierres ya pasados no se repiten: sus liquidaciones pendientes son
+     * las que quedaron guardadas.
+     */
+    private void reconciliar() throws PersistenciaException {
+        long ahora = System.currentTimeMillis();
+        for (Juego juego : JuegoDAO.obtenerTodosLosJuegos()) {
+            if (!pendientes.containsKey(juego.getId())) {
+                TareaProgramada siguiente = siguienteTarea(juego.getId(), juego.isActivo(),
+                        juego.getFechaInicio(), juego.getFechaFin(), ahora);
+                if (siguiente != null) {
+                    agendar(siguiente);
+                }
+            }
+        }
+    }
+
+    private void escucharEventos() {
+        try {
+            while (!suscripcion.estaCerrada()) {
+                Evento evento = suscripcion.siguiente(1, TimeUnit.MINUTES);
+                if (suscripcion.tomarDescartados() > 0) {
+                    try {
+                        reconciliar();
+                    } catch (PersistenciaException e) {
+                        System.err.println("Error al reconciliar la programación de juegos: " + e.getMessage());
+                    }
+                }
+                if (evento != null) {
+                    reprogramar(evento);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ajusta la tarea de un juego después de un cambio de horario o estado
+     */
+    private synchronized void reprogramar(Evento evento) {
+        Map<String, Object> datos = evento.datos();
+        String juegoId = (String) datos.get("juegoId");
+        Programada actual = pendientes.get(juegoId);
+        if (actual != null && actual.tarea().accion() == Accion.LIQUIDAR) {
+            // El juego ya cerró: la liquidación sigue su curso
+            return;
+        }
+        boolean activo = Boolean.TRUE.equals(datos.get("activo"));
+        LocalDateTime fin = fecha(datos.get("fechaFin"));
+        long ahora = System.currentTimeMillis();
+        TareaProgramada siguiente = siguienteTarea(juegoId, activo, fecha(datos.get("fechaInicio")), fin, ahora);
+        if (siguiente == null && actual != null && activo && fin != null) {
+            // Se adelantó el cierre a una hora ya pasada: cerrar ahora
+            siguiente = new TareaProgramada(juegoId, Accion.CERRAR, ahora);
+        }
+        if (actual != null && actual.tarea().equals(siguiente)) {
+            return;
+        }
+        if (siguiente != null) {
+            agendar(siguiente);
+        } else if (actual != null) {
+            actual.temporizador().cancelar();
+            pendientes.remove(juegoId);
+            cambios.set(true);
+        }
+    }
+
+    private synchronized void agendar(TareaProgramada tarea) {
+        if (rueda == null) {
+            return;
+        }
+        long retraso = Math.max(0, tarea.fechaMillis() - System.currentTimeMillis());
+        RuedaTemporizadores.Temporizador temporizador = rueda.programar(
+                () -> ejecutor.submit(() -> ejecutar(tarea)), retraso, TimeUnit.MILLISECONDS);
+        Programada anterior = pendientes.put(tarea.juegoId(), new Programada(tarea, temporizador));
+        if (anterior != null) {
+            anterior.temporizador().cancelar();
+        }
+        cambios.set(true);
+    }
+
+    private void ejecutar(TareaProgramada tarea) {
+        if (!esVigente(tarea)) {
+            return;
+        }
+        TareaProgramada siguiente;
+        try {
+            Juego juego = JuegoDAO.buscarPorId(tarea.juegoId());
+            if (juego == null) {
+                siguiente = null;
+            } else {
+                siguiente = switch (tarea.accion()) {
+                    case ABRIR -> {
+                        BusEventos.getInstance().publicarJuego(TipoEvento.JUEGO_ABIERTO, juego);
+                        yield juego.getFechaFin() != null
+                                ? new TareaProgramada(juego.getId(), Accion.CERRAR, aMillis(juego.getFechaFin()))
+                                : null;
+                    }
+                    case CERRAR -> {
+                        BusEventos.getInstance().publicarJuego(TipoEvento.JUEGO_CERRADO, juego);
+                        yield new TareaProgramada(juego.getId(), Accion.LIQUIDAR, System.currentTimeMillis());
+                    }
+                    case LIQUIDAR -> {
+                        LiquidadorApuestas actual = liquidador;
+                        if (actual == null) {
+                            // Sin resultados no se liquida; setResolutor la adelanta
+                            yield new TareaProgramada(juego.getId(), Accion.LIQUIDAR,
+                                    System.currentTimeMillis() + ESPERA_RESULTADOS_MS);
+                        }
+                        actual.liquidar(juego);
+                        BusEventos.getInstance().publicarJuego(TipoEvento.JUEGO_LIQUIDADO, juego);
+                        yield null;
+                    }
+                };
+            }
+        } catch (PersistenciaException | RuntimeException e) {
+            System.err.println("Error al " + tarea.accion().name().toLowerCase() + " el juego " + tarea.juegoId()
+                    + ", se reintenta en un minuto: " + e.getMessage());
+            siguiente = new TareaProgramada(tarea.juegoId(), tarea.accion(), System.currentTimeMillis() + REINTENTO_MS);
+        }
+        reemplazar(tarea, siguiente);
+    }
+
+    private synchronized boolean esVigente(TareaProgramada tarea) {
+        Programada actual = pendientes.get(tarea.juegoId());
+        return actual != null && actual.tarea().equals(tarea);
+    }
+
+    /**
+     * Pasa a la siguiente tarea si nadie reprogramó el juego mientras tanto
+     */
+    private synchronized void reemplazar(TareaProgramada ejecutada, TareaProgramada siguiente) {
+        if (!esVigente(ejecutada)) {
+            return;
+        }
+        if (siguiente != null) {
+            agendar(siguiente);
+        } else {
+            pendientes.remove(ejecutada.juegoId());
+            cambios.set(true);
+        }
+    }
+
+    private void programarGuardado() {
+        RuedaTemporizadores actual = rueda;
+        if (actual != null) {
+            actual.programar(() -> ejecutor.submit(() -> {
+                guardarSiHayCambios();
+                programarGuardado();
+            }), 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private synchronized void guardarSiHayCambios() {
+        if (!cambios.getAndSet(false)) {
+            return;
+        }
+        List<TareaProgramada> tareas = new ArrayList<>(pendientes.size());
+        for (Programada programada : pendientes.values()) {
+            tareas.add(programada.tarea());
+        }
+        try {
+            ProgramacionDAO.guardarTareas(tareas);
+        } catch (PersistenciaException e) {
+            System.err.println("Error al guardar la programación de juegos: " + e.getMessage());
+            cambios.set(true);
+        }
+    }
+
+    private static TareaProgramada siguienteTarea(String juegoId, boolean activo, LocalDateTime inicio,
+            LocalDateTime fin, long ahora) {
+        if (!activo) {
+            return null;
+        }
+        if (inicio != null && aMillis(inicio) > ahora) {
+            return new TareaProgramada(juegoId, Accion.ABRIR, aMillis(inicio));
+        }
+        if (fin != null && aMillis(fin) > ahora) {
+            return new TareaProgramada(juegoId, Accion.CERRAR, aMillis(fin));
+        }
+        return null;
+    }
+
+    private static LocalDateTime fecha(Object valor) {
+        return valor instanceof String texto ? LocalDateTime.parse(texto) : null;
+    }
+
+    private static long aMillis(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,23 @@
+package back_end.programacion;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decide si una apuesta ganó al liquidar su juego
+ */
+@FunctionalInterface
+public interface ResolutorResultados {
+
+    boolean ganada(Juego juego, Apuesta apuesta);
+
+    /**
+     * Sorteo con probabilidad 1 / factor multiplicador: las cuotas del juego
+     * quedan justas en promedio. Solo para datos de carga y pruebas, nunca
+     * para saldos reales.
+     */
+    static ResolutorResultados sorteo() {
+        return (juego, apuesta) -> ThreadLocalRandom.current().nextDouble() * juego.getFactorMultiplicador() < 1.0;
+    }
+}
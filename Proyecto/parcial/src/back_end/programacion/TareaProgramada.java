@@ -0,0 +1,16 @@
+package back_end.programacion;
+
+/**
+ * Próxima acción pendiente de un juego con horario. Cada juego tiene como
+ * máximo una tarea a la vez: abrir, después cerrar y por último liquidar.
+ *
+ * @param fechaMillis cuándo debe ejecutarse (epoch en milisegundos)
+ */
+public record TareaProgramada(String juegoId, Accion accion, long fechaMillis) {
+
+    public enum Accion {
+        ABRIR,
+        CERRAR,
+        LIQUIDAR
+    }
+}
@@ -0,0 +1,31 @@
+package back_end.seguridad;
+
+/**
+ * Estrategia para cifrar y verificar contraseñas.
+ *
+ * Cada implementación reconoce su propio formato de hash almacenado, lo que
+ * permite convivir con hashes antiguos mientras se migran.
+ */
+public interface CifradorContrasenas {
+
+    /**
+     * Cifra una contraseña en texto plano
+     */
+    String cifrar(String contraseña);
+
+    /**
+     * Verifica una contraseña contra un hash producido por este cifrador
+     */
+    boolean verificar(String contraseña, String hashAlmacenado);
+
+    /**
+     * Indica si el hash almacenado tiene el formato de este cifrador
+     */
+    boolean reconoce(String hashAlmacenado);
+
+    /**
+     * Indica si el hash debe regenerarse (por ejemplo, porque su costo es
+     * menor al configurado actualmente)
+     */
+    boolean necesitaRehash(String hashAlmacenado);
+}
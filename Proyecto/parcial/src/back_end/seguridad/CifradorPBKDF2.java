@@ -0,0 +1,112 @@
+package back_end.seguridad;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.Base64;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Cifrador PBKDF2-HMAC-SHA256 con sal aleatoria y costo configurable.
+ *
+ * Formato almacenado: pbkdf2_sha256$iteraciones$sal$hash (sal y hash en
+ * Base64). Las iteraciones quedan dentro del hash, así que subir el costo no
+ * invalida las contraseñas existentes: solo marca que deben regenerarse.
+ */
+public class CifradorPBKDF2 implements CifradorContrasenas {
+
+    public static final String PREFIJO = "pbkdf2_sha256";
+    public static final int ITERACIONES_POR_DEFECTO = 120_000;
+
+    private static final String ALGORITMO = "PBKDF2WithHmacSHA256";
+    private static final int BYTES_SAL = 16;
+    private static final int BITS_HASH = 256;
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    // SecretKeyFactory no es seguro entre hilos; se reutiliza una instancia por hilo
+    private static final ThreadLocal<SecretKeyFactory> FABRICA = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGORITMO);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITMO + " no está disponible en esta JVM", e);
+        }
+    });
+
+    private final int iteraciones;
+
+    public CifradorPBKDF2() {
+        this(Integer.getInteger("unabet.pbkdf2.iteraciones", ITERACIONES_POR_DEFECTO));
+    }
+
+    public CifradorPBKDF2(int iteraciones) {
+        if (iteraciones < 1) {
+            throw new IllegalArgumentException("Las iteraciones deben ser mayores a cero");
+        }
+        this.iteraciones = iteraciones;
+    }
+
+    @Override
+    public String cifrar(String contraseña) {
+        byte[] sal = new byte[BYTES_SAL];
+        ALEATORIO.nextBytes(sal);
+        byte[] hash = derivar(contraseña, sal, iteraciones);
+
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIJO + "$" + iteraciones + "$" + b64.encodeToString(sal) + "$" + b64.encodeToString(hash);
+    }
+
+    @Override
+    public boolean verificar(String contraseña, String hashAlmacenado) {
+        if (contraseña == null || !reconoce(hashAlmacenado)) {
+            return false;
+        }
+        String[] partes = hashAlmacenado.split("\\$");
+        try {
+            int iter = Integer.parseInt(partes[1]);
+            byte[] sal = Base64.getDecoder().decode(partes[2]);
+            byte[] esperado = Base64.getDecoder().decode(partes[3]);
+            byte[] calculado = derivar(contraseña, sal, iter);
+            return MessageDigest.isEqual(esperado, calculado);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Hash de contraseña con formato inválido: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public boolean reconoce(String hashAlmacenado) {
+        return hashAlmacenado != null
+                && hashAlmacenado.startsWith(PREFIJO + "$")
+                && hashAlmacenado.split("\\$").length == 4;
+    }
+
+    @Override
+    public boolean necesitaRehash(String hashAlmacenado) {
+        if (!reconoce(hashAlmacenado)) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(hashAlmacenado.split("\\$")[1]) < iteraciones;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    private static byte[] derivar(String contraseña, byte[] sal, int iteraciones) {
+        PBEKeySpec spec = new PBEKeySpec(contraseña.toCharArray(), sal, iteraciones, BITS_HASH);
+        try {
+            return FABRICA.get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new IllegalStateException("Error al derivar la contraseña: " + e.getMessage(), e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package back_end.seguridad;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Cifrador SHA-256 sin sal usado por las versiones anteriores de UNABet+.
+ *
+ * Solo se conserva para verificar los hashes ya guardados en usuarios.json;
+ * tras un inicio de sesión exitoso el hash se regenera con el cifrador
+ * principal. Reutiliza un MessageDigest por hilo y compara el resultado
+ * directamente contra el texto hexadecimal almacenado, sin crear cadenas.
+ */
+public class CifradorSHA256Legado implements CifradorContrasenas {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final int LONGITUD_HEX = 64;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible en esta JVM", e);
+        }
+    });
+
+    @Override
+    public String cifrar(String contraseña) {
+        byte[] hash = digerir(contraseña);
+        char[] hex = new char[LONGITUD_HEX];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0x0F];
+            hex[i * 2 + 1] = HEX[hash[i] & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public boolean verificar(String contraseña, String hashAlmacenado) {
+        if (contraseña == null || !reconoce(hashAlmacenado)) {
+            return false;
+        }
+        byte[] hash = digerir(contraseña);
+
+        // Comparación en tiempo constante contra el texto hexadecimal
+        int diferencia = 0;
+        for (int i = 0; i < hash.length; i++) {
+            diferencia |= valorHex(hashAlmacenado.charAt(i * 2)) ^ ((hash[i] >> 4) & 0x0F);
+            diferencia |= valorHex(hashAlmacenado.charAt(i * 2 + 1)) ^ (hash[i] & 0x0F);
+        }
+        return diferencia == 0;
+    }
+
+    @Override
+    public boolean reconoce(String hashAlmacenado) {
+        if (hashAlmacenado == null || hashAlmacenado.length() != LONGITUD_HEX) {
+            return false;
+        }
+        for (int i = 0; i < LONGITUD_HEX; i++) {
+            if (valorHex(hashAlmacenado.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean necesitaRehash(String hashAlmacenado) {
+        return true; // Un hash sin sal siempre debe migrarse
+    }
+
+    private static byte[] digerir(String contraseña) {
+        MessageDigest md = DIGEST.get();
+        md.reset();
+        return md.digest(contraseña.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int valorHex(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,110 @@
+package back_end.seguridad;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita los intentos por clave (cuenta o IP) con cubetas de fichas.
+ *
+ * Cada clave tiene una cubeta con capacidad fija que se rellena a ritmo
+ * constante. Un intento consume una ficha; sin fichas, el intento se
+ * rechaza hasta que la cubeta se recupere. Las cubetas llenas se descartan
+ * en limpiar() para que la memoria no crezca con claves que ya no se usan.
+ */
+public class LimitadorIntentos {
+
+    private static final class Cubeta {
+
+        private double fichas;
+        private long ultimaRecarga;
+
+        Cubeta(double fichas, long ahora) {
+            this.fichas = fichas;
+            this.ultimaRecarga = ahora;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Cubeta> cubetas = new ConcurrentHashMap<>();
+    private final int capacidad;
+    private final double fichasPorNano;
+
+    /**
+     * @param capacidad intentos permitidos en ráfaga
+     * @param periodoRecarga tiempo para recuperar una ficha
+     */
+    public LimitadorIntentos(int capacidad, long periodoRecarga, TimeUnit unidad) {
+        if (capacidad <= 0 || periodoRecarga <= 0) {
+            throw new IllegalArgumentException("La capacidad y el periodo de recarga deben ser positivos");
+        }
+        this.capacidad = capacidad;
+        this.fichasPorNano = 1.0 / unidad.toNanos(periodoRecarga);
+    }
+
+    /**
+     * Consume una ficha de la clave. Retorna false si no quedan fichas.
+     */
+    public boolean intentar(String clave) {
+        if (clave == null) {
+            return true;
+        }
+        long ahora = System.nanoTime();
+        Cubeta cubeta = cubetas.computeIfAbsent(clave, c -> new Cubeta(capacidad, ahora));
+        synchronized (cubeta) {
+            recargar(cubeta, ahora);
+            if (cubeta.fichas >= 1.0) {
+                cubeta.fichas -= 1.0;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Devuelve la clave a su capacidad completa (por ejemplo, tras un
+     * inicio de sesión exitoso)
+     */
+    public void reiniciar(String clave) {
+        if (clave != null) {
+            cubetas.remove(clave);
+        }
+    }
+
+    /**
+     * Tiempo estimado hasta que la clave vuelva a tener una ficha
+     */
+    public long esperaRestante(String clave, TimeUnit unidad) {
+        Cubeta cubeta = clave != null ? cubetas.get(clave) : null;
+        if (cubeta == null) {
+            return 0;
+        }
+        synchronized (cubeta) {
+            recargar(cubeta, System.nanoTime());
+            if (cubeta.fichas >= 1.0) {
+                return 0;
+            }
+            return unidad.convert((long) Math.ceil((1.0 - cubeta.fichas) / fichasPorNano), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Descarta las cubetas que ya se recargaron por completo
+     */
+    public void limpiar() {
+        long ahora = System.nanoTime();
+        cubetas.entrySet().removeIf(entrada -> {
+            Cubeta cubeta = entrada.getValue();
+            synchronized (cubeta) {
+                recargar(cubeta, ahora);
+                return cubeta.fichas >= capacidad;
+            }
+        });
+    }
+
+    private void recargar(Cubeta cubeta, long ahora) {
+        long transcurrido = ahora - cubeta.ultimaRecarga;
+        if (transcurrido > 0) {
+            cubeta.fichas = Math.min(capacidad, cubeta.fichas + transcurrido * fichasPorNano);
+            cubeta.ultimaRecarga = ahora;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package back_end.seguridad;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Punto único de cifrado y verificación de contraseñas.
+ *
+ * Las contraseñas nuevas se cifran con el cifrador principal (PBKDF2 por
+ * defecto, reemplazable con setCifradorPrincipal). Los hashes SHA-256
+ * antiguos se siguen verificando con el cifrador legado y se reportan como
+ * pendientes de rehash.
+ *
+ * Para que una ráfaga de inicios de sesión no pague el costo de PBKDF2 en
+ * cada intento repetido, las verificaciones exitosas se recuerdan en una
+ * cache LRU acotada. La cache nunca guarda la contraseña: guarda un
+ * HMAC-SHA256 de ella con una clave aleatoria que solo existe en memoria
+ * durante esta ejecución.
+ */
+public final class ServicioContrasenas {
+
+    private static final int TAMAÑO_CACHE = Integer.getInteger("unabet.contrasenas.cache", 1024);
+    private static final long VIGENCIA_CACHE_MS = Long.getLong("unabet.contrasenas.cacheMs", 10 * 60 * 1000L);
+
+    private static final CifradorContrasenas LEGADO = new CifradorSHA256Legado();
+    private static volatile CifradorContrasenas principal = new CifradorPBKDF2();
+
+    private static final byte[] CLAVE_CACHE = claveAleatoria();
+    private static final Map<String, EntradaCache> cache = new LinkedHashMap<String, EntradaCache>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EntradaCache> eldest) {
+            return size() > TAMAÑO_CACHE;
+        }
+    };
+
+    private static final ThreadLocal<Mac> HMAC = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(CLAVE_CACHE, "HmacSHA256"));
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HmacSHA256 no está disponible en esta JVM", e);
+        }
+    });
+
+    private static class EntradaCache {
+        private final byte[] huella;
+        private final long expira;
+
+        EntradaCache(byte[] huella, long expira) {
+            this.huella = huella;
+            this.expira = expira;
+        }
+    }
+
+    private ServicioContrasenas() {
+    }
+
+    /**
+     * Cifra una contraseña con el cifrador principal
+     */
+    public static String cifrar(String contraseña) {
+        return principal.cifrar(contraseña);
+    }
+
+    /**
+     * Verifica una contraseña contra el hash almacenado, sea del formato
+     * actual o del legado
+     */
+    public static boolean verificar(String contraseña, String hashAlmacenado) {
+        if (contraseña == null || hashAlmacenado == null) {
+            return false;
+        }
+
+        byte[] huella = huella(contraseña);
+        if (coincideEnCache(hashAlmacenado, huella)) {
+            return true;
+        }
+
+        CifradorContrasenas cifrador = cifradorPara(hashAlmacenado);
+        if (cifrador == null || !cifrador.verificar(contraseña, hashAlmacenado)) {
+            return false;
+        }
+
+        synchronized (cache) {
+            cache.put(hashAlmacenado, new EntradaCache(huella, System.currentTimeMillis() + VIGENCIA_CACHE_MS));
+        }
+        return true;
+    }
+
+    /**
+     * Indica si el hash debe regenerarse con el cifrador principal
+     */
+    public static boolean necesitaRehash(String hashAlmacenado) {
+        CifradorContrasenas actual = principal;
+        if (!actual.reconoce(hashAlmacenado)) {
+            return true;
+        }
+        return actual.necesitaRehash(hashAlmacenado);
+    }
+
+    /**
+     * Reemplaza el cifrador usado para las contraseñas nuevas
+     */
+    public static void setCifradorPrincipal(CifradorContrasenas cifrador) {
+        if (cifrador == null) {
+            throw new IllegalArgumentException("El cifrador no puede ser nulo");
+        }
+        principal = cifrador;
+        limpiarCache();
+    }
+
+    public static CifradorContrasenas getCifradorPrincipal() {
+        return principal;
+    }
+
+    /**
+     * Olvida todas las verificaciones recordadas
+     */
+    public static void limpiarCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Carga el proveedor criptográfico (SunJCE, el mismo de PBKDF2) y la
+     * clave de la cache para que el primer inicio de sesión no pague ese
+     * costo. Pensado para el arranque, en un hilo de fondo
+     */
+    public static void precalentar() {
+        huella("");
+    }
+
+    private static CifradorContrasenas cifradorPara(String hashAlmacenado) {
+        CifradorContrasenas actual = principal;
+        if (actual.reconoce(hashAlmacenado)) {
+            return actual;
+        }
+        if (LEGADO.reconoce(hashAlmacenado)) {
+            return LEGADO;
+        }
+        return null;
+    }
+
+    private static boolean coincideEnCache(String hashAlmacenado, byte[] huella) {
+        EntradaCache entrada;
+        synchronized (cache) {
+            entrada = cache.get(hashAlmacenado);
+            if (entrada != null && entrada.expira < System.currentTimeMillis()) {
+                cache.remove(hashAlmacenado);
+                entrada = null;
+            }
+        }
+        return entrada != null && MessageDigest.isEqual(entrada.huella, huella);
+    }
+
+    private static byte[] claveAleatoria() {
+        byte[] clave = new byte[32];
+        new SecureRandom().nextBytes(clave);
+        return clave;
+    }
+
+    private static byte[] huella(String contraseña) {
+        return HMAC.get().doFinal(contraseña.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,38 @@
+package back_end.servidor;
+
+/**
+ * Error que se responde al cliente con un código HTTP y un mensaje
+ */
+class ErrorApi extends Exception {
+
+    private final int codigo;
+
+    ErrorApi(int codigo, String mensaje) {
+        super(mensaje);
+        this.codigo = codigo;
+    }
+
+    int getCodigo() {
+        return codigo;
+    }
+
+    static ErrorApi solicitudInvalida(String mensaje) {
+        return new ErrorApi(400, mensaje);
+    }
+
+    static ErrorApi noAutorizado() {
+        return new ErrorApi(401, "Sesión inválida o vencida");
+    }
+
+    static ErrorApi prohibido(String mensaje) {
+        return new ErrorApi(403, mensaje);
+    }
+
+    static ErrorApi noEncontrado(String mensaje) {
+        return new ErrorApi(404, mensaje);
+    }
+
+    static ErrorApi conflicto(String mensaje) {
+        return new ErrorApi(409, mensaje);
+    }
+}
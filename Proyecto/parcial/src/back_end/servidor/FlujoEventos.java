@@ -0,0 +1,66 @@
+package back_end.servidor;
+
+import back_end.eventos.Evento;
+import back_end.eventos.Suscripcion;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transmite una suscripción del bus como server-sent events
+ * (text/event-stream).
+ *
+ * Cada evento sale con su secuencia como "id", así el navegador (o
+ * cualquier cliente) reenvía Last-Event-ID al reconectarse y recupera los
+ * eventos recientes. Si el buffer del suscriptor se desbordó, se envía un
+ * evento DESCARTADOS con la cantidad perdida. Sin eventos, cada cierto
+ * tiempo se envía un comentario para mantener viva la conexión y notar si
+ * el cliente se fue.
+ */
+final class FlujoEventos implements Ruteador.Flujo {
+
+    private static final long LATIDO_SEGUNDOS = 15;
+
+    private final Suscripcion suscripcion;
+    private final Gson gson;
+
+    FlujoEventos(Suscripcion suscripcion, Gson gson) {
+        this.suscripcion = suscripcion;
+        this.gson = gson;
+    }
+
+    @Override
+    public void transmitir(HttpExchange intercambio) throws IOException {
+        intercambio.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        intercambio.getResponseHeaders().set("Cache-Control", "no-cache");
+        try (suscripcion) {
+            intercambio.sendResponseHeaders(200, 0);
+            OutputStream salida = intercambio.getResponseBody();
+            escribir(salida, "retry: 3000\n\n");
+            while (!suscripcion.estaCerrada()) {
+                Evento evento = suscripcion.siguiente(LATIDO_SEGUNDOS, TimeUnit.SECONDS);
+                long descartados = suscripcion.tomarDescartados();
+                if (descartados > 0) {
+                    escribir(salida, "event: DESCARTADOS\ndata: " + gson.toJson(Map.of("cantidad", descartados)) + "\n\n");
+                }
+                if (evento != null) {
+                    escribir(salida, "id: " + evento.secuencia() + "\nevent: " + evento.tipo() + "\ndata: "
+                            + gson.toJson(evento) + "\n\n");
+                } else {
+                    escribir(salida, ": latido\n\n");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void escribir(OutputStream salida, String texto) throws IOException {
+        salida.write(texto.getBytes(StandardCharsets.UTF_8));
+        salida.flush();
+    }
+}
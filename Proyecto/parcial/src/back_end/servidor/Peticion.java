@@ -0,0 +1,146 @@
+package back_end.servidor;
+
+import back_end.Classes.Usuario;
+import back_end.sesion.RegistroSesiones;
+import back_end.sesion.Sesion;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Petición HTTP ya enrutada: parámetros de la ruta y de la consulta, cuerpo
+ * JSON y sesión del usuario.
+ */
+final class Peticion {
+
+    /**
+     * Tamaño máximo del cuerpo; las peticiones de la API son pequeñas
+     */
+    private static final int MAXIMO_CUERPO = 64 * 1024;
+
+    private final HttpExchange intercambio;
+    private final Map<String, String> parametros;
+    private final Gson gson;
+    private Map<String, String> consulta;
+    private Sesion sesion;
+    private int codigo = 200;
+
+    Peticion(HttpExchange intercambio, Map<String, String> parametros, Gson gson) {
+        this.intercambio = intercambio;
+        this.parametros = parametros;
+        this.gson = gson;
+    }
+
+    /**
+     * Parámetro de la ruta, por ejemplo {id} en /api/apuestas/{id}
+     */
+    String parametro(String nombre) {
+        return parametros.get(nombre);
+    }
+
+    /**
+     * Parámetro de la consulta (?nombre=valor), o null si no viene
+     */
+    String consulta(String nombre) {
+        if (consulta == null) {
+            consulta = leerConsulta(intercambio.getRequestURI().getRawQuery());
+        }
+        return consulta.get(nombre);
+    }
+
+    int consultaEntero(String nombre, int porDefecto, int minimo, int maximo) throws ErrorApi {
+        String valor = consulta(nombre);
+        if (valor == null) {
+            return porDefecto;
+        }
+        try {
+            return Math.max(minimo, Math.min(maximo, Integer.parseInt(valor)));
+        } catch (NumberFormatException e) {
+            throw ErrorApi.solicitudInvalida("El parámetro " + nombre + " debe ser un número entero");
+        }
+    }
+
+    /**
+     * Cuerpo de la petición como objeto JSON
+     */
+    JsonObject cuerpo() throws IOException, ErrorApi {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            byte[] datos = entrada.readNBytes(MAXIMO_CUERPO + 1);
+            if (datos.length > MAXIMO_CUERPO) {
+                throw new ErrorApi(413, "El cuerpo de la petición es demasiado grande");
+            }
+            JsonObject objeto = gson.fromJson(new String(datos, StandardCharsets.UTF_8), JsonObject.class);
+            if (objeto == null) {
+                throw ErrorApi.solicitudInvalida("Se esperaba un objeto JSON");
+            }
+            return objeto;
+        } catch (JsonParseException | ClassCastException e) {
+            throw ErrorApi.solicitudInvalida("JSON inválido");
+        }
+    }
+
+    /**
+     * Sesión del encabezado "Authorization: Bearer token"
+     *
+     * @throws ErrorApi 401 si no hay token o la sesión no es válida
+     */
+    Sesion sesion() throws ErrorApi {
+        if (sesion == null) {
+            sesion = RegistroSesiones.getInstance().obtener(token());
+            if (sesion == null) {
+                throw ErrorApi.noAutorizado();
+            }
+        }
+        return sesion;
+    }
+
+    Usuario usuario() throws ErrorApi {
+        return sesion().getUsuario();
+    }
+
+    String token() {
+        String autorizacion = encabezado("Authorization");
+        if (autorizacion == null || !autorizacion.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return null;
+        }
+        return autorizacion.substring(7).trim();
+    }
+
+    String encabezado(String nombre) {
+        return intercambio.getRequestHeaders().getFirst(nombre);
+    }
+
+    String ip() {
+        return intercambio.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    void setCodigo(int codigo) {
+        this.codigo = codigo;
+    }
+
+    int getCodigo() {
+        return codigo;
+    }
+
+    private static Map<String, String> leerConsulta(String consulta) {
+        Map<String, String> valores = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return valores;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nombre = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            valores.putIfAbsent(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return valores;
+    }
+}
@@ -0,0 +1,195 @@
+package back_end.servidor;
+
+import back_end.Excepciones.LimiteIntentosException;
+import back_end.Excepciones.PersistenciaException;
+import back_end.metricas.RegistroMetricas;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Enruta las peticiones por método y ruta, con segmentos variables como
+ * /api/apuestas/{id}. Responde en JSON, convierte las excepciones en
+ * códigos HTTP y mide la latencia de cada ruta.
+ */
+final class Ruteador implements HttpHandler {
+
+    @FunctionalInterface
+    interface Manejador {
+
+        /**
+         * @return el objeto a responder como JSON, un Texto, un Flujo, o
+         * null para responder 204
+         */
+        Object manejar(Peticion peticion) throws Exception;
+    }
+
+    /**
+     * Respuesta que no es JSON
+     */
+    record Texto(String tipo, String contenido) {
+    }
+
+    /**
+     * Respuesta que se escribe de a poco, como un flujo de eventos; se
+     * encarga de los encabezados y de escribir el cuerpo
+     */
+    @FunctionalInterface
+    interface Flujo {
+
+        void transmitir(HttpExchange intercambio) throws IOException;
+    }
+
+    private record Ruta(String metodo, String patron, String[] segmentos, Manejador manejador) {
+    }
+
+    private final List<Ruta> rutas = new ArrayList<>();
+    private final Gson gson;
+    private final RegistroMetricas metricas = RegistroMetricas.getInstance();
+
+    Ruteador(Gson gson) {
+        this.gson = gson;
+    }
+
+    Ruteador get(String patron, Manejador manejador) {
+        return agregar("GET", patron, manejador);
+    }
+
+    Ruteador post(String patron, Manejador manejador) {
+        return agregar("POST", patron, manejador);
+    }
+
+    Ruteador put(String patron, Manejador manejador) {
+        return agregar("PUT", patron, manejador);
+    }
+
+    Ruteador delete(String patron, Manejador manejador) {
+        return agregar("DELETE", patron, manejador);
+    }
+
+    private Ruteador agregar(String metodo, String patron, Manejador manejador) {
+        rutas.add(new Ruta(metodo, patron, segmentos(patron), manejador));
+        return this;
+    }
+
+    @Override
+    public void handle(HttpExchange intercambio) throws IOException {
+        long inicio = System.nanoTime();
+        String metodo = intercambio.getRequestMethod();
+        String[] segmentos = segmentos(intercambio.getRequestURI().getPath());
+        String patron = "desconocida";
+        int codigo;
+        try {
+            Ruta encontrada = null;
+            Map<String, String> parametros = null;
+            boolean otroMetodo = false;
+            for (Ruta ruta : rutas) {
+                Map<String, String> coincidencia = coincidir(ruta.segmentos(), segmentos);
+                if (coincidencia == null) {
+                    continue;
+                }
+                if (ruta.metodo().equals(metodo)) {
+                    encontrada = ruta;
+                    parametros = coincidencia;
+                    break;
+                }
+                otroMetodo = true;
+            }
+            if (encontrada == null) {
+                throw otroMetodo ? new ErrorApi(405, "Método no permitido") : ErrorApi.noEncontrado("Ruta no encontrada");
+            }
+            patron = encontrada.patron();
+            Peticion peticion = new Peticion(intercambio, parametros, gson);
+            Object resultado = encontrada.manejador().manejar(peticion);
+            codigo = resultado == null ? 204 : peticion.getCodigo();
+            if (resultado instanceof Flujo flujo) {
+                flujo.transmitir(intercambio);
+            } else {
+                responder(intercambio, codigo, resultado);
+            }
+        } catch (ErrorApi e) {
+            codigo = e.getCodigo();
+            responderError(intercambio, codigo, e.getMessage());
+        } catch (LimiteIntentosException e) {
+            codigo = 429;
+            intercambio.getResponseHeaders().set("Retry-After", String.valueOf(Math.max(1, e.getSegundosEspera())));
+            responderError(intercambio, codigo, e.getMessage());
+        } catch (PersistenciaException e) {
+            codigo = 500;
+            System.err.println("Error de persistencia en " + metodo + " " + patron + ": " + e.getMessage());
+            responderError(intercambio, codigo, "Error al acceder a los datos");
+        } catch (IOException e) {
+            // El cliente cerró la conexión; no hay a quién responder
+            codigo = 499;
+        } catch (Exception e) {
+            codigo = 500;
+            System.err.println("Error en " + metodo + " " + patron + ": " + e);
+            responderError(intercambio, codigo, "Error interno del servidor");
+        } finally {
+            intercambio.close();
+        }
+        metricas.temporizador("unabet_http_peticion_segundos", "Latencia de las peticiones de la API",
+                "metodo", metodo, "ruta", patron).registrarDesde(inicio);
+        metricas.contador("unabet_http_respuestas_total", "Respuestas de la API por código",
+                "metodo", metodo, "ruta", patron, "codigo", String.valueOf(codigo)).incrementar();
+    }
+
+    private void responder(HttpExchange intercambio, int codigo, Object resultado) throws IOException {
+        if (resultado == null) {
+            intercambio.sendResponseHeaders(204, -1);
+            return;
+        }
+        byte[] datos;
+        String tipo;
+        if (resultado instanceof Texto texto) {
+            datos = texto.contenido().getBytes(StandardCharsets.UTF_8);
+            tipo = texto.tipo();
+        } else {
+            datos = gson.toJson(resultado).getBytes(StandardCharsets.UTF_8);
+            tipo = "application/json; charset=utf-8";
+        }
+        intercambio.getResponseHeaders().set("Content-Type", tipo);
+        intercambio.sendResponseHeaders(codigo, datos.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(datos);
+        }
+    }
+
+    private void responderError(HttpExchange intercambio, int codigo, String mensaje) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", mensaje);
+        try {
+            responder(intercambio, codigo, error);
+        } catch (IOException e) {
+            // El cliente ya no está
+        }
+    }
+
+    private static Map<String, String> coincidir(String[] patron, String[] segmentos) {
+        if (patron.length != segmentos.length) {
+            return null;
+        }
+        Map<String, String> parametros = new HashMap<>();
+        for (int i = 0; i < patron.length; i++) {
+            if (patron[i].startsWith("{") && patron[i].endsWith("}")) {
+                parametros.put(patron[i].substring(1, patron[i].length() - 1), segmentos[i]);
+            } else if (!patron[i].equals(segmentos[i])) {
+                return null;
+            }
+        }
+        return parametros;
+    }
+
+    private static String[] segmentos(String ruta) {
+        String limpia = ruta.replaceAll("^/+|/+$", "");
+        return limpia.isEmpty() ? new String[0] : limpia.split("/+");
+    }
+}
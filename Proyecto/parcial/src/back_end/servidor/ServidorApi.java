@@ -0,0 +1,508 @@
+package back_end.servidor;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.Excepciones.PersistenciaException;
+import back_end.calendario.CalendarioEventos;
+import back_end.calendario.EventoCalendario;
+import back_end.chat.AlmacenChat;
+import back_end.chat.Mensaje;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.dao.ApuestaDAO;
+import back_end.dao.JuegoDAO;
+import back_end.dao.LugarDAO;
+import back_end.dao.UsuarioDAO;
+import back_end.eventos.BusEventos;
+import back_end.eventos.Evento;
+import back_end.eventos.PoliticaDesborde;
+import back_end.eventos.Suscripcion;
+import back_end.membresias.MembresiaLugares;
+import back_end.notificaciones.AlmacenNotificaciones;
+import back_end.notificaciones.RepartidorNotificaciones;
+import back_end.programacion.ProgramadorJuegos;
+import back_end.metricas.RegistroMetricas;
+import back_end.servidor.Vistas.ApuestaVista;
+import back_end.servidor.Vistas.EventoCalendarioVista;
+import back_end.servidor.Vistas.JuegoVista;
+import back_end.servidor.Vistas.LugarVista;
+import back_end.servidor.Vistas.PosicionRanking;
+import back_end.servidor.Vistas.SesionVista;
+import back_end.servidor.Vistas.UsuarioVista;
+import back_end.sesion.RegistroSesiones;
+import back_end.sesion.Sesion;
+import back_end.vigilancia.VigilanteDatos;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Servidor HTTP sin interfaz gráfica que expone el backend de apuestas como
+ * una API JSON.
+ *
+ * Usa el servidor HTTP del JDK con un hilo virtual por petición: las
+ * peticiones que esperan al disco no ocupan hilos de plataforma. Las
+ * operaciones pasan por las mismas clases de dominio que usa la aplicación
+ * de escritorio, sobre los archivos JSON de la carpeta actual.
+ *
+ * Autenticación: POST /api/login devuelve un token que se envía en
+ * "Authorization: Bearer token". Rutas:
+ *
+ * POST /api/login, POST /api/logout, GET /api/perfil,
+ * GET /api/lugares, GET /api/lugares/{id},
+ * POST /api/lugares/{id}/inscripcion, DELETE /api/lugares/{id}/inscripcion,
+ * GET /api/juegos (?activos=true), GET /api/juegos/{id},
+ * POST /api/apuestas, PUT /api/apuestas/{id}, DELETE /api/apuestas/{id},
+ * GET /api/historial,
+ * GET /api/ranking (?limite=10), GET /api/notificaciones (?antes=cursor
+ * y ?limite=20), POST /api/notificaciones/leidas, GET /api/calendario,
+ * GET /api/chat/{conversacion} (?antes=cursor y ?limite=50),
+ * POST /api/chat/{conversacion}, GET /api/eventos y GET /metricas (formato
+ * Prometheus).
+ *
+ * Las apuestas no se finalizan por la API: las liquida ProgramadorJuegos
+ * cuando cierra el juego.
+ *
+ * GET /api/calendario devuelve los eventos de ?mes=AAAA-MM (por defecto el
+ * actual), de ?dia=AAAA-MM-DD, de la semana de ?semana=AAAA-MM-DD o los que
+ * están ?enCurso=true; con el token incluye las apuestas del usuario.
+ *
+ * El chat tiene la conversación "general" y las directas
+ * "directo_idA_idB", que solo pueden leer y escribir sus dos participantes.
+ * Los mensajes nuevos también llegan por GET /api/eventos (MENSAJE_CHAT).
+ *
+ * GET /api/eventos es un flujo de server-sent events con los eventos del
+ * bus: los públicos (lugares, cuotas de los juegos) y, si se envía el token,
+ * los del usuario (apuestas, saldo). Acepta Last-Event-ID o ?desde=N para
+ * retomar tras una reconexión.
+ *
+ * Opciones: --puerto N y --host dir (o -Dunabet.servidor.puerto, por
+ * defecto 8080, y -Dunabet.servidor.host, por defecto 127.0.0.1). El buffer
+ * de cada flujo de eventos se configura con -Dunabet.eventos.capacidadFlujo
+ * (256); si un cliente no lee a tiempo se descartan sus eventos más viejos.
+ */
+public final class ServidorApi {
+
+    private static final Gson gson = new GsonBuilder().create();
+
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Un cerrojo por usuario: las operaciones que mueven el saldo de un mismo
+     * usuario se hacen de a una, para no perder actualizaciones
+     */
+    private final Map<String, ReentrantLock> cerrojos = new ConcurrentHashMap<>();
+
+    private final Set<Suscripcion> flujos = ConcurrentHashMap.newKeySet();
+
+    public ServidorApi(String host, int puerto) throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress(host, puerto), 0);
+        servidor.createContext("/", crearRuteador());
+        servidor.setExecutor(ejecutor);
+    }
+
+    public static void main(String[] args) throws IOException {
+        String host = System.getProperty("unabet.servidor.host", "127.0.0.1");
+        int puerto = Integer.getInteger("unabet.servidor.puerto", 8080);
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--puerto") && i + 1 < args.length) {
+                puerto = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--host") && i + 1 < args.length) {
+                host = args[++i];
+            } else {
+                System.err.println("Opción no reconocida: " + args[i]);
+                System.exit(2);
+                return;
+            }
+        }
+
+        ConfiguracionAlmacenamiento configuracion = ConfiguracionAlmacenamiento.getInstance();
+        List<String> problemas = configuracion.validar();
+        if (!problemas.isEmpty()) {
+            problemas.forEach(problema -> System.err.println("Configuración inválida: " + problema));
+            System.exit(2);
+            return;
+        }
+        RegistroMetricas.getInstance().configurarExportacionDesdePropiedades();
+        RepartidorNotificaciones.getInstance().iniciar();
+        ProgramadorJuegos.getInstance().iniciar();
+        VigilanteDatos.getInstance().iniciar();
+        ServidorApi api = new ServidorApi(host, puerto);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.detener();
+            ProgramadorJuegos.getInstance().detener();
+        }, "detener-servidor"));
+        api.iniciar();
+        System.out.println("API de UNABet escuchando en http://" + host + ":" + api.getPuerto() + "/api");
+        System.out.println("Almacenamiento: " + configuracion);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar conexiones y espera hasta un segundo a las peticiones
+     * en curso
+     */
+    public void detener() {
+        flujos.forEach(Suscripcion::close);
+        servidor.stop(1);
+        ejecutor.shutdown();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    private Ruteador crearRuteador() {
+        return new Ruteador(gson)
+                .post("/api/login", this::login)
+                .post("/api/logout", this::logout)
+                .get("/api/perfil", p -> UsuarioVista.de(usuarioActual(p)))
+                .get("/api/lugares", this::lugares)
+                .get("/api/lugares/{id}", p -> LugarVista.de(buscarLugar(p.parametro("id"))))
+                .post("/api/lugares/{id}/inscripcion", this::inscribirse)
+                .delete("/api/lugares/{id}/inscripcion", this::darseDeBaja)
+                .get("/api/juegos", this::juegos)
+                .get("/api/juegos/{id}", p -> JuegoVista.de(buscarJuego(p.parametro("id"))))
+                .post("/api/apuestas", this::crearApuesta)
+                .put("/api/apuestas/{id}", this::actualizarApuesta)
+                .delete("/api/apuestas/{id}", this::eliminarApuesta)
+                .get("/api/historial", this::historial)
+                .get("/api/ranking", this::ranking)
+                .get("/api/notificaciones", this::notificaciones)
+                .post("/api/notificaciones/leidas", this::marcarLeidas)
+                .get("/api/calendario", this::calendario)
+                .get("/api/chat/{conversacion}", this::mensajes)
+                .post("/api/chat/{conversacion}", this::enviarMensaje)
+                .get("/api/eventos", this::eventos)
+                .get("/metricas", p -> new Ruteador.Texto("text/plain; version=0.0.4; charset=utf-8",
+                RegistroMetricas.getInstance().exportarPrometheus()));
+    }
+
+    private Object login(Peticion peticion) throws Exception {
+        JsonObject cuerpo = peticion.cuerpo();
+        Sesion sesion = RegistroSesiones.getInstance().iniciarSesion(
+                texto(cuerpo, "correo"), texto(cuerpo, "contraseña"), peticion.ip());
+        if (sesion == null) {
+            throw new ErrorApi(401, "Correo o contraseña incorrectos");
+        }
+        return new SesionVista(sesion.getToken(), sesion.getExpiraMillis(), UsuarioVista.de(sesion.getUsuario()));
+    }
+
+    private Object logout(Peticion peticion) throws ErrorApi {
+        peticion.sesion();
+        RegistroSesiones.getInstance().cerrar(peticion.token());
+        return null;
+    }
+
+    private Object lugares(Peticion peticion) throws PersistenciaException {
+        return LugarDAO.obtenerTodosLosLugares().stream().map(LugarVista::de).toList();
+    }
+
+    private Object inscribirse(Peticion peticion) throws Exception {
+        Lugar lugar = buscarLugar(peticion.parametro("id"));
+        if (!MembresiaLugares.getInstance().inscribir(peticion.usuario().getId(), lugar.getId())) {
+            throw ErrorApi.conflicto("Ya estás inscrito en este lugar");
+        }
+        peticion.setCodigo(201);
+        return LugarVista.de(lugar);
+    }
+
+    private Object darseDeBaja(Peticion peticion) throws Exception {
+        Lugar lugar = buscarLugar(peticion.parametro("id"));
+        if (!MembresiaLugares.getInstance().darDeBaja(peticion.usuario().getId(), lugar.getId())) {
+            throw ErrorApi.noEncontrado("No estás inscrito en este lugar");
+        }
+        return null;
+    }
+
+    private Object juegos(Peticion peticion) throws PersistenciaException {
+        List<Juego> juegos = "true".equals(peticion.consulta("activos"))
+                ? JuegoDAO.obtenerJuegosActivos() : JuegoDAO.obtenerTodosLosJuegos();
+        return juegos.stream().map(JuegoVista::de).toList();
+    }
+
+    private Object crearApuesta(Peticion peticion) throws Exception {
+        JsonObject cuerpo = peticion.cuerpo();
+        Lugar lugar = buscarLugar(texto(cuerpo, "lugarId"));
+        Juego juego = buscarJuego(texto(cuerpo, "juegoId"));
+        if (!juego.isActivo()) {
+            throw ErrorApi.conflicto("El juego no está activo");
+        }
+        if (!juego.aceptaApuestas()) {
+            throw ErrorApi.conflicto("El juego no acepta apuestas en este momento");
+        }
+        double cantidad = numero(cuerpo, "cantidad");
+
+        return conCerrojo(peticion, usuario -> {
+            List<Usuario> otros = otrosApostadores(cuerpo, usuario);
+            if (usuario.getSaldoAPUNAB() < cantidad) {
+                throw ErrorApi.conflicto("Saldo insuficiente");
+            }
+            Apuesta apuesta = new Apuesta(usuario, lugar, juego, cantidad, otros);
+            if (!apuesta.crearApuesta(usuario, lugar, juego, cantidad, otros)) {
+                throw ErrorApi.conflicto("No se pudo crear la apuesta");
+            }
+            peticion.setCodigo(201);
+            return ApuestaVista.de(apuesta);
+        });
+    }
+
+    private Object actualizarApuesta(Peticion peticion) throws Exception {
+        JsonObject cuerpo = peticion.cuerpo();
+        double cantidad = numero(cuerpo, "cantidad");
+        return conCerrojo(peticion, usuario -> {
+            Apuesta apuesta = apuestaPropia(peticion.parametro("id"), usuario);
+            List<Usuario> otros = cuerpo.has("otrosApostadores") ? otrosApostadores(cuerpo, usuario) : null;
+            if (!apuesta.actualizarApuesta(cantidad, otros)) {
+                throw ErrorApi.conflicto("No se pudo actualizar la apuesta");
+            }
+            return ApuestaVista.de(apuesta);
+        });
+    }
+
+    private Object eliminarApuesta(Peticion peticion) throws Exception {
+        return conCerrojo(peticion, usuario -> {
+            Apuesta apuesta = apuestaPropia(peticion.parametro("id"), usuario);
+            if (!apuesta.eliminarApuesta()) {
+                throw ErrorApi.conflicto("No se pudo eliminar la apuesta");
+            }
+            return null;
+        });
+    }
+
+    private Object historial(Peticion peticion) throws Exception {
+        String usuarioId = peticion.usuario().getId();
+        return ApuestaDAO.buscarPorUsuario(usuarioId).stream()
+                .sorted(Comparator.comparing(Apuesta::getFecha, Comparator.nullsLast(Comparator.reverseOrder())))
+                .map(ApuestaVista::de)
+                .toList();
+    }
+
+    private Object ranking(Peticion peticion) throws Exception {
+        int limite = peticion.consultaEntero("limite", 10, 1, 100);
+        List<Usuario> usuarios = new ArrayList<>(UsuarioDAO.obtenerTodosLosUsuarios());
+        usuarios.sort(Comparator.comparingDouble(Usuario::getSaldoAPUNAB).reversed());
+        List<PosicionRanking> ranking = new ArrayList<>();
+        for (int i = 0; i < Math.min(limite, usuarios.size()); i++) {
+            Usuario usuario = usuarios.get(i);
+            ranking.add(new PosicionRanking(i + 1, usuario.getId(), usuario.getNombre(), usuario.getApellido(),
+                    usuario.getCarrera(), usuario.getSaldoAPUNAB()));
+        }
+        return ranking;
+    }
+
+    private Object notificaciones(Peticion peticion) throws Exception {
+        long antes = peticion.consultaEntero("antes", 0, 0, Integer.MAX_VALUE);
+        int limite = peticion.consultaEntero("limite", 20, 1, 100);
+        return AlmacenNotificaciones.getInstance().pagina(peticion.usuario().getId(), antes, limite);
+    }
+
+    private Object marcarLeidas(Peticion peticion) throws Exception {
+        String usuarioId = peticion.usuario().getId();
+        JsonElement hasta = peticion.cuerpo().get("hasta");
+        long hastaId = hasta != null && hasta.isJsonPrimitive() && hasta.getAsJsonPrimitive().isNumber() ? hasta.getAsLong() : 0;
+        AlmacenNotificaciones.getInstance().marcarLeidas(usuarioId, hastaId);
+        return null;
+    }
+
+    private Object calendario(Peticion peticion) throws Exception {
+        String usuarioId = peticion.token() != null ? peticion.usuario().getId() : null;
+        CalendarioEventos calendario = CalendarioEventos.getInstance();
+        List<EventoCalendario> eventos;
+        try {
+            if ("true".equals(peticion.consulta("enCurso"))) {
+                eventos = calendario.eventosEnCurso(usuarioId);
+            } else if (peticion.consulta("dia") != null) {
+                eventos = calendario.eventosDelDia(usuarioId, LocalDate.parse(peticion.consulta("dia")));
+            } else if (peticion.consulta("semana") != null) {
+                eventos = calendario.eventosDeLaSemana(usuarioId, LocalDate.parse(peticion.consulta("semana")));
+            } else {
+                String mes = peticion.consulta("mes");
+                eventos = calendario.eventosDelMes(usuarioId, mes != null ? YearMonth.parse(mes) : YearMonth.now());
+            }
+        } catch (DateTimeParseException e) {
+            throw ErrorApi.solicitudInvalida("Fecha inválida: " + e.getParsedString());
+        }
+        return eventos.stream().map(EventoCalendarioVista::de).toList();
+    }
+
+    private Object mensajes(Peticion peticion) throws Exception {
+        String conversacionId = conversacionPermitida(peticion);
+        long antes = peticion.consultaEntero("antes", 0, 0, Integer.MAX_VALUE);
+        int limite = peticion.consultaEntero("limite", 50, 1, 200);
+        return AlmacenChat.getInstance().anteriores(conversacionId, antes, limite);
+    }
+
+    private Object enviarMensaje(Peticion peticion) throws Exception {
+        String conversacionId = conversacionPermitida(peticion);
+        String texto = texto(peticion.cuerpo(), "texto");
+        if (texto.length() > AlmacenChat.LARGO_MAXIMO) {
+            throw ErrorApi.solicitudInvalida("El mensaje no puede superar " + AlmacenChat.LARGO_MAXIMO + " caracteres");
+        }
+        Mensaje mensaje = AlmacenChat.getInstance().enviar(conversacionId, usuarioActual(peticion), texto);
+        peticion.setCodigo(201);
+        return mensaje;
+    }
+
+    private static String conversacionPermitida(Peticion peticion) throws ErrorApi {
+        String conversacionId = peticion.parametro("conversacion");
+        if (!AlmacenChat.puedeAcceder(conversacionId, peticion.usuario().getId())) {
+            throw ErrorApi.prohibido("No participas en esta conversación");
+        }
+        return conversacionId;
+    }
+
+    private Object eventos(Peticion peticion) throws ErrorApi {
+        Predicate<Evento> filtro = Evento::esPublico;
+        if (peticion.token() != null) {
+            String usuarioId = peticion.usuario().getId();
+            filtro = evento -> evento.esVisiblePara(usuarioId);
+        }
+        long desde = -1;
+        String ultimo = peticion.encabezado("Last-Event-ID");
+        if (ultimo == null) {
+            ultimo = peticion.consulta("desde");
+        }
+        if (ultimo != null) {
+            try {
+                desde = Long.parseLong(ultimo.trim());
+            } catch (NumberFormatException e) {
+                throw ErrorApi.solicitudInvalida("Last-Event-ID inválido");
+            }
+        }
+
+        Suscripcion suscripcion = BusEventos.getInstance().suscribir(filtro,
+                Integer.getInteger("unabet.eventos.capacidadFlujo", 256),
+                PoliticaDesborde.DESCARTAR_ANTIGUOS, 0, TimeUnit.MILLISECONDS, desde);
+        flujos.removeIf(Suscripcion::estaCerrada);
+        flujos.add(suscripcion);
+        return new FlujoEventos(suscripcion, gson);
+    }
+
+    @FunctionalInterface
+    private interface OperacionUsuario {
+
+        Object ejecutar(Usuario usuario) throws Exception;
+    }
+
+    /**
+     * Ejecuta la operación con el cerrojo del usuario de la sesión, sobre
+     * una copia recién leída del usuario (la de la sesión puede tener un
+     * saldo viejo)
+     */
+    private Object conCerrojo(Peticion peticion, OperacionUsuario operacion) throws Exception {
+        String usuarioId = peticion.usuario().getId();
+        ReentrantLock cerrojo = cerrojos.computeIfAbsent(usuarioId, id -> new ReentrantLock());
+        cerrojo.lock();
+        try {
+            Usuario usuario = UsuarioDAO.buscarPorId(usuarioId);
+            if (usuario == null) {
+                throw ErrorApi.noAutorizado();
+            }
+            return operacion.ejecutar(usuario);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    private Usuario usuarioActual(Peticion peticion) throws Exception {
+        Usuario usuario = UsuarioDAO.buscarPorId(peticion.usuario().getId());
+        if (usuario == null) {
+            throw ErrorApi.noAutorizado();
+        }
+        return usuario;
+    }
+
+    private static Apuesta apuestaPropia(String id, Usuario usuario) throws Exception {
+        Apuesta apuesta = ApuestaDAO.buscarPorId(id);
+        if (apuesta == null) {
+            throw ErrorApi.noEncontrado("La apuesta no existe");
+        }
+        if (apuesta.getEstudiante() == null || !usuario.getId().equals(apuesta.getEstudiante().getId())) {
+            throw ErrorApi.prohibido("La apuesta pertenece a otro usuario");
+        }
+        apuesta.setEstudiante(usuario);
+        return apuesta;
+    }
+
+    private static Lugar buscarLugar(String id) throws Exception {
+        Lugar lugar = LugarDAO.buscarPorId(id);
+        if (lugar == null) {
+            throw ErrorApi.noEncontrado("El lugar no existe");
+        }
+        return lugar;
+    }
+
+    private static Juego buscarJuego(String id) throws Exception {
+        Juego juego = JuegoDAO.buscarPorId(id);
+        if (juego == null) {
+            throw ErrorApi.noEncontrado("El juego no existe");
+        }
+        return juego;
+    }
+
+    private static List<Usuario> otrosApostadores(JsonObject cuerpo, Usuario usuario) throws Exception {
+        List<Usuario> otros = new ArrayList<>();
+        JsonElement ids = cuerpo.get("otrosApostadores");
+        if (ids == null || ids.isJsonNull()) {
+            return otros;
+        }
+        if (!ids.isJsonArray()) {
+            throw ErrorApi.solicitudInvalida("otrosApostadores debe ser una lista de identificadores");
+        }
+        for (JsonElement id : (JsonArray) ids) {
+            Usuario otro = id.isJsonPrimitive() ? UsuarioDAO.buscarPorId(id.getAsString()) : null;
+            if (otro == null) {
+                throw ErrorApi.solicitudInvalida("Apostador desconocido: " + id);
+            }
+            if (!otro.getId().equals(usuario.getId()) && !otros.contains(otro)) {
+                otros.add(otro);
+            }
+        }
+        return otros;
+    }
+
+    private static String texto(JsonObject cuerpo, String campo) throws ErrorApi {
+        JsonElement valor = cuerpo.get(campo);
+        if (valor == null || !valor.isJsonPrimitive() || valor.getAsString().isBlank()) {
+            throw ErrorApi.solicitudInvalida("Falta el campo " + campo);
+        }
+        return valor.getAsString();
+    }
+
+    private static double numero(JsonObject cuerpo, String campo) throws ErrorApi {
+        JsonElement valor = cuerpo.get(campo);
+        if (valor == null || !valor.isJsonPrimitive() || !valor.getAsJsonPrimitive().isNumber()) {
+            throw ErrorApi.solicitudInvalida("Falta el campo numérico " + campo);
+        }
+        double numero = valor.getAsDouble();
+        if (!(numero > 0) || Double.isInfinite(numero)) {
+            throw ErrorApi.solicitudInvalida("El campo " + campo + " debe ser mayor que cero");
+        }
+        return numero;
+    }
+}
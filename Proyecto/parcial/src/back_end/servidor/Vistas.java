@@ -0,0 +1,89 @@
+package back_end.servidor;
+
+import back_end.Classes.Apuesta;
+import back_end.Classes.Juego;
+import back_end.Classes.Lugar;
+import back_end.Classes.Usuario;
+import back_end.calendario.EventoCalendario;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Representaciones JSON de las entidades que devuelve la API.
+ *
+ * Las entidades no se serializan directamente: Usuario y Apuesta se
+ * referencian entre sí (y Usuario guarda la contraseña cifrada), así que las
+ * relaciones se devuelven como identificadores.
+ */
+final class Vistas {
+
+    private Vistas() {
+    }
+
+    record UsuarioVista(String id, String uid, String nombre, String apellido, String correo,
+            String carrera, int semestre, double saldoAPUNAB) {
+
+        static UsuarioVista de(Usuario usuario) {
+            return new UsuarioVista(usuario.getId(), usuario.getuid(), usuario.getNombre(), usuario.getApellido(),
+                    usuario.getCorreo(), usuario.getCarrera(), usuario.getSemestre(), usuario.getSaldoAPUNAB());
+        }
+    }
+
+    record SesionVista(String token, long expiraMillis, UsuarioVista usuario) {
+    }
+
+    record LugarVista(String id, String nombre, String direccion, String descripcion,
+            double calificacionPromedio, List<String> juegos, int inscritos) {
+
+        static LugarVista de(Lugar lugar) {
+            // Solo los ids: no hace falta cargar los juegos
+            return new LugarVista(lugar.getId(), lugar.getNombre(), lugar.getDireccion(), lugar.getDescripcion(),
+                    lugar.getCalificacionPromedio(), lugar.getIdsJuegos(), lugar.contarUsuariosRegistrados());
+        }
+    }
+
+    record JuegoVista(String id, String nombre, String descripcion, double factorMultiplicador, boolean activo,
+            String fechaInicio, String fechaFin) {
+
+        static JuegoVista de(Juego juego) {
+            return new JuegoVista(juego.getId(), juego.getNombre(), juego.getDescripcion(),
+                    juego.getFactorMultiplicador(), juego.isActivo(), texto(juego.getFechaInicio()), texto(juego.getFechaFin()));
+        }
+    }
+
+    record EventoCalendarioVista(String tipo, String titulo, String inicio, String fin, String referenciaId) {
+
+        static EventoCalendarioVista de(EventoCalendario evento) {
+            return new EventoCalendarioVista(evento.tipo(), evento.titulo(), texto(evento.inicio()),
+                    texto(evento.fin()), evento.referenciaId());
+        }
+    }
+
+    record ApuestaVista(String id, String estudianteId, String lugarId, String juegoId, double cantidadAPUNAB,
+            String fecha, List<String> otrosApostadores, String estado, boolean finalizada, boolean ganada,
+            double gananciaPotencial, double gananciaReal) {
+
+        static ApuestaVista de(Apuesta apuesta) {
+            List<String> otros = apuesta.getOtrosApostadores() == null ? List.of()
+                    : apuesta.getOtrosApostadores().stream().filter(Objects::nonNull).map(Usuario::getId).toList();
+            return new ApuestaVista(apuesta.getId(), id(apuesta.getEstudiante()),
+                    apuesta.getLugar() != null ? apuesta.getLugar().getId() : null,
+                    apuesta.getJuego() != null ? apuesta.getJuego().getId() : null,
+                    apuesta.getCantidadAPUNAB(), apuesta.getFecha() != null ? apuesta.getFecha().toString() : null,
+                    otros, apuesta.getEstadoTexto(), apuesta.isFinalizada(), apuesta.isGanada(),
+                    apuesta.getGananciaPotencial(), apuesta.getGananciaReal());
+        }
+
+        private static String id(Usuario usuario) {
+            return usuario != null ? usuario.getId() : null;
+        }
+    }
+
+    record PosicionRanking(int posicion, String id, String nombre, String apellido, String carrera, double saldoAPUNAB) {
+    }
+
+    private static String texto(LocalDateTime fecha) {
+        return fecha != null ? fecha.toString() : null;
+    }
+}
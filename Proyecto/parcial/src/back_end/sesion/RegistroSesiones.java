@@ -0,0 +1,170 @@
+package back_end.sesion;
+
+import back_end.Classes.Usuario;
+import back_end.Excepciones.LimiteIntentosException;
+import back_end.Excepciones.PersistenciaException;
+import back_end.seguridad.LimitadorIntentos;
+import back_end.util.RuedaTemporizadores;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro concurrente de sesiones activas, indexado por token.
+ *
+ * Las búsquedas por token son O(1). Cada sesión vence tras un tiempo de
+ * inactividad (TTL deslizante); la expiración la hace una rueda de
+ * temporizadores en lugar de un hilo por sesión. Los intentos de inicio de
+ * sesión se limitan por cuenta y por IP con cubetas de fichas.
+ *
+ * Parámetros (propiedades del sistema):
+ * unabet.sesion.ttlMinutos, unabet.login.intentosCuenta,
+ * unabet.login.intentosIp
+ */
+public class RegistroSesiones {
+
+    private static final RegistroSesiones instance = new RegistroSesiones(
+            TimeUnit.MINUTES.toMillis(Long.getLong("unabet.sesion.ttlMinutos", 30)),
+            new LimitadorIntentos(Integer.getInteger("unabet.login.intentosCuenta", 5), 1, TimeUnit.MINUTES),
+            new LimitadorIntentos(Integer.getInteger("unabet.login.intentosIp", 30), 2, TimeUnit.SECONDS));
+
+    private static final long LIMPIEZA_LIMITADORES_MS = TimeUnit.MINUTES.toMillis(5);
+
+    private final ConcurrentHashMap<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private final SecureRandom aleatorio = new SecureRandom();
+    private final RuedaTemporizadores rueda;
+    private final LimitadorIntentos limitadorCuenta;
+    private final LimitadorIntentos limitadorIp;
+    private final long ttlMillis;
+
+    public RegistroSesiones(long ttlMillis, LimitadorIntentos limitadorCuenta, LimitadorIntentos limitadorIp) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("El tiempo de vida de la sesión debe ser positivo");
+        }
+        this.ttlMillis = ttlMillis;
+        this.limitadorCuenta = limitadorCuenta;
+        this.limitadorIp = limitadorIp;
+        // Tic de 1 s y 512 casillas: una vuelta cubre ~8.5 min, las sesiones más largas dan varias vueltas
+        this.rueda = new RuedaTemporizadores("expiracion-sesiones", 1, TimeUnit.SECONDS, 512);
+        programarLimpiezaLimitadores();
+    }
+
+    public static RegistroSesiones getInstance() {
+        return instance;
+    }
+
+    /**
+     * Verifica las credenciales y abre una sesión.
+     *
+     * @return la sesión creada, o null si las credenciales son incorrectas
+     * @throws LimiteIntentosException si la cuenta o la IP superaron el
+     * número de intentos permitidos
+     */
+    public Sesion iniciarSesion(String correo, String contraseña, String ip)
+            throws PersistenciaException, LimiteIntentosException {
+        String cuenta = correo != null ? correo.trim().toLowerCase() : null;
+
+        if (!limitadorIp.intentar(ip)) {
+            throw new LimiteIntentosException("Demasiados intentos desde esta dirección. Intente más tarde.",
+                    limitadorIp.esperaRestante(ip, TimeUnit.SECONDS));
+        }
+        if (!limitadorCuenta.intentar(cuenta)) {
+            throw new LimiteIntentosException("Demasiados intentos para esta cuenta. Intente más tarde.",
+                    limitadorCuenta.esperaRestante(cuenta, TimeUnit.SECONDS));
+        }
+
+        Usuario usuario = Usuario.iniciarSesion(correo, contraseña);
+        if (usuario == null) {
+            return null;
+        }
+
+        limitadorCuenta.reiniciar(cuenta);
+        return crearSesion(usuario, ip);
+    }
+
+    /**
+     * Abre una sesión para un usuario ya autenticado
+     */
+    public Sesion crearSesion(Usuario usuario, String ip) {
+        if (usuario == null) {
+            throw new IllegalArgumentException("El usuario no puede ser nulo");
+        }
+        Sesion sesion = new Sesion(generarToken(), usuario, ip, System.currentTimeMillis() + ttlMillis);
+        sesiones.put(sesion.getToken(), sesion);
+        programarExpiracion(sesion.getToken(), ttlMillis);
+        return sesion;
+    }
+
+    /**
+     * Obtiene la sesión del token y extiende su vigencia. Retorna null si
+     * no existe o ya venció.
+     */
+    public Sesion obtener(String token) {
+        if (token == null) {
+            return null;
+        }
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return null;
+        }
+        long ahora = System.currentTimeMillis();
+        if (sesion.estaVencida(ahora)) {
+            sesiones.remove(token, sesion);
+            return null;
+        }
+        sesion.setExpiraMillis(ahora + ttlMillis);
+        return sesion;
+    }
+
+    /**
+     * Obtiene el usuario de la sesión, o null si la sesión no es válida
+     */
+    public Usuario obtenerUsuario(String token) {
+        Sesion sesion = obtener(token);
+        return sesion != null ? sesion.getUsuario() : null;
+    }
+
+    /**
+     * Cierra la sesión del token
+     */
+    public boolean cerrar(String token) {
+        return token != null && sesiones.remove(token) != null;
+    }
+
+    public int contarSesionesActivas() {
+        return sesiones.size();
+    }
+
+    private void programarExpiracion(String token, long retrasoMillis) {
+        rueda.programar(() -> revisarExpiracion(token), retrasoMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void revisarExpiracion(String token) {
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return;
+        }
+        long ahora = System.currentTimeMillis();
+        if (sesion.estaVencida(ahora)) {
+            sesiones.remove(token, sesion);
+        } else {
+            // Se usó mientras tanto: volver a revisar cuando venza el nuevo plazo
+            programarExpiracion(token, sesion.getExpiraMillis() - ahora);
+        }
+    }
+
+    private void programarLimpiezaLimitadores() {
+        rueda.programar(() -> {
+            limitadorCuenta.limpiar();
+            limitadorIp.limpiar();
+            programarLimpiezaLimitadores();
+        }, LIMPIEZA_LIMITADORES_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private String generarToken() {
+        byte[] bytes = new byte[32];
+        aleatorio.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,61 @@
+package back_end.sesion;
+
+import back_end.Classes.Usuario;
+import java.time.LocalDateTime;
+
+/**
+ * Sesión iniciada por un usuario, identificada por un token opaco
+ */
+public class Sesion {
+
+    private final String token;
+    private final Usuario usuario;
+    private final String ip;
+    private final LocalDateTime fechaInicio;
+    private volatile long expiraMillis;
+
+    Sesion(String token, Usuario usuario, String ip, long expiraMillis) {
+        this.token = token;
+        this.usuario = usuario;
+        this.ip = ip;
+        this.fechaInicio = LocalDateTime.now();
+        this.expiraMillis = expiraMillis;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public LocalDateTime getFechaInicio() {
+        return fechaInicio;
+    }
+
+    public long getExpiraMillis() {
+        return expiraMillis;
+    }
+
+    void setExpiraMillis(long expiraMillis) {
+        this.expiraMillis = expiraMillis;
+    }
+
+    boolean estaVencida(long ahoraMillis) {
+        return expiraMillis <= ahoraMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "Sesion{"
+                + "usuario=" + (usuario != null ? usuario.getCorreo() : "null")
+                + ", ip='" + ip + '\''
+                + ", fechaInicio=" + fechaInicio
+                + '}';
+    }
+}
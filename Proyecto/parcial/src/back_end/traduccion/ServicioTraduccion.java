@@ -0,0 +1,182 @@
+package back_end.traduccion;
+
+import back_end.metricas.Contador;
+import back_end.metricas.RegistroMetricas;
+import back_end.metricas.Temporizador;
+import back_end.util.CacheWTinyLFU;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Traducción de mensajes con caché, pedidos compartidos y lotes.
+ *
+ * Un texto ya traducido sale del caché (W-TinyLFU, clave texto + par de
+ * idiomas) sin llamar al traductor. Si varios piden a la vez el mismo texto
+ * que todavía no está, comparten un solo pedido. Los pedidos pendientes se
+ * juntan durante unos milisegundos y se envían al traductor en un lote por
+ * par de idiomas, así una ráfaga de mensajes nuevos es una sola llamada.
+ *
+ * Parámetros: unabet.traduccion.cache (entradas, 10000),
+ * unabet.traduccion.lote (textos por llamada, 32) y
+ * unabet.traduccion.esperaMs (cuánto se espera a completar un lote, 10).
+ */
+public class ServicioTraduccion {
+
+    private static final ServicioTraduccion instance = new ServicioTraduccion(new TraductorLocal(),
+            Integer.getInteger("unabet.traduccion.cache", 10_000), Integer.getInteger("unabet.traduccion.lote", 32),
+            Long.getLong("unabet.traduccion.esperaMs", 10));
+
+    private record Clave(String origen, String destino, String texto) {
+    }
+
+    private record Pedido(Clave clave, CompletableFuture<String> futuro) {
+    }
+
+    private final CacheWTinyLFU<Clave, String> cache;
+    private final Map<Clave, CompletableFuture<String>> enCurso = new ConcurrentHashMap<>();
+    private final LinkedBlockingQueue<Pedido> cola = new LinkedBlockingQueue<>();
+    private final ExecutorService ejecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("traduccion-", 0).factory());
+    private final int tamañoLote;
+    private final long esperaNanos;
+    private volatile Traductor traductor;
+
+    private final Contador compartidos;
+    private final Contador llamadas;
+    private final Temporizador duracionLote;
+
+    public ServicioTraduccion(Traductor traductor, int capacidadCache, int tamañoLote, long esperaMs) {
+        if (tamañoLote <= 0 || esperaMs < 0) {
+            throw new IllegalArgumentException("El tamaño del lote debe ser positivo y la espera no negativa");
+        }
+        this.traductor = traductor;
+        this.cache = new CacheWTinyLFU<>(capacidadCache);
+        this.tamañoLote = tamañoLote;
+        this.esperaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMs);
+
+        RegistroMetricas metricas = RegistroMetricas.getInstance();
+        compartidos = metricas.contador("unabet_traduccion_compartidas_total",
+                "Pedidos de traducción que esperaron uno igual ya en curso");
+        llamadas = metricas.contador("unabet_traduccion_llamadas_total", "Lotes enviados al traductor");
+        duracionLote = metricas.temporizador("unabet_traduccion_lote_segundos", "Tiempo del traductor por lote");
+        metricas.medidor("unabet_traduccion_cache_aciertos", "Traducciones servidas desde el caché", cache::getAciertos);
+        metricas.medidor("unabet_traduccion_cache_fallos", "Traducciones que no estaban en el caché", cache::getFallos);
+        metricas.medidor("unabet_traduccion_cache_entradas", "Traducciones guardadas en el caché", cache::tamaño);
+
+        Thread.ofVirtual().name("traduccion-lotes").start(this::agrupar);
+    }
+
+    public static ServicioTraduccion getInstance() {
+        return instance;
+    }
+
+    /**
+     * Cambia el motor de traducción y vacía el caché
+     */
+    public void setTraductor(Traductor traductor) {
+        this.traductor = traductor;
+        cache.limpiar();
+    }
+
+    /**
+     * Traduce un texto; se completa de inmediato si ya estaba en el caché
+     */
+    public CompletableFuture<String> traducir(String texto, String origen, String destino) {
+        if (texto == null || texto.isBlank() || origen.equals(destino)) {
+            return CompletableFuture.completedFuture(texto);
+        }
+        Clave clave = new Clave(origen, destino, texto);
+        String traducido = cache.obtener(clave);
+        if (traducido != null) {
+            return CompletableFuture.completedFuture(traducido);
+        }
+        CompletableFuture<String> futuro = new CompletableFuture<>();
+        CompletableFuture<String> existente = enCurso.putIfAbsent(clave, futuro);
+        if (existente != null) {
+            compartidos.incrementar();
+            return existente.copy();
+        }
+        cola.add(new Pedido(clave, futuro));
+        // Copias: si alguien cancela la suya no afecta a los demás que esperan el mismo texto
+        return futuro.copy();
+    }
+
+    /**
+     * Traduce varios textos; todos viajan en el mismo lote si caben
+     */
+    public CompletableFuture<List<String>> traducirTodos(List<String> textos, String origen, String destino) {
+        List<CompletableFuture<String>> futuros = new ArrayList<>(textos.size());
+        for (String texto : textos) {
+            futuros.add(traducir(texto, origen, destino));
+        }
+        return CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new))
+                .thenApply(nada -> futuros.stream().map(CompletableFuture::join).toList());
+    }
+
+    /**
+     * Toma el primer pedido, espera a lo sumo esperaMs a que lleguen más y
+     * envía lo juntado separado por par de idiomas
+     */
+    private void agrupar() {
+        try {
+            while (true) {
+                List<Pedido> lote = new ArrayList<>();
+                lote.add(cola.take());
+                long limite = System.nanoTime() + esperaNanos;
+                while (lote.size() < tamañoLote) {
+                    Pedido pedido = cola.poll(limite - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (pedido == null) {
+                        break;
+                    }
+                    lote.add(pedido);
+                }
+                Map<String, List<Pedido>> porPar = new LinkedHashMap<>();
+                for (Pedido pedido : lote) {
+                    porPar.computeIfAbsent(pedido.clave().origen() + ">" + pedido.clave().destino(),
+                            par -> new ArrayList<>()).add(pedido);
+                }
+                for (List<Pedido> grupo : porPar.values()) {
+                    ejecutor.submit(() -> enviar(grupo));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void enviar(List<Pedido> grupo) {
+        Clave primera = grupo.get(0).clave();
+        List<String> textos = grupo.stream().map(pedido -> pedido.clave().texto()).toList();
+        long inicio = System.nanoTime();
+        try {
+            llamadas.incrementar();
+            List<String> traducciones = traductor.traducir(textos, primera.origen(), primera.destino());
+            if (traducciones == null || traducciones.size() != textos.size()) {
+                throw new IllegalStateException("El traductor devolvió una cantidad distinta de textos");
+            }
+            for (int i = 0; i < grupo.size(); i++) {
+                Pedido pedido = grupo.get(i);
+                // Primero el caché, así quien llegue después de quitar el pedido ya lo encuentra
+                cache.guardar(pedido.clave(), traducciones.get(i));
+                enCurso.remove(pedido.clave(), pedido.futuro());
+                pedido.futuro().complete(traducciones.get(i));
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Error al traducir " + grupo.size() + " textos: " + e.getMessage());
+            for (Pedido pedido : grupo) {
+                enCurso.remove(pedido.clave(), pedido.futuro());
+                pedido.futuro().completeExceptionally(e);
+            }
+        } finally {
+            duracionLote.registrarDesde(inicio);
+        }
+    }
+}
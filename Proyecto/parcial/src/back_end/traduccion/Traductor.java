@@ -0,0 +1,20 @@
+package back_end.traduccion;
+
+import java.util.List;
+
+/**
+ * Motor de traducción que usa ServicioTraduccion.
+ *
+ * Recibe lotes: el servicio junta los pedidos que llegan casi a la vez para
+ * hacer una sola llamada por par de idiomas.
+ */
+public interface Traductor {
+
+    /**
+     * Traduce los textos del idioma de origen al de destino (códigos ISO 639-1,
+     * por ejemplo "es" o "en")
+     *
+     * @return las traducciones, en el mismo orden y cantidad que los textos
+     */
+    List<String> traducir(List<String> textos, String origen, String destino);
+}
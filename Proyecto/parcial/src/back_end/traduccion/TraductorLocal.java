@@ -0,0 +1,80 @@
+package back_end.traduccion;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Traductor local y determinista entre español e inglés.
+ *
+ * Reemplaza palabra por palabra con un glosario corto del vocabulario de la
+ * aplicación y deja igual lo que no conoce. No pretende traducir bien: sirve
+ * para usar la pantalla de traducción sin un servicio externo y da siempre
+ * el mismo resultado para el mismo texto.
+ */
+public class TraductorLocal implements Traductor {
+
+    private static final Pattern PALABRA = Pattern.compile("\\p{L}+");
+
+    private static final String[][] GLOSARIO = {
+        {"hola", "hello"}, {"adiós", "goodbye"}, {"gracias", "thanks"}, {"sí", "yes"}, {"no", "no"},
+        {"apuesta", "bet"}, {"apuestas", "bets"}, {"apostar", "to bet"}, {"juego", "game"}, {"juegos", "games"},
+        {"lugar", "place"}, {"lugares", "places"}, {"saldo", "balance"}, {"ganar", "win"}, {"gané", "I won"},
+        {"perder", "lose"}, {"perdí", "I lost"}, {"partido", "match"}, {"equipo", "team"}, {"hoy", "today"},
+        {"mañana", "tomorrow"}, {"ayer", "yesterday"}, {"ahora", "now"}, {"quién", "who"}, {"qué", "what"},
+        {"dónde", "where"}, {"cuándo", "when"}, {"buenos", "good"}, {"días", "morning"}, {"noches", "night"},
+        {"amigo", "friend"}, {"amigos", "friends"}, {"universidad", "university"}, {"clase", "class"},
+        {"chat", "chat"}, {"mensaje", "message"}, {"bien", "well"}, {"mal", "bad"}, {"vamos", "let's go"},
+        {"suerte", "luck"}, {"cuota", "odds"}, {"ranking", "ranking"}, {"puntos", "points"}, {"y", "and"},
+        {"el", "the"}, {"la", "the"}, {"los", "the"}, {"las", "the"}, {"un", "a"}, {"una", "a"},
+        {"de", "of"}, {"en", "in"}, {"con", "with"}, {"para", "for"}, {"yo", "I"}, {"tú", "you"}
+    };
+
+    private final Map<String, Map<String, String>> diccionarios = new HashMap<>();
+
+    public TraductorLocal() {
+        Map<String, String> esEn = new HashMap<>();
+        Map<String, String> enEs = new HashMap<>();
+        for (String[] par : GLOSARIO) {
+            esEn.put(par[0], par[1]);
+            // En sentido inverso gana la primera palabra española de cada traducción
+            enEs.putIfAbsent(par[1].toLowerCase(Locale.ROOT), par[0]);
+        }
+        diccionarios.put("es>en", esEn);
+        diccionarios.put("en>es", enEs);
+    }
+
+    @Override
+    public List<String> traducir(List<String> textos, String origen, String destino) {
+        Map<String, String> diccionario = diccionarios.get(origen + ">" + destino);
+        if (diccionario == null) {
+            return textos;
+        }
+        List<String> traducciones = new ArrayList<>(textos.size());
+        for (String texto : textos) {
+            traducciones.add(traducir(texto, diccionario));
+        }
+        return traducciones;
+    }
+
+    private static String traducir(String texto, Map<String, String> diccionario) {
+        Matcher palabras = PALABRA.matcher(texto);
+        StringBuilder resultado = new StringBuilder(texto.length());
+        while (palabras.find()) {
+            String palabra = palabras.group();
+            String traduccion = diccionario.get(palabra.toLowerCase(Locale.ROOT));
+            if (traduccion == null) {
+                traduccion = palabra;
+            } else if (Character.isUpperCase(palabra.charAt(0))) {
+                traduccion = Character.toUpperCase(traduccion.charAt(0)) + traduccion.substring(1);
+            }
+            palabras.appendReplacement(resultado, Matcher.quoteReplacement(traduccion));
+        }
+        palabras.appendTail(resultado);
+        return resultado.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package back_end.util;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Segundo nivel de caché fuera del heap: guarda valores ya serializados en
+ * buffers directos, acotado por bytes y con expulsión LRU.
+ *
+ * Lo que se guarda aquí no lo recorre el recolector de basura y no cuenta
+ * en -Xmx; el límite propio es maximoBytes. La memoria de un buffer
+ * expulsado se libera cuando el recolector descarta el buffer.
+ *
+ * Es seguro para hilos: todas las operaciones toman el monitor del almacén.
+ *
+ * @param <K> clave
+ */
+public class AlmacenFueraDeHeap<K> {
+
+    private final long maximoBytes;
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<K, ByteBuffer> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    public AlmacenFueraDeHeap(long maximoBytes) {
+        if (maximoBytes <= 0) {
+            throw new IllegalArgumentException("El tamaño del almacén fuera del heap debe ser positivo");
+        }
+        this.maximoBytes = maximoBytes;
+    }
+
+    /**
+     * Copia de los bytes guardados para la clave, o null si no está
+     */
+    public synchronized byte[] obtener(K clave) {
+        ByteBuffer buffer = entradas.get(clave);
+        if (buffer == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        byte[] datos = new byte[buffer.capacity()];
+        buffer.get(0, datos);
+        return datos;
+    }
+
+    /**
+     * Guarda los bytes; si no caben ni vaciando el almacén, no se guardan
+     */
+    public synchronized void guardar(K clave, byte[] datos) {
+        invalidar(clave);
+        if (datos.length > maximoBytes) {
+            return;
+        }
+        Iterator<Map.Entry<K, ByteBuffer>> iterador = entradas.entrySet().iterator();
+        while (bytes + datos.length > maximoBytes && iterador.hasNext()) {
+            bytes -= iterador.next().getValue().capacity();
+            iterador.remove();
+            expulsiones++;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(datos.length);
+        buffer.put(0, datos);
+        entradas.put(clave, buffer);
+        bytes += datos.length;
+    }
+
+    public synchronized void invalidar(K clave) {
+        ByteBuffer anterior = entradas.remove(clave);
+        if (anterior != null) {
+            bytes -= anterior.capacity();
+        }
+    }
+
+    public synchronized void limpiar() {
+        entradas.clear();
+        bytes = 0;
+    }
+
+    public synchronized int tamaño() {
+        return entradas.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    public synchronized long getExpulsiones() {
+        return expulsiones;
+    }
+}
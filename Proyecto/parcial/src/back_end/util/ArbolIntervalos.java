@@ -0,0 +1,217 @@
+package back_end.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Árbol de intervalos (árbol AVL aumentado).
+ *
+ * Cada nodo guarda un intervalo cerrado [inicio, fin] ordenado por inicio y
+ * el mayor fin de su subárbol. Insertar y eliminar son O(log n); buscar los
+ * intervalos que se cruzan con un rango es O(log n + k), con k la cantidad
+ * de resultados, porque se descartan los subárboles cuyo mayor fin queda
+ * antes del rango o cuyo inicio queda después. Un evento puntual es un
+ * intervalo con inicio == fin.
+ *
+ * No es seguro para hilos; quien lo comparta debe sincronizarlo.
+ *
+ * @param <T> valor asociado a cada intervalo
+ */
+public class ArbolIntervalos<T> {
+
+    private static final class Nodo<T> {
+
+        final long inicio;
+        final long fin;
+        final String clave;
+        final T valor;
+        long maxFin;
+        int altura = 1;
+        Nodo<T> izquierdo;
+        Nodo<T> derecho;
+
+        Nodo(long inicio, long fin, String clave, T valor) {
+            this.inicio = inicio;
+            this.fin = fin;
+            this.clave = clave;
+            this.valor = valor;
+            this.maxFin = fin;
+        }
+    }
+
+    private Nodo<T> raiz;
+    private int tamaño;
+
+    /**
+     * Agrega un intervalo. La clave distingue intervalos con el mismo
+     * inicio; si ya había uno con el mismo inicio y clave, se reemplaza.
+     */
+    public void insertar(long inicio, long fin, String clave, T valor) {
+        if (fin < inicio) {
+            throw new IllegalArgumentException("El fin del intervalo no puede ser anterior al inicio");
+        }
+        raiz = insertar(raiz, new Nodo<>(inicio, fin, clave, valor));
+    }
+
+    /**
+     * Quita el intervalo con ese inicio y clave
+     *
+     * @return true si existía
+     */
+    public boolean eliminar(long inicio, String clave) {
+        int antes = tamaño;
+        raiz = eliminar(raiz, inicio, clave);
+        return tamaño < antes;
+    }
+
+    /**
+     * Intervalos que se cruzan con [desde, hasta), ordenados por inicio
+     */
+    public List<T> buscar(long desde, long hasta) {
+        List<T> resultado = new ArrayList<>();
+        if (hasta > desde) {
+            buscar(raiz, desde, hasta, resultado);
+        }
+        return resultado;
+    }
+
+    /**
+     * Intervalos que contienen el instante dado
+     */
+    public List<T> enCurso(long instante) {
+        return buscar(instante, instante + 1);
+    }
+
+    public int tamaño() {
+        return tamaño;
+    }
+
+    public void limpiar() {
+        raiz = null;
+        tamaño = 0;
+    }
+
+    private void buscar(Nodo<T> nodo, long desde, long hasta, List<T> resultado) {
+        if (nodo == null || nodo.maxFin < desde) {
+            return;
+        }
+        buscar(nodo.izquierdo, desde, hasta, resultado);
+        if (nodo.inicio >= hasta) {
+            // Todo el subárbol derecho empieza después del rango
+            return;
+        }
+        if (nodo.fin >= desde) {
+            resultado.add(nodo.valor);
+        }
+        buscar(nodo.derecho, desde, hasta, resultado);
+    }
+
+    private Nodo<T> insertar(Nodo<T> nodo, Nodo<T> nuevo) {
+        if (nodo == null) {
+            tamaño++;
+            return nuevo;
+        }
+        int comparacion = comparar(nuevo.inicio, nuevo.clave, nodo);
+        if (comparacion == 0) {
+            nuevo.izquierdo = nodo.izquierdo;
+            nuevo.derecho = nodo.derecho;
+            nuevo.altura = nodo.altura;
+            actualizar(nuevo);
+            return nuevo;
+        }
+        if (comparacion < 0) {
+            nodo.izquierdo = insertar(nodo.izquierdo, nuevo);
+        } else {
+            nodo.derecho = insertar(nodo.derecho, nuevo);
+        }
+        return balancear(nodo);
+    }
+
+    private Nodo<T> eliminar(Nodo<T> nodo, long inicio, String clave) {
+        if (nodo == null) {
+            return null;
+        }
+        int comparacion = comparar(inicio, clave, nodo);
+        if (comparacion < 0) {
+            nodo.izquierdo = eliminar(nodo.izquierdo, inicio, clave);
+        } else if (comparacion > 0) {
+            nodo.derecho = eliminar(nodo.derecho, inicio, clave);
+        } else {
+            tamaño--;
+            if (nodo.izquierdo == null) {
+                return nodo.derecho;
+            }
+            if (nodo.derecho == null) {
+                return nodo.izquierdo;
+            }
+            // Se reemplaza por el menor del subárbol derecho
+            Nodo<T> sucesor = nodo.derecho;
+            while (sucesor.izquierdo != null) {
+                sucesor = sucesor.izquierdo;
+            }
+            tamaño++;
+            Nodo<T> derecho = eliminar(nodo.derecho, sucesor.inicio, sucesor.clave);
+            sucesor.izquierdo = nodo.izquierdo;
+            sucesor.derecho = derecho;
+            nodo = sucesor;
+        }
+        return balancear(nodo);
+    }
+
+    private static int comparar(long inicio, String clave, Nodo<?> nodo) {
+        int comparacion = Long.compare(inicio, nodo.inicio);
+        return comparacion != 0 ? comparacion : clave.compareTo(nodo.clave);
+    }
+
+    private static int altura(Nodo<?> nodo) {
+        return nodo != null ? nodo.altura : 0;
+    }
+
+    private static void actualizar(Nodo<?> nodo) {
+        nodo.altura = 1 + Math.max(altura(nodo.izquierdo), altura(nodo.derecho));
+        long maxFin = nodo.fin;
+        if (nodo.izquierdo != null) {
+            maxFin = Math.max(maxFin, nodo.izquierdo.maxFin);
+        }
+        if (nodo.derecho != null) {
+            maxFin = Math.max(maxFin, nodo.derecho.maxFin);
+        }
+        nodo.maxFin = maxFin;
+    }
+
+    private static <T> Nodo<T> balancear(Nodo<T> nodo) {
+        actualizar(nodo);
+        int factor = altura(nodo.izquierdo) - altura(nodo.derecho);
+        if (factor > 1) {
+            if (altura(nodo.izquierdo.izquierdo) < altura(nodo.izquierdo.derecho)) {
+                nodo.izquierdo = rotarIzquierda(nodo.izquierdo);
+            }
+            return rotarDerecha(nodo);
+        }
+        if (factor < -1) {
+            if (altura(nodo.derecho.derecho) < altura(nodo.derecho.izquierdo)) {
+                nodo.derecho = rotarDerecha(nodo.derecho);
+            }
+            return rotarIzquierda(nodo);
+        }
+        return nodo;
+    }
+
+    private static <T> Nodo<T> rotarDerecha(Nodo<T> nodo) {
+        Nodo<T> nuevaRaiz = nodo.izquierdo;
+        nodo.izquierdo = nuevaRaiz.derecho;
+        nuevaRaiz.derecho = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+
+    private static <T> Nodo<T> rotarIzquierda(Nodo<T> nodo) {
+        Nodo<T> nuevaRaiz = nodo.derecho;
+        nodo.derecho = nuevaRaiz.izquierdo;
+        nuevaRaiz.izquierdo = nodo;
+        actualizar(nodo);
+        actualizar(nuevaRaiz);
+        return nuevaRaiz;
+    }
+}
@@ -0,0 +1,33 @@
+package back_end.util;
+
+/**
+ * Caché acotado en memoria. Las implementaciones difieren en qué entrada
+ * sacan cuando se llena (ver PoliticaCache).
+ *
+ * @param <K> clave
+ * @param <V> valor
+ */
+public interface Cache<K, V> {
+
+    /**
+     * Valor guardado para la clave, o null si no está
+     */
+    V obtener(K clave);
+
+    /**
+     * Guarda o reemplaza el valor de la clave
+     */
+    void guardar(K clave, V valor);
+
+    void invalidar(K clave);
+
+    void limpiar();
+
+    int tamaño();
+
+    long getAciertos();
+
+    long getFallos();
+
+    long getExpulsiones();
+}
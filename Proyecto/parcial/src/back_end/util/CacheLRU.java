@@ -0,0 +1,122 @@
+package back_end.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché acotado que saca la entrada usada hace más tiempo (LRU).
+ *
+ * Con vigencia positiva además cada entrada vence ese tiempo después de
+ * guardarse: una entrada vencida cuenta como fallo y se descarta al pedirla
+ * o al hacer lugar para otra.
+ *
+ * Es seguro para hilos: todas las operaciones toman el monitor del caché.
+ *
+ * @param <K> clave
+ * @param <V> valor
+ */
+public class CacheLRU<K, V> implements Cache<K, V> {
+
+    private record Entrada<V>(V valor, long vence) {
+    }
+
+    private final int capacidad;
+    private final long vigenciaNanos;
+
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    public CacheLRU(int capacidad) {
+        this(capacidad, 0);
+    }
+
+    /**
+     * @param vigenciaNanos tiempo de vida de cada entrada; 0 para que no venzan
+     */
+    public CacheLRU(int capacidad, long vigenciaNanos) {
+        if (capacidad <= 0 || vigenciaNanos < 0) {
+            throw new IllegalArgumentException("La capacidad del caché debe ser positiva y la vigencia no negativa");
+        }
+        this.capacidad = capacidad;
+        this.vigenciaNanos = vigenciaNanos;
+    }
+
+    @Override
+    public synchronized V obtener(K clave) {
+        Entrada<V> entrada = entradas.get(clave);
+        if (entrada != null && vencida(entrada, System.nanoTime())) {
+            entradas.remove(clave);
+            expulsiones++;
+            entrada = null;
+        }
+        if (entrada == null) {
+            fallos++;
+            return null;
+        }
+        aciertos++;
+        return entrada.valor();
+    }
+
+    @Override
+    public synchronized void guardar(K clave, V valor) {
+        long ahora = System.nanoTime();
+        entradas.put(clave, new Entrada<>(valor, vigenciaNanos > 0 ? ahora + vigenciaNanos : 0));
+        if (entradas.size() > capacidad) {
+            // Primero las vencidas; si no hay, la menos usada
+            Iterator<Map.Entry<K, Entrada<V>>> iterador = entradas.entrySet().iterator();
+            int quitadas = 0;
+            while (vigenciaNanos > 0 && iterador.hasNext()) {
+                if (vencida(iterador.next().getValue(), ahora)) {
+                    iterador.remove();
+                    quitadas++;
+                }
+            }
+            if (quitadas == 0) {
+                iterador = entradas.entrySet().iterator();
+                iterador.next();
+                iterador.remove();
+                quitadas = 1;
+            }
+            expulsiones += quitadas;
+        }
+    }
+
+    @Override
+    public synchronized void invalidar(K clave) {
+        entradas.remove(clave);
+    }
+
+    @Override
+    public synchronized void limpiar() {
+        entradas.clear();
+    }
+
+    @Override
+    public synchronized int tamaño() {
+        return entradas.size();
+    }
+
+    @Override
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    @Override
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    @Override
+    public synchronized long getExpulsiones() {
+        return expulsiones;
+    }
+
+    private boolean vencida(Entrada<V> entrada, long ahora) {
+        return vigenciaNanos > 0 && ahora - entrada.vence() > 0;
+    }
+}
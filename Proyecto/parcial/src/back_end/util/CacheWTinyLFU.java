@@ -0,0 +1,221 @@
+package back_end.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché acotado con la política W-TinyLFU.
+ *
+ * Las entradas nuevas entran a una ventana LRU pequeña (1 % de la
+ * capacidad). Al salir de la ventana compiten por un lugar en la zona
+ * principal, una LRU segmentada (prueba y protegida, 80 % protegida): solo
+ * entran si su frecuencia estimada supera la de la víctima de la zona de
+ * prueba. Así una ráfaga de claves que se piden una sola vez no desplaza a
+ * las que se repiten, que es el punto débil de una LRU simple.
+ *
+ * Las frecuencias se estiman con un count-min sketch de 4 filas y
+ * contadores de 4 bits que se reducen a la mitad cada 10 × capacidad
+ * accesos, para que lo popular de hace tiempo deje de pesar.
+ *
+ * Es seguro para hilos: todas las operaciones toman el monitor del caché.
+ *
+ * @param <K> clave
+ * @param <V> valor
+ */
+public class CacheWTinyLFU<K, V> implements Cache<K, V> {
+
+    private static final int FILAS = 4;
+    private static final int MAXIMO_CONTADOR = 15;
+    private static final int[] SEMILLAS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+    private final int capacidadVentana;
+    private final int capacidadPrincipal;
+    private final int capacidadProtegida;
+
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<K, V> ventana = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> prueba = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protegida = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final byte[][] contadores;
+    private final int mascara;
+    private final int muestrasPorReinicio;
+    private int muestras;
+
+    private long aciertos;
+    private long fallos;
+    private long expulsiones;
+
+    public CacheWTinyLFU(int capacidad) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("La capacidad del caché debe ser positiva");
+        }
+        capacidadVentana = Math.max(1, capacidad / 100);
+        capacidadPrincipal = capacidad - capacidadVentana;
+        capacidadProtegida = capacidadPrincipal * 8 / 10;
+        int ancho = Integer.highestOneBit(Math.max(16, capacidad - 1)) << 1;
+        contadores = new byte[FILAS][ancho];
+        mascara = ancho - 1;
+        muestrasPorReinicio = 10 * capacidad;
+    }
+
+    /**
+     * Valor guardado para la clave, o null si no está
+     */
+    @Override
+    public synchronized V obtener(K clave) {
+        registrarAcceso(clave);
+        V valor = ventana.get(clave);
+        if (valor == null) {
+            valor = protegida.get(clave);
+        }
+        if (valor == null) {
+            valor = prueba.remove(clave);
+            if (valor != null) {
+                // Segundo acceso en la zona principal: pasa a la protegida
+                proteger(clave, valor);
+            }
+        }
+        if (valor != null) {
+            aciertos++;
+        } else {
+            fallos++;
+        }
+        return valor;
+    }
+
+    /**
+     * Guarda o reemplaza el valor de la clave
+     */
+    @Override
+    public synchronized void guardar(K clave, V valor) {
+        if (ventana.containsKey(clave)) {
+            ventana.put(clave, valor);
+            return;
+        }
+        if (protegida.containsKey(clave)) {
+            protegida.put(clave, valor);
+            return;
+        }
+        if (prueba.remove(clave) != null) {
+            proteger(clave, valor);
+            return;
+        }
+        ventana.put(clave, valor);
+        if (ventana.size() > capacidadVentana) {
+            Map.Entry<K, V> candidato = primera(ventana);
+            ventana.remove(candidato.getKey());
+            admitir(candidato.getKey(), candidato.getValue());
+        }
+    }
+
+    @Override
+    public synchronized void invalidar(K clave) {
+        if (ventana.remove(clave) == null && prueba.remove(clave) == null) {
+            protegida.remove(clave);
+        }
+    }
+
+    @Override
+    public synchronized void limpiar() {
+        ventana.clear();
+        prueba.clear();
+        protegida.clear();
+    }
+
+    @Override
+    public synchronized int tamaño() {
+        return ventana.size() + prueba.size() + protegida.size();
+    }
+
+    @Override
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    @Override
+    public synchronized long getFallos() {
+        return fallos;
+    }
+
+    @Override
+    public synchronized long getExpulsiones() {
+        return expulsiones;
+    }
+
+    /**
+     * Lleva a la zona principal la entrada que sale de la ventana, si le
+     * gana a la víctima de la zona de prueba
+     */
+    private void admitir(K clave, V valor) {
+        if (prueba.size() + protegida.size() < capacidadPrincipal) {
+            prueba.put(clave, valor);
+            return;
+        }
+        LinkedHashMap<K, V> zonaVictima = prueba.isEmpty() ? protegida : prueba;
+        Map.Entry<K, V> victima = zonaVictima.isEmpty() ? null : primera(zonaVictima);
+        expulsiones++;
+        if (victima != null && frecuencia(clave) > frecuencia(victima.getKey())) {
+            zonaVictima.remove(victima.getKey());
+            prueba.put(clave, valor);
+        }
+    }
+
+    private void proteger(K clave, V valor) {
+        protegida.put(clave, valor);
+        if (protegida.size() > capacidadProtegida) {
+            Map.Entry<K, V> degradada = primera(protegida);
+            protegida.remove(degradada.getKey());
+            prueba.put(degradada.getKey(), degradada.getValue());
+        }
+    }
+
+    private static <K, V> Map.Entry<K, V> primera(LinkedHashMap<K, V> zona) {
+        Iterator<Map.Entry<K, V>> iterador = zona.entrySet().iterator();
+        Map.Entry<K, V> entrada = iterador.next();
+        return Map.entry(entrada.getKey(), entrada.getValue());
+    }
+
+    private void registrarAcceso(K clave) {
+        int hash = dispersar(clave.hashCode());
+        for (int fila = 0; fila < FILAS; fila++) {
+            int indice = indice(hash, fila);
+            if (contadores[fila][indice] < MAXIMO_CONTADOR) {
+                contadores[fila][indice]++;
+            }
+        }
+        if (++muestras >= muestrasPorReinicio) {
+            envejecer();
+        }
+    }
+
+    private int frecuencia(K clave) {
+        int hash = dispersar(clave.hashCode());
+        int minimo = MAXIMO_CONTADOR;
+        for (int fila = 0; fila < FILAS; fila++) {
+            minimo = Math.min(minimo, contadores[fila][indice(hash, fila)]);
+        }
+        return minimo;
+    }
+
+    private void envejecer() {
+        for (byte[] fila : contadores) {
+            for (int i = 0; i < fila.length; i++) {
+                fila[i] >>= 1;
+            }
+        }
+        muestras /= 2;
+    }
+
+    private int indice(int hash, int fila) {
+        int mezcla = hash * SEMILLAS[fila];
+        return (mezcla ^ (mezcla >>> 16)) & mascara;
+    }
+
+    private static int dispersar(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x45D9F3B;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,137 @@
+package back_end.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias con cubetas logarítmicas (al estilo HdrHistogram).
+ *
+ * Cada potencia de dos se divide en 64 cubetas lineales, así que cualquier
+ * valor se guarda con un error relativo menor al 1,6 % y el histograma ocupa
+ * siempre lo mismo (3776 contadores), sin importar cuántos valores reciba.
+ * Registrar es una suma atómica sin bloqueos, por lo que muchos hilos pueden
+ * compartir el mismo histograma. Los valores se registran en nanosegundos.
+ */
+public class HistogramaLatencias {
+
+    private static final int BITS_SUBCUBETA = 7;
+    private static final int MITAD_SUBCUBETAS = 1 << (BITS_SUBCUBETA - 1);
+    private static final int CUBETAS = (64 - BITS_SUBCUBETA + 2) * MITAD_SUBCUBETAS;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator minimo = new LongAccumulator(Math::min, Long.MAX_VALUE);
+
+    /**
+     * Registra una duración en nanosegundos; los valores negativos cuentan como 0
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        cuentas.incrementAndGet(indice(valor));
+        total.increment();
+        suma.add(valor);
+        maximo.accumulate(valor);
+        minimo.accumulate(valor);
+    }
+
+    /**
+     * Registra el tiempo transcurrido desde inicioNanos (System.nanoTime())
+     */
+    public void registrarDesde(long inicioNanos) {
+        registrar(System.nanoTime() - inicioNanos);
+    }
+
+    public long getCuenta() {
+        return total.sum();
+    }
+
+    public long getMaximoNanos() {
+        return maximo.get();
+    }
+
+    public long getMinimoNanos() {
+        long valor = minimo.get();
+        return valor == Long.MAX_VALUE ? 0 : valor;
+    }
+
+    public long getSumaNanos() {
+        return suma.sum();
+    }
+
+    public double getPromedioNanos() {
+        long cuenta = total.sum();
+        return cuenta == 0 ? 0 : (double) suma.sum() / cuenta;
+    }
+
+    /**
+     * Valor bajo el cual queda el porcentaje indicado de los registros
+     *
+     * @param porcentaje entre 0 y 100, por ejemplo 99.9
+     * @return nanosegundos (el mayor valor equivalente de la cubeta), 0 si está vacío
+     */
+    public long percentil(double porcentaje) {
+        long cuenta = total.sum();
+        if (cuenta == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, porcentaje)) / 100.0 * cuenta));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cuentas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(mayorEquivalente(i), getMaximoNanos());
+            }
+        }
+        return getMaximoNanos();
+    }
+
+    /**
+     * Percentil en milisegundos, para reportes
+     */
+    public double percentilMillis(double porcentaje) {
+        return percentil(porcentaje) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Suma los registros de otro histograma a este
+     */
+    public void agregar(HistogramaLatencias otro) {
+        for (int i = 0; i < CUBETAS; i++) {
+            long valor = otro.cuentas.get(i);
+            if (valor != 0) {
+                cuentas.addAndGet(i, valor);
+            }
+        }
+        total.add(otro.total.sum());
+        suma.add(otro.suma.sum());
+        maximo.accumulate(otro.maximo.get());
+        minimo.accumulate(otro.minimo.get());
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas.set(i, 0);
+        }
+        total.reset();
+        suma.reset();
+        maximo.reset();
+        minimo.reset();
+    }
+
+    private static int indice(long valor) {
+        // Los valores menores a 128 van en su propia cubeta; los demás se
+        // desplazan hasta quedar con 7 bits significativos
+        int desplazamiento = Math.max(0, 63 - Long.numberOfLeadingZeros(valor) - (BITS_SUBCUBETA - 1));
+        return (desplazamiento << (BITS_SUBCUBETA - 1)) + (int) (valor >>> desplazamiento);
+    }
+
+    private static long mayorEquivalente(int indice) {
+        int desplazamiento = indice < 2 * MITAD_SUBCUBETAS ? 0 : (indice >> (BITS_SUBCUBETA - 1)) - 1;
+        long base = (long) (indice - (desplazamiento << (BITS_SUBCUBETA - 1))) << desplazamiento;
+        return base + (1L << desplazamiento) - 1;
+    }
+}
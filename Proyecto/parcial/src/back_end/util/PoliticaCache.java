@@ -0,0 +1,31 @@
+package back_end.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Qué entrada saca un caché cuando se llena.
+ */
+public enum PoliticaCache {
+
+    /**
+     * La usada hace más tiempo
+     */
+    LRU,
+    /**
+     * La menos frecuente, estimada con W-TinyLFU: resiste recorridos de
+     * claves que se piden una sola vez
+     */
+    LFU,
+    /**
+     * LRU donde además cada entrada vence un tiempo después de guardarse
+     */
+    TTL;
+
+    public <K, V> Cache<K, V> crear(int capacidad, long vigencia, TimeUnit unidad) {
+        return switch (this) {
+            case LRU -> new CacheLRU<>(capacidad);
+            case LFU -> new CacheWTinyLFU<>(capacidad);
+            case TTL -> new CacheLRU<>(capacidad, unidad.toNanos(vigencia));
+        };
+    }
+}
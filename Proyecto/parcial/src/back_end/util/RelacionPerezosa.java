@@ -0,0 +1,213 @@
+package back_end.util;
+
+import back_end.Excepciones.PersistenciaException;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Colección relacionada que se guarda como lista de ids y se carga al
+ * primer acceso.
+ *
+ * El dueño guarda solo los ids; agregar, quitar, contar o preguntar si un
+ * id está no cargan nada. Los objetos se piden al cargador la primera vez
+ * que se recorre la relación, y precargar() resuelve las relaciones de
+ * varios dueños con una sola llamada, para pantallas que muestran listas.
+ *
+ * En JSON se escribe como un arreglo de ids. Al leer también acepta el
+ * formato anterior, con los objetos completos, y se queda con su "id".
+ *
+ * @param <T> tipo de los objetos relacionados
+ */
+@JsonAdapter(RelacionPerezosa.AdaptadorJson.class)
+public class RelacionPerezosa<T> {
+
+    /**
+     * Busca los objetos de los ids pedidos; los que no existan se omiten
+     */
+    @FunctionalInterface
+    public interface Cargador<T> {
+
+        Map<String, T> cargar(Collection<String> ids) throws PersistenciaException;
+    }
+
+    private final Set<String> ids = new LinkedHashSet<>();
+    private Map<String, T> valores;
+
+    /**
+     * Relación vacía, ya cargada: no hay nada que buscar
+     */
+    public RelacionPerezosa() {
+        this.valores = new LinkedHashMap<>();
+    }
+
+    /**
+     * Relación con los ids dados, sin cargar
+     */
+    public RelacionPerezosa(Collection<String> ids) {
+        this.ids.addAll(ids);
+    }
+
+    /**
+     * Los objetos de la relación en el orden de sus ids; los carga si
+     * todavía no se hizo
+     */
+    public synchronized List<T> obtener(Cargador<T> cargador) throws PersistenciaException {
+        if (valores == null) {
+            asignar(cargador.cargar(new ArrayList<>(ids)));
+        }
+        return new ArrayList<>(valores.values());
+    }
+
+    /**
+     * @return true si el id no estaba
+     */
+    public synchronized boolean agregar(String id, T valor) {
+        if (!ids.add(id)) {
+            return false;
+        }
+        if (valores != null) {
+            valores.put(id, valor);
+        }
+        return true;
+    }
+
+    /**
+     * @return true si el id estaba
+     */
+    public synchronized boolean quitar(String id) {
+        if (!ids.remove(id)) {
+            return false;
+        }
+        if (valores != null) {
+            valores.remove(id);
+        }
+        return true;
+    }
+
+    /**
+     * Reemplaza el contenido por los objetos dados, que quedan cargados
+     */
+    public synchronized void reemplazar(Collection<T> nuevos, Function<T, String> idDe) {
+        ids.clear();
+        valores = new LinkedHashMap<>();
+        for (T valor : nuevos) {
+            if (valor != null) {
+                ids.add(idDe.apply(valor));
+                valores.put(idDe.apply(valor), valor);
+            }
+        }
+    }
+
+    public synchronized void limpiar() {
+        ids.clear();
+        valores = new LinkedHashMap<>();
+    }
+
+    public synchronized boolean contiene(String id) {
+        return ids.contains(id);
+    }
+
+    public synchronized int tamaño() {
+        return ids.size();
+    }
+
+    public synchronized List<String> getIds() {
+        return new ArrayList<>(ids);
+    }
+
+    public synchronized boolean estaCargada() {
+        return valores != null;
+    }
+
+    /**
+     * Carga las relaciones sin cargar de todos los dueños con una sola
+     * llamada al cargador, pidiendo la unión de sus ids
+     */
+    public static <D, T> void precargar(Collection<D> duenos, Function<D, RelacionPerezosa<T>> relacion,
+            Cargador<T> cargador) throws PersistenciaException {
+        List<RelacionPerezosa<T>> pendientes = new ArrayList<>();
+        Set<String> ids = new LinkedHashSet<>();
+        for (D dueno : duenos) {
+            RelacionPerezosa<T> pendiente = relacion.apply(dueno);
+            synchronized (pendiente) {
+                if (pendiente.valores == null) {
+                    pendientes.add(pendiente);
+                    ids.addAll(pendiente.ids);
+                }
+            }
+        }
+        if (pendientes.isEmpty()) {
+            return;
+        }
+        Map<String, T> cargados = ids.isEmpty() ? Map.of() : cargador.cargar(ids);
+        for (RelacionPerezosa<T> pendiente : pendientes) {
+            synchronized (pendiente) {
+                if (pendiente.valores == null) {
+                    pendiente.asignar(cargados);
+                }
+            }
+        }
+    }
+
+    private void asignar(Map<String, T> cargados) {
+        // Los ids que ya no existen quedan en la relación pero no se muestran
+        Map<String, T> encontrados = new LinkedHashMap<>();
+        for (String id : ids) {
+            T valor = cargados.get(id);
+            if (valor != null) {
+                encontrados.put(id, valor);
+            }
+        }
+        valores = encontrados;
+    }
+
+    /**
+     * Escribe la relación como arreglo de ids
+     */
+    static class AdaptadorJson extends TypeAdapter<RelacionPerezosa<?>> {
+
+        @Override
+        public void write(JsonWriter out, RelacionPerezosa<?> relacion) throws IOException {
+            if (relacion == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (String id : relacion.getIds()) {
+                out.value(id);
+            }
+            out.endArray();
+        }
+
+        @Override
+        public RelacionPerezosa<?> read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return new RelacionPerezosa<>();
+            }
+            List<String> ids = new ArrayList<>();
+            for (JsonElement elemento : JsonParser.parseReader(in).getAsJsonArray()) {
+                if (elemento.isJsonPrimitive()) {
+                    ids.add(elemento.getAsString());
+                } else if (elemento.isJsonObject() && elemento.getAsJsonObject().has("id")) {
+                    ids.add(elemento.getAsJsonObject().get("id").getAsString());
+                }
+            }
+            return ids.isEmpty() ? new RelacionPerezosa<>() : new RelacionPerezosa<>(ids);
+        }
+    }
+}
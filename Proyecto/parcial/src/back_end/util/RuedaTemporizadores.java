@@ -0,0 +1,142 @@
+package back_end.util;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rueda de temporizadores (hashed timer wheel).
+ *
+ * Un solo hilo avanza la rueda cada "tic" y ejecuta las tareas cuyo plazo
+ * venció. Programar y cancelar son O(1), por lo que sirve para miles de
+ * plazos (expiración de sesiones, cierres de juegos) sin un hilo por tarea.
+ * La precisión es de un tic: una tarea puede ejecutarse hasta un tic tarde.
+ */
+public class RuedaTemporizadores {
+
+    /**
+     * Tarea programada; permite cancelarla antes de que se ejecute
+     */
+    public static final class Temporizador {
+
+        private final Runnable tarea;
+        private final long plazoNanos;
+        private long vueltas;
+        private volatile boolean cancelado;
+
+        private Temporizador(Runnable tarea, long plazoNanos) {
+            this.tarea = tarea;
+            this.plazoNanos = plazoNanos;
+        }
+
+        public void cancelar() {
+            cancelado = true;
+        }
+
+        public boolean isCancelado() {
+            return cancelado;
+        }
+    }
+
+    private final long ticNanos;
+    private final ConcurrentLinkedQueue<Temporizador>[] casillas;
+    private final ConcurrentLinkedQueue<Temporizador> pendientes = new ConcurrentLinkedQueue<>();
+    private final long inicioNanos;
+    private final Thread hilo;
+    private volatile boolean detenida;
+    private long tic;
+
+    public RuedaTemporizadores(String nombre, long duracionTic, TimeUnit unidad, int numCasillas) {
+        if (duracionTic <= 0 || numCasillas <= 0) {
+            throw new IllegalArgumentException("La duración del tic y el número de casillas deben ser positivos");
+        }
+        this.ticNanos = unidad.toNanos(duracionTic);
+        @SuppressWarnings("unchecked")
+        ConcurrentLinkedQueue<Temporizador>[] colas = (ConcurrentLinkedQueue<Temporizador>[]) new ConcurrentLinkedQueue<?>[numCasillas];
+        this.casillas = colas;
+        for (int i = 0; i < numCasillas; i++) {
+            casillas[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.inicioNanos = System.nanoTime();
+        this.hilo = new Thread(this::girar, nombre);
+        this.hilo.setDaemon(true);
+        this.hilo.start();
+    }
+
+    /**
+     * Programa una tarea para ejecutarse después del retraso indicado
+     */
+    public Temporizador programar(Runnable tarea, long retraso, TimeUnit unidad) {
+        if (tarea == null) {
+            throw new IllegalArgumentException("La tarea no puede ser nula");
+        }
+        if (detenida) {
+            throw new IllegalStateException("La rueda de temporizadores está detenida");
+        }
+        Temporizador temporizador = new Temporizador(tarea, System.nanoTime() + Math.max(0, unidad.toNanos(retraso)));
+        // El hilo de la rueda lo ubica en su casilla en el siguiente tic
+        pendientes.add(temporizador);
+        return temporizador;
+    }
+
+    /**
+     * Detiene el hilo de la rueda; las tareas pendientes no se ejecutan
+     */
+    public void detener() {
+        detenida = true;
+        hilo.interrupt();
+    }
+
+    private void girar() {
+        while (!detenida) {
+            long siguiente = inicioNanos + (tic + 1) * ticNanos;
+            long espera = siguiente - System.nanoTime();
+            if (espera > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } catch (InterruptedException e) {
+                    if (detenida) {
+                        return;
+                    }
+                }
+            }
+            ubicarPendientes();
+            ejecutarCasilla(casillas[(int) (tic % casillas.length)]);
+            tic++;
+        }
+    }
+
+    private void ubicarPendientes() {
+        Temporizador temporizador;
+        while ((temporizador = pendientes.poll()) != null) {
+            if (temporizador.cancelado) {
+                continue;
+            }
+            long ticsHastaPlazo = Math.max(0, (temporizador.plazoNanos - inicioNanos + ticNanos - 1) / ticNanos - tic);
+            temporizador.vueltas = ticsHastaPlazo / casillas.length;
+            casillas[(int) ((tic + ticsHastaPlazo) % casillas.length)].add(temporizador);
+        }
+    }
+
+    private void ejecutarCasilla(ConcurrentLinkedQueue<Temporizador> casilla) {
+        int cantidad = casilla.size();
+        for (int i = 0; i < cantidad; i++) {
+            Temporizador temporizador = casilla.poll();
+            if (temporizador == null) {
+                break;
+            }
+            if (temporizador.cancelado) {
+                continue;
+            }
+            if (temporizador.vueltas > 0) {
+                temporizador.vueltas--;
+                casilla.add(temporizador);
+                continue;
+            }
+            try {
+                temporizador.tarea.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error en tarea programada: " + e.getMessage());
+            }
+        }
+    }
+}
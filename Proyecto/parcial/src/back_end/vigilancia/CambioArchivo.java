@@ -0,0 +1,26 @@
+package back_end.vigilancia;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Diferencia por id entre dos versiones de un archivo de datos
+ *
+ * @param archivo nombre del archivo, por ejemplo "juegos.json"
+ */
+public record CambioArchivo(String archivo, Set<String> agregados, Set<String> modificados, Set<String> eliminados) {
+
+    public boolean estaVacio() {
+        return agregados.isEmpty() && modificados.isEmpty() && eliminados.isEmpty();
+    }
+
+    /**
+     * Todos los ids que cambiaron, de cualquier forma
+     */
+    public Set<String> ids() {
+        Set<String> ids = new HashSet<>(agregados);
+        ids.addAll(modificados);
+        ids.addAll(eliminados);
+        return ids;
+    }
+}
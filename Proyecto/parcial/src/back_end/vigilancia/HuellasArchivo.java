@@ -0,0 +1,97 @@
+package back_end.vigilancia;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Huella de cada registro de un archivo JSON con un arreglo de objetos con
+ * "id": un hash de 64 bits del registro por id. Comparar dos huellas dice
+ * qué ids se agregaron, cambiaron o desaparecieron sin guardar los datos.
+ *
+ * Un elemento sin "id" (por ejemplo, los pares [usuarioId, lugarId] de
+ * membresias.json) se identifica por su propio contenido, así que solo
+ * puede aparecer como agregado o eliminado.
+ */
+final class HuellasArchivo {
+
+    private static final long FNV_BASE = 0xcbf29ce484222325L;
+    private static final long FNV_PRIMO = 0x100000001b3L;
+
+    private final Map<String, Long> porId;
+
+    private HuellasArchivo(Map<String, Long> porId) {
+        this.porId = porId;
+    }
+
+    static HuellasArchivo vacias() {
+        return new HuellasArchivo(Map.of());
+    }
+
+    /**
+     * Lee el archivo; si no existe no tiene registros
+     *
+     * @throws IOException si no se puede leer o no es JSON válido (por
+     * ejemplo, a medio escribir por otro programa)
+     */
+    static HuellasArchivo leer(Path archivo) throws IOException {
+        Map<String, Long> porId = new HashMap<>();
+        try (Reader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            JsonElement raiz = JsonParser.parseReader(reader);
+            if (raiz.isJsonArray()) {
+                for (JsonElement elemento : raiz.getAsJsonArray()) {
+                    JsonElement id = elemento.isJsonObject() ? elemento.getAsJsonObject().get("id") : null;
+                    String texto = elemento.toString();
+                    porId.put(id != null && id.isJsonPrimitive() ? id.getAsString() : texto, huella(texto));
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return vacias();
+        } catch (JsonParseException | IllegalStateException e) {
+            throw new IOException("Contenido JSON inválido: " + e.getMessage(), e);
+        }
+        return new HuellasArchivo(porId);
+    }
+
+    /**
+     * Qué cambió desde las huellas anteriores hasta estas
+     */
+    CambioArchivo desde(HuellasArchivo anteriores, String archivo) {
+        Set<String> agregados = new HashSet<>();
+        Set<String> modificados = new HashSet<>();
+        for (Map.Entry<String, Long> registro : porId.entrySet()) {
+            Long antes = anteriores.porId.get(registro.getKey());
+            if (antes == null) {
+                agregados.add(registro.getKey());
+            } else if (!antes.equals(registro.getValue())) {
+                modificados.add(registro.getKey());
+            }
+        }
+        Set<String> eliminados = new HashSet<>(anteriores.porId.keySet());
+        eliminados.removeAll(porId.keySet());
+        return new CambioArchivo(archivo, agregados, modificados, eliminados);
+    }
+
+    int tamaño() {
+        return porId.size();
+    }
+
+    private static long huella(String texto) {
+        long hash = FNV_BASE;
+        for (int i = 0; i < texto.length(); i++) {
+            hash ^= texto.charAt(i);
+            hash *= FNV_PRIMO;
+        }
+        return hash;
+    }
+}
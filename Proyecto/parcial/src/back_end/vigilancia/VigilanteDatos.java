@@ -0,0 +1,237 @@
+package back_end.vigilancia;
+
+import back_end.Excepciones.PersistenciaException;
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.dao.JuegoDAO;
+import back_end.dao.LugarDAO;
+import back_end.dao.UsuarioDAO;
+import back_end.eventos.BusEventos;
+import back_end.membresias.MembresiaLugares;
+import back_end.metricas.RegistroMetricas;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Vigila el directorio de datos y avisa qué registros cambiaron cuando otro
+ * programa (o una persona) modifica un archivo JSON.
+ *
+ * Usa WatchService, así que no hace sondeo. Los avisos de un mismo archivo
+ * se agrupan: la recarga se hace cuando pasan unos milisegundos sin
+ * cambios nuevos (unabet.vigilancia.esperaMs, 250). Solo se relee el
+ * archivo que cambió y se compara por id con la versión anterior (ver
+ * HuellasArchivo). Los oyentes del archivo reciben la diferencia, y
+ * también se publica en el bus como DATOS_CAMBIADOS; de los archivos con
+ * datos personales (usuarios.json y membresias.json) el bus solo recibe
+ * cuántos registros cambiaron, no sus ids.
+ *
+ * Los cachés de juegos y lugares descartan los ids que cambiaron, y el
+ * filtro de correos de usuarios se reconstruye si hay usuarios nuevos o
+ * modificados. El índice de inscripciones se vuelve a armar cuando cambia
+ * membresias.json. Las escrituras de la propia aplicación también se detectan;
+ * para ellas la recarga solo repite invalidaciones que ya se hicieron.
+ *
+ * Un archivo que no se puede leer (por ejemplo, a medio guardar por un
+ * editor) se ignora hasta su siguiente cambio.
+ */
+public final class VigilanteDatos {
+
+    private static final VigilanteDatos instance = new VigilanteDatos(
+            ConfiguracionAlmacenamiento.getInstance().getDirectorio(),
+            ConfiguracionAlmacenamiento.getInstance().largo("unabet.vigilancia.esperaMs", 250));
+    // DATOS_CAMBIADOS es público: de estos archivos no se publican los ids
+    private static final Set<String> PRIVADOS = Set.of("usuarios.json", "membresias.json");
+
+    private static final class Vigilado {
+
+        private final String archivo;
+        private final List<Consumer<CambioArchivo>> oyentes = new CopyOnWriteArrayList<>();
+        // Solo se usa desde el hilo de recargas
+        private HuellasArchivo huellas = HuellasArchivo.vacias();
+        private ScheduledFuture<?> pendiente;
+
+        private Vigilado(String archivo) {
+            this.archivo = archivo;
+        }
+    }
+
+    private final Path directorio;
+    private final long esperaMs;
+    private final Map<String, Vigilado> vigilados = new ConcurrentHashMap<>();
+    private ScheduledExecutorService recargador;
+    private WatchService servicio;
+
+    public VigilanteDatos(Path directorio, long esperaMs) {
+        if (esperaMs < 0) {
+            throw new IllegalArgumentException("La espera no puede ser negativa");
+        }
+        this.directorio = directorio.toAbsolutePath();
+        this.esperaMs = esperaMs;
+
+        registrar("juegos.json", cambio -> JuegoDAO.invalidarCache(cambio.ids()));
+        registrar("lugares.json", cambio -> LugarDAO.invalidarCache(cambio.ids()));
+        registrar("usuarios.json", cambio -> {
+            if (!cambio.agregados().isEmpty() || !cambio.modificados().isEmpty()) {
+                UsuarioDAO.invalidarFiltroCorreos();
+            }
+        });
+        registrar("membresias.json", cambio -> {
+            try {
+                MembresiaLugares.getInstance().recargar();
+            } catch (PersistenciaException e) {
+                System.err.println("No se pudo recargar membresias.json: " + e.getMessage());
+            }
+        });
+        registrar("apuestas.json", null);
+        registrar("calificaciones.json", null);
+    }
+
+    public static VigilanteDatos getInstance() {
+        return instance;
+    }
+
+    /**
+     * Vigila el archivo del directorio de datos y avisa al oyente (puede ser
+     * null para solo publicar en el bus)
+     */
+    public void registrar(String archivo, Consumer<CambioArchivo> oyente) {
+        Vigilado vigilado = vigilados.computeIfAbsent(archivo, Vigilado::new);
+        if (oyente != null) {
+            vigilado.oyentes.add(oyente);
+        }
+    }
+
+    /**
+     * Toma la versión actual de cada archivo y empieza a vigilar. Llamar
+     * más de una vez no tiene efecto.
+     */
+    public synchronized void iniciar() {
+        if (servicio != null) {
+            return;
+        }
+        recargador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "vigilante-datos-recarga");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Las huellas iniciales se toman en el mismo hilo que las recargas, antes que cualquiera
+        for (Vigilado vigilado : vigilados.values()) {
+            recargador.execute(() -> tomarHuellas(vigilado));
+        }
+        try {
+            servicio = directorio.getFileSystem().newWatchService();
+            directorio.register(servicio, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException e) {
+            System.err.println("No se pudo vigilar el directorio de datos " + directorio + ": " + e.getMessage());
+            recargador.shutdownNow();
+            servicio = null;
+            return;
+        }
+        WatchService vigilando = servicio;
+        Thread hilo = new Thread(() -> vigilar(vigilando), "vigilante-datos");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    public synchronized void detener() {
+        if (servicio == null) {
+            return;
+        }
+        try {
+            servicio.close();
+        } catch (IOException e) {
+            System.err.println("Error al cerrar el vigilante de datos: " + e.getMessage());
+        }
+        servicio = null;
+        recargador.shutdownNow();
+    }
+
+    private void vigilar(WatchService vigilando) {
+        while (true) {
+            WatchKey clave;
+            try {
+                clave = vigilando.take();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                return;
+            }
+            for (WatchEvent<?> evento : clave.pollEvents()) {
+                if (evento.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Se perdieron avisos: revisar todos los archivos
+                    vigilados.values().forEach(this::programar);
+                } else {
+                    Vigilado vigilado = vigilados.get(evento.context().toString());
+                    if (vigilado != null) {
+                        programar(vigilado);
+                    }
+                }
+            }
+            if (!clave.reset()) {
+                System.err.println("El directorio de datos " + directorio + " dejó de estar disponible");
+                return;
+            }
+        }
+    }
+
+    /**
+     * Programa la recarga del archivo; si ya había una pendiente, la
+     * reemplaza para esperar a que los cambios terminen
+     */
+    private synchronized void programar(Vigilado vigilado) {
+        if (recargador == null || recargador.isShutdown()) {
+            return;
+        }
+        if (vigilado.pendiente != null) {
+            vigilado.pendiente.cancel(false);
+        }
+        vigilado.pendiente = recargador.schedule(() -> recargar(vigilado), esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void tomarHuellas(Vigilado vigilado) {
+        try {
+            vigilado.huellas = HuellasArchivo.leer(directorio.resolve(vigilado.archivo));
+        } catch (IOException e) {
+            System.err.println("No se pudo leer " + vigilado.archivo + " para vigilarlo: " + e.getMessage());
+        }
+    }
+
+    private void recargar(Vigilado vigilado) {
+        HuellasArchivo nuevas;
+        try {
+            nuevas = HuellasArchivo.leer(directorio.resolve(vigilado.archivo));
+        } catch (IOException e) {
+            System.err.println("No se pudo releer " + vigilado.archivo + "; se intentará en su próximo cambio: "
+                    + e.getMessage());
+            return;
+        }
+        CambioArchivo cambio = nuevas.desde(vigilado.huellas, vigilado.archivo);
+        vigilado.huellas = nuevas;
+        if (cambio.estaVacio()) {
+            return;
+        }
+        RegistroMetricas.getInstance().contador("unabet_vigilancia_recargas_total",
+                "Recargas de archivos de datos que cambiaron en disco", "archivo", vigilado.archivo).incrementar();
+        for (Consumer<CambioArchivo> oyente : vigilado.oyentes) {
+            try {
+                oyente.accept(cambio);
+            } catch (RuntimeException e) {
+                System.err.println("Error al aplicar el cambio de " + vigilado.archivo + ": " + e.getMessage());
+            }
+        }
+        BusEventos.getInstance().publicarCambioDatos(cambio, !PRIVADOS.contains(vigilado.archivo));
+    }
+}
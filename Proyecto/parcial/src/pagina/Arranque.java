@@ -0,0 +1,167 @@
+package pagina;
+
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.dao.ApuestaDAO;
+import back_end.dao.JuegoDAO;
+import back_end.dao.LugarDAO;
+import back_end.dao.UsuarioDAO;
+import back_end.metricas.RegistroMetricas;
+import back_end.notificaciones.RepartidorNotificaciones;
+import back_end.programacion.ProgramadorJuegos;
+import back_end.seguridad.ServicioContrasenas;
+import back_end.vigilancia.VigilanteDatos;
+import java.awt.EventQueue;
+import java.awt.GraphicsEnvironment;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.JOptionPane;
+import javax.swing.UIManager;
+
+/**
+ * Secuencia de arranque de la aplicación de escritorio.
+ *
+ * La imagen de bienvenida la muestra la propia JVM (SplashScreen-Image del
+ * manifiesto) antes de llegar a main. Mientras el hilo principal configura
+ * el Look and Feel y construye la primera pantalla, hilos virtuales
+ * precalientan en paralelo los almacenes JSON, los iconos y el cifrado. Con
+ * la primera pantalla visible se construye el login oculto, de modo que
+ * pasar a él no cuesta nada.
+ *
+ * Propiedades:
+ * unabet.arranque.reporte (false) imprime los tiempos de cada fase.
+ * unabet.arranque.entrenamiento (false) termina al completar el arranque;
+ * lo usa "ant cds" para generar el archivo AppCDS.
+ * unabet.metricas.archivo exporta las métricas a ese archivo periódicamente.
+ */
+final class Arranque {
+
+    private static final boolean REPORTE = Boolean.parseBoolean(System.getProperty("unabet.arranque.reporte", "false"));
+    private static final boolean ENTRENAMIENTO = Boolean.getBoolean("unabet.arranque.entrenamiento");
+
+    private static final String[] FONDOS = {"/icons/UNABet++.png", "/icons/fondo_login.png"};
+
+    private Arranque() {
+    }
+
+    static void iniciar() {
+        TiemposArranque.marcar("main");
+        if (!validarConfiguracion()) {
+            return;
+        }
+        RegistroMetricas.getInstance().configurarExportacionDesdePropiedades();
+        RepartidorNotificaciones.getInstance().iniciar();
+        ProgramadorJuegos.getInstance().iniciar();
+        VigilanteDatos.getInstance().iniciar();
+        CompletableFuture<Void> precarga = precargarEnParalelo();
+
+        configurarLookAndFeel();
+        TiemposArranque.marcar("lookAndFeel");
+
+        if (GraphicsEnvironment.isHeadless()) {
+            // Sin pantalla (entrenamiento en un servidor) basta con cargar las clases de las pantallas
+            Navegador.registradas();
+            TiemposArranque.marcar("clasesPantallas");
+            // Los hilos virtuales no mantienen viva la JVM: esperar aquí la precarga
+            precarga.join();
+            terminar(precarga);
+            return;
+        }
+
+        EventQueue.invokeLater(() -> {
+            VentanaDiagnostico.instalarAtajo();
+            Navegador.ir(null, Menu_inicial.class);
+            TiemposArranque.marcar("primeraPantalla");
+            EventQueue.invokeLater(() -> {
+                Navegador.precargar(Login_1.class);
+                TiemposArranque.marcar("loginListo");
+                terminar(precarga);
+            });
+        });
+    }
+
+    /**
+     * Revisa la configuración de almacenamiento antes de tocar los datos; si
+     * tiene problemas los muestra y termina
+     */
+    private static boolean validarConfiguracion() {
+        ConfiguracionAlmacenamiento configuracion = ConfiguracionAlmacenamiento.getInstance();
+        List<String> problemas = configuracion.validar();
+        if (problemas.isEmpty()) {
+            if (REPORTE) {
+                System.out.println("Almacenamiento: " + configuracion);
+            }
+            return true;
+        }
+        String mensaje = "La configuración de almacenamiento tiene problemas:\n- " + String.join("\n- ", problemas);
+        System.err.println(mensaje);
+        if (!GraphicsEnvironment.isHeadless()) {
+            JOptionPane.showMessageDialog(null, mensaje, "UNABet", JOptionPane.ERROR_MESSAGE);
+        }
+        System.exit(1);
+        return false;
+    }
+
+    private static CompletableFuture<Void> precargarEnParalelo() {
+        ExecutorService hilos = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("arranque-", 0).factory());
+        CompletableFuture<Void> precarga = CompletableFuture.allOf(
+                tarea(hilos, "iconos", () -> {
+                    for (String ruta : Iconos.NAVEGACION) {
+                        Iconos.escalado(ruta, Iconos.TAMAÑO_NAVEGACION, Iconos.TAMAÑO_NAVEGACION);
+                    }
+                    for (String ruta : FONDOS) {
+                        Iconos.original(ruta);
+                    }
+                }),
+                tarea(hilos, "usuarios", () -> consultar(() -> {
+                    UsuarioDAO.precalentar();
+                    return null;
+                })),
+                tarea(hilos, "lugares", () -> consultar(LugarDAO::contarLugares)),
+                tarea(hilos, "juegos", () -> consultar(JuegoDAO::contarJuegos)),
+                tarea(hilos, "apuestas", () -> consultar(ApuestaDAO::obtenerTodasLasApuestas)),
+                tarea(hilos, "cifrado", ServicioContrasenas::precalentar));
+        hilos.shutdown();
+        return precarga;
+    }
+
+    private static CompletableFuture<Void> tarea(ExecutorService hilos, String nombre, Runnable accion) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                TiemposArranque.medir(nombre, accion);
+            } catch (RuntimeException e) {
+                // Un fallo al precalentar no impide arrancar: la pantalla cargará los datos al usarlos
+                System.err.println("Error al precargar " + nombre + ": " + e.getMessage());
+            }
+        }, hilos);
+    }
+
+    private static void consultar(DatosAsync.Consulta<?> consulta) {
+        try {
+            consulta.ejecutar();
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private static void configurarLookAndFeel() {
+        // Se fija Nimbus directamente en lugar de recorrer los Look and Feel instalados
+        try {
+            UIManager.setLookAndFeel("javax.swing.plaf.nimbus.NimbusLookAndFeel");
+        } catch (Exception ex) {
+            java.util.logging.Logger.getLogger(Arranque.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
+        }
+    }
+
+    private static void terminar(CompletableFuture<Void> precarga) {
+        precarga.whenComplete((valor, error) -> {
+            if (REPORTE || ENTRENAMIENTO) {
+                System.out.print(TiemposArranque.reporte());
+            }
+            if (ENTRENAMIENTO) {
+                System.exit(0);
+            }
+        });
+    }
+}
@@ -4,15 +4,22 @@
  */
 package pagina;
 
+import back_end.calendario.CalendarioEventos;
+import back_end.calendario.EventoCalendario;
+import back_end.calendario.MesCalendario;
+import back_end.Classes.SessionManager;
+import back_end.Classes.Usuario;
 import java.awt.Dimension;
-import java.awt.Image;
-import javax.swing.ImageIcon;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 
 /**
  *
  * @author Karol Saavedra
  */
-public class Calendario extends javax.swing.JFrame {
+public class Calendario extends javax.swing.JFrame implements Navegador.Refrescable {
 
     /**
      * Creates new form Horario
@@ -24,13 +31,98 @@ public class Calendario extends javax.swing.JFrame {
         redimensionarImagen("/icons/notificacion.png", notificaciones);
         redimensionarImagen("/icons/calendar_1.png", calendario);
         redimensionarImagen("/icons/trad.png", traduccion);
+        // La rueda del ratón sobre los meses cambia de año
+        jPanel2.addMouseWheelListener(evt -> mostrarAño(año + Integer.signum(evt.getWheelRotation())));
+        mostrarAño(Year.now().getValue());
+    }
+
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+
+    private int año;
+
+    /**
+     * Etiquetas de las semanas de cada mes, de enero a diciembre
+     */
+    private javax.swing.JLabel[][] semanas() {
+        return new javax.swing.JLabel[][]{
+            {jLabel10, jLabel11, jLabel12, jLabel13, jLabel14},
+            {jLabel4, jLabel5, jLabel6, jLabel7},
+            {jLabel16, jLabel17, jLabel18, jLabel19, jLabel20},
+            {jLabel22, jLabel23, jLabel24, jLabel25, jLabel26},
+            {jLabel28, jLabel29, jLabel30, jLabel31, jLabel32},
+            {jLabel64, jLabel65, jLabel66, jLabel67, jLabel68},
+            {jLabel70, jLabel71, jLabel72, jLabel73, jLabel74},
+            {jLabel40, jLabel41, jLabel42, jLabel43, jLabel44},
+            {jLabel46, jLabel47, jLabel48, jLabel49, jLabel50},
+            {jLabel52, jLabel53, jLabel54, jLabel55, jLabel56},
+            {jLabel82, jLabel83, jLabel84, jLabel85, jLabel88},
+            {jLabel76, jLabel77, jLabel78, jLabel79, jLabel87}
+        };
+    }
+
+    @Override
+    public void refrescar() {
+        mostrarAño(año);
+    }
+
+    private void mostrarAño(int nuevoAño) {
+        año = nuevoAño;
+        jLabel2.setText(String.valueOf(año));
+        Usuario usuario = SessionManager.getInstance().getUsuarioActual();
+        String usuarioId = usuario != null ? usuario.getId() : null;
+        javax.swing.JLabel[][] semanas = semanas();
+        for (int i = 0; i < semanas.length; i++) {
+            YearMonth mes = YearMonth.of(año, i + 1);
+            javax.swing.JLabel[] filas = semanas[i];
+            pintarMes(mes, filas, null);
+            // Cada mes se carga por separado; los ya calculados salen del caché del calendario
+            DatosAsync.cargar(this, "mes-" + (i + 1), () -> CalendarioEventos.getInstance().resumenMes(usuarioId, mes),
+                    resumen -> pintarMes(mes, filas, resumen),
+                    e -> System.err.println("Error al cargar el calendario de " + mes + ": " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Escribe los días del mes en sus filas y resalta los que tienen eventos
+     */
+    private void pintarMes(YearMonth mes, javax.swing.JLabel[] filas, MesCalendario resumen) {
+        int dias = mes.lengthOfMonth();
+        LocalDate hoy = LocalDate.now();
+        for (int fila = 0; fila < filas.length; fila++) {
+            int primero = fila * 7 + 1;
+            // Febrero solo tiene cuatro filas: el 29 de los bisiestos va en la última
+            int ultimo = fila == filas.length - 1 ? dias : Math.min(primero + 6, dias);
+            StringBuilder texto = new StringBuilder("<html>");
+            StringBuilder detalle = new StringBuilder();
+            for (int dia = primero; dia <= ultimo; dia++) {
+                String numero = String.format("%02d", dia);
+                boolean conEventos = resumen != null && resumen.tieneEventos(dia);
+                boolean esHoy = mes.atDay(dia).equals(hoy);
+                if (conEventos) {
+                    texto.append("<b><font color='#d35400'>").append(numero).append("</font></b>");
+                    for (EventoCalendario evento : resumen.delDia(dia)) {
+                        detalle.append(detalle.length() == 0 ? "<html>" : "<br>")
+                                .append(numero).append(": ").append(describir(evento));
+                    }
+                } else if (esHoy) {
+                    texto.append("<u>").append(numero).append("</u>");
+                } else {
+                    texto.append(numero);
+                }
+                texto.append(' ');
+            }
+            filas[fila].setText(primero <= dias ? texto.append("</html>").toString() : " ");
+            filas[fila].setToolTipText(detalle.length() > 0 ? detalle.append("</html>").toString() : null);
+        }
+    }
+
+    private static String describir(EventoCalendario evento) {
+        String desde = evento.titulo() + " " + evento.inicio().format(HORA);
+        return evento.fin().equals(evento.inicio()) ? desde : desde + " a " + evento.fin().format(HORA);
     }
 
     private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(50, 50));
         label.setSize(50, 50);
     }
@@ -1025,44 +1117,32 @@ public class Calendario extends javax.swing.JFrame {
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Calendario ventana = new Calendario();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Calendario.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     private void jLabel8MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_jLabel8MouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
 
     }//GEN-LAST:event_jLabel8MouseClicked
 
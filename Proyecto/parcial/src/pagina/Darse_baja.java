@@ -4,15 +4,19 @@
  */
 package pagina;
 
+import back_end.Classes.Lugar;
+import back_end.Classes.SessionManager;
+import back_end.Classes.Usuario;
+import back_end.dao.LugarDAO;
 import java.awt.Dimension;
-import java.awt.Image;
-import javax.swing.ImageIcon;
+import java.util.List;
+import javax.swing.JOptionPane;
 
 /**
  *
  * @author Karol Saavedra
  */
-public class Darse_baja extends javax.swing.JFrame {
+public class Darse_baja extends javax.swing.JFrame implements Navegador.Refrescable {
 
     /**
      * Creates new form Darse_baja
@@ -24,12 +28,69 @@ public class Darse_baja extends javax.swing.JFrame {
         redimensionarImagen("/icons/notificacion.png", notificaciones);
         redimensionarImagen("/icons/calendar_1.png", calendario);
         redimensionarImagen("/icons/trad.png", traduccion);
+        mostrarUsuario();
+    }
+
+    @Override
+    public void refrescar() {
+        mostrarUsuario();
+    }
+
+    /**
+     * Llena los datos del usuario de la sesión
+     */
+    private void mostrarUsuario() {
+        Usuario usuario = SessionManager.getInstance().getUsuarioActual();
+        nombre2.setText(usuario != null ? usuario.getCorreo() : "");
+        id2.setText(usuario != null ? usuario.getNombre() : "");
+        id1.setText(usuario != null ? usuario.getuid() : "");
+    }
+
+    private void darseDeBaja() {
+        Usuario usuario = SessionManager.getInstance().getUsuarioActual();
+        if (usuario == null) {
+            JOptionPane.showMessageDialog(this, "Inicia sesión para darte de baja de un lugar", "Lugares",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String nombreLugar = lugar_apuesta1.getText().trim();
+        if (nombreLugar.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "Escribe el nombre del lugar", "Lugares", JOptionPane.WARNING_MESSAGE);
+            lugar_apuesta1.requestFocus();
+            return;
+        }
+        Darse_baja_bot.setEnabled(false);
+        record Resultado(String lugar, boolean cambio) {
+        }
+        DatosAsync.escribir(this, "darseDeBaja", () -> {
+            List<Lugar> lugares = LugarDAO.buscarPorNombre(nombreLugar);
+            // Si hay varios, el de nombre exacto; si no, el primero
+            Lugar lugar = lugares.stream().filter(l -> l.getNombre().equalsIgnoreCase(nombreLugar)).findFirst()
+                    .orElse(lugares.isEmpty() ? null : lugares.get(0));
+            if (lugar == null) {
+                return null;
+            }
+            return new Resultado(lugar.getNombre(), usuario.darseDeBajaEnLugar(lugar));
+        }, resultado -> {
+            Darse_baja_bot.setEnabled(true);
+            if (resultado == null) {
+                JOptionPane.showMessageDialog(this, "No existe un lugar llamado " + nombreLugar, "Lugares",
+                        JOptionPane.WARNING_MESSAGE);
+            } else if (!resultado.cambio()) {
+                JOptionPane.showMessageDialog(this, "No estabas inscrito en " + resultado.lugar(), "Lugares",
+                        JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Te diste de baja de " + resultado.lugar(), "Lugares", JOptionPane.INFORMATION_MESSAGE);
+                Navegador.ir(this, Lugares_inicio.class);
+            }
+        }, e -> {
+            Darse_baja_bot.setEnabled(true);
+            JOptionPane.showMessageDialog(this, "No se pudo dar de baja: " + e.getMessage(), "Lugares",
+                    JOptionPane.ERROR_MESSAGE);
+        });
     }
         private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(50, 50));
         label.setSize(50, 50);
     }
@@ -401,37 +462,27 @@ public class Darse_baja extends javax.swing.JFrame {
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Calendario ventana = new Calendario();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Calendario.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     private void tipo_apuestaActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_tipo_apuestaActionPerformed
@@ -456,9 +507,7 @@ public class Darse_baja extends javax.swing.JFrame {
 
     private void Darse_baja_botActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_Darse_baja_botActionPerformed
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        darseDeBaja();
     }//GEN-LAST:event_Darse_baja_botActionPerformed
 
     /**
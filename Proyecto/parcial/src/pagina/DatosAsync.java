@@ -0,0 +1,208 @@
+package pagina;
+
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import java.awt.Window;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Acceso asíncrono a los datos para las pantallas de la interfaz.
+ *
+ * Las consultas a los DAO (lectura de archivos JSON, cifrado de
+ * contraseñas) se ejecutan en hilos virtuales y sus resultados se entregan
+ * en el hilo de eventos de Swing, así la ventana nunca se congela esperando
+ * disco. Como máximo MAX_CONCURRENTES consultas tocan el disco a la vez.
+ *
+ * Cada carga queda asociada a su ventana y a una clave: si se pide otra vez
+ * la misma clave se cancela la anterior, y al cerrar u ocultar la ventana se
+ * cancelan todas sus cargas pendientes.
+ *
+ * Las operaciones que escriben (registro, inicio de sesión, inscripciones,
+ * mensajes) van por escribir(): cancelarlas solo descarta su resultado y
+ * nunca interrumpe el hilo, porque una escritura interrumpida se corta a
+ * mitad de camino (el canal del archivo se cierra con
+ * ClosedByInterruptException) después de haber hecho parte de sus cambios.
+ */
+final class DatosAsync {
+
+    /**
+     * Consulta que puede lanzar las excepciones de los DAO
+     */
+    @FunctionalInterface
+    interface Consulta<T> {
+
+        T ejecutar() throws Exception;
+    }
+
+    private static final int MAX_CONCURRENTES = ConfiguracionAlmacenamiento.getInstance()
+            .entero("unabet.ui.consultasConcurrentes", 4);
+
+    private static final ExecutorService EJECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("datos-ui-", 0).factory());
+    private static final Semaphore PERMISOS = new Semaphore(MAX_CONCURRENTES);
+
+    // Cargas pendientes por ventana; WeakHashMap para no retener ventanas cerradas
+    private static final Map<Window, Map<String, CompletableFuture<?>>> pendientes = new WeakHashMap<>();
+    private static final Map<Window, Boolean> observadas = new WeakHashMap<>();
+
+    private DatosAsync() {
+    }
+
+    /**
+     * Ejecuta la consulta en segundo plano, sin entregar el resultado al
+     * hilo de eventos
+     */
+    static <T> CompletableFuture<T> cargar(Consulta<T> consulta) {
+        return ejecutar(consulta, true);
+    }
+
+    /**
+     * Ejecuta en segundo plano una operación que escribe. Una vez pedida se
+     * ejecuta completa aunque se cancele el futuro.
+     */
+    static <T> CompletableFuture<T> escribir(Consulta<T> consulta) {
+        return ejecutar(consulta, false);
+    }
+
+    private static <T> CompletableFuture<T> ejecutar(Consulta<T> consulta, boolean interrumpible) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        Future<?> tarea = EJECUTOR.submit(() -> {
+            try {
+                PERMISOS.acquire();
+            } catch (InterruptedException e) {
+                resultado.cancel(false);
+                return;
+            }
+            try {
+                if (!interrumpible || !resultado.isDone()) {
+                    resultado.complete(consulta.ejecutar());
+                }
+            } catch (Throwable e) {
+                resultado.completeExceptionally(e);
+            } finally {
+                PERMISOS.release();
+            }
+        });
+        if (interrumpible) {
+            // Cancelar el futuro interrumpe el hilo que hace la consulta
+            resultado.whenComplete((valor, error) -> {
+                if (resultado.isCancelled()) {
+                    tarea.cancel(true);
+                }
+            });
+        }
+        return resultado;
+    }
+
+    /**
+     * Ejecuta la consulta en segundo plano y entrega el resultado (o el
+     * error) en el hilo de eventos, siempre que la carga siga vigente.
+     *
+     * @param ventana ventana dueña de la carga; al cerrarse se cancela
+     * @param clave identifica la carga dentro de la ventana; una nueva carga
+     * con la misma clave cancela la anterior
+     */
+    static <T> CompletableFuture<T> cargar(Window ventana, String clave, Consulta<T> consulta,
+            Consumer<? super T> alCompletar, Consumer<Throwable> alFallar) {
+        return entregar(ventana, clave, cargar(consulta), alCompletar, alFallar);
+    }
+
+    /**
+     * Como cargar(ventana, ...), para una operación que escribe: cerrar la
+     * ventana o repetir la clave descarta el resultado, pero la operación
+     * termina igual
+     */
+    static <T> CompletableFuture<T> escribir(Window ventana, String clave, Consulta<T> consulta,
+            Consumer<? super T> alCompletar, Consumer<Throwable> alFallar) {
+        return entregar(ventana, clave, escribir(consulta), alCompletar, alFallar);
+    }
+
+    private static <T> CompletableFuture<T> entregar(Window ventana, String clave, CompletableFuture<T> futuro,
+            Consumer<? super T> alCompletar, Consumer<Throwable> alFallar) {
+        registrar(ventana, clave, futuro);
+
+        futuro.whenComplete((valor, error) -> SwingUtilities.invokeLater(() -> {
+            if (!desregistrar(ventana, clave, futuro) || futuro.isCancelled()) {
+                return; // La carga quedó obsoleta
+            }
+            if (error == null) {
+                alCompletar.accept(valor);
+            } else if (alFallar != null) {
+                alFallar.accept(causaReal(error));
+            } else {
+                System.err.println("Error al cargar datos (" + clave + "): " + causaReal(error).getMessage());
+            }
+        }));
+        return futuro;
+    }
+
+    /**
+     * Cancela todas las cargas pendientes de la ventana
+     */
+    static void cancelar(Window ventana) {
+        Map<String, CompletableFuture<?>> cargas;
+        synchronized (pendientes) {
+            cargas = pendientes.remove(ventana);
+        }
+        if (cargas != null) {
+            cargas.values().forEach(futuro -> futuro.cancel(true));
+        }
+    }
+
+    private static void registrar(Window ventana, String clave, CompletableFuture<?> futuro) {
+        CompletableFuture<?> anterior;
+        synchronized (pendientes) {
+            Map<String, CompletableFuture<?>> cargas = pendientes.get(ventana);
+            if (cargas == null) {
+                cargas = new ConcurrentHashMap<>();
+                pendientes.put(ventana, cargas);
+            }
+            if (observadas.put(ventana, Boolean.TRUE) == null) {
+                ventana.addWindowListener(new WindowAdapter() {
+                    @Override
+                    public void windowClosed(WindowEvent e) {
+                        cancelar(ventana);
+                    }
+                });
+                ventana.addComponentListener(new ComponentAdapter() {
+                    @Override
+                    public void componentHidden(ComponentEvent e) {
+                        // Al navegar a otra pantalla la actual se oculta: sus cargas ya no sirven
+                        cancelar(ventana);
+                    }
+                });
+            }
+            anterior = cargas.put(clave, futuro);
+        }
+        if (anterior != null) {
+            anterior.cancel(true);
+        }
+    }
+
+    private static boolean desregistrar(Window ventana, String clave, CompletableFuture<?> futuro) {
+        synchronized (pendientes) {
+            Map<String, CompletableFuture<?>> cargas = pendientes.get(ventana);
+            return cargas != null && cargas.remove(clave, futuro);
+        }
+    }
+
+    private static Throwable causaReal(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+}
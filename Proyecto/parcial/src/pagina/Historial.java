@@ -5,8 +5,6 @@
 package pagina;
 
 import java.awt.Dimension;
-import java.awt.Image;
-import javax.swing.ImageIcon;
 
 /**
  *
@@ -26,10 +24,7 @@ public class Historial extends javax.swing.JFrame {
         redimensionarImagen("/icons/trad.png", traduccion);
     }
     private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(50, 50));
         label.setSize(50, 50);
     }
@@ -1306,37 +1301,27 @@ public class Historial extends javax.swing.JFrame {
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Historial ventana = new Historial();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Historial.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     /**
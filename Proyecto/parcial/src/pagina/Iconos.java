@@ -0,0 +1,97 @@
+package pagina;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+
+/**
+ * Cache de iconos compartida por todas las ventanas.
+ *
+ * Cada imagen de /icons se decodifica una sola vez y cada tamaño pedido se
+ * escala una sola vez. Ambas caches usan SoftReference: si falta memoria la
+ * JVM puede liberarlas y se regeneran en el siguiente uso.
+ */
+final class Iconos {
+
+    /**
+     * Iconos de la barra de navegación, presentes en casi todas las ventanas
+     */
+    static final String[] NAVEGACION = {
+        "/icons/usuario_96.png", "/icons/notificacion.png", "/icons/calendar_1.png", "/icons/trad.png"
+    };
+
+    static final int TAMAÑO_NAVEGACION = 50;
+
+    private static final ConcurrentHashMap<String, SoftReference<BufferedImage>> originales = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, SoftReference<ImageIcon>> escalados = new ConcurrentHashMap<>();
+
+    private Iconos() {
+    }
+
+    /**
+     * Obtiene el icono de la ruta escalado al tamaño indicado
+     */
+    static ImageIcon escalado(String ruta, int ancho, int alto) {
+        String clave = ruta + "@" + ancho + "x" + alto;
+        SoftReference<ImageIcon> referencia = escalados.get(clave);
+        ImageIcon icono = referencia != null ? referencia.get() : null;
+        if (icono == null) {
+            icono = new ImageIcon(escalar(original(ruta), ancho, alto));
+            escalados.put(clave, new SoftReference<>(icono));
+        }
+        return icono;
+    }
+
+    /**
+     * Obtiene la imagen original decodificada
+     */
+    static BufferedImage original(String ruta) {
+        SoftReference<BufferedImage> referencia = originales.get(ruta);
+        BufferedImage imagen = referencia != null ? referencia.get() : null;
+        if (imagen == null) {
+            imagen = decodificar(ruta);
+            originales.put(ruta, new SoftReference<>(imagen));
+        }
+        return imagen;
+    }
+
+    private static BufferedImage decodificar(String ruta) {
+        try (InputStream in = Iconos.class.getResourceAsStream(ruta)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No se encontró el recurso " + ruta);
+            }
+            BufferedImage imagen = ImageIO.read(in);
+            if (imagen == null) {
+                throw new IllegalArgumentException("Formato de imagen no soportado: " + ruta);
+            }
+            return imagen;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Error al leer el recurso " + ruta + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static BufferedImage escalar(BufferedImage origen, int ancho, int alto) {
+        // Reducir a la mitad en pasos sucesivos da un resultado similar a SCALE_SMOOTH
+        BufferedImage actual = origen;
+        while (actual.getWidth() / 2 >= ancho && actual.getHeight() / 2 >= alto) {
+            actual = dibujar(actual, actual.getWidth() / 2, actual.getHeight() / 2);
+        }
+        return dibujar(actual, ancho, alto);
+    }
+
+    private static BufferedImage dibujar(BufferedImage origen, int ancho, int alto) {
+        BufferedImage destino = new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = destino.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(origen, 0, 0, ancho, alto, null);
+        g.dispose();
+        return destino;
+    }
+}
@@ -6,20 +6,17 @@ package pagina;
 
 import back_end.Classes.SessionManager;
 import back_end.Classes.Usuario;
+import back_end.Excepciones.LimiteIntentosException;
 import back_end.Excepciones.PersistenciaException;
-import java.awt.Graphics;
-import java.awt.Image;
+import back_end.sesion.RegistroSesiones;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
-import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
-import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
-import javax.swing.SwingWorker;
 
-public class Login_1 extends javax.swing.JFrame {
+public class Login_1 extends javax.swing.JFrame implements Navegador.Refrescable {
 
-    FondoPanel fondo = new FondoPanel();
+    PanelFondo fondo = new PanelFondo("/icons/fondo_login.png");
     private boolean intentandoLogin = false;
 
     public Login_1() {
@@ -116,22 +113,16 @@ public class Login_1 extends javax.swing.JFrame {
         login.setEnabled(false);
         login.setText("Verificando...");
 
-        // Usar SwingWorker para no bloquear la UI
-        SwingWorker<Usuario, Void> worker = new SwingWorker<Usuario, Void>() {
-            @Override
-            protected Usuario doInBackground() throws Exception {
-                // Intentar iniciar sesión
-                return Usuario.iniciarSesion(correo, contraseña);
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    Usuario usuarioLogueado = get();
-
-                    if (usuarioLogueado != null) {
-                        // Establecer el usuario en el SessionManager
-                        SessionManager.getInstance().setUsuarioActual(usuarioLogueado);
+        // Iniciar sesión en segundo plano para no bloquear la UI
+        DatosAsync.escribir(this, "login",
+                () -> RegistroSesiones.getInstance().iniciarSesion(correo, contraseña, "local"),
+                sesion -> {
+                    restaurarBotonLogin();
+                    
+                    if (sesion != null) {
+                        Usuario usuarioLogueado = sesion.getUsuario();
+                        // Establecer la sesión en el SessionManager
+                        SessionManager.getInstance().setSesion(sesion);
                         
                         // Mostrar mensaje de éxito
                         JOptionPane.showMessageDialog(Login_1.this, 
@@ -148,11 +139,15 @@ public class Login_1 extends javax.swing.JFrame {
                         limpiarCampos();
                         username.requestFocus();
                     }
-
-                } catch (java.util.concurrent.ExecutionException e) {
-                    // Obtener la causa real de la excepción
-                    Throwable causa = e.getCause();
-                    if (causa instanceof PersistenciaException) {
+                },
+                causa -> {
+                    restaurarBotonLogin();
+                    
+                    if (causa instanceof LimiteIntentosException) {
+                        mostrarError(causa.getMessage() + "\nTiempo de espera: "
+                                + ((LimiteIntentosException) causa).getSegundosEspera() + " segundos",
+                                   "Demasiados intentos");
+                    } else if (causa instanceof PersistenciaException) {
                         mostrarError("Error al conectar con la base de datos:\n" + causa.getMessage(), 
                                    "Error de Base de Datos");
                         System.err.println("Error de persistencia: " + causa.getMessage());
@@ -161,21 +156,7 @@ public class Login_1 extends javax.swing.JFrame {
                                    "Error del Sistema");
                         causa.printStackTrace();
                     }
-                } catch (InterruptedException e) {
-                    mostrarError("La operación fue interrumpida", "Operación Cancelada");
-                    Thread.currentThread().interrupt(); // Restaurar el estado de interrupción
-                } catch (Exception e) {
-                    mostrarError("Error inesperado del sistema:\n" + e.getMessage(), 
-                               "Error del Sistema");
-                    e.printStackTrace();
-                } finally {
-                    // Restaurar estado del botón
-                    restaurarBotonLogin();
-                }
-            }
-        };
-
-        worker.execute();
+                });
     }
     
     private boolean validarFormatoCorreo(String correo) {
@@ -188,9 +169,8 @@ public class Login_1 extends javax.swing.JFrame {
             // Crear y mostrar la ventana principal
             SwingUtilities.invokeLater(() -> {
                 try {
-                    Lugares_inicio ventana = new Lugares_inicio(usuario);
-                    ventana.setVisible(true);
-                    this.dispose(); // Cerrar la ventana de login
+                    // La pantalla principal toma el usuario de la sesión recién iniciada
+                    Navegador.ir(this, Lugares_inicio.class);
                 } catch (Exception e) {
                     mostrarError("Error al abrir la ventana principal:\n" + e.getMessage(), 
                                "Error de Sistema");
@@ -207,6 +187,13 @@ public class Login_1 extends javax.swing.JFrame {
         }
     }
     
+    @Override
+    public void refrescar() {
+        // Al volver al login (por ejemplo desde el registro) no conservar la contraseña anterior
+        limpiarCampos();
+        restaurarBotonLogin();
+    }
+
     private void limpiarCampos() {
         password.setText("");
         // No limpiar el username para que el usuario no tenga que escribirlo de nuevo
@@ -376,9 +363,7 @@ public class Login_1 extends javax.swing.JFrame {
 
     private void registarteMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_registarteMouseClicked
         try {
-            Registrarse ventana = new Registrarse();
-            ventana.setVisible(true);
-            this.dispose();
+            Navegador.ir(this, Registrarse.class);
         } catch (Exception e) {
             mostrarError("Error al abrir la ventana de registro:\n" + e.getMessage(), "Error del Sistema");
         }
@@ -440,16 +425,4 @@ public class Login_1 extends javax.swing.JFrame {
     private javax.swing.JLabel registarte;
     private javax.swing.JTextField username;
     // End of variables declaration//GEN-END:variables
-    class FondoPanel extends JPanel {
-
-        private Image imagen;
-
-        @Override
-        public void paint(Graphics g) {
-            imagen = new ImageIcon(getClass().getResource("/icons/fondo_login.png")).getImage();
-            g.drawImage(imagen, 0, 0, getWidth(), getHeight(), this);
-            setOpaque(false);
-            super.paint(g);
-        }
-    }
 }
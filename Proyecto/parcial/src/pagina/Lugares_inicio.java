@@ -4,17 +4,23 @@
  */
 package pagina;
 
+import back_end.Classes.Calificacion;
+import back_end.Classes.Lugar;
+import back_end.Classes.SessionManager;
 import back_end.Classes.Usuario;
 import back_end.Excepciones.PersistenciaException;
+import back_end.dao.LugarDAO;
 import java.awt.Dimension;
-import java.awt.Image;
+import java.util.Comparator;
+import java.util.List;
 import javax.swing.ImageIcon;
+import javax.swing.JLabel;
 
 /**
  *
  * @author Karol Saavedra
  */
-public class Lugares_inicio extends javax.swing.JFrame {
+public class Lugares_inicio extends javax.swing.JFrame implements Navegador.Refrescable {
     private Usuario usuarioActual; // Agregar este campo
     
     // Constructor que recibe el usuario
@@ -34,12 +40,71 @@ public class Lugares_inicio extends javax.swing.JFrame {
         redimensionarImagen("/icons/notificacion.png", notificaciones);
         redimensionarImagen("/icons/calendar_1.png", calendario);
         redimensionarImagen("/icons/trad.png", traduccion);
+        refrescar();
     }
+
+    @Override
+    public void refrescar() {
+        // La pantalla se reutiliza entre sesiones: tomar siempre el usuario actual
+        Usuario usuarioSesion = SessionManager.getInstance().getUsuarioActual();
+        if (usuarioSesion != null) {
+            usuarioActual = usuarioSesion;
+        }
+        configurarInterfazUsuario();
+        cargarLugares();
+    }
+
+    /**
+     * Lo que muestra cada tarjeta de lugar
+     */
+    private record TarjetaLugar(String nombre, double promedio, List<String> comentarios) {
+    }
+
+    /**
+     * Llena las tarjetas con los lugares mejor calificados. Solo se cargan
+     * las calificaciones de esos lugares, todas con una sola lectura; los
+     * juegos e inscritos no se cargan.
+     */
+    private void cargarLugares() {
+        DatosAsync.cargar(this, "lugares", () -> {
+            List<Lugar> lugares = LugarDAO.obtenerLugaresPorCalificacion();
+            List<Lugar> mostrados = lugares.subList(0, Math.min(3, lugares.size()));
+            Lugar.precargarCalificaciones(mostrados);
+            return mostrados.stream().map(lugar -> new TarjetaLugar(lugar.getNombre(),
+                    lugar.getCalificacionPromedio(), ultimosComentarios(lugar))).toList();
+        }, tarjetas -> {
+            JLabel[][] estrellas = {
+                {jLabel6, jLabel7, jLabel8, jLabel9, jLabel10},
+                {jLabel15, jLabel16, jLabel17, jLabel18, jLabel19},
+                {jLabel24, jLabel25, jLabel26, jLabel27, jLabel28}
+            };
+            JLabel[] nombres = {jLabel4, jLabel13, jLabel22};
+            JLabel[][] comentarios = {{jLabel11, jLabel12}, {jLabel20, jLabel21}, {jLabel29, jLabel30}};
+            for (int i = 0; i < tarjetas.size(); i++) {
+                TarjetaLugar tarjeta = tarjetas.get(i);
+                nombres[i].setText(tarjeta.nombre());
+                long llenas = Math.round(tarjeta.promedio());
+                for (int j = 0; j < estrellas[i].length; j++) {
+                    estrellas[i][j].setIcon(new ImageIcon(Iconos.original(j < llenas ? "/icons/Star_a.png" : "/icons/Star_g.png")));
+                }
+                for (int j = 0; j < comentarios[i].length; j++) {
+                    comentarios[i][j].setText(j < tarjeta.comentarios().size() ? tarjeta.comentarios().get(j) : "");
+                }
+            }
+        }, null);
+    }
+
+    private static List<String> ultimosComentarios(Lugar lugar) {
+        return lugar.obtenerCalificaciones().stream()
+                .filter(calificacion -> !calificacion.getComentario().isBlank())
+                .sorted(Comparator.comparing(Calificacion::getFecha).reversed())
+                .limit(2)
+                .map(Calificacion::getComentario)
+                .toList();
+    }
+
     private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(40, 40));
         label.setSize(40, 40);
     }
@@ -684,9 +749,7 @@ public class Lugares_inicio extends javax.swing.JFrame {
 
     private void Regístrarse_1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_Regístrarse_1ActionPerformed
         // TODO add your handling code here:
-        Registro_lugares ventana = new Registro_lugares();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Registro_lugares.class);
     }//GEN-LAST:event_Regístrarse_1ActionPerformed
 
     private void jTextField1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jTextField1ActionPerformed
@@ -695,23 +758,17 @@ public class Lugares_inicio extends javax.swing.JFrame {
 
     private void darse_baja1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_darse_baja1ActionPerformed
         // TODO add your handling code here:
-        Darse_baja ventana = new Darse_baja();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Darse_baja.class);
     }//GEN-LAST:event_darse_baja1ActionPerformed
 
     private void Regístrarse_2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_Regístrarse_2ActionPerformed
         // TODO add your handling code here:
-        Registro_lugares ventana = new Registro_lugares();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Registro_lugares.class);
     }//GEN-LAST:event_Regístrarse_2ActionPerformed
 
     private void darse_baja2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_darse_baja2ActionPerformed
         // TODO add your handling code here:
-        Darse_baja ventana = new Darse_baja();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Darse_baja.class);
     }//GEN-LAST:event_darse_baja2ActionPerformed
 
     private void jTextField2ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jTextField2ActionPerformed
@@ -720,16 +777,12 @@ public class Lugares_inicio extends javax.swing.JFrame {
 
     private void Regístrarse_3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_Regístrarse_3ActionPerformed
         // TODO add your handling code here:
-        Registro_lugares ventana = new Registro_lugares();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Registro_lugares.class);
     }//GEN-LAST:event_Regístrarse_3ActionPerformed
 
     private void darse_baja3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_darse_baja3ActionPerformed
         // TODO add your handling code here:
-        Darse_baja ventana = new Darse_baja();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Darse_baja.class);
     }//GEN-LAST:event_darse_baja3ActionPerformed
 
     private void jTextField3ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jTextField3ActionPerformed
@@ -738,44 +791,32 @@ public class Lugares_inicio extends javax.swing.JFrame {
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Calendario ventana = new Calendario();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Calendario.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-                ventana.setVisible(true);
-                this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void ranking1MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_ranking1MouseClicked
         // TODO add your handling code here:
-        Ranking ventana = new Ranking();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Ranking.class);
     }//GEN-LAST:event_ranking1MouseClicked
 
     /**
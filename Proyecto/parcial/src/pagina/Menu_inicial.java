@@ -4,16 +4,12 @@
  */
 package pagina;
 
-import java.awt.Graphics;
-import java.awt.Image;
-import javax.swing.ImageIcon;
-import javax.swing.JPanel;
 
 
 public class Menu_inicial extends javax.swing.JFrame {
 
   
-    FondoPanel fondo=new FondoPanel();
+    PanelFondo fondo = new PanelFondo("/icons/UNABet++.png");
     public Menu_inicial() {
         this.setContentPane(fondo);
         initComponents();
@@ -90,45 +86,15 @@ public class Menu_inicial extends javax.swing.JFrame {
 
     private void exitActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_exitActionPerformed
         // TODO add your handling code here:
-        Login_1 ventana = new Login_1();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Login_1.class);
     }//GEN-LAST:event_exitActionPerformed
 
     /**
      * @param args the command line arguments
      */
     public static void main(String args[]) {
-        /* Set the Nimbus look and feel */
-        //<editor-fold defaultstate="collapsed" desc=" Look and feel setting code (optional) ">
-        /* If Nimbus (introduced in Java SE 6) is not available, stay with the default look and feel.
-         * For details see http://download.oracle.com/javase/tutorial/uiswing/lookandfeel/plaf.html 
-         */
-        try {
-            for (javax.swing.UIManager.LookAndFeelInfo info : javax.swing.UIManager.getInstalledLookAndFeels()) {
-                if ("Nimbus".equals(info.getName())) {
-                    javax.swing.UIManager.setLookAndFeel(info.getClassName());
-                    break;
-                }
-            }
-        } catch (ClassNotFoundException ex) {
-            java.util.logging.Logger.getLogger(Menu_inicial.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
-        } catch (InstantiationException ex) {
-            java.util.logging.Logger.getLogger(Menu_inicial.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
-        } catch (IllegalAccessException ex) {
-            java.util.logging.Logger.getLogger(Menu_inicial.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
-        } catch (javax.swing.UnsupportedLookAndFeelException ex) {
-            java.util.logging.Logger.getLogger(Menu_inicial.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
-        }
-        //</editor-fold>
-        //</editor-fold>
-
-        /* Create and display the form */
-        java.awt.EventQueue.invokeLater(new Runnable() {
-            public void run() {
-                new Menu_inicial().setVisible(true);
-            }
-        });
+        // Splash, precarga en paralelo y tiempos por fase: ver Arranque
+        Arranque.iniciar();
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
@@ -136,17 +102,4 @@ public class Menu_inicial extends javax.swing.JFrame {
     private javax.swing.JLabel jLabel1;
     private javax.swing.JPanel jPanel1;
     // End of variables declaration//GEN-END:variables
-    class FondoPanel extends JPanel
-    {
-        private Image imagen;
-        @Override
-        public void paint(Graphics g)
-        {
-            imagen=new ImageIcon(getClass().getResource("/icons/UNABet++.png")).getImage();
-            g.drawImage(imagen,0,0,getWidth(),getHeight(),this);
-            setOpaque(false);
-            super.paint(g);
-        }
-    }
 }
-
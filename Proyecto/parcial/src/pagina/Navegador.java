@@ -0,0 +1,124 @@
+package pagina;
+
+import java.awt.Point;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import javax.swing.JFrame;
+
+/**
+ * Controlador de navegación entre pantallas.
+ *
+ * Cada pantalla se construye una sola vez, la primera vez que se visita, y
+ * después se reutiliza: cambiar de pantalla solo muestra la destino en la
+ * posición de la actual y oculta la actual, como las tarjetas de un
+ * CardLayout. Al volver a una pantalla ya construida se llama a su
+ * refrescar() para que recargue únicamente sus datos.
+ *
+ * Solo debe usarse desde el hilo de eventos de Swing.
+ */
+final class Navegador {
+
+    /**
+     * Pantalla que recarga sus datos cada vez que se vuelve a mostrar
+     */
+    interface Refrescable {
+
+        void refrescar();
+    }
+
+    private static final Map<Class<? extends JFrame>, Supplier<? extends JFrame>> FABRICAS = new HashMap<>();
+    private static final Map<Class<? extends JFrame>, JFrame> pantallas = new HashMap<>();
+
+    static {
+        FABRICAS.put(Menu_inicial.class, Menu_inicial::new);
+        FABRICAS.put(Login_1.class, Login_1::new);
+        FABRICAS.put(Registrarse.class, Registrarse::new);
+        FABRICAS.put(Lugares_inicio.class, Lugares_inicio::new);
+        FABRICAS.put(Registro_lugares.class, Registro_lugares::new);
+        FABRICAS.put(Darse_baja.class, Darse_baja::new);
+        FABRICAS.put(Perfil.class, Perfil::new);
+        FABRICAS.put(Perfil_ED.class, Perfil_ED::new);
+        FABRICAS.put(Notificaciones.class, Notificaciones::new);
+        FABRICAS.put(Calendario.class, Calendario::new);
+        FABRICAS.put(Historial.class, Historial::new);
+        FABRICAS.put(Ranking.class, Ranking::new);
+        FABRICAS.put(Traduccion.class, Traduccion::new);
+    }
+
+    private Navegador() {
+    }
+
+    /**
+     * Muestra la pantalla indicada en lugar de la de origen
+     *
+     * @param origen pantalla visible actualmente; puede ser null al iniciar
+     * @param destino clase de la pantalla a mostrar
+     * @return la pantalla mostrada
+     */
+    static <T extends JFrame> T ir(JFrame origen, Class<T> destino) {
+        Point posicion = origen != null && origen.isShowing() ? origen.getLocation() : null;
+        adoptar(origen);
+
+        T pantalla = destino.cast(pantallas.get(destino));
+        if (pantalla == null) {
+            pantalla = construir(destino);
+        } else if (pantalla instanceof Refrescable refrescable) {
+            refrescable.refrescar();
+        }
+
+        if (pantalla != origen) {
+            if (posicion != null) {
+                pantalla.setLocation(posicion);
+            }
+            pantalla.setVisible(true);
+            pantalla.toFront();
+            if (origen != null) {
+                origen.setVisible(false);
+            }
+        }
+        return pantalla;
+    }
+
+    /**
+     * Construye la pantalla sin mostrarla, para que la primera visita sea
+     * inmediata
+     */
+    static void precargar(Class<? extends JFrame> tipo) {
+        if (!pantallas.containsKey(tipo)) {
+            construir(tipo);
+        }
+    }
+
+    /**
+     * Pantallas que el navegador sabe construir
+     */
+    static Set<Class<? extends JFrame>> registradas() {
+        return Collections.unmodifiableSet(FABRICAS.keySet());
+    }
+
+    private static <T extends JFrame> T construir(Class<T> tipo) {
+        Supplier<? extends JFrame> fabrica = FABRICAS.get(tipo);
+        if (fabrica == null) {
+            throw new IllegalArgumentException("Pantalla no registrada: " + tipo.getSimpleName());
+        }
+        T pantalla = tipo.cast(fabrica.get());
+        pantallas.put(tipo, pantalla);
+        return pantalla;
+    }
+
+    private static void adoptar(JFrame origen) {
+        // Una pantalla creada fuera del navegador (por ejemplo desde su propio
+        // main) pasa a ser la instancia reutilizable de su clase
+        if (origen == null || !FABRICAS.containsKey(origen.getClass())) {
+            return;
+        }
+        JFrame existente = pantallas.putIfAbsent(origen.getClass(), origen);
+        if (existente != null && existente != origen) {
+            origen.setVisible(false);
+            origen.dispose();
+        }
+    }
+}
@@ -4,22 +4,24 @@
  */
 package pagina;
 
+import back_end.Classes.SessionManager;
+import back_end.Classes.Usuario;
+import back_end.notificaciones.AlmacenNotificaciones;
+import back_end.notificaciones.Notificacion;
+import back_end.notificaciones.PaginaNotificaciones;
 import java.awt.Dimension;
-import java.awt.Graphics;
-import java.awt.Image;
-import javax.swing.ImageIcon;
-import javax.swing.JPanel;
+import java.util.List;
 
 /**
  *
  * @author Karol Saavedra
  */
-public class Notificaciones extends javax.swing.JFrame {
+public class Notificaciones extends javax.swing.JFrame implements Navegador.Refrescable {
 
     /**
      * Creates new form Notificaciones
      */
-    FondoPanel fondo=new FondoPanel();
+    PanelFondo fondo = new PanelFondo("/icons/notificaciones_fondo.png");
     public Notificaciones() {
         this.setContentPane(fondo);
         initComponents();
@@ -28,12 +30,57 @@ public class Notificaciones extends javax.swing.JFrame {
         redimensionarImagen("/icons/notificacion.png", notificaciones);
         redimensionarImagen("/icons/calendar_1.png", calendario);
         redimensionarImagen("/icons/trad.png", traduccion);
+        cargarNotificaciones();
+    }
+
+    @Override
+    public void refrescar() {
+        cargarNotificaciones();
+    }
+
+    private void cargarNotificaciones() {
+        // Sin sesión se dejan los avisos generales del diseño
+        Usuario usuario = SessionManager.getInstance().getUsuarioActual();
+        if (usuario == null) {
+            return;
+        }
+        String id = usuario.getId();
+        DatosAsync.cargar(this, "notificaciones", () -> AlmacenNotificaciones.getInstance().pagina(id, 0, 4),
+                pagina -> mostrarNotificaciones(id, pagina),
+                e -> System.err.println("Error al cargar las notificaciones: " + e.getMessage()));
+    }
+
+    private void mostrarNotificaciones(String usuarioId, PaginaNotificaciones pagina) {
+        javax.swing.JLabel[] textos = {jLabel6, jLabel7, jLabel8, jLabel9};
+        javax.swing.JLabel[] fichas = {jLabel3, jLabel4, jLabel5, jLabel2};
+        List<Notificacion> notificaciones = pagina.notificaciones();
+        for (int i = 0; i < textos.length; i++) {
+            boolean hay = i < notificaciones.size();
+            fichas[i].setVisible(hay || i == 0);
+            textos[i].setVisible(hay || i == 0);
+            if (hay) {
+                Notificacion notificacion = notificaciones.get(i);
+                boolean nueva = notificacion.id() > pagina.leidasHasta();
+                textos[i].setText((nueva ? "\u2022 " : "") + notificacion.titulo());
+                textos[i].setToolTipText(notificacion.mensaje());
+            }
+        }
+        if (notificaciones.isEmpty()) {
+            textos[0].setText("No tienes notificaciones");
+            textos[0].setToolTipText(null);
+            return;
+        }
+        // Al mostrarlas quedan leídas
+        long ultima = notificaciones.get(0).id();
+        if (pagina.noLeidas() > 0) {
+            DatosAsync.escribir(() -> {
+                AlmacenNotificaciones.getInstance().marcarLeidas(usuarioId, ultima);
+                return null;
+            });
+        }
     }
         private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(50, 50));
         label.setSize(50, 50);
     }
@@ -239,37 +286,27 @@ public class Notificaciones extends javax.swing.JFrame {
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Calendario ventana = new Calendario();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Calendario.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     /**
@@ -325,16 +362,4 @@ public class Notificaciones extends javax.swing.JFrame {
     private javax.swing.JLabel traduccion;
     private javax.swing.JLabel usuario_im;
     // End of variables declaration//GEN-END:variables
-class FondoPanel extends JPanel
-    {
-        private Image imagen;
-        @Override
-        public void paint(Graphics g)
-        {
-            imagen=new ImageIcon(getClass().getResource("/icons/notificaciones_fondo.png")).getImage();
-            g.drawImage(imagen,0,0,getWidth(),getHeight(),this);
-            setOpaque(false);
-            super.paint(g);
-        }
-    }
 }
@@ -0,0 +1,96 @@
+package pagina;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import javax.swing.JPanel;
+
+/**
+ * Panel que pinta una imagen de fondo estirada a su tamaño.
+ *
+ * La imagen se decodifica una sola vez (a través de Iconos) y se guarda ya
+ * escalada en una imagen compatible con la pantalla, que Java2D puede
+ * mantener en memoria de video. Solo se vuelve a escalar cuando el panel
+ * cambia de tamaño; cada repintado es una copia directa.
+ */
+class PanelFondo extends JPanel {
+
+    private static final Color COLOR_RESPALDO = new Color(240, 240, 240);
+
+    private final String rutaImagen;
+    private BufferedImage original;
+    private boolean sinImagen;
+    private BufferedImage escalada;
+
+    PanelFondo(String rutaImagen) {
+        this.rutaImagen = rutaImagen;
+        setBackground(COLOR_RESPALDO);
+        setOpaque(true);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        int ancho = getWidth();
+        int alto = getHeight();
+        if (ancho <= 0 || alto <= 0) {
+            return;
+        }
+        BufferedImage fondo = obtenerEscalada(ancho, alto);
+        if (fondo != null) {
+            g.drawImage(fondo, 0, 0, null);
+        } else {
+            // Si no se encuentra la imagen, usar fondo sólido
+            super.paintComponent(g);
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        // La configuración gráfica puede cambiar al mover la ventana de pantalla
+        escalada = null;
+    }
+
+    private BufferedImage obtenerEscalada(int ancho, int alto) {
+        if (escalada != null && escalada.getWidth() == ancho && escalada.getHeight() == alto) {
+            return escalada;
+        }
+        BufferedImage imagen = obtenerOriginal();
+        if (imagen == null) {
+            return null;
+        }
+        escalada = crearCompatible(ancho, alto);
+        Graphics2D g = escalada.createGraphics();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, ancho, alto);
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(imagen, 0, 0, ancho, alto, null);
+        g.dispose();
+        return escalada;
+    }
+
+    private BufferedImage obtenerOriginal() {
+        if (original == null && !sinImagen) {
+            try {
+                original = Iconos.original(rutaImagen);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Error al cargar el fondo " + rutaImagen + ": " + e.getMessage());
+                sinImagen = true;
+            }
+        }
+        return original;
+    }
+
+    private BufferedImage crearCompatible(int ancho, int alto) {
+        GraphicsConfiguration configuracion = getGraphicsConfiguration();
+        if (configuracion != null) {
+            return configuracion.createCompatibleImage(ancho, alto, Transparency.OPAQUE);
+        }
+        return new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB);
+    }
+}
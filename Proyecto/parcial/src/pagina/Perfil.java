@@ -6,17 +6,13 @@ package pagina;
 
 import back_end.Classes.SessionManager;
 import back_end.Classes.Usuario;
-import back_end.Excepciones.PersistenciaException;
 import java.awt.Dimension;
-import java.awt.Image;
-import javax.swing.ImageIcon;
-import javax.swing.JOptionPane;
 
 /**
  *
  * @author Karol Saavedra
  */
-public class Perfil extends javax.swing.JFrame {
+public class Perfil extends javax.swing.JFrame implements Navegador.Refrescable {
 
     private Usuario usuarioActual;
 
@@ -37,36 +33,38 @@ public class Perfil extends javax.swing.JFrame {
         this();
         this.usuarioActual = usuario;
         mostrarInformacionUsuario();
+        refrescarUsuario();
+    }
+
+    @Override
+    public void refrescar() {
+        // Al volver al perfil se relee el usuario de la sesión y su saldo
+        cargarInformacionUsuario();
     }
 
     private void cargarInformacionUsuario() {
-        try {
-            // Intentar obtener el usuario de la sesión actual
-            usuarioActual = SessionManager.getInstance().getUsuarioActual();
-            
-            if (usuarioActual == null) {
-                // Si no hay usuario en sesión, intentar obtener el primero de la lista
-                var usuarios = Usuario.obtenerTodos();
-                if (!usuarios.isEmpty()) {
-                    usuarioActual = usuarios.get(0); // Usar el primer usuario como ejemplo
-                    SessionManager.getInstance().setUsuarioActual(usuarioActual);
-                }
-            }
-            
-            if (usuarioActual != null) {
-                mostrarInformacionUsuario();
-            } else {
-                mostrarInformacionPorDefecto();
-            }
-        } catch (PersistenciaException e) {
-            JOptionPane.showMessageDialog(this, 
-                "Error al cargar la información del usuario: " + e.getMessage(),
-                "Error", 
-                JOptionPane.ERROR_MESSAGE);
+        // Obtener el usuario de la sesión actual; sin sesión no se muestra ningún perfil
+        usuarioActual = SessionManager.getInstance().getUsuarioActual();
+
+        if (usuarioActual != null) {
+            mostrarInformacionUsuario();
+            refrescarUsuario();
+        } else {
             mostrarInformacionPorDefecto();
         }
     }
     
+    private void refrescarUsuario() {
+        // Releer el usuario (saldo actualizado) sin bloquear la ventana
+        String id = usuarioActual.getId();
+        DatosAsync.cargar(this, "perfil", () -> Usuario.buscarPorId(id), usuario -> {
+            if (usuario != null) {
+                usuarioActual = usuario;
+                mostrarInformacionUsuario();
+            }
+        }, e -> System.err.println("Error al actualizar el perfil: " + e.getMessage()));
+    }
+    
     private void mostrarInformacionUsuario() {
         if (usuarioActual != null) {
             // Mostrar nombre completo
@@ -101,10 +99,7 @@ public class Perfil extends javax.swing.JFrame {
     
     
     private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(50, 50));
         label.setSize(50, 50);
     }
@@ -358,43 +353,31 @@ public class Perfil extends javax.swing.JFrame {
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Calendario ventana = new Calendario();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Calendario.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     private void jLabel4MouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_jLabel4MouseClicked
-        Perfil_ED ventana = new Perfil_ED();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil_ED.class);
     }//GEN-LAST:event_jLabel4MouseClicked
 
     /**
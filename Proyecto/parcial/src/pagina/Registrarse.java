@@ -6,15 +6,11 @@ package pagina;
 
 import back_end.Classes.Usuario;
 import back_end.Excepciones.PersistenciaException;
-import java.awt.Graphics;
-import java.awt.Image;
-import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
-import javax.swing.JPanel;
 
-public class Registrarse extends javax.swing.JFrame {
+public class Registrarse extends javax.swing.JFrame implements Navegador.Refrescable {
 
-    FondoPanel fondo = new FondoPanel();
+    PanelFondo fondo = new PanelFondo("/icons/fondo_login.png");
 
     public Registrarse() {
         this.setContentPane(fondo);
@@ -292,32 +288,34 @@ public class Registrarse extends javax.swing.JFrame {
     
     private void crearUsuario(String uidTexto, String nombreTexto, String apellidoTexto, 
                              String correoTexto, String contraseña, String carreraTexto, int semestreInt) {
-        try {
+        // El registro cifra la contraseña y escribe el archivo: se hace en segundo plano
+        DatosAsync.escribir(this, "registro", () -> {
             // Crear instancia del usuario
             Usuario nuevoUsuario = new Usuario(uidTexto, nombreTexto, apellidoTexto, 
                                              correoTexto, contraseña, carreraTexto, semestreInt);
 
             // Intentar registrar el usuario (esto ejecuta todas las validaciones del backend)
-            boolean registroExitoso = nuevoUsuario.registrarse(nombreTexto, apellidoTexto, 
-                                                              correoTexto, contraseña, carreraTexto, semestreInt);
-
+            return nuevoUsuario.registrarse(nombreTexto, apellidoTexto, 
+                                            correoTexto, contraseña, carreraTexto, semestreInt);
+        }, registroExitoso -> {
             if (registroExitoso) {
                 mostrarExito();
             } else {
                 mostrarError("No se pudo completar el registro. Intente nuevamente.");
             }
-
-        } catch (IllegalArgumentException e) {
-            // Errores de validación específicos del backend
-            mostrarAdvertencia(e.getMessage());
-            enfocarCampoSegunError(e.getMessage());
-        } catch (PersistenciaException e) {
-            // Errores de persistencia de datos
-            mostrarError("Error al guardar los datos: " + e.getMessage());
-        } catch (Exception e) {
-            // Otros errores no previstos
-            mostrarError("Error del sistema: " + e.getMessage());
-        }
+        }, e -> {
+            if (e instanceof IllegalArgumentException) {
+                // Errores de validación específicos del backend
+                mostrarAdvertencia(e.getMessage());
+                enfocarCampoSegunError(e.getMessage());
+            } else if (e instanceof PersistenciaException) {
+                // Errores de persistencia de datos
+                mostrarError("Error al guardar los datos: " + e.getMessage());
+            } else {
+                // Otros errores no previstos
+                mostrarError("Error del sistema: " + e.getMessage());
+            }
+        });
     }
     
     private void enfocarCampoSegunError(String mensajeError) {
@@ -353,9 +351,7 @@ public class Registrarse extends javax.swing.JFrame {
         // Redirigir al login después de un breve delay
         javax.swing.Timer timer = new javax.swing.Timer(1500, e -> {
             try {
-                Login_1 ventanaLogin = new Login_1();
-                ventanaLogin.setVisible(true);
-                this.dispose();
+                Navegador.ir(this, Login_1.class);
             } catch (Exception ex) {
                 mostrarError("Error al cargar la ventana de login: " + ex.getMessage());
             }
@@ -364,6 +360,11 @@ public class Registrarse extends javax.swing.JFrame {
         timer.start();
     }
     
+    @Override
+    public void refrescar() {
+        limpiarFormulario();
+    }
+
     private void limpiarFormulario() {
         correo_.setText("");
         cree_contraseña.setText("");
@@ -459,22 +460,4 @@ public class Registrarse extends javax.swing.JFrame {
     private javax.swing.JTextField semestre;
     private javax.swing.JTextField uid;
     // End of variables declaration//GEN-END:variables
-    class FondoPanel extends JPanel {
-        private Image imagen;
-
-        @Override
-        public void paint(Graphics g) {
-            try {
-                imagen = new ImageIcon(getClass().getResource("/icons/fondo_login.png")).getImage();
-                g.drawImage(imagen, 0, 0, getWidth(), getHeight(), this);
-                setOpaque(false);
-                super.paint(g);
-            } catch (Exception e) {
-                // Si no se encuentra la imagen, usar fondo sólido
-                setBackground(new java.awt.Color(240, 240, 240));
-                setOpaque(true);
-                super.paint(g);
-            }
-        }
-    }
 }
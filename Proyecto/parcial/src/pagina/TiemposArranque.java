@@ -0,0 +1,89 @@
+package pagina;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registro de tiempos del arranque de la aplicación.
+ *
+ * Las fases del hilo principal se marcan en orden con marcar(): cada una
+ * mide desde la marca anterior. Las tareas de fondo, que corren en
+ * paralelo, se registran con su propia duración usando medir(). La
+ * primera fase ("jvm") va desde que arrancó el proceso hasta main.
+ */
+final class TiemposArranque {
+
+    private static final long INICIO_NANOS = System.nanoTime();
+    private static final long PROCESO_MILLIS = milisDesdeInicioProceso();
+
+    private static final List<String> fases = new ArrayList<>();
+    private static final List<Long> duraciones = new ArrayList<>();
+    private static final List<String> tareas = new ArrayList<>();
+    private static final List<Long> duracionesTareas = new ArrayList<>();
+    private static long ultimaMarca = INICIO_NANOS;
+
+    private TiemposArranque() {
+    }
+
+    /**
+     * Cierra una fase del arranque
+     */
+    static synchronized void marcar(String fase) {
+        long ahora = System.nanoTime();
+        fases.add(fase);
+        duraciones.add(ahora - ultimaMarca);
+        ultimaMarca = ahora;
+    }
+
+    /**
+     * Ejecuta y registra una tarea de fondo
+     */
+    static void medir(String tarea, Runnable accion) {
+        long inicio = System.nanoTime();
+        try {
+            accion.run();
+        } finally {
+            registrarTarea(tarea, System.nanoTime() - inicio);
+        }
+    }
+
+    /**
+     * Milisegundos desde el inicio del proceso hasta la última marca
+     */
+    static synchronized long totalMillis() {
+        return Math.max(0, PROCESO_MILLIS) + TimeUnit.NANOSECONDS.toMillis(ultimaMarca - INICIO_NANOS);
+    }
+
+    static synchronized String reporte() {
+        StringBuilder sb = new StringBuilder("=== Tiempos de arranque ===\n");
+        if (PROCESO_MILLIS >= 0) {
+            sb.append(String.format("  %-22s %6d ms%n", "jvm", PROCESO_MILLIS));
+        }
+        for (int i = 0; i < fases.size(); i++) {
+            sb.append(String.format("  %-22s %6d ms%n", fases.get(i), TimeUnit.NANOSECONDS.toMillis(duraciones.get(i))));
+        }
+        sb.append(String.format("  %-22s %6d ms%n", "total", totalMillis()));
+        if (!tareas.isEmpty()) {
+            sb.append("  En paralelo:\n");
+            for (int i = 0; i < tareas.size(); i++) {
+                sb.append(String.format("    %-20s %6d ms%n", tareas.get(i), TimeUnit.NANOSECONDS.toMillis(duracionesTareas.get(i))));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static synchronized void registrarTarea(String tarea, long nanos) {
+        tareas.add(tarea);
+        duracionesTareas.add(nanos);
+    }
+
+    private static long milisDesdeInicioProceso() {
+        // -1 si el sistema operativo no informa el inicio del proceso
+        return ProcessHandle.current().info().startInstant()
+                .map(inicio -> Duration.between(inicio, Instant.now()).toMillis())
+                .orElse(-1L);
+    }
+}
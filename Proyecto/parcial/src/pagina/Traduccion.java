@@ -4,16 +4,30 @@
  */
 package pagina;
 
+import back_end.chat.AlmacenChat;
+import back_end.chat.Mensaje;
+import back_end.chat.PaginaMensajes;
+import back_end.Classes.SessionManager;
+import back_end.Classes.Usuario;
+import back_end.eventos.Evento;
+import back_end.eventos.Suscripcion;
+import back_end.traduccion.ServicioTraduccion;
 import java.awt.Dimension;
-import java.awt.Image;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import javax.swing.BorderFactory;
-import javax.swing.ImageIcon;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 /**
  *
  * @author Karol Saavedra
  */
-public class Traduccion extends javax.swing.JFrame {
+public class Traduccion extends javax.swing.JFrame implements Navegador.Refrescable {
 
     /**
      * Creates new form Traduccion
@@ -26,13 +40,206 @@ public class Traduccion extends javax.swing.JFrame {
         redimensionarImagen("/icons/calendar_1.png", calendario);
         redimensionarImagen("/icons/trad.png", traduccion); 
         chat.setBorder(BorderFactory.createLineBorder(chat.getBackground(), 10, true));
-       
+        // Idioma en que se muestran los mensajes; se escriben en español
+        jComboBox1.setModel(new javax.swing.DefaultComboBoxModel<>(NOMBRES_IDIOMAS));
+        jComboBox1.addActionListener(evt -> pintarBurbujas());
+        // La rueda sobre el chat recorre el historial de a un mensaje
+        jPanel4.addMouseWheelListener(evt -> desplazar(evt.getWheelRotation()));
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                suscripcion.close();
+            }
+        });
+        suscripcion = AlmacenChat.getInstance().suscribir(conversacionId, null, 64);
+        Thread.ofVirtual().name("chat-traduccion").start(this::escucharMensajes);
+        cargarMensajes();
+    }
+
+    private static final int VISIBLES = 2;
+    private static final int LARGO_BURBUJA = 40;
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("dd/MM HH:mm");
+    private static final String IDIOMA_CHAT = "es";
+    private static final String[] NOMBRES_IDIOMAS = {"Español", "English"};
+    private static final String[] CODIGOS_IDIOMAS = {"es", "en"};
+
+    private final String conversacionId = AlmacenChat.GENERAL;
+    private final Suscripcion suscripcion;
+    // Mensajes en pantalla, del más viejo al más nuevo
+    private final List<Mensaje> visibles = new ArrayList<>();
+    // Cursor de la ventana mostrada; 0 sigue a los más recientes
+    private long antesDe;
+    private long ultimoConocido;
+
+    @Override
+    public void refrescar() {
+        antesDe = 0;
+        cargarMensajes();
+    }
+
+    /**
+     * Carga solo los mensajes que caben en las burbujas
+     */
+    private void cargarMensajes() {
+        long cursor = antesDe;
+        DatosAsync.cargar(this, "mensajes", () -> AlmacenChat.getInstance().anteriores(conversacionId, cursor, VISIBLES),
+                this::mostrarMensajes,
+                e -> System.err.println("Error al cargar el chat: " + e.getMessage()));
+    }
+
+    private void mostrarMensajes(PaginaMensajes pagina) {
+        visibles.clear();
+        visibles.addAll(pagina.mensajes());
+        if (antesDe == 0 && !visibles.isEmpty()) {
+            ultimoConocido = Math.max(ultimoConocido, visibles.get(visibles.size() - 1).id());
+        }
+        pintarBurbujas();
+    }
+
+    /**
+     * Arriba el mensaje anterior, abajo el más nuevo de la ventana. Si se
+     * eligió otro idioma se pintan primero los originales y luego las
+     * traducciones, que salen del caché o de un solo lote.
+     */
+    private void pintarBurbujas() {
+        List<Mensaje> mensajes = List.copyOf(visibles);
+        pintarBurbujas(mensajes, null);
+        String destino = CODIGOS_IDIOMAS[Math.max(0, jComboBox1.getSelectedIndex())];
+        if (mensajes.isEmpty() || destino.equals(IDIOMA_CHAT)) {
+            return;
+        }
+        List<String> textos = mensajes.stream().map(Mensaje::texto).toList();
+        DatosAsync.cargar(this, "traduccion",
+                () -> ServicioTraduccion.getInstance().traducirTodos(textos, IDIOMA_CHAT, destino).join(),
+                traducciones -> pintarBurbujas(mensajes, traducciones),
+                e -> System.err.println("Error al traducir el chat: " + e.getMessage()));
+    }
+
+    private void pintarBurbujas(List<Mensaje> mensajes, List<String> traducciones) {
+        int ultimo = mensajes.size() - 1;
+        jPanel5.setVisible(mensajes.size() > 1);
+        if (mensajes.size() > 1) {
+            pintarBurbuja(jLabel3, mensajes.get(ultimo - 1), traducciones != null ? traducciones.get(ultimo - 1) : null);
+        }
+        if (mensajes.isEmpty()) {
+            jLabel2.setText("Sin mensajes");
+            jLabel2.setToolTipText(null);
+        } else {
+            pintarBurbuja(jLabel2, mensajes.get(ultimo), traducciones != null ? traducciones.get(ultimo) : null);
+        }
+    }
+
+    /**
+     * @param traduccion texto a mostrar en lugar del original, o null
+     */
+    private static void pintarBurbuja(javax.swing.JLabel burbuja, Mensaje mensaje, String traduccion) {
+        String mostrado = traduccion != null ? traduccion : mensaje.texto();
+        String texto = mostrado.length() > LARGO_BURBUJA
+                ? mostrado.substring(0, LARGO_BURBUJA) + "\u2026" : mostrado;
+        String hora = HORA.format(Instant.ofEpochMilli(mensaje.fechaMillis()).atZone(ZoneId.systemDefault()));
+        burbuja.setText("<html><b>" + html(mensaje.autorNombre()) + "</b><br>" + html(texto) + "</html>");
+        burbuja.setToolTipText("<html><b>" + html(mensaje.autorNombre()) + "</b> " + hora + "<br>" + html(mostrado)
+                + (traduccion != null ? "<br><i>" + html(mensaje.texto()) + "</i>" : "") + "</html>");
+    }
+
+    private static String html(String texto) {
+        return texto.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    /**
+     * Mueve la ventana hacia mensajes más viejos (rotación negativa) o más
+     * nuevos
+     */
+    private void desplazar(int rotacion) {
+        if (visibles.isEmpty() || rotacion == 0) {
+            return;
+        }
+        long primero = visibles.get(0).id();
+        long ultimo = visibles.get(visibles.size() - 1).id();
+        if (rotacion < 0) {
+            if (primero <= 1) {
+                return;
+            }
+            antesDe = ultimo;
+        } else {
+            if (antesDe == 0) {
+                return;
+            }
+            antesDe = ultimo + 2 > ultimoConocido ? 0 : ultimo + 2;
+        }
+        cargarMensajes();
+    }
+
+    /**
+     * Recibe los mensajes nuevos de otras sesiones mientras exista la
+     * pantalla
+     */
+    private void escucharMensajes() {
+        try {
+            while (!suscripcion.estaCerrada()) {
+                Evento evento = suscripcion.siguiente(1, TimeUnit.MINUTES);
+                boolean perdidos = suscripcion.tomarDescartados() > 0;
+                if (evento != null || perdidos) {
+                    Mensaje mensaje = evento != null ? AlmacenChat.deEvento(evento) : null;
+                    SwingUtilities.invokeLater(() -> recibir(mensaje, perdidos));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void recibir(Mensaje mensaje, boolean perdidos) {
+        if (mensaje != null) {
+            ultimoConocido = Math.max(ultimoConocido, mensaje.id());
+        }
+        if (antesDe != 0) {
+            return; // Se está leyendo el historial: no mover la ventana
+        }
+        if (perdidos || mensaje == null) {
+            cargarMensajes();
+            return;
+        }
+        if (!visibles.isEmpty() && visibles.get(visibles.size() - 1).id() >= mensaje.id()) {
+            return; // Ya estaba en pantalla
+        }
+        visibles.add(mensaje);
+        while (visibles.size() > VISIBLES) {
+            visibles.remove(0);
+        }
+        pintarBurbujas();
+    }
+
+    private void enviarMensaje() {
+        Usuario usuario = SessionManager.getInstance().getUsuarioActual();
+        if (usuario == null) {
+            JOptionPane.showMessageDialog(this, "Inicia sesión para escribir en el chat", "Chat",
+                    JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        String texto = CajatexCH.getText();
+        if (texto.isBlank()) {
+            return;
+        }
+        if (texto.length() > AlmacenChat.LARGO_MAXIMO) {
+            JOptionPane.showMessageDialog(this, "El mensaje no puede superar " + AlmacenChat.LARGO_MAXIMO
+                    + " caracteres", "Chat", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        CajatexCH.setText("");
+        antesDe = 0;
+        // El mensaje se muestra cuando llega por la suscripción, igual que los de otras sesiones
+        DatosAsync.escribir(this, "enviar", () -> AlmacenChat.getInstance().enviar(conversacionId, usuario, texto),
+                mensaje -> {
+                },
+                e -> {
+                    CajatexCH.setText(texto);
+                    JOptionPane.showMessageDialog(this, "No se pudo enviar el mensaje: " + e.getMessage(), "Chat",
+                            JOptionPane.ERROR_MESSAGE);
+                });
     }
         private void redimensionarImagen(String rutaImagen, javax.swing.JLabel label) {
-        ImageIcon iconoOriginal = new ImageIcon(getClass().getResource(rutaImagen));
-        Image imagenEscalada = iconoOriginal.getImage().getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-        ImageIcon iconoRedimensionado = new ImageIcon(imagenEscalada);
-        label.setIcon(iconoRedimensionado);
+        label.setIcon(Iconos.escalado(rutaImagen, 50, 50));
         label.setPreferredSize(new Dimension(50, 50));
         label.setSize(50, 50);
     }
@@ -326,45 +533,37 @@ public class Traduccion extends javax.swing.JFrame {
 
     private void inicioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_inicioMouseClicked
         // TODO add your handling code here:
-        Lugares_inicio ventana = new Lugares_inicio();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Lugares_inicio.class);
     }//GEN-LAST:event_inicioMouseClicked
 
     private void notificacionesMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_notificacionesMouseClicked
         // TODO add your handling code here:
-        Notificaciones ventana = new Notificaciones();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Notificaciones.class);
     }//GEN-LAST:event_notificacionesMouseClicked
 
     private void usuario_imMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_usuario_imMouseClicked
         // TODO add your handling code here:
-        Perfil ventana = new Perfil();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Perfil.class);
     }//GEN-LAST:event_usuario_imMouseClicked
 
     private void calendarioMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_calendarioMouseClicked
         // TODO add your handling code here:
-        Calendario ventana = new Calendario();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Calendario.class);
     }//GEN-LAST:event_calendarioMouseClicked
 
     private void traduccionMouseClicked(java.awt.event.MouseEvent evt) {//GEN-FIRST:event_traduccionMouseClicked
         // TODO add your handling code here:
-        Traduccion ventana = new Traduccion();
-        ventana.setVisible(true);
-        this.dispose();
+        Navegador.ir(this, Traduccion.class);
     }//GEN-LAST:event_traduccionMouseClicked
 
     private void CajatexCHActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_CajatexCHActionPerformed
         // TODO add your handling code here:
+        enviarMensaje();
     }//GEN-LAST:event_CajatexCHActionPerformed
 
     private void jButton1ActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_jButton1ActionPerformed
         // TODO add your handling code here:
+        enviarMensaje();
     }//GEN-LAST:event_jButton1ActionPerformed
 
     /**
@@ -0,0 +1,258 @@
+package pagina;
+
+import back_end.configuracion.ConfiguracionAlmacenamiento;
+import back_end.metricas.RegistroMetricas;
+import java.awt.BorderLayout;
+import java.awt.FlowLayout;
+import java.awt.KeyboardFocusManager;
+import java.awt.event.KeyEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.JTextField;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Ventana de diagnóstico con las métricas de la aplicación.
+ *
+ * Se abre desde cualquier pantalla con Ctrl+Shift+D. Mientras está visible
+ * se actualiza cada segundo; permite filtrar por nombre y exportar las
+ * métricas en formato Prometheus. La pestaña Almacenamiento muestra la
+ * configuración en uso, de dónde salió cada valor y los problemas de la
+ * validación del arranque.
+ */
+final class VentanaDiagnostico extends JFrame {
+
+    private static VentanaDiagnostico instancia;
+
+    private final ModeloMetricas modelo = new ModeloMetricas();
+    private final ModeloConfiguracion configuracion = new ModeloConfiguracion();
+    private final JLabel estadoConfiguracion = new JLabel();
+    private final JTextField filtro = new JTextField(20);
+    private final Timer actualizacion = new Timer(1000, e -> actualizar());
+
+    private VentanaDiagnostico() {
+        super("Diagnóstico - UNABet");
+        setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        setSize(900, 500);
+
+        JTable tabla = new JTable(modelo);
+        tabla.setAutoCreateRowSorter(true);
+        tabla.getColumnModel().getColumn(0).setPreferredWidth(260);
+        tabla.getColumnModel().getColumn(1).setPreferredWidth(260);
+        tabla.getColumnModel().getColumn(2).setPreferredWidth(380);
+
+        JPanel superior = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        superior.add(new JLabel("Filtrar:"));
+        superior.add(filtro);
+        filtro.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                actualizar();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                actualizar();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                actualizar();
+            }
+        });
+
+        JButton exportar = new JButton("Exportar Prometheus...");
+        exportar.addActionListener(e -> exportar());
+        JPanel inferior = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        inferior.add(exportar);
+
+        JPanel metricas = new JPanel(new BorderLayout(0, 6));
+        metricas.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        metricas.add(superior, BorderLayout.NORTH);
+        metricas.add(new JScrollPane(tabla), BorderLayout.CENTER);
+        metricas.add(inferior, BorderLayout.SOUTH);
+
+        JTable tablaConfiguracion = new JTable(configuracion);
+        tablaConfiguracion.getColumnModel().getColumn(0).setPreferredWidth(260);
+        tablaConfiguracion.getColumnModel().getColumn(1).setPreferredWidth(480);
+        tablaConfiguracion.getColumnModel().getColumn(2).setPreferredWidth(100);
+        JPanel almacenamiento = new JPanel(new BorderLayout(0, 6));
+        almacenamiento.setBorder(BorderFactory.createEmptyBorder(8, 8, 8, 8));
+        almacenamiento.add(estadoConfiguracion, BorderLayout.NORTH);
+        almacenamiento.add(new JScrollPane(tablaConfiguracion), BorderLayout.CENTER);
+
+        JTabbedPane pestañas = new JTabbedPane();
+        pestañas.addTab("Métricas", metricas);
+        pestañas.addTab("Almacenamiento", almacenamiento);
+        setContentPane(pestañas);
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                actualizacion.stop();
+            }
+        });
+    }
+
+    /**
+     * Muestra la ventana (creándola la primera vez)
+     */
+    static void mostrar() {
+        if (instancia == null) {
+            instancia = new VentanaDiagnostico();
+            instancia.setLocationRelativeTo(null);
+        }
+        instancia.actualizar();
+        instancia.mostrarConfiguracion();
+        instancia.actualizacion.start();
+        instancia.setVisible(true);
+        instancia.toFront();
+    }
+
+    /**
+     * Registra el atajo Ctrl+Shift+D para todas las ventanas de la aplicación
+     */
+    static void instalarAtajo() {
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(e -> {
+            if (e.getID() == KeyEvent.KEY_PRESSED && e.getKeyCode() == KeyEvent.VK_D
+                    && e.isControlDown() && e.isShiftDown()) {
+                mostrar();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void actualizar() {
+        String texto = filtro.getText().trim().toLowerCase(Locale.ROOT);
+        List<RegistroMetricas.Muestra> muestras = RegistroMetricas.getInstance().instantanea();
+        if (!texto.isEmpty()) {
+            muestras.removeIf(m -> !(m.nombre() + m.etiquetas()).toLowerCase(Locale.ROOT).contains(texto));
+        }
+        modelo.setMuestras(muestras);
+    }
+
+    private void mostrarConfiguracion() {
+        ConfiguracionAlmacenamiento actual = ConfiguracionAlmacenamiento.getInstance();
+        String archivo = actual.getArchivoConfiguracion() != null ? actual.getArchivoConfiguracion() : "ninguno";
+        List<String> problemas = actual.getProblemas();
+        StringBuilder estado = new StringBuilder("<html>Archivo de configuración: ").append(escapar(archivo));
+        if (problemas.isEmpty()) {
+            estado.append("<br>Validación: sin problemas");
+        } else {
+            for (String problema : problemas) {
+                estado.append("<br><font color='red'>").append(escapar(problema)).append("</font>");
+            }
+        }
+        estadoConfiguracion.setText(estado.append("</html>").toString());
+        configuracion.setValores(actual.resumen());
+    }
+
+    private static String escapar(String texto) {
+        return texto.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private void exportar() {
+        JFileChooser selector = new JFileChooser();
+        selector.setSelectedFile(new File("metricas.prom"));
+        if (selector.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        try {
+            RegistroMetricas.getInstance().exportarPrometheus(selector.getSelectedFile().toPath());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "No se pudo exportar: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private static final class ModeloConfiguracion extends AbstractTableModel {
+
+        private static final String[] COLUMNAS = {"Clave", "Valor", "Origen"};
+
+        private List<ConfiguracionAlmacenamiento.Valor> valores = List.of();
+
+        void setValores(List<ConfiguracionAlmacenamiento.Valor> valores) {
+            this.valores = valores;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return valores.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNAS.length;
+        }
+
+        @Override
+        public String getColumnName(int columna) {
+            return COLUMNAS[columna];
+        }
+
+        @Override
+        public Object getValueAt(int fila, int columna) {
+            ConfiguracionAlmacenamiento.Valor valor = valores.get(fila);
+            return switch (columna) {
+                case 0 -> valor.clave();
+                case 1 -> valor.valor();
+                default -> valor.origen().name().toLowerCase(Locale.ROOT);
+            };
+        }
+    }
+
+    private static final class ModeloMetricas extends AbstractTableModel {
+
+        private static final String[] COLUMNAS = {"Métrica", "Etiquetas", "Valor"};
+
+        private List<RegistroMetricas.Muestra> muestras = List.of();
+
+        void setMuestras(List<RegistroMetricas.Muestra> muestras) {
+            this.muestras = muestras;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return muestras.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNAS.length;
+        }
+
+        @Override
+        public String getColumnName(int columna) {
+            return COLUMNAS[columna];
+        }
+
+        @Override
+        public Object getValueAt(int fila, int columna) {
+            RegistroMetricas.Muestra muestra = muestras.get(fila);
+            return switch (columna) {
+                case 0 -> muestra.nombre();
+                case 1 -> muestra.etiquetas();
+                default -> muestra.valor();
+            };
+        }
+    }
+}